@@ -5,17 +5,17 @@ import org.aspectj.lang.annotation.Before;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
-import ru.momo.monitoring.services.UserService;
-import ru.momo.monitoring.store.entities.User;
+import ru.momo.monitoring.security.AuthenticatedUser;
+import ru.momo.monitoring.security.UserPrincipalCache;
 
 @Aspect
 @Component
 public class UserConfirmedAspect {
 
-    private final UserService userService;
+    private final UserPrincipalCache userPrincipalCache;
 
-    public UserConfirmedAspect(UserService userService) {
-        this.userService = userService;
+    public UserConfirmedAspect(UserPrincipalCache userPrincipalCache) {
+        this.userPrincipalCache = userPrincipalCache;
     }
 
     @Before("@annotation(CheckUserActive)")
@@ -25,11 +25,13 @@ public class UserConfirmedAspect {
             throw new SecurityException("User not authenticated");
         }
 
-        User user = userService.getByEmail(authentication.getName());
+        AuthenticatedUser user = authentication.getPrincipal() instanceof AuthenticatedUser principal
+                ? principal
+                : userPrincipalCache.get(authentication.getName());
 
-        if (!user.getIsConfirmed()) {
+        if (!user.confirmed()) {
             throw new IllegalStateException("User is not confirmed");
         }
     }
 
-}
\ No newline at end of file
+}
@@ -4,6 +4,7 @@ import io.jsonwebtoken.ExpiredJwtException;
 import lombok.extern.slf4j.Slf4j;
 import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.AuthenticationException;
@@ -15,8 +16,11 @@ import ru.momo.monitoring.exceptions.AccessDeniedException;
 import ru.momo.monitoring.exceptions.EntityDuplicationException;
 import ru.momo.monitoring.exceptions.ErrorCodes;
 import ru.momo.monitoring.exceptions.ExceptionBody;
+import ru.momo.monitoring.exceptions.ReportJobRejectedException;
+import ru.momo.monitoring.exceptions.ReportNotReadyException;
 import ru.momo.monitoring.exceptions.ResourceNotFoundException;
 import ru.momo.monitoring.exceptions.SensorBadRequestException;
+import ru.momo.monitoring.exceptions.SensorDataIngestOverloadedException;
 import ru.momo.monitoring.exceptions.SensorNotCreatedException;
 import ru.momo.monitoring.exceptions.UserBadRequestException;
 
@@ -60,6 +64,42 @@ public class ControllerAdvice {
         return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(SensorDataIngestOverloadedException.class)
+    public ResponseEntity<ExceptionBody> handleSensorDataIngestOverloaded(SensorDataIngestOverloadedException e) {
+        log.warn("Sensor data ingest overloaded: {}", e.getMessage());
+        ExceptionBody body = new ExceptionBody(
+                HttpStatus.TOO_MANY_REQUESTS,
+                ErrorCodes.INGEST_OVERLOADED,
+                e.getMessage()
+        );
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(HttpHeaders.RETRY_AFTER, "1");
+        return new ResponseEntity<>(body, headers, HttpStatus.TOO_MANY_REQUESTS);
+    }
+
+    @ExceptionHandler(ReportJobRejectedException.class)
+    public ResponseEntity<ExceptionBody> handleReportJobRejected(ReportJobRejectedException e) {
+        log.warn("Report job rejected: {}", e.getMessage());
+        ExceptionBody body = new ExceptionBody(
+                HttpStatus.TOO_MANY_REQUESTS,
+                ErrorCodes.REPORT_JOBS_OVERLOADED,
+                e.getMessage()
+        );
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(HttpHeaders.RETRY_AFTER, "5");
+        return new ResponseEntity<>(body, headers, HttpStatus.TOO_MANY_REQUESTS);
+    }
+
+    @ExceptionHandler(ReportNotReadyException.class)
+    public ResponseEntity<ExceptionBody> handleReportNotReady(ReportNotReadyException e) {
+        ExceptionBody body = new ExceptionBody(
+                HttpStatus.CONFLICT,
+                ErrorCodes.REPORT_NOT_READY,
+                e.getMessage()
+        );
+        return new ResponseEntity<>(body, HttpStatus.CONFLICT);
+    }
+
     @ExceptionHandler(EntityDuplicationException.class)
     public ResponseEntity<ExceptionBody> handleEntityDuplicationException(EntityDuplicationException e) {
         log.warn("Entity duplication: {}", e.getMessage());
@@ -18,24 +18,30 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.momo.monitoring.annotations.CheckUserActive;
 import ru.momo.monitoring.exceptions.ExceptionBody;
+import ru.momo.monitoring.services.ReportJobService;
 import ru.momo.monitoring.services.ReportService;
 import ru.momo.monitoring.services.SecurityService;
 import ru.momo.monitoring.services.impl.PdfReportGeneratorService;
 import ru.momo.monitoring.store.dto.report.AdminReportDto;
 import ru.momo.monitoring.store.dto.report.DriverActivityReportDto;
 import ru.momo.monitoring.store.dto.report.DriverActivityReportRequest;
+import ru.momo.monitoring.store.dto.report.GeneratedReportFile;
+import ru.momo.monitoring.store.dto.response.ReportJobDto;
 import ru.momo.monitoring.store.entities.User;
 
 import java.security.Principal;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.UUID;
 
 @Slf4j
 @RestController
@@ -47,6 +53,7 @@ public class ReportController {
     private final ReportService reportService;
     private final PdfReportGeneratorService pdfReportGeneratorService;
     private final SecurityService securityService;
+    private final ReportJobService reportJobService;
 
     @PostMapping("/driver-activity")
     @PreAuthorize("hasRole('ROLE_MANAGER')")
@@ -99,18 +106,7 @@ public class ReportController {
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_PDF);
 
-        String driverNamePart = "UnknownDriver";
-        if (reportData.getHeader().getDriverFullName() != null && !reportData.getHeader().getDriverFullName().isBlank() && !reportData.getHeader().getDriverFullName().equalsIgnoreCase("N/A")) {
-            driverNamePart = reportData.getHeader().getDriverFullName().replace(" ", "_").replaceAll("[^a-zA-Z0-9_.-]", "");
-        }
-
-        String dateFromStr = request.getDateFrom().format(DateTimeFormatter.ISO_LOCAL_DATE);
-        String dateToStr = request.getDateTo().format(DateTimeFormatter.ISO_LOCAL_DATE);
-
-        String filename = String.format("Driver_Activity_Report_%s_%s_to_%s.pdf",
-                driverNamePart,
-                dateFromStr,
-                dateToStr);
+        String filename = driverActivityFileName(reportData, request);
 
         headers.add(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + filename + "\"");
 
@@ -164,12 +160,208 @@ public class ReportController {
 
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_PDF);
-        String filename = String.format("AdminSystemReport_%s_to_%s.pdf",
-                from.format(DateTimeFormatter.ISO_LOCAL_DATE),
-                to.format(DateTimeFormatter.ISO_LOCAL_DATE));
-        headers.setContentDispositionFormData("attachment", filename);
+        headers.setContentDispositionFormData("attachment", adminSystemReportFileName(from, to));
 
         return new ResponseEntity<>(pdfBytes, headers, HttpStatus.OK);
     }
 
-}
\ No newline at end of file
+    @PostMapping("/driver-activity/stream")
+    @PreAuthorize("hasRole('ROLE_MANAGER')")
+    @CheckUserActive
+    @Operation(
+            summary = "Сгенерировать отчет по активности водителя (PDF, потоковая выдача)",
+            description = "То же, что POST /driver-activity, но PDF пишется в ответ по мере формирования страниц, " +
+                    "без сборки всего файла в памяти. Content-Length в ответе не передается."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "PDF отчет передается потоком.",
+                    content = @Content(mediaType = MediaType.APPLICATION_PDF_VALUE,
+                            schema = @Schema(type = "string", format = "binary"))),
+            @ApiResponse(responseCode = "400", description = "Некорректные параметры запроса.",
+                    content = @Content(schema = @Schema(implementation = ExceptionBody.class))),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещен (водитель не из компании менеджера).",
+                    content = @Content(schema = @Schema(implementation = ExceptionBody.class))),
+            @ApiResponse(responseCode = "404", description = "Водитель с указанным ID не найден.",
+                    content = @Content(schema = @Schema(implementation = ExceptionBody.class)))
+    })
+    public ResponseEntity<StreamingResponseBody> streamDriverActivityReport(
+            @Parameter(hidden = true) Principal principal,
+            @Valid @RequestBody DriverActivityReportRequest request
+    ) {
+        DriverActivityReportDto reportData = reportService.generateDriverActivityReportData(request, principal);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_PDF);
+        headers.add(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + driverActivityFileName(reportData, request) + "\"");
+
+        StreamingResponseBody body = outputStream -> pdfReportGeneratorService.writeDriverActivityPdf(reportData, outputStream);
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
+
+    @GetMapping("/admin/system-summary/stream")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @CheckUserActive
+    @Operation(
+            summary = "Сформировать сводный PDF отчет по системе (потоковая выдача)",
+            description = "То же, что GET /admin/system-summary, но PDF пишется в ответ по мере формирования страниц, " +
+                    "без сборки всего файла в памяти. Content-Length в ответе не передается."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "PDF отчет передается потоком.",
+                    content = @Content(mediaType = MediaType.APPLICATION_PDF_VALUE,
+                            schema = @Schema(type = "string", format = "binary"))),
+            @ApiResponse(responseCode = "400", description = "Некорректные параметры запроса (например, 'from' после 'to').",
+                    content = @Content(schema = @Schema(implementation = ExceptionBody.class))),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещен (пользователь не администратор или не активен).",
+                    content = @Content(schema = @Schema(implementation = ExceptionBody.class)))
+    })
+    public ResponseEntity<StreamingResponseBody> streamAdminSystemReport(
+            @Parameter(description = "Начало периода для отчета (ISO 8601 UTC).", required = true, example = "2024-01-01T00:00:00")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+
+            @Parameter(description = "Конец периода для отчета (ISO 8601 UTC).", required = true, example = "2024-03-31T23:59:59")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to
+    ) {
+        User adminUser = securityService.getCurrentUser();
+
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("'from' date must be after 'to' date.");
+        }
+
+        AdminReportDto reportData = reportService.prepareAdminReportData(from, to, adminUser);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_PDF);
+        headers.setContentDispositionFormData("attachment", adminSystemReportFileName(from, to));
+
+        StreamingResponseBody body = outputStream -> pdfReportGeneratorService.writeAdminSystemReportPdf(reportData, outputStream);
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
+
+    @PostMapping("/jobs/driver-activity")
+    @PreAuthorize("hasRole('ROLE_MANAGER')")
+    @CheckUserActive
+    @Operation(
+            summary = "Поставить в очередь отчет по активности водителя (PDF)",
+            description = "Проверяет доступ к водителю и ставит формирование отчета в очередь. Возвращает задание, " +
+                    "состояние которого опрашивается через GET /jobs/{jobId}, а готовый файл скачивается через GET /jobs/{jobId}/file. " +
+                    "Отчет за уже закончившийся период может быть сразу возвращен из кэша (status = DONE, cached = true)."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "202", description = "Задание принято.",
+                    content = @Content(schema = @Schema(implementation = ReportJobDto.class))),
+            @ApiResponse(responseCode = "400", description = "Некорректные параметры запроса.",
+                    content = @Content(schema = @Schema(implementation = ExceptionBody.class))),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещен (водитель не из компании менеджера).",
+                    content = @Content(schema = @Schema(implementation = ExceptionBody.class))),
+            @ApiResponse(responseCode = "404", description = "Водитель с указанным ID не найден.",
+                    content = @Content(schema = @Schema(implementation = ExceptionBody.class))),
+            @ApiResponse(responseCode = "429", description = "Очередь отчетов переполнена, повторите позже (см. Retry-After).",
+                    content = @Content(schema = @Schema(implementation = ExceptionBody.class)))
+    })
+    public ResponseEntity<ReportJobDto> submitDriverActivityReport(
+            @Parameter(hidden = true) Principal principal,
+            @Valid @RequestBody DriverActivityReportRequest request
+    ) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(reportJobService.submitDriverActivityReport(request, principal));
+    }
+
+    @PostMapping("/jobs/admin/system-summary")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @CheckUserActive
+    @Operation(
+            summary = "Поставить в очередь сводный PDF отчет по системе",
+            description = "Асинхронный вариант GET /admin/system-summary. Возвращает задание для опроса и скачивания результата."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "202", description = "Задание принято.",
+                    content = @Content(schema = @Schema(implementation = ReportJobDto.class))),
+            @ApiResponse(responseCode = "400", description = "Некорректный период.",
+                    content = @Content(schema = @Schema(implementation = ExceptionBody.class))),
+            @ApiResponse(responseCode = "429", description = "Очередь отчетов переполнена, повторите позже (см. Retry-After).",
+                    content = @Content(schema = @Schema(implementation = ExceptionBody.class)))
+    })
+    public ResponseEntity<ReportJobDto> submitAdminSystemReport(
+            @Parameter(description = "Начало периода для отчета (ISO 8601 UTC).", required = true, example = "2024-01-01T00:00:00")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+
+            @Parameter(description = "Конец периода для отчета (ISO 8601 UTC).", required = true, example = "2024-03-31T23:59:59")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to
+    ) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(reportJobService.submitAdminSystemReport(from, to));
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    @PreAuthorize("hasAnyRole('ROLE_MANAGER', 'ROLE_ADMIN')")
+    @CheckUserActive
+    @Operation(
+            summary = "Получить состояние задания на отчет",
+            description = "Возвращает состояние задания (PENDING, RUNNING, DONE, FAILED). Доступно только автору задания."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Состояние задания.",
+                    content = @Content(schema = @Schema(implementation = ReportJobDto.class))),
+            @ApiResponse(responseCode = "403", description = "Задание поставлено другим пользователем.",
+                    content = @Content(schema = @Schema(implementation = ExceptionBody.class))),
+            @ApiResponse(responseCode = "404", description = "Задание не найдено или уже удалено по истечении срока хранения.",
+                    content = @Content(schema = @Schema(implementation = ExceptionBody.class)))
+    })
+    public ResponseEntity<ReportJobDto> getReportJob(
+            @Parameter(description = "ID задания", required = true) @PathVariable UUID jobId
+    ) {
+        return ResponseEntity.ok(reportJobService.getJob(jobId));
+    }
+
+    @GetMapping("/jobs/{jobId}/file")
+    @PreAuthorize("hasAnyRole('ROLE_MANAGER', 'ROLE_ADMIN')")
+    @CheckUserActive
+    @Operation(
+            summary = "Скачать готовый отчет",
+            description = "Возвращает PDF выполненного задания. Пока задание не выполнено или если оно завершилось ошибкой, отвечает 409."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "PDF отчет.",
+                    content = @Content(mediaType = MediaType.APPLICATION_PDF_VALUE,
+                            schema = @Schema(type = "string", format = "binary"))),
+            @ApiResponse(responseCode = "403", description = "Задание поставлено другим пользователем.",
+                    content = @Content(schema = @Schema(implementation = ExceptionBody.class))),
+            @ApiResponse(responseCode = "404", description = "Задание не найдено.",
+                    content = @Content(schema = @Schema(implementation = ExceptionBody.class))),
+            @ApiResponse(responseCode = "409", description = "Отчет еще не готов или задание завершилось ошибкой.",
+                    content = @Content(schema = @Schema(implementation = ExceptionBody.class)))
+    })
+    public ResponseEntity<byte[]> downloadReportJobFile(
+            @Parameter(description = "ID задания", required = true) @PathVariable UUID jobId
+    ) {
+        GeneratedReportFile file = reportJobService.getJobResult(jobId);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_PDF);
+        headers.setContentDispositionFormData("attachment", file.fileName());
+        headers.setContentLength(file.content().length);
+
+        return new ResponseEntity<>(file.content(), headers, HttpStatus.OK);
+    }
+
+    private static String driverActivityFileName(DriverActivityReportDto reportData, DriverActivityReportRequest request) {
+        String driverNamePart = "UnknownDriver";
+        String driverFullName = reportData.getHeader() != null ? reportData.getHeader().getDriverFullName() : null;
+        if (driverFullName != null && !driverFullName.isBlank() && !driverFullName.equalsIgnoreCase("N/A")) {
+            driverNamePart = driverFullName.replace(" ", "_").replaceAll("[^a-zA-Z0-9_.-]", "");
+        }
+
+        return String.format("Driver_Activity_Report_%s_%s_to_%s.pdf",
+                driverNamePart,
+                request.getDateFrom().format(DateTimeFormatter.ISO_LOCAL_DATE),
+                request.getDateTo().format(DateTimeFormatter.ISO_LOCAL_DATE));
+    }
+
+    private static String adminSystemReportFileName(LocalDateTime from, LocalDateTime to) {
+        return String.format("AdminSystemReport_%s_to_%s.pdf",
+                from.format(DateTimeFormatter.ISO_LOCAL_DATE),
+                to.format(DateTimeFormatter.ISO_LOCAL_DATE));
+    }
+
+}
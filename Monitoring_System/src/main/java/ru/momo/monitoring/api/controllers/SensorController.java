@@ -12,7 +12,6 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.InputStreamResource;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -31,17 +30,20 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.momo.monitoring.annotations.CheckUserActive;
 import ru.momo.monitoring.exceptions.AccessDeniedException;
 import ru.momo.monitoring.exceptions.ExceptionBody;
 import ru.momo.monitoring.exceptions.ResourceNotFoundException;
 import ru.momo.monitoring.services.ExcelExportService;
 import ru.momo.monitoring.services.SecurityService;
+import ru.momo.monitoring.services.SensorDataHistorySource;
 import ru.momo.monitoring.services.SensorService;
 import ru.momo.monitoring.store.dto.request.CreateSensorRequest;
 import ru.momo.monitoring.store.dto.request.SensorAssignmentRequest;
 import ru.momo.monitoring.store.dto.request.SensorDataHistoryDto;
 import ru.momo.monitoring.store.dto.request.UpdateSensorRequest;
+import ru.momo.monitoring.store.dto.response.SensorDataHistoryPageDto;
 import ru.momo.monitoring.store.dto.response.SensorDto;
 import ru.momo.monitoring.store.dto.response.SensorsDto;
 import ru.momo.monitoring.store.entities.Sensor;
@@ -52,7 +54,6 @@ import ru.momo.monitoring.store.entities.enums.AggregationType;
 import ru.momo.monitoring.store.entities.enums.DataGranularity;
 import ru.momo.monitoring.store.entities.enums.RoleName;
 
-import java.io.ByteArrayInputStream;
 import java.security.Principal;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -597,10 +598,10 @@ public class SensorController {
 
             @Parameter(
                     name = "to",
-                    description = "Конец временного периода для выборки данных. Формат ISO 8601 (YYYY-MM-DDTHH:MM:SS). Рекомендуется передавать в UTC (например, с суффиксом 'Z').",
+                    description = "Конец временного периода для выборки данных, не включается в период. Формат ISO 8601 (YYYY-MM-DDTHH:MM:SS). Рекомендуется передавать в UTC (например, с суффиксом 'Z').",
                     required = true,
                     in = ParameterIn.QUERY,
-                    example = "2024-05-14T23:59:59" // или "2024-05-14T23:59:59Z"
+                    example = "2024-05-15T00:00:00" // или "2024-05-15T00:00:00Z"
             )
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
 
@@ -629,15 +630,138 @@ public class SensorController {
                             Для агрегаций `FIRST` и `LAST` также возвращается исходный статус записи, если он был.
                             Для `AVG`, `MIN`, `MAX`, `SUM`, `COUNT` поле `status` в ответе обычно будет `null` 
                             или `UNDEFINED`.
+                            `DOWNSAMPLE` не зависит от `granularity`: сырые показания прореживаются алгоритмом LTTB
+                            до `maxPoints` точек (по умолчанию 1500) с сохранением пиков, в ответе — исходные точки
+                            со своими статусами.
                             """,
                     required = false,
                     in = ParameterIn.QUERY,
                     schema = @Schema(implementation = AggregationType.class,
-                            description = "Допустимые значения: AVG, MIN, MAX, SUM, COUNT, FIRST, LAST.")
+                            description = "Допустимые значения: AVG, MIN, MAX, SUM, COUNT, FIRST, LAST, DOWNSAMPLE.")
             )
-            @RequestParam(required = false) AggregationType aggregationType
+            @RequestParam(required = false) AggregationType aggregationType,
+
+            @Parameter(
+                    name = "maxPoints",
+                    description = """
+                            Максимальное число точек в ответе. Если задано, гранулярность автоматически укрупняется
+                            (начиная с `granularity`), пока число точек за период не станет не больше `maxPoints`.
+                            Если даже гранулярность DAY даёт больше точек, возвращается 400.
+                            Для `aggregationType = DOWNSAMPLE` — целевое число точек прореживания (не меньше 3).
+                            """,
+                    required = false,
+                    in = ParameterIn.QUERY,
+                    example = "2000"
+            )
+            @RequestParam(required = false) Integer maxPoints
+    ) {
+        return sensorService.getSensorDataHistory(sensorId, from, to, granularity, aggregationType, maxPoints);
+    }
+
+    @GetMapping("/{sensorId}/history/page")
+    @PreAuthorize("hasAnyRole('ROLE_ADMIN', 'ROLE_MANAGER', 'ROLE_DRIVER')")
+    @CheckUserActive
+    @Operation(
+            summary = "Получить страницу истории данных сенсора",
+            description = """
+                    Постраничный вариант `/history` с курсорной (keyset) пагинацией.
+                    Первая страница запрашивается без `cursor`, следующие — с `nextCursor` из предыдущего ответа,
+                    остальные параметры при этом должны совпадать. Для сырых данных страница содержит до `limit` записей,
+                    для агрегированных — интервалы из окна длиной `limit` интервалов (пустые интервалы не возвращаются,
+                    поэтому страница может быть короче `limit` или пустой при `hasMore = true`).
+                    Параметр `maxPoints` ограничивает общее число точек за весь период автоматическим выбором гранулярности.
+                    """
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Страница истории успешно получена.",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = SensorDataHistoryPageDto.class))
+            ),
+            @ApiResponse(responseCode = "400", description = """
+                    Некорректные параметры запроса. Возможные причины:
+                    - Параметр `from` указан позже, чем `to`.
+                    - Некорректный `cursor`, `limit` или `maxPoints`.
+                    - Период нельзя уложить в `maxPoints` точек даже с гранулярностью DAY.
+                    """,
+                    content = @Content(schema = @Schema(implementation = ExceptionBody.class))),
+            @ApiResponse(responseCode = "401", description = "Пользователь не авторизован.",
+                    content = @Content(schema = @Schema(implementation = ExceptionBody.class))),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещен.",
+                    content = @Content(schema = @Schema(implementation = ExceptionBody.class))),
+            @ApiResponse(responseCode = "404", description = "Сенсор не найден.",
+                    content = @Content(schema = @Schema(implementation = ExceptionBody.class)))
+    })
+    public SensorDataHistoryPageDto getSensorHistoryPage(
+            @Parameter(description = "ID сенсора", required = true, example = "a1b2c3d4-e5f6-7890-1234-567890abcdef")
+            @PathVariable UUID sensorId,
+
+            @Parameter(description = "Начало периода (ISO 8601 UTC)", required = true, example = "2024-05-01T00:00:00")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+
+            @Parameter(description = "Конец периода (ISO 8601 UTC), не включительно", required = true, example = "2024-05-15T00:00:00")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+
+            @Parameter(description = "Гранулярность агрегации", required = false, schema = @Schema(implementation = DataGranularity.class, defaultValue = "RAW"))
+            @RequestParam(required = false) DataGranularity granularity,
+
+            @Parameter(description = "Тип агрегации", required = false, schema = @Schema(implementation = AggregationType.class))
+            @RequestParam(required = false) AggregationType aggregationType,
+
+            @Parameter(description = "Курсор следующей страницы (`nextCursor` из предыдущего ответа)", required = false)
+            @RequestParam(required = false) String cursor,
+
+            @Parameter(description = "Размер страницы", required = false, example = "1000")
+            @RequestParam(required = false) Integer limit,
+
+            @Parameter(description = "Максимальное число точек за весь период", required = false, example = "2000")
+            @RequestParam(required = false) Integer maxPoints
+    ) {
+        return sensorService.getSensorDataHistoryPage(sensorId, from, to, granularity, aggregationType, cursor, limit, maxPoints);
+    }
+
+    @GetMapping(value = "/{sensorId}/history/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasAnyRole('ROLE_ADMIN', 'ROLE_MANAGER', 'ROLE_DRIVER')")
+    @CheckUserActive
+    @Operation(
+            summary = "Потоковая выгрузка сырой истории данных сенсора",
+            description = """
+                    Возвращает сырые показания сенсора за период в формате NDJSON (`application/x-ndjson`):
+                    каждая строка ответа — отдельный объект `SensorDataHistoryDto`, строки упорядочены по времени.
+                    Данные читаются из БД курсором и отправляются клиенту по мере чтения, поэтому размер периода
+                    не ограничен объёмом памяти сервера. Права доступа такие же, как у эндпоинта `/history`.
+                    """
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Поток показаний, один объект `SensorDataHistoryDto` на строку.",
+                    content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                            schema = @Schema(implementation = SensorDataHistoryDto.class))
+            ),
+            @ApiResponse(responseCode = "400", description = "Параметр `from` указан позже, чем `to`, или неверный формат даты.",
+                    content = @Content(schema = @Schema(implementation = ExceptionBody.class))),
+            @ApiResponse(responseCode = "401", description = "Пользователь не авторизован.",
+                    content = @Content(schema = @Schema(implementation = ExceptionBody.class))),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещен.",
+                    content = @Content(schema = @Schema(implementation = ExceptionBody.class))),
+            @ApiResponse(responseCode = "404", description = "Сенсор не найден.",
+                    content = @Content(schema = @Schema(implementation = ExceptionBody.class)))
+    })
+    public ResponseEntity<StreamingResponseBody> streamSensorHistory(
+            @Parameter(description = "ID сенсора", required = true, example = "a1b2c3d4-e5f6-7890-1234-567890abcdef")
+            @PathVariable UUID sensorId,
+
+            @Parameter(description = "Начало периода (ISO 8601 UTC)", required = true, example = "2024-05-01T00:00:00")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+
+            @Parameter(description = "Конец периода (ISO 8601 UTC), не включительно", required = true, example = "2024-05-15T00:00:00")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to
     ) {
-        return sensorService.getSensorDataHistory(sensorId, from, to, granularity, aggregationType);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(sensorService.streamSensorDataHistory(sensorId, from, to));
     }
 
     @GetMapping("/{sensorId}/history/export/excel")
@@ -646,7 +770,9 @@ public class SensorController {
     @Operation(
             summary = "Экспорт истории данных сенсора в Excel",
             description = "Генерирует и возвращает Excel файл (.xlsx) с историей показаний сенсора за указанный период. " +
-                    "Параметры `from`, `to`, `granularity`, `aggregationType` работают так же, как для эндпоинта `/history`."
+                    "Параметры `from`, `to`, `granularity`, `aggregationType` работают так же, как для эндпоинта `/history`. " +
+                    "Файл пишется в ответ по мере чтения данных из БД, поэтому сырые данные за длинный период не загружаются в память целиком; " +
+                    "если строк больше лимита листа Excel, данные продолжаются на следующих листах."
     )
     @ApiResponses({
             @ApiResponse(
@@ -665,14 +791,14 @@ public class SensorController {
             @ApiResponse(responseCode = "500", description = "Внутренняя ошибка сервера при генерации отчета.",
                     content = @Content(schema = @Schema(implementation = ExceptionBody.class)))
     })
-    public ResponseEntity<InputStreamResource> exportSensorHistoryToExcel(
+    public ResponseEntity<StreamingResponseBody> exportSensorHistoryToExcel(
             @Parameter(description = "ID сенсора", required = true, example = "a1b2c3d4-e5f6-7890-1234-567890abcdef")
             @PathVariable UUID sensorId,
 
             @Parameter(description = "Начало периода (ISO 8601 UTC)", required = true, example = "2024-05-01T00:00:00")
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
 
-            @Parameter(description = "Конец периода (ISO 8601 UTC)", required = true, example = "2024-05-14T23:59:59")
+            @Parameter(description = "Конец периода (ISO 8601 UTC), не включительно", required = true, example = "2024-05-15T00:00:00")
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
 
             @Parameter(description = "Гранулярность агрегации", required = false, schema = @Schema(implementation = DataGranularity.class, defaultValue = "RAW"))
@@ -715,7 +841,7 @@ public class SensorController {
         }
 
 
-        List<SensorDataHistoryDto> historyData = sensorService.getSensorDataHistory(sensorId, from, to, granularity, aggregationType);
+        SensorDataHistorySource historySource = sensorService.openSensorDataHistory(sensorId, from, to, granularity, aggregationType);
 
         String sensorInfoForReport;
         String sensorSerialNumberForFilename = "sensor_" + sensorId.toString().substring(0, 8);
@@ -735,13 +861,16 @@ public class SensorController {
             sensorInfoForReport = "Сенсор ID: " + sensorId.toString() + " (детали не загружены)";
         }
 
-        ByteArrayInputStream excelFileStream = excelExportService.generateSensorHistoryExcel(
+        String sensorInfo = sensorInfoForReport;
+        String reportGeneratedAt = LocalDateTime.now().format(REPORT_HEADER_DATE_TIME_FORMATTER);
+        StreamingResponseBody excelBody = outputStream -> excelExportService.writeSensorHistoryExcel(
                 sensorId,
-                sensorInfoForReport,
+                sensorInfo,
                 from.format(REPORT_HEADER_DATE_TIME_FORMATTER),
                 to.format(REPORT_HEADER_DATE_TIME_FORMATTER),
-                LocalDateTime.now().format(REPORT_HEADER_DATE_TIME_FORMATTER),
-                historyData
+                reportGeneratedAt,
+                historySource,
+                outputStream
         );
 
         HttpHeaders headers = new HttpHeaders();
@@ -759,7 +888,7 @@ public class SensorController {
                 .ok()
                 .headers(headers)
                 .contentType(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"))
-                .body(new InputStreamResource(excelFileStream));
+                .body(excelBody);
     }
 
 }
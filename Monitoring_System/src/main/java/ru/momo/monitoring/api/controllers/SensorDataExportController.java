@@ -0,0 +1,283 @@
+package ru.momo.monitoring.api.controllers;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.momo.monitoring.annotations.CheckUserActive;
+import ru.momo.monitoring.exceptions.ExceptionBody;
+import ru.momo.monitoring.services.SensorDataExportService;
+import ru.momo.monitoring.store.entities.enums.SensorDataExportScope;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/v1/sensor-data/export")
+@RequiredArgsConstructor
+@Tag(name = "Выгрузка показаний", description = "Массовая выгрузка показаний сенсоров для внешней аналитики")
+public class SensorDataExportController {
+
+    private static final String GZIP_MEDIA_TYPE = "application/gzip";
+    private static final String PARQUET_MEDIA_TYPE = "application/vnd.apache.parquet";
+    private static final DateTimeFormatter FILENAME_DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmm");
+
+    private final SensorDataExportService sensorDataExportService;
+
+    @GetMapping(value = "/sensors/{sensorId}/csv", produces = GZIP_MEDIA_TYPE)
+    @PreAuthorize("hasAnyRole('ROLE_ADMIN', 'ROLE_MANAGER', 'ROLE_DRIVER')")
+    @CheckUserActive
+    @Operation(
+            summary = "Выгрузка показаний сенсора в CSV (gzip)",
+            description = """
+                    Возвращает файл `.csv.gz` с показаниями сенсора за полуинтервал [`from`, `to`), строки упорядочены по времени.
+                    Колонки: `timestamp,sensor_id,technic_id,numeric_value,value,status`.
+                    Данные читаются из БД курсором и сжимаются на лету, размер периода не ограничен памятью сервера.
+                    Права доступа такие же, как у эндпоинта `/api/v1/sensors/{sensorId}/history`.
+                    """
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Файл CSV, сжатый gzip.",
+                    content = @Content(mediaType = GZIP_MEDIA_TYPE)),
+            @ApiResponse(responseCode = "400", description = "Параметр `from` не раньше `to` или неверный формат даты.",
+                    content = @Content(schema = @Schema(implementation = ExceptionBody.class))),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещен.",
+                    content = @Content(schema = @Schema(implementation = ExceptionBody.class))),
+            @ApiResponse(responseCode = "404", description = "Сенсор не найден.",
+                    content = @Content(schema = @Schema(implementation = ExceptionBody.class)))
+    })
+    public ResponseEntity<StreamingResponseBody> exportSensorCsv(
+            @Parameter(description = "ID сенсора", required = true)
+            @PathVariable UUID sensorId,
+
+            @Parameter(description = "Начало периода (ISO 8601 UTC), включительно", required = true, example = "2024-05-01T00:00:00")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+
+            @Parameter(description = "Конец периода (ISO 8601 UTC), не включительно", required = true, example = "2024-05-02T00:00:00")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to
+    ) {
+        return csvResponse(SensorDataExportScope.SENSOR, sensorId, from, to);
+    }
+
+    @GetMapping(value = "/technics/{technicId}/csv", produces = GZIP_MEDIA_TYPE)
+    @PreAuthorize("hasAnyRole('ROLE_ADMIN', 'ROLE_MANAGER', 'ROLE_DRIVER')")
+    @CheckUserActive
+    @Operation(
+            summary = "Выгрузка показаний техники в CSV (gzip)",
+            description = """
+                    Возвращает файл `.csv.gz` со всеми показаниями, записанными для техники за полуинтервал [`from`, `to`).
+                    Строки не сортируются. Доступно администратору, менеджеру компании техники и водителю, за которым она закреплена.
+                    """
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Файл CSV, сжатый gzip.",
+                    content = @Content(mediaType = GZIP_MEDIA_TYPE)),
+            @ApiResponse(responseCode = "400", description = "Параметр `from` не раньше `to` или неверный формат даты.",
+                    content = @Content(schema = @Schema(implementation = ExceptionBody.class))),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещен.",
+                    content = @Content(schema = @Schema(implementation = ExceptionBody.class))),
+            @ApiResponse(responseCode = "404", description = "Техника не найдена.",
+                    content = @Content(schema = @Schema(implementation = ExceptionBody.class)))
+    })
+    public ResponseEntity<StreamingResponseBody> exportTechnicCsv(
+            @Parameter(description = "ID техники", required = true)
+            @PathVariable UUID technicId,
+
+            @Parameter(description = "Начало периода (ISO 8601 UTC), включительно", required = true, example = "2024-05-01T00:00:00")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+
+            @Parameter(description = "Конец периода (ISO 8601 UTC), не включительно", required = true, example = "2024-05-02T00:00:00")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to
+    ) {
+        return csvResponse(SensorDataExportScope.TECHNIC, technicId, from, to);
+    }
+
+    @GetMapping(value = "/companies/{companyId}/csv", produces = GZIP_MEDIA_TYPE)
+    @PreAuthorize("hasAnyRole('ROLE_ADMIN', 'ROLE_MANAGER')")
+    @CheckUserActive
+    @Operation(
+            summary = "Выгрузка показаний компании в CSV (gzip)",
+            description = """
+                    Возвращает файл `.csv.gz` с показаниями всех сенсоров компании за полуинтервал [`from`, `to`).
+                    Строки не сортируются. Доступно администратору и менеджеру этой компании.
+                    """
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Файл CSV, сжатый gzip.",
+                    content = @Content(mediaType = GZIP_MEDIA_TYPE)),
+            @ApiResponse(responseCode = "400", description = "Параметр `from` не раньше `to` или неверный формат даты.",
+                    content = @Content(schema = @Schema(implementation = ExceptionBody.class))),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещен.",
+                    content = @Content(schema = @Schema(implementation = ExceptionBody.class))),
+            @ApiResponse(responseCode = "404", description = "Компания не найдена.",
+                    content = @Content(schema = @Schema(implementation = ExceptionBody.class)))
+    })
+    public ResponseEntity<StreamingResponseBody> exportCompanyCsv(
+            @Parameter(description = "ID компании", required = true)
+            @PathVariable UUID companyId,
+
+            @Parameter(description = "Начало периода (ISO 8601 UTC), включительно", required = true, example = "2024-05-01T00:00:00")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+
+            @Parameter(description = "Конец периода (ISO 8601 UTC), не включительно", required = true, example = "2024-05-02T00:00:00")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to
+    ) {
+        return csvResponse(SensorDataExportScope.COMPANY, companyId, from, to);
+    }
+
+    @GetMapping(value = "/sensors/{sensorId}/parquet", produces = PARQUET_MEDIA_TYPE)
+    @PreAuthorize("hasAnyRole('ROLE_ADMIN', 'ROLE_MANAGER', 'ROLE_DRIVER')")
+    @CheckUserActive
+    @Operation(
+            summary = "Выгрузка показаний сенсора в Parquet",
+            description = """
+                    Возвращает файл `.parquet` с показаниями сенсора за полуинтервал [`from`, `to`), строки упорядочены по времени.
+                    Колонки те же, что в CSV; `timestamp` — TIMESTAMP(MICROS) без часового пояса, `numeric_value` — DOUBLE,
+                    остальные — строки. Страницы сжаты gzip. Права доступа такие же, как у CSV-выгрузки.
+                    """
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Файл Parquet.",
+                    content = @Content(mediaType = PARQUET_MEDIA_TYPE)),
+            @ApiResponse(responseCode = "400", description = "Параметр `from` не раньше `to` или неверный формат даты.",
+                    content = @Content(schema = @Schema(implementation = ExceptionBody.class))),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещен.",
+                    content = @Content(schema = @Schema(implementation = ExceptionBody.class))),
+            @ApiResponse(responseCode = "404", description = "Сенсор не найден.",
+                    content = @Content(schema = @Schema(implementation = ExceptionBody.class)))
+    })
+    public ResponseEntity<StreamingResponseBody> exportSensorParquet(
+            @Parameter(description = "ID сенсора", required = true)
+            @PathVariable UUID sensorId,
+
+            @Parameter(description = "Начало периода (ISO 8601 UTC), включительно", required = true, example = "2024-05-01T00:00:00")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+
+            @Parameter(description = "Конец периода (ISO 8601 UTC), не включительно", required = true, example = "2024-05-02T00:00:00")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to
+    ) {
+        return parquetResponse(SensorDataExportScope.SENSOR, sensorId, from, to);
+    }
+
+    @GetMapping(value = "/technics/{technicId}/parquet", produces = PARQUET_MEDIA_TYPE)
+    @PreAuthorize("hasAnyRole('ROLE_ADMIN', 'ROLE_MANAGER', 'ROLE_DRIVER')")
+    @CheckUserActive
+    @Operation(
+            summary = "Выгрузка показаний техники в Parquet",
+            description = """
+                    Возвращает файл `.parquet` со всеми показаниями, записанными для техники за полуинтервал [`from`, `to`).
+                    Строки не сортируются. Права доступа такие же, как у CSV-выгрузки техники.
+                    """
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Файл Parquet.",
+                    content = @Content(mediaType = PARQUET_MEDIA_TYPE)),
+            @ApiResponse(responseCode = "400", description = "Параметр `from` не раньше `to` или неверный формат даты.",
+                    content = @Content(schema = @Schema(implementation = ExceptionBody.class))),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещен.",
+                    content = @Content(schema = @Schema(implementation = ExceptionBody.class))),
+            @ApiResponse(responseCode = "404", description = "Техника не найдена.",
+                    content = @Content(schema = @Schema(implementation = ExceptionBody.class)))
+    })
+    public ResponseEntity<StreamingResponseBody> exportTechnicParquet(
+            @Parameter(description = "ID техники", required = true)
+            @PathVariable UUID technicId,
+
+            @Parameter(description = "Начало периода (ISO 8601 UTC), включительно", required = true, example = "2024-05-01T00:00:00")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+
+            @Parameter(description = "Конец периода (ISO 8601 UTC), не включительно", required = true, example = "2024-05-02T00:00:00")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to
+    ) {
+        return parquetResponse(SensorDataExportScope.TECHNIC, technicId, from, to);
+    }
+
+    @GetMapping(value = "/companies/{companyId}/parquet", produces = PARQUET_MEDIA_TYPE)
+    @PreAuthorize("hasAnyRole('ROLE_ADMIN', 'ROLE_MANAGER')")
+    @CheckUserActive
+    @Operation(
+            summary = "Выгрузка показаний компании в Parquet",
+            description = """
+                    Возвращает файл `.parquet` с показаниями всех сенсоров компании за полуинтервал [`from`, `to`).
+                    Строки не сортируются. Доступно администратору и менеджеру этой компании.
+                    """
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Файл Parquet.",
+                    content = @Content(mediaType = PARQUET_MEDIA_TYPE)),
+            @ApiResponse(responseCode = "400", description = "Параметр `from` не раньше `to` или неверный формат даты.",
+                    content = @Content(schema = @Schema(implementation = ExceptionBody.class))),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещен.",
+                    content = @Content(schema = @Schema(implementation = ExceptionBody.class))),
+            @ApiResponse(responseCode = "404", description = "Компания не найдена.",
+                    content = @Content(schema = @Schema(implementation = ExceptionBody.class)))
+    })
+    public ResponseEntity<StreamingResponseBody> exportCompanyParquet(
+            @Parameter(description = "ID компании", required = true)
+            @PathVariable UUID companyId,
+
+            @Parameter(description = "Начало периода (ISO 8601 UTC), включительно", required = true, example = "2024-05-01T00:00:00")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+
+            @Parameter(description = "Конец периода (ISO 8601 UTC), не включительно", required = true, example = "2024-05-02T00:00:00")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to
+    ) {
+        return parquetResponse(SensorDataExportScope.COMPANY, companyId, from, to);
+    }
+
+    private ResponseEntity<StreamingResponseBody> csvResponse(SensorDataExportScope scope,
+                                                              UUID scopeId,
+                                                              LocalDateTime from,
+                                                              LocalDateTime to) {
+        StreamingResponseBody body = sensorDataExportService.exportCsv(scope, scopeId, from, to);
+        return fileResponse(body, filename(scope, scopeId, from, to, "csv.gz"), GZIP_MEDIA_TYPE);
+    }
+
+    private ResponseEntity<StreamingResponseBody> parquetResponse(SensorDataExportScope scope,
+                                                                  UUID scopeId,
+                                                                  LocalDateTime from,
+                                                                  LocalDateTime to) {
+        StreamingResponseBody body = sensorDataExportService.exportParquet(scope, scopeId, from, to);
+        return fileResponse(body, filename(scope, scopeId, from, to, "parquet"), PARQUET_MEDIA_TYPE);
+    }
+
+    private static String filename(SensorDataExportScope scope,
+                                   UUID scopeId,
+                                   LocalDateTime from,
+                                   LocalDateTime to,
+                                   String extension) {
+        return String.format("%s_%s_%s_to_%s.%s",
+                scope.name().toLowerCase(),
+                scopeId,
+                from.format(FILENAME_DATE_FORMATTER),
+                to.format(FILENAME_DATE_FORMATTER),
+                extension);
+    }
+
+    private static ResponseEntity<StreamingResponseBody> fileResponse(StreamingResponseBody body,
+                                                                      String filename,
+                                                                      String mediaType) {
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .header(HttpHeaders.CACHE_CONTROL, "no-cache, no-store, must-revalidate")
+                .contentType(MediaType.parseMediaType(mediaType))
+                .body(body);
+    }
+
+}
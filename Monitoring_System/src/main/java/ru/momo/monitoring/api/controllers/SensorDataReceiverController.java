@@ -3,13 +3,21 @@ package ru.momo.monitoring.api.controllers;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import ru.momo.monitoring.annotations.CheckUserActive;
+import ru.momo.monitoring.services.SensorDataIngestService;
 import ru.momo.monitoring.services.SensorDataProcessingService;
 import ru.momo.monitoring.store.dto.data_generator.GeneratedSensorDataDto;
+import ru.momo.monitoring.store.dto.data_generator.SensorDataBatchResultDto;
+import ru.momo.monitoring.store.dto.response.SensorDataIngestStatsDto;
+
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/v1/internal/sensor-data")
@@ -19,10 +27,25 @@ public class SensorDataReceiverController {
 
     private final SensorDataProcessingService sensorDataProcessingService;
 
+    private final SensorDataIngestService sensorDataIngestService;
+
     @PostMapping("/receive")
-    @ResponseStatus(HttpStatus.OK)
+    @ResponseStatus(HttpStatus.ACCEPTED)
     public void receiveSensorData(@RequestBody GeneratedSensorDataDto data) {
-        sensorDataProcessingService.processIncomingData(data);
+        sensorDataIngestService.enqueue(data);
+    }
+
+    @PostMapping("/receive-batch")
+    @ResponseStatus(HttpStatus.OK)
+    public SensorDataBatchResultDto receiveSensorDataBatch(@RequestBody List<GeneratedSensorDataDto> data) {
+        return sensorDataProcessingService.processIncomingBatch(data);
+    }
+
+    @GetMapping("/ingest/stats")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @CheckUserActive
+    public SensorDataIngestStatsDto getIngestStats() {
+        return sensorDataIngestService.getStats();
     }
 
-}
\ No newline at end of file
+}
@@ -36,6 +36,7 @@ public class ApplicationConfig {
             "/swagger-ui/**",
             "/v3/api-docs/**",
             "/api/v1/internal/sensor-data/receive",
+            "/api/v1/internal/sensor-data/receive-batch",
             "/ws-monitoring/**"
     };
 
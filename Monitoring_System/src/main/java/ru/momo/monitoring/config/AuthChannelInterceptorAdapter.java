@@ -8,13 +8,14 @@ import org.springframework.messaging.simp.stomp.StompCommand;
 import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.messaging.support.ChannelInterceptor;
 import org.springframework.messaging.support.MessageHeaderAccessor;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
+import ru.momo.monitoring.exceptions.AccessDeniedException;
+import ru.momo.monitoring.security.AuthenticatedUser;
 import ru.momo.monitoring.security.JwtTokenProvider;
-import ru.momo.monitoring.security.JwtUserDetails;
+import ru.momo.monitoring.security.StompSubscriptionAuthorizer;
 
+import java.security.Principal;
 import java.util.List;
 
 @Component
@@ -23,45 +24,63 @@ import java.util.List;
 public class AuthChannelInterceptorAdapter implements ChannelInterceptor {
 
     private final JwtTokenProvider jwtTokenProvider;
-    private final JwtUserDetails userService;
+    private final StompSubscriptionAuthorizer subscriptionAuthorizer;
 
     private static final String AUTHORIZATION_HEADER = "Authorization";
 
     @Override
     public Message<?> preSend(Message<?> message, MessageChannel channel) {
         StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null) {
+            return message;
+        }
 
-        if (accessor != null && StompCommand.CONNECT.equals(accessor.getCommand())) {
-            List<String> authorization = accessor.getNativeHeader(AUTHORIZATION_HEADER);
-            log.debug("STOMP Connect Headers - Authorization: {}", authorization);
+        if (StompCommand.CONNECT.equals(accessor.getCommand())) {
+            authenticate(accessor);
+        } else if (StompCommand.SUBSCRIBE.equals(accessor.getCommand())) {
+            authorizeSubscription(accessor);
+        }
+        return message;
+    }
 
-            String jwtToken = null;
-            if (authorization != null && !authorization.isEmpty()) {
-                String authHeaderValue = authorization.get(0);
-                if (authHeaderValue != null && authHeaderValue.startsWith("Bearer ")) {
-                    jwtToken = authHeaderValue.substring(7);
-                }
+    private void authenticate(StompHeaderAccessor accessor) {
+        List<String> authorization = accessor.getNativeHeader(AUTHORIZATION_HEADER);
+        log.debug("STOMP Connect Headers - Authorization: {}", authorization);
+
+        String jwtToken = null;
+        if (authorization != null && !authorization.isEmpty()) {
+            String authHeaderValue = authorization.get(0);
+            if (authHeaderValue != null && authHeaderValue.startsWith("Bearer ")) {
+                jwtToken = authHeaderValue.substring(7);
             }
+        }
 
-            if (jwtToken != null && jwtTokenProvider.validateToken(jwtToken)) {
-                String username = jwtTokenProvider.getUsername(jwtToken);
-                if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                    UserDetails userDetails = userService.loadUserByUsername(username);
+        if (jwtToken == null || !jwtTokenProvider.validateToken(jwtToken)) {
+            log.warn("STOMP Connect: JWT Token is missing, invalid, or expired.");
+            return;
+        }
 
-                    if (userDetails != null) {
-                        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                                userDetails, null, userDetails.getAuthorities());
-                        SecurityContextHolder.getContext().setAuthentication(authentication);
-                        accessor.setUser(authentication);
-                        log.info("STOMP User '{}' authenticated and set for WebSocket session.", username);
-                    } else {
-                        log.warn("User details not found for username '{}' from token.", username);
-                    }
-                }
-            } else {
-                log.warn("STOMP Connect: JWT Token is missing, invalid, or expired.");
-            }
+        try {
+            Authentication authentication = jwtTokenProvider.getAuthentication(jwtToken);
+            accessor.setUser(authentication);
+            log.info("STOMP User '{}' authenticated and set for WebSocket session.", authentication.getName());
+        } catch (Exception e) {
+            log.warn("STOMP Connect: failed to authenticate user from token: {}", e.getMessage());
+        }
+    }
+
+    private void authorizeSubscription(StompHeaderAccessor accessor) {
+        Principal user = accessor.getUser();
+        AuthenticatedUser principal = user instanceof Authentication authentication
+                && authentication.getPrincipal() instanceof AuthenticatedUser authenticatedUser
+                ? authenticatedUser
+                : null;
+
+        String destination = accessor.getDestination();
+        if (!subscriptionAuthorizer.canSubscribe(principal, destination)) {
+            log.warn("STOMP Subscribe to '{}' denied for user '{}'", destination,
+                    principal != null ? principal.email() : "anonymous");
+            throw new AccessDeniedException("Subscription to " + destination + " is not allowed.");
         }
-        return message;
     }
-}
\ No newline at end of file
+}
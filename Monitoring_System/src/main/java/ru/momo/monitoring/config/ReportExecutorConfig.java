@@ -0,0 +1,59 @@
+package ru.momo.monitoring.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Slf4j
+@Configuration
+@RequiredArgsConstructor
+public class ReportExecutorConfig {
+
+    private final ReportJobProperties reportJobProperties;
+    private final ReportGatherProperties reportGatherProperties;
+
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int DATASOURCE_POOL_SIZE;
+
+    /**
+     * Отдельный ограниченный пул для формирования отчётов, чтобы тяжёлые отчёты не занимали
+     * потоки обработки HTTP-запросов. Переполненная очередь отклоняет задание, а не растёт.
+     */
+    @Bean(name = "reportTaskExecutor")
+    public ThreadPoolTaskExecutor reportTaskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(reportJobProperties.getExecutorThreads());
+        executor.setMaxPoolSize(reportJobProperties.getExecutorThreads());
+        executor.setQueueCapacity(reportJobProperties.getQueueCapacity());
+        executor.setThreadNamePrefix("report-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return executor;
+    }
+
+    /**
+     * Пул для параллельного выполнения независимых запросов сбора данных отчета.
+     * Каждый запрос держит своё соединение, поэтому потоков не больше половины пула Hikari:
+     * остальные соединения остаются обычным запросам. Переполненная очередь выполняет запрос
+     * в вызывающем потоке, так что сбор отчета не отклоняется.
+     */
+    @Bean(name = "reportQueryExecutor")
+    public ThreadPoolTaskExecutor reportQueryExecutor() {
+        int parallelism = Math.max(1, Math.min(reportGatherProperties.getParallelism(), DATASOURCE_POOL_SIZE / 2));
+        log.info("Report data gathering parallelism: {} (configured {}, datasource pool {})",
+                parallelism, reportGatherProperties.getParallelism(), DATASOURCE_POOL_SIZE);
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(parallelism);
+        executor.setMaxPoolSize(parallelism);
+        executor.setQueueCapacity(reportGatherProperties.getQueueCapacity());
+        executor.setThreadNamePrefix("report-query-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return executor;
+    }
+
+}
@@ -0,0 +1,27 @@
+package ru.momo.monitoring.config;
+
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@Data
+@ConfigurationProperties(prefix = "report.gather")
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ReportGatherProperties {
+
+    /**
+     * Сколько запросов сбора данных отчета выполняется параллельно. Фактическое значение
+     * дополнительно ограничивается половиной пула соединений Hikari, так как каждый запрос
+     * занимает отдельное соединение. Значение 1 отключает параллельный сбор.
+     */
+    int parallelism = 4;
+
+    /**
+     * Сколько запросов может ждать свободного потока. При переполнении запрос выполняется в вызывающем потоке.
+     */
+    int queueCapacity = 200;
+
+}
@@ -0,0 +1,51 @@
+package ru.momo.monitoring.config;
+
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+@Component
+@Data
+@ConfigurationProperties(prefix = "report.jobs")
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ReportJobProperties {
+
+    /**
+     * Число потоков, параллельно формирующих отчёты.
+     */
+    int executorThreads = 2;
+
+    /**
+     * Сколько заданий может ждать свободного потока. При переполнении постановка задания отвечает 429.
+     */
+    int queueCapacity = 20;
+
+    /**
+     * Сколько минут завершённое задание и его файл доступны для скачивания.
+     */
+    long resultTtlMinutes = 60;
+
+    /**
+     * Сколько заданий хранится в памяти. При превышении раньше срока удаляются самые старые завершённые.
+     */
+    int resultMaxJobs = 200;
+
+    /**
+     * Сколько места могут занимать готовые PDF заданий. При превышении раньше срока удаляются самые старые завершённые.
+     */
+    DataSize resultMaxSize = DataSize.ofMegabytes(256);
+
+    /**
+     * Максимальное число готовых PDF в кэше закрытых периодов.
+     */
+    int cacheMaxEntries = 50;
+
+    /**
+     * Сколько минут PDF за закрытый период отдаётся из кэша без повторного формирования.
+     */
+    long cacheTtlMinutes = 1440;
+
+}
@@ -0,0 +1,41 @@
+package ru.momo.monitoring.config;
+
+import org.springframework.boot.task.ThreadPoolTaskSchedulerBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+
+    public static final String WEBSOCKET_PUSH_SCHEDULER = "webSocketPushScheduler";
+
+    /**
+     * Общий планировщик фоновых задач (синхронизация отзывов токенов с Redis, DDL секций, очистка кэшей).
+     * Размер пула задаётся {@code spring.task.scheduling.pool.size}. Объявлен явно, потому что
+     * при наличии {@link #webSocketPushScheduler()} автоконфигурация Spring Boot свой планировщик не создаёт.
+     */
+    @Bean(name = "taskScheduler")
+    @Primary
+    public ThreadPoolTaskScheduler taskScheduler(ThreadPoolTaskSchedulerBuilder builder) {
+        return builder.build();
+    }
+
+    /**
+     * Отдельные потоки для рассылки live-данных по окну {@code websocket.push.coalesce-window-ms}:
+     * задачи общего планировщика, ждущие Redis или БД, не должны останавливать рассылку.
+     * По потоку на каждую задачу рассылки (локальная отправка и публикация в Redis fan-out),
+     * чтобы зависшая публикация в Redis не задерживала доставку уже полученных показаний.
+     */
+    @Bean(name = WEBSOCKET_PUSH_SCHEDULER)
+    public ThreadPoolTaskScheduler webSocketPushScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(2);
+        scheduler.setThreadNamePrefix("websocket-push-");
+        return scheduler;
+    }
+
+}
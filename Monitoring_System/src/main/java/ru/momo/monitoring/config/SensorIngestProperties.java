@@ -0,0 +1,55 @@
+package ru.momo.monitoring.config;
+
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@Data
+@ConfigurationProperties(prefix = "sensor.ingest")
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class SensorIngestProperties {
+
+    /**
+     * Максимальное число показаний, ожидающих записи в БД. При переполнении приём отвечает 429.
+     */
+    int queueCapacity = 50_000;
+
+    /**
+     * Сколько показаний flusher собирает в одну пакетную вставку.
+     */
+    int flushBatchSize = 1_000;
+
+    /**
+     * Максимальное время ожидания заполнения пакета, после которого он записывается как есть.
+     */
+    long flushIntervalMs = 200;
+
+    /**
+     * Сколько запрос на приём может ждать свободного места в очереди (0 — не ждать).
+     */
+    long offerTimeoutMs = 0;
+
+    /**
+     * Сколько ждать завершения flusher при остановке приложения.
+     */
+    long shutdownTimeoutMs = 10_000;
+
+    /**
+     * Сколько раз flusher пытается записать пакет, прежде чем считать его показания потерянными.
+     */
+    int flushMaxAttempts = 5;
+
+    /**
+     * Пауза перед первой повторной записью пакета; каждая следующая пауза вдвое длиннее.
+     */
+    long flushRetryBackoffMs = 200;
+
+    /**
+     * Верхняя граница паузы между повторными записями пакета.
+     */
+    long flushRetryMaxBackoffMs = 5_000;
+
+}
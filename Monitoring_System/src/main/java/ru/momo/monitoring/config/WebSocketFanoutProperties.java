@@ -0,0 +1,32 @@
+package ru.momo.monitoring.config;
+
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import ru.momo.monitoring.store.entities.enums.WebSocketFanoutMode;
+
+@Component
+@Data
+@ConfigurationProperties(prefix = "websocket.fanout")
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class WebSocketFanoutProperties {
+
+    /**
+     * LOCAL — показания получает только этот экземпляр; REDIS — показания рассылаются через Redis pub/sub
+     * и объединяются для подписчиков на каждом экземпляре.
+     */
+    WebSocketFanoutMode mode = WebSocketFanoutMode.LOCAL;
+
+    /**
+     * Канал Redis для показаний в режиме REDIS.
+     */
+    String channel = "websocket-fanout";
+
+    /**
+     * Наибольшее число показаний в одном сообщении Redis.
+     */
+    int maxBatchSize = 1000;
+
+}
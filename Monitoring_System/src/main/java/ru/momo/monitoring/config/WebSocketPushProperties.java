@@ -0,0 +1,27 @@
+package ru.momo.monitoring.config;
+
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import ru.momo.monitoring.store.entities.enums.RealtimeCoalesceMode;
+
+@Component
+@Data
+@ConfigurationProperties(prefix = "websocket.push")
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class WebSocketPushProperties {
+
+    /**
+     * Как объединять показания одного сенсора внутри окна: NONE — отправлять каждое сразу,
+     * LATEST — только последнее, MIN_MAX_LAST — последнее вместе с минимумом, максимумом и числом показаний.
+     */
+    RealtimeCoalesceMode coalesceMode = RealtimeCoalesceMode.LATEST;
+
+    /**
+     * Длительность окна объединения; накопленные показания отправляются раз в окно.
+     */
+    long coalesceWindowMs = 250;
+
+}
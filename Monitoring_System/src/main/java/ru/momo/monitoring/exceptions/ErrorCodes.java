@@ -13,6 +13,9 @@ public final class ErrorCodes {
     public static final String SENSOR_CREATION_FAILED = "SENSOR_CREATION_FAILED";
     public static final String SENSOR_BAD_REQUEST = "SENSOR_BAD_REQUEST";
     public static final String USER_BAD_REQUEST = "USER_BAD_REQUEST";
+    public static final String INGEST_OVERLOADED = "INGEST_OVERLOADED";
+    public static final String REPORT_JOBS_OVERLOADED = "REPORT_JOBS_OVERLOADED";
+    public static final String REPORT_NOT_READY = "REPORT_NOT_READY";
 
     private ErrorCodes() {
     }
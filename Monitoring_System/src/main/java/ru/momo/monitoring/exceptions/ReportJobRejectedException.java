@@ -0,0 +1,13 @@
+package ru.momo.monitoring.exceptions;
+
+public class ReportJobRejectedException extends RuntimeException {
+
+    public ReportJobRejectedException(String message) {
+        super(message);
+    }
+
+    public ReportJobRejectedException(String message, Object... args) {
+        super(String.format(message, args));
+    }
+
+}
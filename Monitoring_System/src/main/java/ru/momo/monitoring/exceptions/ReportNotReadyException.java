@@ -0,0 +1,13 @@
+package ru.momo.monitoring.exceptions;
+
+public class ReportNotReadyException extends RuntimeException {
+
+    public ReportNotReadyException(String message) {
+        super(message);
+    }
+
+    public ReportNotReadyException(String message, Object... args) {
+        super(String.format(message, args));
+    }
+
+}
@@ -0,0 +1,13 @@
+package ru.momo.monitoring.exceptions;
+
+public class SensorDataIngestOverloadedException extends RuntimeException {
+
+    public SensorDataIngestOverloadedException(String message) {
+        super(message);
+    }
+
+    public SensorDataIngestOverloadedException(String message, Object... args) {
+        super(String.format(message, args));
+    }
+
+}
@@ -0,0 +1,72 @@
+package ru.momo.monitoring.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import ru.momo.monitoring.store.entities.User;
+import ru.momo.monitoring.store.entities.enums.RoleName;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Неизменяемый снимок пользователя, который кладется в SecurityContext при аутентификации по JWT.
+ * В отличие от сущности {@link User} не привязан к сессии Hibernate и безопасно разделяется между потоками.
+ */
+public record AuthenticatedUser(
+        UUID id,
+        String email,
+        RoleName role,
+        UUID companyId,
+        boolean active,
+        boolean confirmed
+) implements UserDetails {
+
+    public static AuthenticatedUser fromEntity(User user) {
+        return new AuthenticatedUser(
+                user.getId(),
+                user.getEmail(),
+                user.getRole(),
+                user.getCompany() != null ? user.getCompany().getId() : null,
+                Boolean.TRUE.equals(user.getIsActive()),
+                Boolean.TRUE.equals(user.getIsConfirmed())
+        );
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return role != null ? List.of(new SimpleGrantedAuthority(role.name())) : List.of();
+    }
+
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return active;
+    }
+
+}
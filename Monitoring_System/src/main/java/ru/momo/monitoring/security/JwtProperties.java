@@ -15,5 +15,7 @@ public class JwtProperties {
     String secret;
     long access;
     long refresh;
+    boolean stateless = true;
+    int claimsCacheMaxSize = 10000;
 
 }
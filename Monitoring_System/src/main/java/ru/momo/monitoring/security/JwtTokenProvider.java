@@ -2,7 +2,7 @@ package ru.momo.monitoring.security;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
-import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import jakarta.annotation.PostConstruct;
@@ -12,8 +12,6 @@ import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Service;
 import ru.momo.monitoring.exceptions.AccessDeniedException;
 import ru.momo.monitoring.services.RedisService;
@@ -27,7 +25,9 @@ import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.Date;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Slf4j
 @Service
@@ -36,25 +36,37 @@ import java.util.UUID;
 public class JwtTokenProvider {
 
     final JwtProperties jwtProperties;
-    final UserDetailsService userDetailsService;
+    final UserPrincipalCache userPrincipalCache;
+    final TokenRevocationList tokenRevocationList;
     final UserService userService;
     final RedisService redisService;
     Key key;
+    JwtParser jwtParser;
+    final Map<String, VerifiedClaims> verifiedClaims = new ConcurrentHashMap<>();
 
     @PostConstruct
     public void init(){
         this.key = Keys.hmacShaKeyFor(jwtProperties.getSecret().getBytes());
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKey(key)
+                .build();
     }
 
-    public String createAccessToken(UUID userId, String username, RoleName role) {
-        Claims claims = Jwts.claims().setSubject(username);
-        claims.put("id", userId.toString());
-        claims.put("role", role.name());
+    public String createAccessToken(User user) {
+        Claims claims = Jwts.claims().setSubject(user.getEmail());
+        claims.put("id", user.getId().toString());
+        claims.put("role", user.getRole().name());
+        if (user.getCompany() != null) {
+            claims.put("companyId", user.getCompany().getId().toString());
+        }
+        claims.put("confirmed", Boolean.TRUE.equals(user.getIsConfirmed()));
         claims.put("typ", "access");
         claims.setId(UUID.randomUUID().toString());
-        Instant validity = Instant.now().plus(jwtProperties.getAccess(), ChronoUnit.HOURS);
+        Instant now = Instant.now();
+        Instant validity = now.plus(jwtProperties.getAccess(), ChronoUnit.HOURS);
         return Jwts.builder()
                 .setClaims(claims)
+                .setIssuedAt(Date.from(now))
                 .setExpiration(Date.from(validity))
                 .signWith(key)
                 .compact();
@@ -81,22 +93,25 @@ public class JwtTokenProvider {
 
     public boolean validateToken(String token){
         try {
-            Jws<Claims> claims = Jwts
-                    .parserBuilder()
-                    .setSigningKey(key)
-                    .build()
-                    .parseClaimsJws(token);
-            return !claims.getBody().getExpiration().before(new Date());
+            return !getClaimsFromToken(token).getExpiration().before(new Date());
         } catch (Exception e) {
             log.trace("Invalid JWT token: {}", e.getMessage());
             return false;
         }
     }
 
+    /**
+     * В режиме {@code security.jwt.stateless} пользователь восстанавливается из подписанных claims access-токена
+     * без обращения к БД и Redis. Если для пользователя есть отзыв позже выпуска токена (изменение роли,
+     * блокировка, подтверждение email) или токен выпущен без нужных claims, данные берутся из {@link UserPrincipalCache}.
+     */
     public Authentication getAuthentication(String token){
-        String username = getUsername(token);
-        UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-        return new UsernamePasswordAuthenticationToken(userDetails, "", userDetails.getAuthorities());
+        Claims claims = getClaimsFromToken(token);
+        AuthenticatedUser principal = jwtProperties.isStateless() ? principalFromClaims(claims) : null;
+        if (principal == null || tokenRevocationList.isRevoked(principal.email(), claims.getIssuedAt())) {
+            principal = userPrincipalCache.get(claims.getSubject());
+        }
+        return new UsernamePasswordAuthenticationToken(principal, "", principal.getAuthorities());
     }
 
     public JwtResponse refreshUserTokens(String refreshToken){
@@ -119,12 +134,9 @@ public class JwtTokenProvider {
 
         UUID userId = UUID.fromString(claims.get("id", String.class));
 
-        if (!redisService.isRefreshTokenValid(jti)) {
-            redisService.invalidateRefreshToken(userId, jti);
+        if (!redisService.consumeRefreshToken(userId, jti)) {
             throw new AccessDeniedException("Refresh token has been revoked or is not found in store.");
         }
-
-        redisService.invalidateRefreshToken(userId, jti);
         log.info("Refresh token {} for user {} has been used and invalidated.", jti, userId);
 
         User user = userService.getByIdEntity(userId);
@@ -136,7 +148,7 @@ public class JwtTokenProvider {
         return JwtResponse.builder()
                 .id(user.getId())
                 .username(user.getEmail())
-                .accessToken(createAccessToken(userId, user.getEmail(), user.getRole()))
+                .accessToken(createAccessToken(user))
                 .refreshToken(createRefreshToken(userId, user.getEmail()))
                 .build();
     }
@@ -157,24 +169,53 @@ public class JwtTokenProvider {
         return getClaimsFromToken(token).getId();
     }
 
+    private AuthenticatedUser principalFromClaims(Claims claims) {
+        String id = claims.get("id", String.class);
+        String role = claims.get("role", String.class);
+        Boolean confirmed = claims.get("confirmed", Boolean.class);
+        if (!"access".equals(claims.get("typ", String.class)) || id == null || role == null || confirmed == null) {
+            return null;
+        }
+        String companyId = claims.get("companyId", String.class);
+        return new AuthenticatedUser(
+                UUID.fromString(id),
+                claims.getSubject(),
+                RoleName.valueOf(role),
+                companyId != null ? UUID.fromString(companyId) : null,
+                true,
+                confirmed
+        );
+    }
+
+    /**
+     * Возвращает claims токена, проверяя подпись один раз за время жизни токена: проверенные claims
+     * хранятся в ограниченном кэше по строке токена до момента {@code exp}. Ключом служит сам токен, а не его
+     * SHA-256: хэш стоил бы столько же, сколько экономит пропуск проверки HMAC.
+     */
     private Claims getClaimsFromToken(String token) throws ExpiredJwtException /*, другие исключения JWT */ {
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        long now = System.currentTimeMillis();
+        VerifiedClaims cached = verifiedClaims.get(token);
+        if (cached != null) {
+            if (now < cached.expiresAtMillis()) {
+                return cached.claims();
+            }
+            verifiedClaims.remove(token);
+        }
+
+        Claims claims = jwtParser.parseClaimsJws(token).getBody();
+        if (claims.getExpiration() != null) {
+            if (verifiedClaims.size() >= jwtProperties.getClaimsCacheMaxSize()) {
+                verifiedClaims.values().removeIf(entry -> entry.expiresAtMillis() <= now);
+                if (verifiedClaims.size() >= jwtProperties.getClaimsCacheMaxSize()) {
+                    verifiedClaims.clear();
+                }
+            }
+            verifiedClaims.put(token, new VerifiedClaims(claims, claims.getExpiration().getTime()));
+        }
+        return claims;
     }
 
-    private String getId(String token){
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .get("id")
-                .toString();
+    private record VerifiedClaims(Claims claims, long expiresAtMillis) {
     }
 
 }
@@ -0,0 +1,94 @@
+package ru.momo.monitoring.security;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.momo.monitoring.services.SensorDescriptorCache;
+import ru.momo.monitoring.store.entities.enums.RoleName;
+import ru.momo.monitoring.store.projection.SensorDescriptor;
+import ru.momo.monitoring.store.repositories.TechnicRepository;
+
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Проверка STOMP-подписок на топики с данными компании, техники и сенсора по тем же правилам, что и REST:
+ * администратор видит все, менеджер — свою компанию, водитель — свою технику и ее сенсоры. Данные компании
+ * целиком доступны только администратору и менеджеру.
+ * <p>
+ * Подписки по шаблону ({@code *}, {@code ?}, {@code {var}}) на {@code /topic/**} простой брокер сопоставляет
+ * со всеми топиками, поэтому они разрешены только администратору.
+ */
+@Component
+@RequiredArgsConstructor
+public class StompSubscriptionAuthorizer {
+
+    private static final String TOPIC_PREFIX = "/topic/";
+    private static final Pattern SCOPED_TOPIC = Pattern.compile("^/topic/(company|technic|sensor)/([^/]+)(/.*)?$");
+
+    private final TechnicRepository technicRepository;
+    private final SensorDescriptorCache sensorDescriptorCache;
+
+    public boolean canSubscribe(AuthenticatedUser user, String destination) {
+        if (destination == null || !destination.startsWith(TOPIC_PREFIX)) {
+            return true;
+        }
+        boolean isAdmin = user != null && user.active() && user.role() == RoleName.ROLE_ADMIN;
+        if (isPattern(destination)) {
+            return isAdmin;
+        }
+
+        Matcher matcher = SCOPED_TOPIC.matcher(destination);
+        if (!matcher.matches()) {
+            return true;
+        }
+        if (user == null || !user.active()) {
+            return false;
+        }
+        UUID scopeId = parseUuid(matcher.group(2));
+        if (scopeId == null) {
+            return false;
+        }
+        if (isAdmin) {
+            return true;
+        }
+
+        return switch (matcher.group(1)) {
+            case "company" -> user.role() == RoleName.ROLE_MANAGER && scopeId.equals(user.companyId());
+            case "technic" -> canAccessTechnic(user, scopeId);
+            default -> canAccessSensor(user, scopeId);
+        };
+    }
+
+    private boolean canAccessTechnic(AuthenticatedUser user, UUID technicId) {
+        if (user.role() == RoleName.ROLE_MANAGER) {
+            return user.companyId() != null && technicRepository.existsByIdAndCompanyId(technicId, user.companyId());
+        }
+        return user.role() == RoleName.ROLE_DRIVER && technicRepository.existsByIdAndOwnerId_Id(technicId, user.id());
+    }
+
+    private boolean canAccessSensor(AuthenticatedUser user, UUID sensorId) {
+        SensorDescriptor sensor = sensorDescriptorCache.get(sensorId).orElse(null);
+        if (sensor == null) {
+            return false;
+        }
+        if (user.role() == RoleName.ROLE_MANAGER) {
+            return user.companyId() != null && user.companyId().equals(sensor.companyId());
+        }
+        return user.role() == RoleName.ROLE_DRIVER && sensor.technicId() != null
+                && technicRepository.existsByIdAndOwnerId_Id(sensor.technicId(), user.id());
+    }
+
+    private static boolean isPattern(String destination) {
+        return destination.indexOf('*') >= 0 || destination.indexOf('?') >= 0 || destination.indexOf('{') >= 0;
+    }
+
+    private static UUID parseUuid(String value) {
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,130 @@
+package ru.momo.monitoring.security;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Отзывы access-токенов по пользователю: email → момент изменения учетной записи. Токены, выпущенные раньше
+ * этого момента, не принимаются на веру по claims и перепроверяются через {@link UserPrincipalCache}.
+ * <p>
+ * Проверка идет по локальной карте без сетевых вызовов. Экземпляры узнают об отзывах через канал
+ * {@link UserPrincipalCache#INVALIDATION_CHANNEL}; pub/sub не гарантирует доставку, поэтому отсортированное
+ * множество {@value #REVOKED_USERS_KEY} в Redis перечитывается при старте и затем раз в TTL кэша пользователей
+ * ({@code security.principal-cache.ttl-seconds}): потерянное сообщение задерживает отзыв не дольше этого периода.
+ * Отзывы, которые не удалось записать в Redis, повторно записываются при следующей синхронизации.
+ * Записи хранятся не дольше времени жизни access-токена.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TokenRevocationList {
+
+    public static final String REVOKED_USERS_KEY = "auth:revoked-users";
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final JwtProperties jwtProperties;
+
+    private final Map<String, Long> revokedAt = new ConcurrentHashMap<>();
+    private final Map<String, Long> unpersisted = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void loadRecentRevocations() {
+        if (syncWithRedis()) {
+            log.info("Loaded {} token revocations", revokedAt.size());
+        }
+    }
+
+    @Scheduled(
+            fixedDelayString = "${security.principal-cache.ttl-seconds:60}",
+            initialDelayString = "${security.principal-cache.ttl-seconds:60}",
+            timeUnit = TimeUnit.SECONDS
+    )
+    public void syncRevocations() {
+        syncWithRedis();
+    }
+
+    /**
+     * Регистрирует отзыв локально и сохраняет его в Redis. Рассылку другим экземплярам выполняет вызывающий.
+     */
+    public void revoke(String email, long revokedAtMillis) {
+        record(email, revokedAtMillis);
+        try {
+            persist(email, revokedAtMillis);
+        } catch (Exception e) {
+            unpersisted.merge(email, revokedAtMillis, Math::max);
+            log.warn("Failed to persist token revocation for {}, will retry: {}", email, e.getMessage());
+        }
+    }
+
+    public void record(String email, long revokedAtMillis) {
+        revokedAt.merge(email, revokedAtMillis, Math::max);
+    }
+
+    /**
+     * @return {@code true}, если токен выпущен до последнего отзыва пользователя или не содержит времени выпуска.
+     */
+    public boolean isRevoked(String email, Date issuedAt) {
+        if (issuedAt == null) {
+            return true;
+        }
+        Long revoked = revokedAt.get(email);
+        return revoked != null && issuedAt.getTime() < revoked;
+    }
+
+    @Scheduled(fixedDelayString = "${security.jwt.revocation-cleanup-interval-ms:60000}")
+    public void evictExpired() {
+        long threshold = System.currentTimeMillis() - retentionMillis();
+        revokedAt.values().removeIf(revoked -> revoked < threshold);
+        unpersisted.values().removeIf(revoked -> revoked < threshold);
+    }
+
+    /**
+     * Дописывает в Redis отзывы, которые не удалось сохранить ранее, и добавляет в локальную карту отзывы
+     * остальных экземпляров.
+     *
+     * @return {@code true}, если синхронизация выполнена полностью.
+     */
+    private boolean syncWithRedis() {
+        long since = System.currentTimeMillis() - retentionMillis();
+        try {
+            for (Map.Entry<String, Long> entry : unpersisted.entrySet()) {
+                persist(entry.getKey(), entry.getValue());
+                unpersisted.remove(entry.getKey(), entry.getValue());
+            }
+
+            ZSetOperations<String, String> zSet = redisTemplate.opsForZSet();
+            zSet.removeRangeByScore(REVOKED_USERS_KEY, 0, since);
+            Set<ZSetOperations.TypedTuple<String>> entries =
+                    zSet.rangeByScoreWithScores(REVOKED_USERS_KEY, since, Double.POSITIVE_INFINITY);
+            if (entries != null) {
+                entries.forEach(entry -> record(entry.getValue(), entry.getScore().longValue()));
+            }
+            return true;
+        } catch (Exception e) {
+            log.warn("Failed to sync token revocations with Redis: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private void persist(String email, long revokedAtMillis) {
+        redisTemplate.opsForZSet().add(REVOKED_USERS_KEY, email, revokedAtMillis);
+        redisTemplate.expire(REVOKED_USERS_KEY, Duration.ofMillis(retentionMillis()));
+    }
+
+    private long retentionMillis() {
+        return Duration.ofHours(jwtProperties.getAccess()).toMillis();
+    }
+
+}
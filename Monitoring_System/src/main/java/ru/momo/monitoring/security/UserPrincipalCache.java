@@ -0,0 +1,119 @@
+package ru.momo.monitoring.security;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.momo.monitoring.store.repositories.UserRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Локальный кэш {@link AuthenticatedUser} по email с коротким TTL, чтобы аутентификация запроса по JWT
+ * не обращалась к БД.
+ * <p>
+ * При изменении пользователя запись удаляется сразу и повторно после коммита транзакции, а email
+ * вместе с моментом изменения ({@code <epochMillis>:<email>}) публикуется в канал Redis {@value #INVALIDATION_CHANNEL}:
+ * остальные экземпляры удаляют запись у себя и регистрируют отзыв ранее выпущенных токенов в {@link TokenRevocationList}.
+ * Если Redis недоступен, чужие копии устаревают не дольше чем на TTL.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserPrincipalCache implements MessageListener {
+
+    public static final String INVALIDATION_CHANNEL = "user-principal-invalidation";
+
+    private final UserRepository userRepository;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+    private final TokenRevocationList tokenRevocationList;
+
+    @Value("${security.principal-cache.ttl-seconds:60}")
+    private long TTL_SECONDS;
+
+    @Value("${security.principal-cache.max-size:10000}")
+    private int MAX_SIZE;
+
+    private final Map<String, CachedPrincipal> principals = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void subscribe() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(INVALIDATION_CHANNEL));
+    }
+
+    public AuthenticatedUser get(String email) {
+        long now = System.nanoTime();
+        CachedPrincipal cached = principals.get(email);
+        if (cached != null && cached.expiresAtNanos() - now > 0) {
+            return cached.principal();
+        }
+
+        AuthenticatedUser principal = AuthenticatedUser.fromEntity(userRepository.findByEmailOrThrow(email));
+        if (principals.size() >= MAX_SIZE) {
+            principals.values().removeIf(entry -> entry.expiresAtNanos() - now <= 0);
+            if (principals.size() >= MAX_SIZE) {
+                principals.clear();
+            }
+        }
+        principals.put(email, new CachedPrincipal(principal, now + TimeUnit.SECONDS.toNanos(TTL_SECONDS)));
+        return principal;
+    }
+
+    public void evict(String email) {
+        if (email == null) {
+            return;
+        }
+        principals.remove(email);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    principals.remove(email);
+                    revokeAndPublish(email);
+                }
+            });
+        } else {
+            revokeAndPublish(email);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String payload = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = payload.indexOf(':');
+        if (separator < 0) {
+            principals.remove(payload);
+            return;
+        }
+        String email = payload.substring(separator + 1);
+        principals.remove(email);
+        tokenRevocationList.record(email, Long.parseLong(payload.substring(0, separator)));
+    }
+
+    private void revokeAndPublish(String email) {
+        long revokedAt = System.currentTimeMillis();
+        tokenRevocationList.revoke(email, revokedAt);
+        try {
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL, revokedAt + ":" + email);
+        } catch (Exception e) {
+            log.warn("Failed to publish principal invalidation for {}: {}", email, e.getMessage());
+        }
+    }
+
+    private record CachedPrincipal(AuthenticatedUser principal, long expiresAtNanos) {
+    }
+
+}
@@ -1,20 +1,22 @@
 package ru.momo.monitoring.services;
 
-import ru.momo.monitoring.store.dto.request.SensorDataHistoryDto;
-
-import java.io.ByteArrayInputStream;
-import java.util.List;
+import java.io.OutputStream;
 import java.util.UUID;
 
 public interface ExcelExportService {
 
-    ByteArrayInputStream generateSensorHistoryExcel(
+    /**
+     * Пишет .xlsx с историей показаний прямо в outputStream, читая точки из source по мере записи строк.
+     * Поток не закрывается.
+     */
+    void writeSensorHistoryExcel(
             UUID sensorId,
             String sensorInfo,
             String periodFromString,
             String periodToString,
             String reportGeneratedAt,
-            List<SensorDataHistoryDto> data
+            SensorDataHistorySource source,
+            OutputStream outputStream
     );
 
-}
\ No newline at end of file
+}
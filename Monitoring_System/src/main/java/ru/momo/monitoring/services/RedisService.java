@@ -17,6 +17,12 @@ public interface RedisService {
 
     void invalidateRefreshToken(UUID userId, String tokenId);
 
+    /**
+     * Атомарно удаляет refresh-токен и возвращает, существовал ли он: из параллельных обменов одного токена
+     * успешен только один.
+     */
+    boolean consumeRefreshToken(UUID userId, String tokenId);
+
     void invalidateAllUserRefreshTokens(UUID userId);
 
 }
@@ -0,0 +1,31 @@
+package ru.momo.monitoring.services;
+
+import ru.momo.monitoring.store.dto.report.DriverActivityReportRequest;
+import ru.momo.monitoring.store.dto.report.GeneratedReportFile;
+import ru.momo.monitoring.store.dto.response.ReportJobDto;
+
+import java.security.Principal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public interface ReportJobService {
+
+    /**
+     * Проверяет доступ менеджера к водителю и ставит формирование PDF-отчета в очередь.
+     * Для закрытого периода может сразу вернуть готовое задание из кэша.
+     */
+    ReportJobDto submitDriverActivityReport(DriverActivityReportRequest request, Principal managerPrincipal);
+
+    ReportJobDto submitAdminSystemReport(LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Состояние задания. Доступно только пользователю, поставившему задание.
+     */
+    ReportJobDto getJob(UUID jobId);
+
+    /**
+     * Готовый файл отчета. Если задание еще выполняется или завершилось ошибкой, бросает ReportNotReadyException.
+     */
+    GeneratedReportFile getJobResult(UUID jobId);
+
+}
@@ -15,6 +15,12 @@ public interface ReportService {
             Principal managerPrincipal
     );
 
+    /**
+     * Проверяет, что менеджер может получить отчет по водителю (водитель из его компании),
+     * не собирая данных отчета.
+     */
+    void checkDriverActivityReportAccess(DriverActivityReportRequest request, Principal managerPrincipal);
+
     AdminReportDto prepareAdminReportData(LocalDateTime periodFrom, LocalDateTime periodTo, User adminUser);
 
 }
\ No newline at end of file
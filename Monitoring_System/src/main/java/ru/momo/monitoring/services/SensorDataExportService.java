@@ -0,0 +1,35 @@
+package ru.momo.monitoring.services;
+
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.momo.monitoring.store.entities.enums.SensorDataExportScope;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public interface SensorDataExportService {
+
+    /**
+     * Проверяет права текущего пользователя и возвращает тело ответа, которое пишет показания
+     * за полуинтервал [from, to) в CSV, сжатый gzip, по мере чтения из БД.
+     *
+     * @param scope   Область выгрузки: сенсор, техника или компания.
+     * @param scopeId ID сенсора, техники или компании.
+     * @param from    Начало периода (UTC), включительно.
+     * @param to      Конец периода (UTC), не включительно.
+     * @return Тело ответа с файлом .csv.gz.
+     */
+    StreamingResponseBody exportCsv(SensorDataExportScope scope, UUID scopeId, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * То же, что {@link #exportCsv}, но в формате Apache Parquet с теми же колонками
+     * и сжатием страниц gzip.
+     *
+     * @param scope   Область выгрузки: сенсор, техника или компания.
+     * @param scopeId ID сенсора, техники или компании.
+     * @param from    Начало периода (UTC), включительно.
+     * @param to      Конец периода (UTC), не включительно.
+     * @return Тело ответа с файлом .parquet.
+     */
+    StreamingResponseBody exportParquet(SensorDataExportScope scope, UUID scopeId, LocalDateTime from, LocalDateTime to);
+
+}
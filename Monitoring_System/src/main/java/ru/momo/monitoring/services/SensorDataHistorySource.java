@@ -0,0 +1,16 @@
+package ru.momo.monitoring.services;
+
+import ru.momo.monitoring.store.dto.request.SensorDataHistoryDto;
+
+import java.util.function.Consumer;
+
+/**
+ * Отложенный источник истории показаний: точки читаются из БД и передаются получателю по одной
+ * в момент вызова {@link #forEach}, без сборки всего периода в список.
+ */
+@FunctionalInterface
+public interface SensorDataHistorySource {
+
+    void forEach(Consumer<SensorDataHistoryDto> consumer);
+
+}
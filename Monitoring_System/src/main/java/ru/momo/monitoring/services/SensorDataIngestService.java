@@ -0,0 +1,12 @@
+package ru.momo.monitoring.services;
+
+import ru.momo.monitoring.store.dto.data_generator.GeneratedSensorDataDto;
+import ru.momo.monitoring.store.dto.response.SensorDataIngestStatsDto;
+
+public interface SensorDataIngestService {
+
+    void enqueue(GeneratedSensorDataDto incomingData);
+
+    SensorDataIngestStatsDto getStats();
+
+}
@@ -0,0 +1,7 @@
+package ru.momo.monitoring.services;
+
+public interface SensorDataPartitionService {
+
+    void ensureFuturePartitions();
+
+}
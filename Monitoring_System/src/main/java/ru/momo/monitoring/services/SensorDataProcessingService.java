@@ -1,9 +1,14 @@
 package ru.momo.monitoring.services;
 
 import ru.momo.monitoring.store.dto.data_generator.GeneratedSensorDataDto;
+import ru.momo.monitoring.store.dto.data_generator.SensorDataBatchResultDto;
+
+import java.util.List;
 
 public interface SensorDataProcessingService {
 
     void processIncomingData(GeneratedSensorDataDto incomingData);
 
+    SensorDataBatchResultDto processIncomingBatch(List<GeneratedSensorDataDto> batch);
+
 }
\ No newline at end of file
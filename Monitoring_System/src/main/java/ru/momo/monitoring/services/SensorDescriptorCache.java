@@ -0,0 +1,22 @@
+package ru.momo.monitoring.services;
+
+import ru.momo.monitoring.store.projection.SensorDescriptor;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface SensorDescriptorCache {
+
+    Optional<SensorDescriptor> get(UUID sensorId);
+
+    Map<UUID, SensorDescriptor> getAll(Collection<UUID> sensorIds);
+
+    void evict(UUID sensorId);
+
+    void evictByType(UUID sensorTypeId);
+
+    void evictAll();
+
+}
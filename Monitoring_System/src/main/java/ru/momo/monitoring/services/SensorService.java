@@ -2,19 +2,24 @@ package ru.momo.monitoring.services;
 
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Pageable;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.momo.monitoring.store.dto.report.SensorValueStatsDto;
 import ru.momo.monitoring.store.dto.request.CreateSensorRequest;
 import ru.momo.monitoring.store.dto.request.SensorAssignmentRequest;
 import ru.momo.monitoring.store.dto.request.SensorDataHistoryDto;
 import ru.momo.monitoring.store.dto.request.UpdateSensorRequest;
+import ru.momo.monitoring.store.dto.response.SensorDataHistoryPageDto;
 import ru.momo.monitoring.store.dto.response.SensorDto;
 import ru.momo.monitoring.store.dto.response.SensorsDto;
 import ru.momo.monitoring.store.entities.Sensor;
 import ru.momo.monitoring.store.entities.enums.AggregationType;
 import ru.momo.monitoring.store.entities.enums.DataGranularity;
+import ru.momo.monitoring.store.projection.SensorPeriodStats;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 public interface SensorService {
@@ -50,7 +55,7 @@ public interface SensorService {
      *
      * @param sensorId        ID сенсора.
      * @param from            Начало периода (UTC).
-     * @param to              Конец периода (UTC).
+     * @param to              Конец периода (UTC), не включается.
      * @param granularity     Гранулярность агрегации (null или RAW для сырых данных).
      * @param aggregationType Тип агрегации (игнорируется, если granularity null или RAW).
      * @return Список исторических данных, отсортированный по времени.
@@ -63,12 +68,91 @@ public interface SensorService {
             AggregationType aggregationType
     );
 
+    /**
+     * Получает историю данных сенсора, ограничивая число точек ответа.
+     * Если задан maxPoints, гранулярность автоматически укрупняется (начиная с запрошенной),
+     * пока ожидаемое число точек за период не станет не больше maxPoints.
+     *
+     * @param sensorId        ID сенсора.
+     * @param from            Начало периода (UTC).
+     * @param to              Конец периода (UTC), не включается.
+     * @param granularity     Минимальная гранулярность (null или RAW для сырых данных).
+     * @param aggregationType Тип агрегации (игнорируется для сырых данных).
+     * @param maxPoints       Максимальное число точек в ответе, null — без ограничения.
+     * @return Список исторических данных, отсортированный по времени.
+     */
+    List<SensorDataHistoryDto> getSensorDataHistory(
+            UUID sensorId,
+            LocalDateTime from,
+            LocalDateTime to,
+            DataGranularity granularity,
+            AggregationType aggregationType,
+            Integer maxPoints
+    );
+
+    /**
+     * Получает страницу истории данных сенсора с курсорной (keyset) пагинацией.
+     * Для сырых данных курсор — ключ (timestamp, id) последней записи страницы,
+     * для агрегированных — начало следующего окна из limit интервалов.
+     *
+     * @param sensorId        ID сенсора.
+     * @param from            Начало периода (UTC).
+     * @param to              Конец периода (UTC), не включается.
+     * @param granularity     Минимальная гранулярность (null или RAW для сырых данных).
+     * @param aggregationType Тип агрегации (игнорируется для сырых данных).
+     * @param cursor          Курсор из предыдущей страницы, null для первой страницы.
+     * @param limit           Размер страницы (ограничен сверху настройкой sensor.history.max-page-size).
+     * @param maxPoints       Максимальное число точек за весь период, null — без ограничения.
+     * @return Страница данных и курсор следующей страницы.
+     */
+    SensorDataHistoryPageDto getSensorDataHistoryPage(
+            UUID sensorId,
+            LocalDateTime from,
+            LocalDateTime to,
+            DataGranularity granularity,
+            AggregationType aggregationType,
+            String cursor,
+            Integer limit,
+            Integer maxPoints
+    );
+
+    /**
+     * Возвращает сырую историю показаний сенсора в виде потока NDJSON (один объект
+     * {@link SensorDataHistoryDto} на строку). Права доступа и период проверяются сразу,
+     * а сами данные читаются курсором из БД во время записи ответа.
+     *
+     * @param sensorId ID сенсора.
+     * @param from     Начало периода (UTC).
+     * @param to       Конец периода (UTC), не включается.
+     * @return Тело ответа, пишущее показания по мере чтения из БД.
+     */
+    StreamingResponseBody streamSensorDataHistory(UUID sensorId, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Проверяет доступ к истории сенсора сразу, а сами данные читает только при обходе источника.
+     * Сырые данные идут курсором из БД, агрегированные и прореженные — из уже ограниченной по размеру выборки.
+     *
+     * @param sensorId        ID сенсора.
+     * @param from            Начало периода (UTC).
+     * @param to              Конец периода (UTC), не включается.
+     * @param granularity     Гранулярность агрегации (null или RAW для сырых данных).
+     * @param aggregationType Тип агрегации (игнорируется для сырых данных).
+     * @return Источник истории для однократного обхода.
+     */
+    SensorDataHistorySource openSensorDataHistory(
+            UUID sensorId,
+            LocalDateTime from,
+            LocalDateTime to,
+            DataGranularity granularity,
+            AggregationType aggregationType
+    );
+
     /**
      * Получает статистику по значениям (min, max, avg, last) для указанного сенсора за период.
      *
      * @param sensorId ID сенсора.
      * @param from     Начало периода (UTC).
-     * @param to       Конец периода (UTC).
+     * @param to       Конец периода (UTC), не включается.
      * @return DTO со статистикой значений.
      */
     SensorValueStatsDto getSensorValueStatisticsForPeriod(
@@ -77,6 +161,21 @@ public interface SensorService {
             LocalDateTime to
     );
 
+    /**
+     * Получает статистику (min, max, avg, last, количество показаний, WARNING/CRITICAL) сразу по набору сенсоров
+     * за период [from, to) одним запросом к БД. Права доступа не проверяются.
+     *
+     * @param sensorIds ID сенсоров.
+     * @param from      Начало периода (UTC).
+     * @param to        Конец периода (UTC), не включается.
+     * @return Статистика по ID сенсора; для сенсоров без показаний — пустая статистика.
+     */
+    Map<UUID, SensorPeriodStats> getSensorStatisticsForPeriod(
+            Collection<UUID> sensorIds,
+            LocalDateTime from,
+            LocalDateTime to
+    );
+
     int countTotalSensors();
 
     int countTotalActiveSensors();
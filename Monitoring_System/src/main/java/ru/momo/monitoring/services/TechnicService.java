@@ -57,4 +57,6 @@ public interface TechnicService {
 
     List<Technic> findAllTechnicsByCompany(UUID companyId);
 
+    List<Technic> findAllTechnicsWithSensorsByDriver(UUID driverId);
+
 }
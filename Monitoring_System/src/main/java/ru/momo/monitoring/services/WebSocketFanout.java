@@ -0,0 +1,13 @@
+package ru.momo.monitoring.services;
+
+import ru.momo.monitoring.store.dto.response.SensorDataRealtimeDto;
+
+import java.util.function.Consumer;
+
+public interface WebSocketFanout {
+
+    void publish(SensorDataRealtimeDto reading);
+
+    void subscribe(Consumer<SensorDataRealtimeDto> consumer);
+
+}
@@ -178,7 +178,7 @@ public class AuthServiceImpl implements AuthService {
         return JwtResponse.builder()
                 .id(user.getId())
                 .username(user.getEmail())
-                .accessToken(jwtTokenProvider.createAccessToken(user.getId(), user.getEmail(), user.getRole()))
+                .accessToken(jwtTokenProvider.createAccessToken(user))
                 .refreshToken(jwtTokenProvider.createRefreshToken(user.getId(), user.getEmail()))
                 .build();
     }
@@ -187,7 +187,7 @@ public class AuthServiceImpl implements AuthService {
         return RegisterJwtResponse.builder()
                 .id(user.getId())
                 .username(user.getEmail())
-                .accessToken(jwtTokenProvider.createAccessToken(user.getId(), user.getEmail(), user.getRole()))
+                .accessToken(jwtTokenProvider.createAccessToken(user))
                 .refreshToken(jwtTokenProvider.createRefreshToken(user.getId(), user.getEmail()))
                 .actionType(actionType)
                 .build();
@@ -1,6 +1,7 @@
 package ru.momo.monitoring.services.impl;
 
 import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.ss.SpreadsheetVersion;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
 import org.apache.poi.ss.usermodel.Font;
@@ -10,31 +11,43 @@ import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.util.CellRangeAddress;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.springframework.stereotype.Service;
 import ru.momo.monitoring.services.ExcelExportService;
-import ru.momo.monitoring.store.dto.request.SensorDataHistoryDto;
+import ru.momo.monitoring.services.SensorDataHistorySource;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.util.List;
+import java.io.OutputStream;
 import java.util.UUID;
 
+/**
+ * Экспорт истории показаний в Excel через потоковый SXSSFWorkbook: в памяти держится только окно
+ * последних {@link #ROW_ACCESS_WINDOW_SIZE} строк, остальные сбрасываются во временный файл,
+ * поэтому объем памяти не зависит от длины периода.
+ */
 @Service
 @Slf4j
 public class ExcelExportServiceImpl implements ExcelExportService {
 
+    private static final int ROW_ACCESS_WINDOW_SIZE = 100;
+
+    private static final int MAX_ROWS_PER_SHEET = SpreadsheetVersion.EXCEL2007.getMaxRows();
+
+    private static final String[] COLUMNS = {"Время показания", "Значение", "Статус"};
+
     @Override
-    public ByteArrayInputStream generateSensorHistoryExcel(
+    public void writeSensorHistoryExcel(
             UUID sensorId,
             String sensorInfo,
             String periodFromString,
             String periodToString,
             String reportGeneratedAt,
-            List<SensorDataHistoryDto> dataList) {
+            SensorDataHistorySource source,
+            OutputStream outputStream) {
 
-        try (Workbook workbook = new XSSFWorkbook(); ByteArrayOutputStream out = new ByteArrayOutputStream();) {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(ROW_ACCESS_WINDOW_SIZE);
+        workbook.setCompressTempFiles(true);
+        try {
             String sheetName = "История_" + sensorInfo.replaceAll("[^a-zA-Z0-9_\\-]", "_").substring(0, Math.min(sensorInfo.length(), 20));
             Sheet sheet = workbook.createSheet(sheetName);
 
@@ -93,17 +106,13 @@ public class ExcelExportServiceImpl implements ExcelExportService {
             currentRowNum++;
 
             // --- Заголовки таблицы данных ---
-            Row dataHeaderRow = sheet.createRow(currentRowNum++);
-            String[] columns = {"Время показания", "Значение", "Статус"};
-            for (int i = 0; i < columns.length; i++) {
-                Cell cell = dataHeaderRow.createCell(i);
-                cell.setCellValue(columns[i]);
-                cell.setCellStyle(headerInfoCellStyle);
-            }
+            createDataHeaderRow(sheet, currentRowNum++, headerInfoCellStyle);
 
             // --- Заполнение данными ---
-            for (SensorDataHistoryDto record : dataList) {
-                Row row = sheet.createRow(currentRowNum++);
+            // Если строк больше, чем помещается на лист, продолжение пишется на следующие листы.
+            SheetCursor cursor = new SheetCursor(workbook, sheet, sheetName, currentRowNum, headerInfoCellStyle);
+            source.forEach(record -> {
+                Row row = cursor.nextRow();
 
                 Cell timeCell = row.createCell(0);
                 if (record.getTimestamp() != null) {
@@ -122,25 +131,64 @@ public class ExcelExportServiceImpl implements ExcelExportService {
                 }
 
                 row.createCell(2).setCellValue(record.getStatus() != null ? record.getStatus().name() : "Н/Д");
-            }
+            });
 
-            for (int i = 0; i < columns.length; i++) {
-                sheet.autoSizeColumn(i);
-            }
-            sheet.setColumnWidth(0, 20 * 256);
-            sheet.setColumnWidth(1, 15 * 256);
-            sheet.setColumnWidth(2, 15 * 256);
-
-
-            workbook.write(out);
-            log.info("Excel report for sensor history {} ({} records) generated successfully.", sensorId, dataList.size());
-            return new ByteArrayInputStream(out.toByteArray());
+            workbook.write(outputStream);
+            outputStream.flush();
+            log.info("Excel report for sensor history {} ({} records) generated successfully.", sensorId, cursor.records);
         } catch (IOException e) {
             log.error("Error generating Excel for sensor {}: {}", sensorId, e.getMessage(), e);
             throw new RuntimeException("Failed to generate Excel report: " + e.getMessage());
         } catch (Exception e) {
             log.error("Unexpected error during Excel generation for sensor {}: {}", sensorId, e.getMessage(), e);
             throw new RuntimeException("Unexpected error generating Excel report: " + e.getMessage());
+        } finally {
+            workbook.dispose();
         }
     }
+
+    // Ширина колонок задается явно: autoSizeColumn в потоковом режиме видит только строки окна.
+    private static void createDataHeaderRow(Sheet sheet, int rowNum, CellStyle headerStyle) {
+        Row dataHeaderRow = sheet.createRow(rowNum);
+        for (int i = 0; i < COLUMNS.length; i++) {
+            Cell cell = dataHeaderRow.createCell(i);
+            cell.setCellValue(COLUMNS[i]);
+            cell.setCellStyle(headerStyle);
+        }
+        sheet.setColumnWidth(0, 20 * 256);
+        sheet.setColumnWidth(1, 15 * 256);
+        sheet.setColumnWidth(2, 15 * 256);
+    }
+
+    private static final class SheetCursor {
+
+        private final Workbook workbook;
+        private final String baseSheetName;
+        private final CellStyle headerStyle;
+        private Sheet sheet;
+        private int rowNum;
+        private int sheetCount = 1;
+        private long records;
+
+        private SheetCursor(Workbook workbook, Sheet sheet, String baseSheetName, int rowNum, CellStyle headerStyle) {
+            this.workbook = workbook;
+            this.sheet = sheet;
+            this.baseSheetName = baseSheetName;
+            this.rowNum = rowNum;
+            this.headerStyle = headerStyle;
+        }
+
+        private Row nextRow() {
+            if (rowNum >= MAX_ROWS_PER_SHEET) {
+                sheetCount++;
+                sheet = workbook.createSheet(baseSheetName + "_" + sheetCount);
+                createDataHeaderRow(sheet, 0, headerStyle);
+                rowNum = 1;
+            }
+            records++;
+            return sheet.createRow(rowNum++);
+        }
+
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,32 @@
+package ru.momo.monitoring.services.impl;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import ru.momo.monitoring.services.WebSocketFanout;
+import ru.momo.monitoring.store.dto.response.SensorDataRealtimeDto;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Передача показаний внутри одного экземпляра: показание сразу получают подписчики этого же процесса.
+ * Используется по умолчанию, при одном экземпляре и в тестах.
+ */
+@Service
+@ConditionalOnProperty(name = "websocket.fanout.mode", havingValue = "LOCAL", matchIfMissing = true)
+public class LocalWebSocketFanout implements WebSocketFanout {
+
+    private final List<Consumer<SensorDataRealtimeDto>> consumers = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(SensorDataRealtimeDto reading) {
+        consumers.forEach(consumer -> consumer.accept(reading));
+    }
+
+    @Override
+    public void subscribe(Consumer<SensorDataRealtimeDto> consumer) {
+        consumers.add(consumer);
+    }
+
+}
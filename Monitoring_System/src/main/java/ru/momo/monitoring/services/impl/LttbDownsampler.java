@@ -0,0 +1,203 @@
+package ru.momo.monitoring.services.impl;
+
+import ru.momo.monitoring.store.dto.request.SensorDataHistoryDto;
+
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Потоковое прореживание показаний алгоритмом Largest-Triangle-Three-Buckets.
+ * <p>
+ * Принимает упорядоченные по времени точки за один проход и передаёт дальше не более {@code threshold}
+ * исходных точек: первую, последнюю и по одной из каждого интервала — ту, что образует треугольник
+ * наибольшей площади с предыдущей выбранной точкой и средним следующего интервала. Поэтому пики
+ * (в том числе CRITICAL-выбросы) сохраняются, а статусы остаются статусами реальных показаний.
+ * <p>
+ * Интервалы строятся по индексу точки, поэтому заранее нужно общее число точек. В памяти держатся
+ * только текущий и следующий интервалы. Точки без числового значения пропускаются.
+ * <p>
+ * Ожидаемое число точек — только оценка (подсчёт и чтение идут разными запросами, между ними могут
+ * дописаться показания), поэтому на выходе никогда не бывает больше {@code threshold} точек:
+ * лишние точки попадают в последний интервал, а если их ждали не больше {@code threshold},
+ * они копятся в буфере и при переполнении прореживаются так же.
+ */
+public final class LttbDownsampler implements Consumer<SensorDataHistoryDto> {
+
+    public static final int MIN_THRESHOLD = 3;
+
+    private final Consumer<SensorDataHistoryDto> downstream;
+
+    private final int threshold;
+
+    private final int lastBucket;
+
+    private double bucketSize;
+
+    private boolean passThrough;
+
+    private List<SensorDataHistoryDto> passThroughBuffer = new ArrayList<>();
+
+    private long received;
+
+    private SensorDataHistoryDto pending;
+
+    private SensorDataHistoryDto selected;
+
+    private List<SensorDataHistoryDto> current = new ArrayList<>();
+
+    private int currentBucket = -1;
+
+    private List<SensorDataHistoryDto> next = new ArrayList<>();
+
+    private int nextBucket = -1;
+
+    /**
+     * @param totalPoints ожидаемое число точек с числовым значением (оценка, см. описание класса)
+     * @param threshold   максимальное число точек на выходе, не меньше {@link #MIN_THRESHOLD}
+     * @param downstream  получатель выбранных точек
+     */
+    public LttbDownsampler(long totalPoints, int threshold, Consumer<SensorDataHistoryDto> downstream) {
+        if (threshold < MIN_THRESHOLD) {
+            throw new IllegalArgumentException("LTTB threshold must be at least " + MIN_THRESHOLD + ", got " + threshold);
+        }
+        this.downstream = downstream;
+        this.threshold = threshold;
+        this.passThrough = totalPoints <= threshold;
+        this.lastBucket = threshold - 3;
+        this.bucketSize = bucketSize(totalPoints, threshold);
+    }
+
+    @Override
+    public void accept(SensorDataHistoryDto point) {
+        if (point.getValue() == null) {
+            return;
+        }
+        if (passThrough) {
+            passThroughBuffer.add(point);
+            if (passThroughBuffer.size() > threshold) {
+                startDownsampling();
+            }
+            return;
+        }
+
+        select(point);
+    }
+
+    /**
+     * Выбирает точки из оставшихся интервалов и передаёт последнюю точку. Вызывается после всех {@link #accept}.
+     */
+    public void finish() {
+        if (passThrough) {
+            passThroughBuffer.forEach(downstream);
+            passThroughBuffer.clear();
+            return;
+        }
+        if (pending == null) {
+            return;
+        }
+
+        if (!next.isEmpty()) {
+            closeCurrent(averageX(next), averageY(next));
+            current = next;
+            next = new ArrayList<>();
+        }
+        if (!current.isEmpty()) {
+            closeCurrent(x(pending), pending.getValue());
+        }
+        emit(pending);
+        pending = null;
+    }
+
+    /**
+     * Точек пришло больше, чем ожидалось: интервалы пересчитываются по уже полученным точкам,
+     * а всё, что придёт дальше, ляжет в последний интервал.
+     */
+    private void startDownsampling() {
+        List<SensorDataHistoryDto> buffered = passThroughBuffer;
+        passThroughBuffer = new ArrayList<>();
+        passThrough = false;
+        bucketSize = bucketSize(buffered.size(), threshold);
+        buffered.forEach(this::select);
+    }
+
+    private void select(SensorDataHistoryDto point) {
+        if (received == 0) {
+            emit(point);
+        } else {
+            if (pending != null) {
+                place(pending, received - 1);
+            }
+            pending = point;
+        }
+        received++;
+    }
+
+    private void place(SensorDataHistoryDto point, long index) {
+        int bucket = (int) Math.min(lastBucket, (long) ((index - 1) / bucketSize));
+
+        if (currentBucket < 0 || bucket == currentBucket) {
+            currentBucket = bucket;
+            current.add(point);
+        } else if (nextBucket < 0 || bucket == nextBucket) {
+            nextBucket = bucket;
+            next.add(point);
+        } else {
+            closeCurrent(averageX(next), averageY(next));
+            current = next;
+            currentBucket = nextBucket;
+            next = new ArrayList<>();
+            next.add(point);
+            nextBucket = bucket;
+        }
+    }
+
+    private void closeCurrent(double cx, double cy) {
+        double ax = x(selected);
+        double ay = selected.getValue();
+
+        SensorDataHistoryDto best = null;
+        double bestArea = -1;
+        for (SensorDataHistoryDto candidate : current) {
+            double area = Math.abs((ax - cx) * (candidate.getValue() - ay) - (ax - x(candidate)) * (cy - ay));
+            if (area > bestArea) {
+                bestArea = area;
+                best = candidate;
+            }
+        }
+
+        emit(best);
+        current = new ArrayList<>();
+    }
+
+    private void emit(SensorDataHistoryDto point) {
+        selected = point;
+        downstream.accept(point);
+    }
+
+    private static double bucketSize(long totalPoints, int threshold) {
+        return (double) Math.max(totalPoints - 2, 1) / (threshold - 2);
+    }
+
+    private static double averageX(List<SensorDataHistoryDto> points) {
+        double sum = 0;
+        for (SensorDataHistoryDto point : points) {
+            sum += x(point);
+        }
+        return sum / points.size();
+    }
+
+    private static double averageY(List<SensorDataHistoryDto> points) {
+        double sum = 0;
+        for (SensorDataHistoryDto point : points) {
+            sum += point.getValue();
+        }
+        return sum / points.size();
+    }
+
+    private static double x(SensorDataHistoryDto point) {
+        return point.getTimestamp().toEpochSecond(ZoneOffset.UTC) * 1000.0 + point.getTimestamp().getNano() / 1_000_000.0;
+    }
+
+}
@@ -0,0 +1,439 @@
+package ru.momo.monitoring.services.impl;
+
+import ru.momo.monitoring.store.repositories.SensorDataJdbcRepository.ExportRow;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Потоковая запись показаний в файл Apache Parquet без parquet-mr и Hadoop.
+ * <p>
+ * Схема фиксирована и совпадает с колонками CSV-выгрузки: {@code timestamp} (INT64, TIMESTAMP(MICROS) без
+ * привязки к UTC, обязательная), {@code sensor_id}, {@code technic_id}, {@code value}, {@code status}
+ * (BYTE_ARRAY, STRING) и {@code numeric_value} (DOUBLE); все, кроме timestamp, могут быть пустыми.
+ * <p>
+ * Строки копятся до {@code rowGroupSize}, после чего каждая колонка группы пишется одной страницей данных
+ * (DataPage v1, значения PLAIN, уровни определения RLE, сжатие GZIP). Метаданные файла накапливаются
+ * по группам и пишутся в конце в Thrift Compact Protocol, как того требует формат. Поэтому память
+ * ограничена одной группой строк, а размер файла — нет.
+ */
+public final class ParquetSensorDataWriter {
+
+    public static final int DEFAULT_ROW_GROUP_SIZE = 64 * 1024;
+
+    private static final byte[] MAGIC = "PAR1".getBytes(StandardCharsets.US_ASCII);
+
+    private static final String CREATED_BY = "Monitoring_System sensor data export";
+
+    // Значения перечислений из parquet.thrift
+    private static final int TYPE_INT64 = 2;
+    private static final int TYPE_DOUBLE = 5;
+    private static final int TYPE_BYTE_ARRAY = 6;
+    private static final int REPETITION_REQUIRED = 0;
+    private static final int REPETITION_OPTIONAL = 1;
+    private static final int CONVERTED_UTF8 = 0;
+    private static final int ENCODING_PLAIN = 0;
+    private static final int ENCODING_RLE = 3;
+    private static final int CODEC_GZIP = 2;
+    private static final int PAGE_TYPE_DATA = 0;
+
+    private static final List<Column> COLUMNS = List.of(
+            new Column("timestamp", TYPE_INT64, false, ExportRow::timestamp),
+            new Column("sensor_id", TYPE_BYTE_ARRAY, true, ExportRow::sensorId),
+            new Column("technic_id", TYPE_BYTE_ARRAY, true, ExportRow::technicId),
+            new Column("numeric_value", TYPE_DOUBLE, true, ExportRow::numericValue),
+            new Column("value", TYPE_BYTE_ARRAY, true, ExportRow::value),
+            new Column("status", TYPE_BYTE_ARRAY, true, ExportRow::status)
+    );
+
+    private final PositionOutputStream out;
+
+    private final int rowGroupSize;
+
+    private final List<ExportRow> buffer;
+
+    private final List<RowGroupMeta> rowGroups = new ArrayList<>();
+
+    private long totalRows;
+
+    public ParquetSensorDataWriter(OutputStream out, int rowGroupSize) throws IOException {
+        if (rowGroupSize <= 0) {
+            throw new IllegalArgumentException("Row group size must be positive, got " + rowGroupSize);
+        }
+        this.out = new PositionOutputStream(out);
+        this.rowGroupSize = rowGroupSize;
+        this.buffer = new ArrayList<>(Math.min(rowGroupSize, DEFAULT_ROW_GROUP_SIZE));
+        this.out.write(MAGIC);
+    }
+
+    public void write(ExportRow row) throws IOException {
+        buffer.add(row);
+        if (buffer.size() >= rowGroupSize) {
+            writeRowGroup();
+        }
+    }
+
+    /**
+     * Дописывает последнюю группу строк и метаданные файла. Переданный поток не закрывается.
+     */
+    public void finish() throws IOException {
+        if (!buffer.isEmpty()) {
+            writeRowGroup();
+        }
+
+        byte[] footer = fileMetaData();
+        out.write(footer);
+        writeIntLittleEndian(out, footer.length);
+        out.write(MAGIC);
+        out.flush();
+    }
+
+    public long getRowCount() {
+        return totalRows;
+    }
+
+    private void writeRowGroup() throws IOException {
+        List<ColumnChunkMeta> chunks = new ArrayList<>(COLUMNS.size());
+        long totalByteSize = 0;
+        for (Column column : COLUMNS) {
+            ColumnChunkMeta chunk = writeColumnChunk(column);
+            chunks.add(chunk);
+            totalByteSize += chunk.totalUncompressedSize();
+        }
+
+        rowGroups.add(new RowGroupMeta(chunks, totalByteSize, buffer.size()));
+        totalRows += buffer.size();
+        buffer.clear();
+    }
+
+    private ColumnChunkMeta writeColumnChunk(Column column) throws IOException {
+        ByteArrayOutputStream page = new ByteArrayOutputStream();
+        if (column.optional()) {
+            byte[] levels = definitionLevels(column);
+            writeIntLittleEndian(page, levels.length);
+            page.write(levels);
+        }
+        for (ExportRow row : buffer) {
+            Object value = column.getter().apply(row);
+            if (value != null) {
+                writePlain(page, column, value);
+            }
+        }
+
+        byte[] uncompressed = page.toByteArray();
+        byte[] compressed = gzip(uncompressed);
+        byte[] header = pageHeader(uncompressed.length, compressed.length, buffer.size());
+
+        long offset = out.getPosition();
+        out.write(header);
+        out.write(compressed);
+
+        return new ColumnChunkMeta(column, offset, buffer.size(),
+                header.length + uncompressed.length, header.length + compressed.length);
+    }
+
+    /**
+     * Уровни определения (1 — значение есть, 0 — NULL) в гибридной кодировке RLE/bit-packing
+     * только RLE-отрезками: при ширине 1 бит каждый отрезок — varint(длина << 1) и байт значения.
+     */
+    private byte[] definitionLevels(Column column) {
+        ByteArrayOutputStream levels = new ByteArrayOutputStream();
+        int runValue = -1;
+        int runLength = 0;
+        for (ExportRow row : buffer) {
+            int level = column.getter().apply(row) != null ? 1 : 0;
+            if (level != runValue && runLength > 0) {
+                writeRun(levels, runValue, runLength);
+                runLength = 0;
+            }
+            runValue = level;
+            runLength++;
+        }
+        if (runLength > 0) {
+            writeRun(levels, runValue, runLength);
+        }
+        return levels.toByteArray();
+    }
+
+    private static void writeRun(ByteArrayOutputStream levels, int value, int length) {
+        writeUnsignedVarint(levels, (long) length << 1);
+        levels.write(value);
+    }
+
+    private static void writePlain(ByteArrayOutputStream page, Column column, Object value) throws IOException {
+        switch (column.type()) {
+            case TYPE_INT64 -> writeLongLittleEndian(page, toEpochMicros((LocalDateTime) value));
+            case TYPE_DOUBLE -> writeLongLittleEndian(page, Double.doubleToLongBits((Double) value));
+            default -> {
+                byte[] bytes = value.toString().getBytes(StandardCharsets.UTF_8);
+                writeIntLittleEndian(page, bytes.length);
+                page.write(bytes);
+            }
+        }
+    }
+
+    private static long toEpochMicros(LocalDateTime timestamp) {
+        return timestamp.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + timestamp.getNano() / 1_000;
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(32, data.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(data);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static byte[] pageHeader(int uncompressedSize, int compressedSize, int numValues) {
+        CompactWriter thrift = new CompactWriter();
+        thrift.i32(1, PAGE_TYPE_DATA);
+        thrift.i32(2, uncompressedSize);
+        thrift.i32(3, compressedSize);
+        thrift.beginStruct(5);
+        thrift.i32(1, numValues);
+        thrift.i32(2, ENCODING_PLAIN);
+        thrift.i32(3, ENCODING_RLE);
+        thrift.i32(4, ENCODING_RLE);
+        thrift.endStruct();
+        thrift.stop();
+        return thrift.toByteArray();
+    }
+
+    private byte[] fileMetaData() {
+        CompactWriter thrift = new CompactWriter();
+        thrift.i32(1, 1);
+
+        thrift.beginList(2, CompactWriter.TYPE_STRUCT, COLUMNS.size() + 1);
+        thrift.beginElement();
+        thrift.string(4, "schema");
+        thrift.i32(5, COLUMNS.size());
+        thrift.endStruct();
+        for (Column column : COLUMNS) {
+            thrift.beginElement();
+            thrift.i32(1, column.type());
+            thrift.i32(3, column.optional() ? REPETITION_OPTIONAL : REPETITION_REQUIRED);
+            thrift.string(4, column.name());
+            if (column.type() == TYPE_BYTE_ARRAY) {
+                thrift.i32(6, CONVERTED_UTF8);
+                thrift.beginStruct(10);
+                thrift.beginStruct(1);      // LogicalType.STRING
+                thrift.endStruct();
+                thrift.endStruct();
+            } else if (column.type() == TYPE_INT64) {
+                // Время хранится без часового пояса, поэтому ConvertedType TIMESTAMP_MICROS (он подразумевает UTC) не задаётся
+                thrift.beginStruct(10);
+                thrift.beginStruct(8);      // LogicalType.TIMESTAMP
+                thrift.bool(1, false);      // isAdjustedToUTC
+                thrift.beginStruct(2);      // unit
+                thrift.beginStruct(2);      // TimeUnit.MICROS
+                thrift.endStruct();
+                thrift.endStruct();
+                thrift.endStruct();
+                thrift.endStruct();
+            }
+            thrift.endStruct();
+        }
+
+        thrift.i64(3, totalRows);
+
+        thrift.beginList(4, CompactWriter.TYPE_STRUCT, rowGroups.size());
+        for (RowGroupMeta rowGroup : rowGroups) {
+            thrift.beginElement();
+            thrift.beginList(1, CompactWriter.TYPE_STRUCT, rowGroup.columns().size());
+            for (ColumnChunkMeta chunk : rowGroup.columns()) {
+                thrift.beginElement();
+                thrift.i64(2, chunk.offset());
+                thrift.beginStruct(3);
+                thrift.i32(1, chunk.column().type());
+                thrift.i32List(2, List.of(ENCODING_PLAIN, ENCODING_RLE));
+                thrift.stringList(3, List.of(chunk.column().name()));
+                thrift.i32(4, CODEC_GZIP);
+                thrift.i64(5, chunk.numValues());
+                thrift.i64(6, chunk.totalUncompressedSize());
+                thrift.i64(7, chunk.totalCompressedSize());
+                thrift.i64(9, chunk.offset());
+                thrift.endStruct();
+                thrift.endStruct();
+            }
+            thrift.i64(2, rowGroup.totalByteSize());
+            thrift.i64(3, rowGroup.numRows());
+            thrift.endStruct();
+        }
+
+        thrift.string(6, CREATED_BY);
+        thrift.stop();
+        return thrift.toByteArray();
+    }
+
+    private static void writeIntLittleEndian(OutputStream out, int value) throws IOException {
+        out.write(value & 0xFF);
+        out.write((value >>> 8) & 0xFF);
+        out.write((value >>> 16) & 0xFF);
+        out.write((value >>> 24) & 0xFF);
+    }
+
+    private static void writeLongLittleEndian(OutputStream out, long value) throws IOException {
+        for (int i = 0; i < 8; i++) {
+            out.write((int) (value >>> (8 * i)) & 0xFF);
+        }
+    }
+
+    private static void writeUnsignedVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private record Column(String name, int type, boolean optional, Function<ExportRow, Object> getter) {
+    }
+
+    private record ColumnChunkMeta(Column column, long offset, long numValues,
+                                   long totalUncompressedSize, long totalCompressedSize) {
+    }
+
+    private record RowGroupMeta(List<ColumnChunkMeta> columns, long totalByteSize, long numRows) {
+    }
+
+    /**
+     * Поток, считающий записанные байты: метаданным нужны смещения страниц от начала файла.
+     */
+    private static final class PositionOutputStream extends FilterOutputStream {
+
+        private long position;
+
+        private PositionOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            position++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            position += len;
+        }
+
+        private long getPosition() {
+            return position;
+        }
+    }
+
+    /**
+     * Минимальный кодировщик Thrift Compact Protocol для структур метаданных Parquet.
+     */
+    private static final class CompactWriter {
+
+        private static final int TYPE_BOOLEAN_TRUE = 1;
+        private static final int TYPE_BOOLEAN_FALSE = 2;
+        private static final int TYPE_I32 = 5;
+        private static final int TYPE_I64 = 6;
+        private static final int TYPE_BINARY = 8;
+        private static final int TYPE_LIST = 9;
+        private static final int TYPE_STRUCT = 12;
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        private final int[] lastFieldIds = new int[16];
+
+        private int depth;
+
+        private void i32(int fieldId, int value) {
+            fieldHeader(fieldId, TYPE_I32);
+            writeUnsignedVarint(bytes, Integer.toUnsignedLong((value << 1) ^ (value >> 31)));
+        }
+
+        private void i64(int fieldId, long value) {
+            fieldHeader(fieldId, TYPE_I64);
+            writeUnsignedVarint(bytes, (value << 1) ^ (value >> 63));
+        }
+
+        private void bool(int fieldId, boolean value) {
+            fieldHeader(fieldId, value ? TYPE_BOOLEAN_TRUE : TYPE_BOOLEAN_FALSE);
+        }
+
+        private void string(int fieldId, String value) {
+            fieldHeader(fieldId, TYPE_BINARY);
+            binary(value);
+        }
+
+        private void i32List(int fieldId, List<Integer> values) {
+            beginList(fieldId, TYPE_I32, values.size());
+            for (int value : values) {
+                writeUnsignedVarint(bytes, Integer.toUnsignedLong((value << 1) ^ (value >> 31)));
+            }
+        }
+
+        private void stringList(int fieldId, List<String> values) {
+            beginList(fieldId, TYPE_BINARY, values.size());
+            values.forEach(this::binary);
+        }
+
+        private void beginList(int fieldId, int elementType, int size) {
+            fieldHeader(fieldId, TYPE_LIST);
+            if (size < 15) {
+                bytes.write((size << 4) | elementType);
+            } else {
+                bytes.write(0xF0 | elementType);
+                writeUnsignedVarint(bytes, size);
+            }
+        }
+
+        private void beginStruct(int fieldId) {
+            fieldHeader(fieldId, TYPE_STRUCT);
+            lastFieldIds[++depth] = 0;
+        }
+
+        /**
+         * Структура-элемент списка: пишется без заголовка поля.
+         */
+        private void beginElement() {
+            lastFieldIds[++depth] = 0;
+        }
+
+        private void endStruct() {
+            stop();
+            depth--;
+        }
+
+        private void stop() {
+            bytes.write(0);
+        }
+
+        private void binary(String value) {
+            byte[] data = value.getBytes(StandardCharsets.UTF_8);
+            writeUnsignedVarint(bytes, data.length);
+            bytes.write(data, 0, data.length);
+        }
+
+        private void fieldHeader(int fieldId, int type) {
+            int delta = fieldId - lastFieldIds[depth];
+            if (delta > 0 && delta <= 15) {
+                bytes.write((delta << 4) | type);
+            } else {
+                bytes.write(type);
+                writeUnsignedVarint(bytes, Integer.toUnsignedLong((fieldId << 1) ^ (fieldId >> 31)));
+            }
+            lastFieldIds[depth] = fieldId;
+        }
+
+        private byte[] toByteArray() {
+            return bytes.toByteArray();
+        }
+    }
+
+}
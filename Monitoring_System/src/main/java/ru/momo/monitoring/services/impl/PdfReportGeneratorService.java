@@ -1,5 +1,8 @@
 package ru.momo.monitoring.services.impl;
 
+import com.itextpdf.io.font.FontProgram;
+import com.itextpdf.io.font.FontProgramFactory;
+import com.itextpdf.io.font.PdfEncodings;
 import com.itextpdf.io.font.constants.StandardFonts;
 import com.itextpdf.kernel.colors.ColorConstants;
 import com.itextpdf.kernel.colors.DeviceGray;
@@ -19,6 +22,7 @@ import com.itextpdf.layout.properties.TextAlignment;
 import com.itextpdf.layout.properties.UnitValue;
 import com.itextpdf.layout.properties.VerticalAlignment;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
 import ru.momo.monitoring.store.dto.report.AdminReportDto;
 import ru.momo.monitoring.store.dto.report.CompanySummaryReportDto;
@@ -35,6 +39,8 @@ import ru.momo.monitoring.store.dto.report.TechnicStatsDto;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -51,29 +57,36 @@ public class PdfReportGeneratorService {
     private static final String REGULAR_FONT_RESOURCE_PATH = "fonts/DejaVuSans.ttf";
     private static final String BOLD_FONT_RESOURCE_PATH = "fonts/DejaVuSans-Bold.ttf";
     private static final String NOT_AVAILABLE_TEXT = "Н/Д";
+    private static final int LARGE_TABLE_FLUSH_ROWS = 50;
+
+    private final FontProgram regularFontProgram;
+    private final FontProgram boldFontProgram;
 
     public PdfReportGeneratorService() {
+        this.regularFontProgram = loadFontProgram(REGULAR_FONT_RESOURCE_PATH);
+        this.boldFontProgram = loadFontProgram(BOLD_FONT_RESOURCE_PATH);
         log.info("PdfReportGeneratorService initialized.");
     }
 
     public byte[] generateDriverActivityPdf(DriverActivityReportDto reportData) {
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        writeDriverActivityPdf(reportData, baos);
+        return baos.toByteArray();
+    }
+
+    /**
+     * Пишет отчет по водителю прямо в outputStream: готовые страницы и строки больших таблиц сбрасываются
+     * по мере формирования, поэтому память не зависит от размера отчета. Поток не закрывается.
+     */
+    public void writeDriverActivityPdf(DriverActivityReportDto reportData, OutputStream outputStream) {
         PdfFont currentRegularFont;
         PdfFont currentBoldFont;
 
         try {
-            try {
-                currentRegularFont = PdfFontFactory.createFont(REGULAR_FONT_RESOURCE_PATH, PdfFontFactory.EmbeddingStrategy.PREFER_EMBEDDED);
-                currentBoldFont = PdfFontFactory.createFont(BOLD_FONT_RESOURCE_PATH, PdfFontFactory.EmbeddingStrategy.PREFER_EMBEDDED);
-                log.debug("Custom PDF fonts loaded for DriverActivityReport.");
-            } catch (Exception e) {
-                log.warn("Failed to load custom fonts for DriverActivityReport (paths: '{}', '{}'). Falling back to Helvetica. Error: {}",
-                        REGULAR_FONT_RESOURCE_PATH, BOLD_FONT_RESOURCE_PATH, e.getMessage());
-                currentRegularFont = PdfFontFactory.createFont(StandardFonts.HELVETICA);
-                currentBoldFont = PdfFontFactory.createFont(StandardFonts.HELVETICA_BOLD);
-            }
+            currentRegularFont = createDocumentFont(regularFontProgram, StandardFonts.HELVETICA);
+            currentBoldFont = createDocumentFont(boldFontProgram, StandardFonts.HELVETICA_BOLD);
 
-            try (PdfWriter writer = new PdfWriter(baos);
+            try (PdfWriter writer = createWriter(outputStream);
                  PdfDocument pdfDoc = new PdfDocument(writer);
                  Document document = new Document(pdfDoc, PageSize.A4)) {
 
@@ -163,7 +176,7 @@ public class PdfReportGeneratorService {
                                     .setFont(currentBoldFont).setFontSize(11).setMarginTop(8).setMarginBottom(2);
                             document.add(sensorsSubtitle);
 
-                            Table sensorsTable = new Table(UnitValue.createPercentArray(new float[]{2.5f, 1.3f, 1f, 1f, 1f, 1f, 1f, 1f})).useAllAvailableWidth().setMarginTop(5);
+                            Table sensorsTable = new Table(UnitValue.createPercentArray(new float[]{2.5f, 1.3f, 1f, 1f, 1f, 1f, 1f, 1f}), true).useAllAvailableWidth().setMarginTop(5);
 
                             addHeaderCellToTable(sensorsTable, "Сенсор (Тип / S/N)", currentBoldFont);
                             addHeaderCellToTable(sensorsTable, "Ед. изм.", currentBoldFont);
@@ -173,7 +186,9 @@ public class PdfReportGeneratorService {
                             addHeaderCellToTable(sensorsTable, "Посл.", currentBoldFont);
                             addHeaderCellToTable(sensorsTable, "Предупр.", currentBoldFont);
                             addHeaderCellToTable(sensorsTable, "Критич.", currentBoldFont);
+                            document.add(sensorsTable);
 
+                            int sensorRows = 0;
                             for (SensorReportDto sensor : technic.getSensorsSummary()) {
                                 addCellToTable(sensorsTable, strVal(sensor.getSensorType()) + "\n(SN: " + strVal(sensor.getSensorSerialNumber()) + ")", currentRegularFont);
                                 addCellToTable(sensorsTable, strVal(sensor.getUnitOfMeasurement()), currentRegularFont, TextAlignment.CENTER);
@@ -187,8 +202,9 @@ public class PdfReportGeneratorService {
                                 SensorStatusSummaryDto ss = sensor.getStatusSummary();
                                 addCellToTable(sensorsTable, ss != null ? String.valueOf(ss.getWarningCount()) : "0", currentRegularFont, TextAlignment.CENTER);
                                 addCellToTable(sensorsTable, ss != null ? String.valueOf(ss.getCriticalCount()) : "0", currentRegularFont, TextAlignment.CENTER);
+                                flushLargeTable(sensorsTable, ++sensorRows);
                             }
-                            document.add(sensorsTable);
+                            sensorsTable.complete();
                         } else {
                             addParagraph(document, "На данной единице техники не найдено активных сенсоров с данными за указанный период.", currentRegularFont, 10).setItalic().setMarginTop(4);
                         }
@@ -216,37 +232,35 @@ public class PdfReportGeneratorService {
 
                 document.close();
                 log.info("PDF report generated successfully for driver: {}", reportData.getHeader() != null ? strVal(reportData.getHeader().getDriverFullName()) : "UNKNOWN_DRIVER");
-                return baos.toByteArray();
             }
         } catch (IOException e) {
-            log.error("IOException (font loading or PDF writing) in generateDriverActivityPdf: {}", e.getMessage(), e);
+            log.error("IOException (font loading or PDF writing) in writeDriverActivityPdf: {}", e.getMessage(), e);
             throw new RuntimeException("Failed to generate PDF report due to IO error", e);
         } catch (Exception e) {
-            log.error("Unexpected exception in generateDriverActivityPdf: {}", e.getMessage(), e);
+            log.error("Unexpected exception in writeDriverActivityPdf: {}", e.getMessage(), e);
             throw new RuntimeException("An unexpected error occurred while generating the PDF report", e);
         }
     }
 
 
-    // Код метода generateAdminSystemReportPdf остается таким же, как в предыдущем ответе
     public byte[] generateAdminSystemReportPdf(AdminReportDto reportData) {
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        writeAdminSystemReportPdf(reportData, baos);
+        return baos.toByteArray();
+    }
+
+    /**
+     * Пишет сводный отчет администратора прямо в outputStream, как {@link #writeDriverActivityPdf}. Поток не закрывается.
+     */
+    public void writeAdminSystemReportPdf(AdminReportDto reportData, OutputStream outputStream) {
         PdfFont currentRegularFont;
         PdfFont currentBoldFont;
 
         try {
-            try {
-                currentRegularFont = PdfFontFactory.createFont(REGULAR_FONT_RESOURCE_PATH, PdfFontFactory.EmbeddingStrategy.PREFER_EMBEDDED);
-                currentBoldFont = PdfFontFactory.createFont(BOLD_FONT_RESOURCE_PATH, PdfFontFactory.EmbeddingStrategy.PREFER_EMBEDDED);
-                log.debug("Custom PDF fonts loaded for AdminSystemReport.");
-            } catch (Exception e) {
-                log.warn("Failed to load custom fonts for AdminSystemReport (paths: '{}', '{}'). Falling back to Helvetica. Error: {}",
-                        REGULAR_FONT_RESOURCE_PATH, BOLD_FONT_RESOURCE_PATH, e.getMessage());
-                currentRegularFont = PdfFontFactory.createFont(StandardFonts.HELVETICA);
-                currentBoldFont = PdfFontFactory.createFont(StandardFonts.HELVETICA_BOLD);
-            }
+            currentRegularFont = createDocumentFont(regularFontProgram, StandardFonts.HELVETICA);
+            currentBoldFont = createDocumentFont(boldFontProgram, StandardFonts.HELVETICA_BOLD);
 
-            try (PdfWriter writer = new PdfWriter(baos);
+            try (PdfWriter writer = createWriter(outputStream);
                  PdfDocument pdfDoc = new PdfDocument(writer);
                  Document document = new Document(pdfDoc, PageSize.A4)) {
 
@@ -332,21 +346,24 @@ public class PdfReportGeneratorService {
                                     .setFont(currentBoldFont).setFontSize(11).setMarginTop(6).setMarginBottom(2);
                             document.add(technicsSubtitle);
 
-                            Table technicsStatsTable = new Table(UnitValue.createPercentArray(new float[]{2.8f, 1.2f, 1f, 1f, 1f})).useAllAvailableWidth().setMarginTop(5);
+                            Table technicsStatsTable = new Table(UnitValue.createPercentArray(new float[]{2.8f, 1.2f, 1f, 1f, 1f}), true).useAllAvailableWidth().setMarginTop(5);
                             addHeaderCellToTable(technicsStatsTable, "Техника (Бренд Модель / S/N)", currentBoldFont);
                             addHeaderCellToTable(technicsStatsTable, "Статус", currentBoldFont);
                             addHeaderCellToTable(technicsStatsTable, "Сенсоров (акт.)", currentBoldFont);
                             addHeaderCellToTable(technicsStatsTable, "Предупр.", currentBoldFont);
                             addHeaderCellToTable(technicsStatsTable, "Критич.", currentBoldFont);
+                            document.add(technicsStatsTable);
 
+                            int technicRows = 0;
                             for (TechnicStatsDto technicStat : companySummary.getTechnicsStats()) {
                                 addCellToTable(technicsStatsTable, strVal(technicStat.getTechnicBrandModel()) + "\n(SN: " + strVal(technicStat.getTechnicSerialNumber()) + ")", currentRegularFont);
                                 addCellToTable(technicsStatsTable, technicStat.isActive() ? "Активна" : "Неактивна", currentRegularFont, TextAlignment.CENTER);
                                 addCellToTable(technicsStatsTable, String.valueOf(technicStat.getNumberOfSensors()), currentRegularFont, TextAlignment.CENTER);
                                 addCellToTable(technicsStatsTable, String.valueOf(technicStat.getWarningAlerts()), currentRegularFont, TextAlignment.CENTER);
                                 addCellToTable(technicsStatsTable, String.valueOf(technicStat.getCriticalAlerts()), currentRegularFont, TextAlignment.CENTER);
+                                flushLargeTable(technicsStatsTable, ++technicRows);
                             }
-                            document.add(technicsStatsTable);
+                            technicsStatsTable.complete();
                         } else {
                             addParagraph(document, "Нет данных по технике для этой компании за указанный период.", currentRegularFont, 10).setItalic().setMarginTop(4);
                         }
@@ -375,20 +392,58 @@ public class PdfReportGeneratorService {
 
                 document.close();
                 log.info("Admin system PDF report generated successfully at {}", LocalDateTime.now());
-                return baos.toByteArray();
-
             }
         } catch (IOException e) {
-            log.error("IOException (PDF writing) in generateAdminSystemReportPdf: {}", e.getMessage(), e);
+            log.error("IOException (PDF writing) in writeAdminSystemReportPdf: {}", e.getMessage(), e);
             throw new RuntimeException("Failed to generate PDF report due to IO error", e);
         } catch (Exception e) {
-            log.error("Unexpected exception in generateAdminSystemReportPdf: {}", e.getMessage(), e);
+            log.error("Unexpected exception in writeAdminSystemReportPdf: {}", e.getMessage(), e);
             throw new RuntimeException("An unexpected error occurred while generating the PDF report", e);
         }
     }
 
 
     // --- Вспомогательные методы ---
+
+    private static PdfWriter createWriter(OutputStream outputStream) {
+        PdfWriter writer = new PdfWriter(outputStream);
+        writer.setCloseStream(false);
+        return writer;
+    }
+
+    /**
+     * Таблицы строк создаются в режиме больших таблиц: уже добавленные строки раскладываются
+     * и отдаются документу каждые {@link #LARGE_TABLE_FLUSH_ROWS} строк, а не копятся до конца таблицы.
+     */
+    private static void flushLargeTable(Table table, int rowsAdded) {
+        if (rowsAdded % LARGE_TABLE_FLUSH_ROWS == 0) {
+            table.flush();
+        }
+    }
+
+    /**
+     * Читает и разбирает TTF один раз при создании сервиса. FontProgram не привязан к документу и общий для всех отчетов.
+     * Если шрифт не загрузился, возвращает null, и отчеты используют Helvetica.
+     */
+    private static FontProgram loadFontProgram(String resourcePath) {
+        try (InputStream fontStream = new ClassPathResource(resourcePath).getInputStream()) {
+            return FontProgramFactory.createFont(fontStream.readAllBytes(), false);
+        } catch (Exception e) {
+            log.warn("Failed to load PDF font '{}'. Reports will fall back to Helvetica. Error: {}", resourcePath, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * PdfFont накапливает подмножество глифов конкретного документа, поэтому создается заново для каждого отчета
+     * из уже разобранного FontProgram — без повторного чтения файла шрифта.
+     */
+    private PdfFont createDocumentFont(FontProgram fontProgram, String fallbackFont) throws IOException {
+        if (fontProgram == null) {
+            return PdfFontFactory.createFont(fallbackFont);
+        }
+        return PdfFontFactory.createFont(fontProgram, PdfEncodings.IDENTITY_H, PdfFontFactory.EmbeddingStrategy.PREFER_EMBEDDED);
+    }
     private void addSectionTitle(Document document, String title, PdfFont font) {
         PdfFont effectiveFont = font;
         if (font == null) {
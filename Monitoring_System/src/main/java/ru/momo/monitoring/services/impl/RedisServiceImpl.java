@@ -1,17 +1,26 @@
 package ru.momo.monitoring.services.impl;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
 import ru.momo.monitoring.services.RedisService;
 
 import java.time.Duration;
 import java.util.List;
-import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
 
+/**
+ * Операции с refresh-токенами выполняются Lua-скриптами из {@code resources/redis}: каждая операция —
+ * один атомарный запрос к Redis (EVALSHA) вместо цепочки SET/SADD/EXPIRE или SMEMBERS/DEL.
+ * <p>
+ * Скрипты рассчитаны только на одиночный Redis (или Sentinel), как в docker-compose: ключи токена и множества
+ * токенов пользователя лежат в разных слотах, а скрипт отзыва всех токенов формирует имена
+ * {@code refresh_token:*} из содержимого множества, не объявляя их в KEYS. Для Redis Cluster ключи нужно
+ * перевести на общий hash tag пользователя.
+ */
 @Service
 @RequiredArgsConstructor
 public class RedisServiceImpl implements RedisService {
@@ -22,6 +31,13 @@ public class RedisServiceImpl implements RedisService {
     private static final String USER_REFRESH_TOKENS_PREFIX = "user_refresh_tokens:";
     private static final String REFRESH_TOKEN_PREFIX = "refresh_token:";
 
+    public static final RedisScript<Long> STORE_REFRESH_TOKEN_SCRIPT =
+            RedisScript.of(new ClassPathResource("redis/store_refresh_token.lua"), Long.class);
+    public static final RedisScript<Long> CONSUME_REFRESH_TOKEN_SCRIPT =
+            RedisScript.of(new ClassPathResource("redis/consume_refresh_token.lua"), Long.class);
+    public static final RedisScript<Long> INVALIDATE_USER_REFRESH_TOKENS_SCRIPT =
+            RedisScript.of(new ClassPathResource("redis/invalidate_user_refresh_tokens.lua"), Long.class);
+
     @Override
     public String saveTokenWithValue(String value) {
         String token = UUID.randomUUID().toString();
@@ -39,44 +55,43 @@ public class RedisServiceImpl implements RedisService {
         redisTemplate.delete(token);
     }
 
+    @Override
     public void storeRefreshToken(UUID userId, String tokenId, String refreshToken, Duration validityDuration) {
-        redisTemplate.opsForValue().set(
-                REFRESH_TOKEN_PREFIX + tokenId,
+        redisTemplate.execute(
+                STORE_REFRESH_TOKEN_SCRIPT,
+                List.of(REFRESH_TOKEN_PREFIX + tokenId, USER_REFRESH_TOKENS_PREFIX + userId),
                 refreshToken,
-                validityDuration
-        );
-
-        redisTemplate.opsForSet().add(
-                USER_REFRESH_TOKENS_PREFIX + userId.toString(),
+                String.valueOf(validityDuration.toMillis()),
+                String.valueOf(validityDuration.plusHours(1).toMillis()),
                 tokenId
         );
-
-        redisTemplate.expire(USER_REFRESH_TOKENS_PREFIX + userId.toString(), validityDuration.plusHours(1));
     }
 
+    @Override
     public boolean isRefreshTokenValid(String tokenId) {
         return Boolean.TRUE.equals(redisTemplate.hasKey(REFRESH_TOKEN_PREFIX + tokenId));
     }
 
+    @Override
     public void invalidateRefreshToken(UUID userId, String tokenId) {
-        redisTemplate.delete(REFRESH_TOKEN_PREFIX + tokenId);
-        if (userId != null) {
-            redisTemplate.opsForSet().remove(USER_REFRESH_TOKENS_PREFIX + userId.toString(), tokenId);
-        }
+        consumeRefreshToken(userId, tokenId);
     }
 
+    @Override
+    public boolean consumeRefreshToken(UUID userId, String tokenId) {
+        List<String> keys = userId != null
+                ? List.of(REFRESH_TOKEN_PREFIX + tokenId, USER_REFRESH_TOKENS_PREFIX + userId)
+                : List.of(REFRESH_TOKEN_PREFIX + tokenId);
+        Long removed = redisTemplate.execute(CONSUME_REFRESH_TOKEN_SCRIPT, keys, tokenId);
+        return removed != null && removed > 0;
+    }
+
+    @Override
     public void invalidateAllUserRefreshTokens(UUID userId) {
-        String userTokenSetKey = USER_REFRESH_TOKENS_PREFIX + userId.toString();
-        Set<String> tokenIds = redisTemplate.opsForSet().members(userTokenSetKey);
-        if (tokenIds != null && !tokenIds.isEmpty()) {
-            List<String> tokenKeysToDelete = tokenIds.stream()
-                    .map(tokenId -> REFRESH_TOKEN_PREFIX + tokenId)
-                    .collect(Collectors.toList());
-            if (!tokenKeysToDelete.isEmpty()) {
-                redisTemplate.delete(tokenKeysToDelete);
-            }
-        }
-        redisTemplate.delete(userTokenSetKey);
+        redisTemplate.execute(
+                INVALIDATE_USER_REFRESH_TOKENS_SCRIPT,
+                List.of(USER_REFRESH_TOKENS_PREFIX + userId),
+                REFRESH_TOKEN_PREFIX
+        );
     }
 }
-
@@ -0,0 +1,124 @@
+package ru.momo.monitoring.services.impl;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.momo.monitoring.config.SchedulingConfig;
+import ru.momo.monitoring.config.WebSocketFanoutProperties;
+import ru.momo.monitoring.config.WebSocketPushProperties;
+import ru.momo.monitoring.services.WebSocketFanout;
+import ru.momo.monitoring.store.dto.response.SensorDataRealtimeDto;
+import ru.momo.monitoring.store.entities.enums.RealtimeCoalesceMode;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Передача показаний всем экземплярам через Redis pub/sub, чтобы показание, принятое любым экземпляром,
+ * получили клиенты, подключенные к любому другому.
+ * <p>
+ * Передаются исходные показания, а не готовые сообщения: каждый экземпляр, включая отправителя, получает полный
+ * поток и сам объединяет его для своих подписчиков, поэтому окно, минимум и максимум и изменения статуса считаются
+ * по всем показаниям сенсора, а не по доле, принятой одним экземпляром. Показания копятся и публикуются одним
+ * сообщением (JSON-массивом) раз в окно {@code websocket.push.coalesce-window-ms}; в режиме NONE — сразу.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "websocket.fanout.mode", havingValue = "REDIS")
+public class RedisWebSocketFanout implements WebSocketFanout {
+
+    private static final TypeReference<List<SensorDataRealtimeDto>> READINGS_TYPE = new TypeReference<>() {
+    };
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+    private final WebSocketFanoutProperties fanoutProperties;
+    private final WebSocketPushProperties pushProperties;
+    private final ObjectMapper objectMapper;
+
+    private final Queue<SensorDataRealtimeDto> outbound = new ConcurrentLinkedQueue<>();
+    private final List<Consumer<SensorDataRealtimeDto>> consumers = new CopyOnWriteArrayList<>();
+
+    @PostConstruct
+    public void listen() {
+        redisMessageListenerContainer.addMessageListener(this::onFanoutMessage,
+                new ChannelTopic(fanoutProperties.getChannel()));
+        log.info("WebSocket fan-out via Redis channel '{}' enabled", fanoutProperties.getChannel());
+    }
+
+    @Override
+    public void publish(SensorDataRealtimeDto reading) {
+        if (pushProperties.getCoalesceMode() == RealtimeCoalesceMode.NONE) {
+            publishBatch(List.of(reading));
+            return;
+        }
+        outbound.add(reading);
+    }
+
+    @Override
+    public void subscribe(Consumer<SensorDataRealtimeDto> consumer) {
+        consumers.add(consumer);
+    }
+
+    /**
+     * Публикует накопленные показания сообщениями не больше {@code websocket.fanout.max-batch-size} показаний.
+     */
+    @Scheduled(fixedDelayString = "${websocket.push.coalesce-window-ms:250}", scheduler = SchedulingConfig.WEBSOCKET_PUSH_SCHEDULER)
+    public void flushOutbound() {
+        int maxBatchSize = fanoutProperties.getMaxBatchSize();
+        List<SensorDataRealtimeDto> batch = new ArrayList<>();
+        SensorDataRealtimeDto reading;
+        while ((reading = outbound.poll()) != null) {
+            batch.add(reading);
+            if (batch.size() >= maxBatchSize) {
+                publishBatch(batch);
+                batch = new ArrayList<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            publishBatch(batch);
+        }
+    }
+
+    public void onFanoutMessage(Message message, byte[] pattern) {
+        List<SensorDataRealtimeDto> readings;
+        try {
+            readings = objectMapper.readValue(message.getBody(), READINGS_TYPE);
+        } catch (Exception e) {
+            log.warn("Dropping malformed WebSocket fan-out message: {}", e.getMessage());
+            return;
+        }
+        for (SensorDataRealtimeDto reading : readings) {
+            if (reading != null && reading.getSensorId() != null) {
+                consumers.forEach(consumer -> consumer.accept(reading));
+            }
+        }
+    }
+
+    private void publishBatch(List<SensorDataRealtimeDto> batch) {
+        try {
+            byte[] payload = objectMapper.writeValueAsBytes(batch);
+            byte[] channel = fanoutProperties.getChannel().getBytes(StandardCharsets.UTF_8);
+            redisTemplate.execute((RedisCallback<Long>) connection -> connection.publish(channel, payload));
+        } catch (Exception e) {
+            log.warn("Failed to publish {} realtime readings to Redis: {}", batch.size(), e.getMessage());
+        }
+    }
+
+}
@@ -0,0 +1,334 @@
+package ru.momo.monitoring.services.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.momo.monitoring.config.ReportJobProperties;
+import ru.momo.monitoring.exceptions.AccessDeniedException;
+import ru.momo.monitoring.exceptions.ReportJobRejectedException;
+import ru.momo.monitoring.exceptions.ReportNotReadyException;
+import ru.momo.monitoring.exceptions.ResourceNotFoundException;
+import ru.momo.monitoring.services.ReportJobService;
+import ru.momo.monitoring.services.ReportService;
+import ru.momo.monitoring.services.SecurityService;
+import ru.momo.monitoring.store.dto.report.AdminReportDto;
+import ru.momo.monitoring.store.dto.report.DriverActivityReportDto;
+import ru.momo.monitoring.store.dto.report.DriverActivityReportRequest;
+import ru.momo.monitoring.store.dto.report.GeneratedReportFile;
+import ru.momo.monitoring.store.dto.response.ReportJobDto;
+import ru.momo.monitoring.store.entities.User;
+import ru.momo.monitoring.store.entities.enums.ReportJobStatus;
+import ru.momo.monitoring.store.entities.enums.ReportJobType;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.Principal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Асинхронное формирование PDF-отчетов.
+ * <p>
+ * Задания выполняются на отдельном ограниченном пуле {@code reportTaskExecutor} и хранятся в памяти
+ * до истечения {@code report.jobs.result-ttl-minutes}, но не больше {@code report.jobs.result-max-jobs} заданий
+ * и {@code report.jobs.result-max-size} готовых файлов: при превышении самые старые завершённые задания
+ * удаляются раньше срока. Отчеты за закрытые периоды (конец периода в прошлом)
+ * кэшируются по хэшу (тип отчета, субъект, период): повторный запрос сразу получает готовый файл.
+ * В субъект входит и автор запроса, так как его имя печатается в шапке отчета.
+ */
+@Slf4j
+@Service
+public class ReportJobServiceImpl implements ReportJobService {
+
+    private static final String SYSTEM_SUBJECT = "system";
+
+    private final ReportService reportService;
+    private final PdfReportGeneratorService pdfReportGeneratorService;
+    private final SecurityService securityService;
+    private final ReportJobProperties reportJobProperties;
+    private final Executor reportTaskExecutor;
+
+    private final Map<UUID, ReportJob> jobs = new ConcurrentHashMap<>();
+    private final Queue<ReportJob> finishedJobs = new ConcurrentLinkedQueue<>();
+    private final Map<String, CachedReport> cache;
+
+    public ReportJobServiceImpl(ReportService reportService,
+                                PdfReportGeneratorService pdfReportGeneratorService,
+                                SecurityService securityService,
+                                ReportJobProperties reportJobProperties,
+                                @Qualifier("reportTaskExecutor") Executor reportTaskExecutor) {
+        this.reportService = reportService;
+        this.pdfReportGeneratorService = pdfReportGeneratorService;
+        this.securityService = securityService;
+        this.reportJobProperties = reportJobProperties;
+        this.reportTaskExecutor = reportTaskExecutor;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedReport> eldest) {
+                return size() > reportJobProperties.getCacheMaxEntries();
+            }
+        };
+    }
+
+    @Override
+    public ReportJobDto submitDriverActivityReport(DriverActivityReportRequest request, Principal managerPrincipal) {
+        if (request.getDateFrom().isAfter(request.getDateTo())) {
+            throw new IllegalArgumentException("'from' date must be before 'to' date.");
+        }
+        reportService.checkDriverActivityReportAccess(request, managerPrincipal);
+        User manager = securityService.getCurrentUser();
+
+        String subject = request.getDriverId() + ":" + manager.getId();
+        return submit(ReportJobType.DRIVER_ACTIVITY, subject, request.getDateFrom(), request.getDateTo(), manager.getId(),
+                () -> {
+                    DriverActivityReportDto reportData = reportService.generateDriverActivityReportData(request, managerPrincipal);
+                    byte[] pdf = pdfReportGeneratorService.generateDriverActivityPdf(reportData);
+                    return new GeneratedReportFile(pdf, driverActivityFileName(reportData, request));
+                });
+    }
+
+    @Override
+    public ReportJobDto submitAdminSystemReport(LocalDateTime from, LocalDateTime to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("'from' date must be before 'to' date.");
+        }
+        User admin = securityService.getCurrentUser();
+
+        String subject = SYSTEM_SUBJECT + ":" + admin.getId();
+        return submit(ReportJobType.ADMIN_SYSTEM_SUMMARY, subject, from, to, admin.getId(),
+                () -> {
+                    AdminReportDto reportData = reportService.prepareAdminReportData(from, to, admin);
+                    byte[] pdf = pdfReportGeneratorService.generateAdminSystemReportPdf(reportData);
+                    String fileName = String.format("AdminSystemReport_%s_to_%s.pdf",
+                            from.format(DateTimeFormatter.ISO_LOCAL_DATE),
+                            to.format(DateTimeFormatter.ISO_LOCAL_DATE));
+                    return new GeneratedReportFile(pdf, fileName);
+                });
+    }
+
+    @Override
+    public ReportJobDto getJob(UUID jobId) {
+        return toDto(findOwnJob(jobId));
+    }
+
+    @Override
+    public GeneratedReportFile getJobResult(UUID jobId) {
+        ReportJob job = findOwnJob(jobId);
+        if (job.status == ReportJobStatus.FAILED) {
+            throw new ReportNotReadyException("Report job %s failed: %s", jobId, job.error);
+        }
+        if (job.status != ReportJobStatus.DONE) {
+            throw new ReportNotReadyException("Report job %s is not finished yet", jobId);
+        }
+        return job.result;
+    }
+
+    @Scheduled(fixedDelayString = "${report.jobs.cleanup-interval-ms:60000}")
+    public void evictExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime jobsThreshold = now.minusMinutes(reportJobProperties.getResultTtlMinutes());
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(jobsThreshold));
+        finishedJobs.removeIf(job -> !jobs.containsKey(job.id));
+        synchronized (cache) {
+            cache.values().removeIf(entry -> entry.expiresAt().isBefore(now));
+        }
+    }
+
+    private ReportJobDto submit(ReportJobType type,
+                                String subject,
+                                LocalDateTime from,
+                                LocalDateTime to,
+                                UUID ownerId,
+                                Supplier<GeneratedReportFile> generator) {
+        String cacheKey = to.isBefore(LocalDateTime.now()) ? cacheKey(type, subject, from, to) : null;
+        ReportJob job = new ReportJob(UUID.randomUUID(), type, ownerId, cacheKey);
+
+        GeneratedReportFile cached = cacheKey != null ? getCached(cacheKey) : null;
+        if (cached != null) {
+            log.info("Report job {} ({}) served from cache", job.id, type);
+            job.complete(cached, true);
+            jobs.put(job.id, job);
+            retainFinished(job);
+            return toDto(job);
+        }
+
+        jobs.put(job.id, job);
+        try {
+            reportTaskExecutor.execute(() -> run(job, generator));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            throw new ReportJobRejectedException("Too many reports are being generated, try again later");
+        }
+        log.info("Report job {} ({}) submitted by user {}", job.id, type, ownerId);
+        return toDto(job);
+    }
+
+    private void run(ReportJob job, Supplier<GeneratedReportFile> generator) {
+        job.status = ReportJobStatus.RUNNING;
+        try {
+            GeneratedReportFile file = generator.get();
+            if (file.content() == null || file.content().length == 0) {
+                throw new IllegalStateException("Failed to generate PDF content.");
+            }
+            if (job.cacheKey != null) {
+                putCached(job.cacheKey, file);
+            }
+            job.complete(file, false);
+            log.info("Report job {} ({}) finished, {} bytes", job.id, job.type, file.content().length);
+        } catch (Exception e) {
+            log.error("Report job {} ({}) failed", job.id, job.type, e);
+            job.fail(e.getMessage());
+        }
+        retainFinished(job);
+    }
+
+    /**
+     * Ставит завершённое задание в очередь на вытеснение и удаляет самые старые завершённые задания,
+     * пока число заданий и суммарный размер их файлов не уложатся в лимиты.
+     */
+    private synchronized void retainFinished(ReportJob job) {
+        finishedJobs.add(job);
+
+        long retainedBytes = 0;
+        for (ReportJob retained : jobs.values()) {
+            retainedBytes += retained.resultSize();
+        }
+
+        long maxBytes = reportJobProperties.getResultMaxSize().toBytes();
+        while (jobs.size() > reportJobProperties.getResultMaxJobs() || retainedBytes > maxBytes) {
+            ReportJob oldest = finishedJobs.poll();
+            if (oldest == null) {
+                break;
+            }
+            if (jobs.remove(oldest.id, oldest)) {
+                retainedBytes -= oldest.resultSize();
+                log.info("Report job {} ({}) evicted before TTL: jobs or result size limit reached", oldest.id, oldest.type);
+            }
+        }
+    }
+
+    private ReportJob findOwnJob(UUID jobId) {
+        ReportJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new ResourceNotFoundException("Report job with id %s not found", jobId);
+        }
+        if (!job.ownerId.equals(securityService.getCurrentUser().getId())) {
+            throw new AccessDeniedException("Report job belongs to another user.");
+        }
+        return job;
+    }
+
+    private GeneratedReportFile getCached(String cacheKey) {
+        synchronized (cache) {
+            CachedReport entry = cache.get(cacheKey);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAt().isBefore(LocalDateTime.now())) {
+                cache.remove(cacheKey);
+                return null;
+            }
+            return entry.file();
+        }
+    }
+
+    private void putCached(String cacheKey, GeneratedReportFile file) {
+        LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(reportJobProperties.getCacheTtlMinutes());
+        synchronized (cache) {
+            cache.put(cacheKey, new CachedReport(file, expiresAt));
+        }
+    }
+
+    private static String cacheKey(ReportJobType type, String subject, LocalDateTime from, LocalDateTime to) {
+        String source = type + "|" + subject + "|" + from + "|" + to;
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(source.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String driverActivityFileName(DriverActivityReportDto reportData, DriverActivityReportRequest request) {
+        String driverNamePart = "UnknownDriver";
+        String driverFullName = reportData.getHeader() != null ? reportData.getHeader().getDriverFullName() : null;
+        if (driverFullName != null && !driverFullName.isBlank() && !driverFullName.equalsIgnoreCase("N/A")) {
+            driverNamePart = driverFullName.replace(" ", "_").replaceAll("[^a-zA-Z0-9_.-]", "");
+        }
+        return String.format("Driver_Activity_Report_%s_%s_to_%s.pdf",
+                driverNamePart,
+                request.getDateFrom().format(DateTimeFormatter.ISO_LOCAL_DATE),
+                request.getDateTo().format(DateTimeFormatter.ISO_LOCAL_DATE));
+    }
+
+    private static ReportJobDto toDto(ReportJob job) {
+        GeneratedReportFile result = job.result;
+        return ReportJobDto.builder()
+                .jobId(job.id)
+                .type(job.type)
+                .status(job.status)
+                .cached(job.cached)
+                .createdAt(job.createdAt)
+                .finishedAt(job.finishedAt)
+                .error(job.error)
+                .fileName(result != null ? result.fileName() : null)
+                .build();
+    }
+
+    private record CachedReport(GeneratedReportFile file, LocalDateTime expiresAt) {
+    }
+
+    private static final class ReportJob {
+
+        private final UUID id;
+        private final ReportJobType type;
+        private final UUID ownerId;
+        private final String cacheKey;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+
+        private volatile ReportJobStatus status = ReportJobStatus.PENDING;
+        private volatile GeneratedReportFile result;
+        private volatile boolean cached;
+        private volatile String error;
+        private volatile LocalDateTime finishedAt;
+
+        private ReportJob(UUID id, ReportJobType type, UUID ownerId, String cacheKey) {
+            this.id = id;
+            this.type = type;
+            this.ownerId = ownerId;
+            this.cacheKey = cacheKey;
+        }
+
+        private void complete(GeneratedReportFile file, boolean fromCache) {
+            result = file;
+            cached = fromCache;
+            finishedAt = LocalDateTime.now();
+            status = ReportJobStatus.DONE;
+        }
+
+        private long resultSize() {
+            GeneratedReportFile file = result;
+            return file != null && file.content() != null ? file.content().length : 0;
+        }
+
+        private void fail(String message) {
+            error = message;
+            finishedAt = LocalDateTime.now();
+            status = ReportJobStatus.FAILED;
+        }
+
+    }
+
+}
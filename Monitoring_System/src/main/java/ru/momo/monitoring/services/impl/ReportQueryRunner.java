@@ -0,0 +1,63 @@
+package ru.momo.monitoring.services.impl;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Выполняет независимые запросы сбора данных отчета параллельно на пуле {@code reportQueryExecutor}.
+ * Каждый запрос идёт в собственной read-only транзакции, поэтому не зависит от транзакции вызывающего потока.
+ */
+@Component
+public class ReportQueryRunner {
+
+    private final Executor executor;
+    private final TransactionOperations readOnlyTransaction;
+
+    @Autowired
+    public ReportQueryRunner(@Qualifier("reportQueryExecutor") Executor executor,
+                             PlatformTransactionManager transactionManager) {
+        this(executor, readOnlyTemplate(transactionManager));
+    }
+
+    public ReportQueryRunner(Executor executor, TransactionOperations readOnlyTransaction) {
+        this.executor = executor;
+        this.readOnlyTransaction = readOnlyTransaction;
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<T> query) {
+        return CompletableFuture.supplyAsync(() -> readOnlyTransaction.execute(status -> query.get()), executor);
+    }
+
+    /**
+     * Дожидается результата и пробрасывает исходное исключение запроса вместо CompletionException.
+     */
+    public static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static TransactionTemplate readOnlyTemplate(PlatformTransactionManager transactionManager) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        return template;
+    }
+
+}
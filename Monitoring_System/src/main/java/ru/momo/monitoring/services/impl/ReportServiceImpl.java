@@ -20,8 +20,6 @@ import ru.momo.monitoring.store.dto.report.GlobalSystemStatsDto;
 import ru.momo.monitoring.store.dto.report.ReportHeaderForAdminDto;
 import ru.momo.monitoring.store.dto.report.ReportHeaderForManagerDto;
 import ru.momo.monitoring.store.dto.report.SensorReportDto;
-import ru.momo.monitoring.store.dto.report.SensorStatusSummaryDto;
-import ru.momo.monitoring.store.dto.report.SensorValueStatsDto;
 import ru.momo.monitoring.store.dto.report.TechnicReportDto;
 import ru.momo.monitoring.store.dto.report.TechnicStatsDto;
 import ru.momo.monitoring.store.entities.Company;
@@ -30,15 +28,18 @@ import ru.momo.monitoring.store.entities.Technic;
 import ru.momo.monitoring.store.entities.User;
 import ru.momo.monitoring.store.entities.UserData;
 import ru.momo.monitoring.store.entities.enums.RoleName;
-import ru.momo.monitoring.store.entities.enums.SensorStatus;
-import ru.momo.monitoring.store.repositories.SensorDataRepository;
+import ru.momo.monitoring.store.projection.SensorPeriodStats;
+import ru.momo.monitoring.store.repositories.ReportDataRepository;
 
 import java.security.Principal;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 @RequiredArgsConstructor
@@ -50,7 +51,8 @@ public class ReportServiceImpl implements ReportService {
     private final CompanyService companyService;
     private final TechnicService technicService;
     private final SensorDataAggregationService sensorDataAggregationService;
-    private final SensorDataRepository sensorDataRepository;
+    private final ReportDataRepository reportDataRepository;
+    private final ReportQueryRunner reportQueryRunner;
 
     @Override
     @Transactional(readOnly = true)
@@ -60,21 +62,15 @@ public class ReportServiceImpl implements ReportService {
 
         User manager = userService.getByEmail(managerPrincipal.getName());
         User driver = userService.getByIdEntity(request.getDriverId());
-
-        if (manager.getCompany() == null || driver.getCompany() == null ||
-                !manager.getCompany().getId().equals(driver.getCompany().getId())) {
-            throw new AccessDeniedException("Manager can only generate reports for drivers in their own company.");
-        }
-        if (driver.getRole() != RoleName.ROLE_DRIVER) {
-            throw new IllegalArgumentException("Report can only be generated for users with ROLE_DRIVER.");
-        }
+        checkManagerCanReportOnDriver(manager, driver);
 
         log.info("Generating activity report for driver {} (ID: {}) by manager {} (ID: {}) for period {} - {}",
                 driver.getEmail(), driver.getId(), manager.getEmail(), manager.getId(), request.getDateFrom(), request.getDateTo());
 
         ReportHeaderForManagerDto header = buildReportHeader(driver, manager, request.getDateFrom(), request.getDateTo());
-        DriverSummaryDto driverSummary = buildDriverSummary(driver);
-        List<TechnicReportDto> technicsDetails = buildTechnicsDetailsForDriver(driver, request.getDateFrom(), request.getDateTo());
+        List<Technic> assignedTechnics = technicService.findAllTechnicsWithSensorsByDriver(driver.getId());
+        DriverSummaryDto driverSummary = buildDriverSummary(assignedTechnics);
+        List<TechnicReportDto> technicsDetails = buildTechnicsDetailsForDriver(assignedTechnics, request.getDateFrom(), request.getDateTo());
 
         return DriverActivityReportDto.builder()
                 .header(header)
@@ -85,16 +81,28 @@ public class ReportServiceImpl implements ReportService {
 
     @Override
     @Transactional(readOnly = true)
+    public void checkDriverActivityReportAccess(DriverActivityReportRequest request, Principal managerPrincipal) {
+        User manager = userService.getByEmail(managerPrincipal.getName());
+        User driver = userService.getByIdEntity(request.getDriverId());
+        checkManagerCanReportOnDriver(manager, driver);
+    }
+
+    /**
+     * Независимые запросы отчета выполняются параллельно через {@link ReportQueryRunner}, каждый в своей
+     * read-only транзакции, поэтому метод сам транзакцию не открывает и не держит соединение во время ожидания.
+     * Результаты собираются в порядке списка компаний, так что отчет не зависит от порядка завершения запросов.
+     */
+    @Override
     public AdminReportDto prepareAdminReportData(LocalDateTime periodFrom, LocalDateTime periodTo, User adminUser) {
         log.info("Preparing admin report data for period {} - {} by admin {}", periodFrom, periodTo, adminUser.getEmail());
         ReportHeaderForAdminDto header = createAdminReportHeader(periodFrom, periodTo, adminUser); // Используем ReportHeaderDto
-        GlobalSystemStatsDto globalStats = gatherGlobalSystemStats(periodFrom, periodTo);
-        List<CompanySummaryReportDto> companiesSummaryList = gatherCompaniesSummary(periodFrom, periodTo);
+        CompletableFuture<GlobalSystemStatsDto> globalStats = gatherGlobalSystemStats(periodFrom, periodTo);
+        CompletableFuture<List<CompanySummaryReportDto>> companiesSummaryList = gatherCompaniesSummary(periodFrom, periodTo);
 
         return AdminReportDto.builder()
                 .header(header)
-                .globalStats(globalStats)
-                .companiesSummary(companiesSummaryList)
+                .globalStats(ReportQueryRunner.join(globalStats))
+                .companiesSummary(ReportQueryRunner.join(companiesSummaryList))
                 .build();
     }
 
@@ -118,51 +126,103 @@ public class ReportServiceImpl implements ReportService {
                 .build();
     }
 
-    private GlobalSystemStatsDto gatherGlobalSystemStats(LocalDateTime periodFrom, LocalDateTime periodTo) {
-        int totalCompanies = companyService.countTotalCompanies();
-        int totalTechnics = technicService.countTotalTechnics();
-        int totalActiveTechnics = technicService.countTotalActiveTechnics();
-        int totalSensors = sensorService.countTotalSensors();
-        int totalActiveSensors = sensorService.countTotalActiveSensors();
-
-        long totalViolations = sensorDataAggregationService.countSystemViolations(periodFrom, periodTo);
-        double totalOperatingHours = sensorDataAggregationService.calculateTotalSystemOperatingHours(periodFrom, periodTo);
-
-        double avgViolations = (totalOperatingHours > 0.001) ? (double) totalViolations / totalOperatingHours : 0.0;
-
-        return GlobalSystemStatsDto.builder()
-                .totalCompanies(totalCompanies)
-                .totalTechnics(totalTechnics)
-                .totalActiveTechnics(totalActiveTechnics)
-                .totalSensors(totalSensors)
-                .totalActiveSensors(totalActiveSensors)
-                .averageViolationsPerHour(avgViolations)
-                .build();
+    private CompletableFuture<GlobalSystemStatsDto> gatherGlobalSystemStats(LocalDateTime periodFrom, LocalDateTime periodTo) {
+        CompletableFuture<Integer> totalCompanies = reportQueryRunner.submit(companyService::countTotalCompanies);
+        CompletableFuture<Integer> totalTechnics = reportQueryRunner.submit(technicService::countTotalTechnics);
+        CompletableFuture<Integer> totalActiveTechnics = reportQueryRunner.submit(technicService::countTotalActiveTechnics);
+        CompletableFuture<Integer> totalSensors = reportQueryRunner.submit(sensorService::countTotalSensors);
+        CompletableFuture<Integer> totalActiveSensors = reportQueryRunner.submit(sensorService::countTotalActiveSensors);
+
+        CompletableFuture<Long> totalViolations = reportQueryRunner.submit(
+                () -> sensorDataAggregationService.countSystemViolations(periodFrom, periodTo));
+        CompletableFuture<Double> totalOperatingHours = reportQueryRunner.submit(
+                () -> sensorDataAggregationService.calculateTotalSystemOperatingHours(periodFrom, periodTo));
+
+        return CompletableFuture.allOf(totalCompanies, totalTechnics, totalActiveTechnics, totalSensors,
+                        totalActiveSensors, totalViolations, totalOperatingHours)
+                .thenApply(ignored -> {
+                    double operatingHours = totalOperatingHours.join();
+                    double avgViolations = (operatingHours > 0.001) ? (double) totalViolations.join() / operatingHours : 0.0;
+
+                    return GlobalSystemStatsDto.builder()
+                            .totalCompanies(totalCompanies.join())
+                            .totalTechnics(totalTechnics.join())
+                            .totalActiveTechnics(totalActiveTechnics.join())
+                            .totalSensors(totalSensors.join())
+                            .totalActiveSensors(totalActiveSensors.join())
+                            .averageViolationsPerHour(avgViolations)
+                            .build();
+                });
     }
 
-    private List<CompanySummaryReportDto> gatherCompaniesSummary(LocalDateTime periodFrom, LocalDateTime periodTo) {
-        List<CompanySummaryReportDto> summaries = new ArrayList<>();
-        List<Company> allCompanies = companyService.findAllCompaniesForReport();
-
-        for (Company company : allCompanies) {
-            int technicsInCompany = technicService.countTechnicsByCompany(company.getId());
-            int activeTechnicsInCompany = technicService.countActiveTechnicsByCompany(company.getId());
-            int sensorsInCompany = sensorService.countSensorsByCompany(company.getId());
-            int activeSensorsInCompany = sensorService.countActiveSensorsByCompany(company.getId());
+    private CompletableFuture<List<CompanySummaryReportDto>> gatherCompaniesSummary(LocalDateTime periodFrom,
+                                                                                   LocalDateTime periodTo) {
+        CompletableFuture<List<Company>> companies = reportQueryRunner.submit(companyService::findAllCompaniesForReport);
+        CompletableFuture<List<ReportDataRepository.TechnicRow>> technics =
+                reportQueryRunner.submit(reportDataRepository::findAllCompanyTechnics);
+        CompletableFuture<Map<UUID, ReportDataRepository.SensorCounts>> sensorCounts =
+                reportQueryRunner.submit(reportDataRepository::countSensorsByCompany);
+        CompletableFuture<Map<UUID, Integer>> activeSensors =
+                reportQueryRunner.submit(reportDataRepository::countActiveSensorsByTechnic);
+        CompletableFuture<Map<UUID, ReportDataRepository.CompanyActivity>> activity =
+                reportQueryRunner.submit(() -> reportDataRepository.findCompanyActivity(periodFrom, periodTo));
+        CompletableFuture<Map<UUID, ReportDataRepository.AlertCounts>> alerts =
+                reportQueryRunner.submit(() -> reportDataRepository.countAlertsByTechnic(periodFrom, periodTo));
+
+        return CompletableFuture.allOf(companies, technics, sensorCounts, activeSensors, activity, alerts)
+                .thenApply(ignored -> assembleCompaniesSummary(companies.join(), technics.join(), sensorCounts.join(),
+                        activeSensors.join(), activity.join(), alerts.join()));
+    }
 
-            long companyTotalViolations = sensorDataAggregationService.countCompanyViolations(company.getId(), periodFrom, periodTo);
-            double companyOperatingHours = sensorDataAggregationService.calculateCompanyOperatingHours(company.getId(), periodFrom, periodTo);
-            double companyAvgViolations = (companyOperatingHours > 0.001) ? (double) companyTotalViolations / companyOperatingHours : 0.0;
+    private List<CompanySummaryReportDto> assembleCompaniesSummary(
+            List<Company> allCompanies,
+            List<ReportDataRepository.TechnicRow> allTechnics,
+            Map<UUID, ReportDataRepository.SensorCounts> sensorCountsByCompany,
+            Map<UUID, Integer> activeSensorsByTechnic,
+            Map<UUID, ReportDataRepository.CompanyActivity> activityByCompany,
+            Map<UUID, ReportDataRepository.AlertCounts> alertsByTechnic) {
+        Map<UUID, List<ReportDataRepository.TechnicRow>> technicsByCompany = new HashMap<>();
+        for (ReportDataRepository.TechnicRow technic : allTechnics) {
+            technicsByCompany.computeIfAbsent(technic.companyId(), id -> new ArrayList<>()).add(technic);
+        }
 
-            List<TechnicStatsDto> technicStatsList = gatherTechnicStatsForCompany(company.getId(), periodFrom, periodTo);
+        List<CompanySummaryReportDto> summaries = new ArrayList<>(allCompanies.size());
+        for (Company company : allCompanies) {
+            List<ReportDataRepository.TechnicRow> technicsOfCompany =
+                    technicsByCompany.getOrDefault(company.getId(), List.of());
+            int activeTechnicsInCompany = (int) technicsOfCompany.stream()
+                    .filter(ReportDataRepository.TechnicRow::active)
+                    .count();
+            ReportDataRepository.SensorCounts sensorCounts =
+                    sensorCountsByCompany.getOrDefault(company.getId(), ReportDataRepository.SensorCounts.EMPTY);
+
+            ReportDataRepository.CompanyActivity activity =
+                    activityByCompany.getOrDefault(company.getId(), ReportDataRepository.CompanyActivity.EMPTY);
+            double companyOperatingHours = activity.operatingHours();
+            double companyAvgViolations = (companyOperatingHours > 0.001) ? (double) activity.violations() / companyOperatingHours : 0.0;
+
+            List<TechnicStatsDto> technicStatsList = new ArrayList<>(technicsOfCompany.size());
+            for (ReportDataRepository.TechnicRow technic : technicsOfCompany) {
+                ReportDataRepository.AlertCounts alerts =
+                        alertsByTechnic.getOrDefault(technic.id(), ReportDataRepository.AlertCounts.EMPTY);
+
+                technicStatsList.add(TechnicStatsDto.builder()
+                        .technicBrandModel(strVal(technic.brand()) + " " + strVal(technic.model()))
+                        .technicSerialNumber(strVal(technic.serialNumber()))
+                        .isActive(technic.active())
+                        .numberOfSensors(activeSensorsByTechnic.getOrDefault(technic.id(), 0))
+                        .criticalAlerts((int) alerts.criticals())
+                        .warningAlerts((int) alerts.warnings())
+                        .build());
+            }
 
             summaries.add(CompanySummaryReportDto.builder()
                     .companyName(company.getName())
                     .companyInn(company.getInn())
-                    .totalTechnicsInCompany(technicsInCompany)
+                    .totalTechnicsInCompany(technicsOfCompany.size())
                     .activeTechnicsInCompany(activeTechnicsInCompany)
-                    .totalSensorsInCompany(sensorsInCompany)
-                    .activeSensorsInCompany(activeSensorsInCompany)
+                    .totalSensorsInCompany(sensorCounts.total())
+                    .activeSensorsInCompany(sensorCounts.active())
                     .companyViolationsPerHour(companyAvgViolations)
                     .technicsStats(technicStatsList)
                     .build());
@@ -170,51 +230,55 @@ public class ReportServiceImpl implements ReportService {
         return summaries;
     }
 
-    private List<TechnicStatsDto> gatherTechnicStatsForCompany(UUID companyId, LocalDateTime periodFrom, LocalDateTime periodTo) {
-        List<TechnicStatsDto> statsList = new ArrayList<>();
-        List<Technic> technicsOfCompany = technicService.findAllTechnicsByCompany(companyId);
 
-        for (Technic technic : technicsOfCompany) {
-            int numberOfSensorsOnTechnic = sensorService.countActiveSensorsByTechnic(technic.getId());
-
-            long criticals = sensorDataAggregationService.countTechnicAlertsByStatus(technic.getId(), SensorStatus.CRITICAL, periodFrom, periodTo);
-            long warnings = sensorDataAggregationService.countTechnicAlertsByStatus(technic.getId(), SensorStatus.WARNING, periodFrom, periodTo);
+    // --- Вспомогательные методы для отчета водителя (generateDriverActivityReportData) ---
 
-            statsList.add(TechnicStatsDto.builder()
-                    .technicBrandModel(strVal(technic.getBrand()) + " " + strVal(technic.getModel()))
-                    .technicSerialNumber(strVal(technic.getSerialNumber()))
-                    .isActive(technic.getIsActive())
-                    .numberOfSensors(numberOfSensorsOnTechnic)
-                    .criticalAlerts((int) criticals)
-                    .warningAlerts((int) warnings)
-                    .build());
+    private void checkManagerCanReportOnDriver(User manager, User driver) {
+        if (manager.getCompany() == null || driver.getCompany() == null ||
+                !manager.getCompany().getId().equals(driver.getCompany().getId())) {
+            throw new AccessDeniedException("Manager can only generate reports for drivers in their own company.");
+        }
+        if (driver.getRole() != RoleName.ROLE_DRIVER) {
+            throw new IllegalArgumentException("Report can only be generated for users with ROLE_DRIVER.");
         }
-        return statsList;
     }
 
-
-    // --- Вспомогательные методы для отчета водителя (generateDriverActivityReportData) ---
-
-    private List<TechnicReportDto> buildTechnicsDetailsForDriver(User driver, LocalDateTime from, LocalDateTime to) {
+    /**
+     * Техника водителя передаётся уже загруженной вместе с сенсорами и их типами,
+     * статистика по всем активным сенсорам считается одним запросом.
+     */
+    private List<TechnicReportDto> buildTechnicsDetailsForDriver(List<Technic> assignedTechnics, LocalDateTime from, LocalDateTime to) {
         List<TechnicReportDto> technicsDetails = new ArrayList<>();
-        List<Technic> assignedTechnics = driver.getTechnics();
 
         if (assignedTechnics != null) {
+            List<UUID> activeSensorIds = new ArrayList<>();
+            for (Technic technic : assignedTechnics) {
+                if (technic.getSensors() != null) {
+                    for (Sensor sensor : technic.getSensors()) {
+                        if (sensor.getIsActive()) {
+                            activeSensorIds.add(sensor.getId());
+                        }
+                    }
+                }
+            }
+            Map<UUID, SensorPeriodStats> statsBySensorId =
+                    sensorService.getSensorStatisticsForPeriod(activeSensorIds, from, to);
+
             for (Technic technic : assignedTechnics) {
                 List<SensorReportDto> sensorsSummaryList = new ArrayList<>();
                 if (technic.getSensors() != null) {
                     for (Sensor sensor : technic.getSensors()) {
                         if (sensor.getIsActive()) {
-                            SensorValueStatsDto valueStats = getValueStatistics(sensor.getId(), from, to);
-                            SensorStatusSummaryDto statusSummary = getStatusSummary(sensor.getId(), from, to);
+                            SensorPeriodStats stats = statsBySensorId.getOrDefault(
+                                    sensor.getId(), SensorPeriodStats.empty(sensor.getId()));
 
                             sensorsSummaryList.add(SensorReportDto.builder()
                                     .sensorId(sensor.getId())
                                     .sensorType(sensor.getType() != null ? sensor.getType().getName() : "N/A")
                                     .unitOfMeasurement(sensor.getType() != null ? sensor.getType().getUnit() : "N/A")
                                     .sensorSerialNumber(sensor.getSerialNumber())
-                                    .valueStats(valueStats)
-                                    .statusSummary(statusSummary)
+                                    .valueStats(stats.toValueStatsDto())
+                                    .statusSummary(stats.toStatusSummaryDto())
                                     .calibrationDueDate(sensor.getCalibrationDueDate())
                                     .build());
                         }
@@ -274,10 +338,10 @@ public class ReportServiceImpl implements ReportService {
                 .build();
     }
 
-    private DriverSummaryDto buildDriverSummary(User driver) {
-        int totalAssigned = driver.getTechnics() != null ? driver.getTechnics().size() : 0;
-        int activeAssigned = driver.getTechnics() != null ?
-                (int) driver.getTechnics().stream().filter(Technic::getIsActive).count() : 0;
+    private DriverSummaryDto buildDriverSummary(List<Technic> assignedTechnics) {
+        int totalAssigned = assignedTechnics != null ? assignedTechnics.size() : 0;
+        int activeAssigned = assignedTechnics != null ?
+                (int) assignedTechnics.stream().filter(Technic::getIsActive).count() : 0;
 
         return DriverSummaryDto.builder()
                 .totalAssignedTechnics(totalAssigned)
@@ -285,35 +349,6 @@ public class ReportServiceImpl implements ReportService {
                 .build();
     }
 
-    private SensorValueStatsDto getValueStatistics(UUID sensorId, LocalDateTime from, LocalDateTime to) {
-        return sensorService.getSensorValueStatisticsForPeriod(sensorId, from, to);
-    }
-
-    private SensorStatusSummaryDto getStatusSummary(UUID sensorId, LocalDateTime from, LocalDateTime to) {
-        List<Object[]> statusCountsResult = sensorDataRepository.countSensorStatusesInPeriod(sensorId, from, to);
-        long criticalCount = 0;
-        long warningCount = 0;
-
-        for (Object[] row : statusCountsResult) {
-            SensorStatus statusName = (row[0] instanceof String) ? SensorStatus.valueOf((String) row[0]) : null;
-
-            Number count = (Number) row[1];
-
-            if (statusName != null && count != null) {
-                if (statusName == SensorStatus.CRITICAL) {
-                    criticalCount = count.longValue();
-                } else if (statusName == SensorStatus.WARNING) {
-                    warningCount = count.longValue();
-                }
-            }
-        }
-        return SensorStatusSummaryDto.builder()
-                .criticalCount(criticalCount)
-                .warningCount(warningCount)
-                .build();
-    }
-
-
     private String formatDuration(Duration duration) {
         if (duration == null || duration.isZero() || duration.isNegative()) {
             return "0 ч 00 м";
@@ -6,14 +6,23 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 import ru.momo.monitoring.services.SecurityService;
 import ru.momo.monitoring.services.UserService;
 import ru.momo.monitoring.store.entities.User;
 
+/**
+ * Текущий пользователь загружается из БД один раз за HTTP-запрос и запоминается в атрибутах запроса.
+ * При включенном open-in-view сущность остается в контексте персистентности запроса, поэтому повторные
+ * вызовы получают тот же управляемый экземпляр, что вернул бы повторный запрос к БД.
+ */
 @Service
 @RequiredArgsConstructor
 public class SecurityServiceImpl implements SecurityService {
 
+    private static final String CURRENT_USER_ATTRIBUTE = SecurityServiceImpl.class.getName() + ".CURRENT_USER";
+
     private final UserService userService;
 
     @Override
@@ -38,6 +47,17 @@ public class SecurityServiceImpl implements SecurityService {
             throw new ClassCastException("Unexpected principal type found in Security Context: " + principal.getClass());
         }
 
-        return userService.getByEmail(username);
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (requestAttributes != null &&
+                requestAttributes.getAttribute(CURRENT_USER_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) instanceof User memoized &&
+                username.equals(memoized.getEmail())) {
+            return memoized;
+        }
+
+        User user = userService.getByEmail(username);
+        if (requestAttributes != null) {
+            requestAttributes.setAttribute(CURRENT_USER_ATTRIBUTE, user, RequestAttributes.SCOPE_REQUEST);
+        }
+        return user;
     }
 }
@@ -0,0 +1,199 @@
+package ru.momo.monitoring.services.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.momo.monitoring.exceptions.AccessDeniedException;
+import ru.momo.monitoring.services.SecurityService;
+import ru.momo.monitoring.services.SensorDataExportService;
+import ru.momo.monitoring.store.entities.Company;
+import ru.momo.monitoring.store.entities.Sensor;
+import ru.momo.monitoring.store.entities.Technic;
+import ru.momo.monitoring.store.entities.User;
+import ru.momo.monitoring.store.entities.enums.RoleName;
+import ru.momo.monitoring.store.entities.enums.SensorDataExportScope;
+import ru.momo.monitoring.store.repositories.CompanyRepository;
+import ru.momo.monitoring.store.repositories.SensorDataJdbcRepository;
+import ru.momo.monitoring.store.repositories.SensorRepository;
+import ru.momo.monitoring.store.repositories.TechnicRepository;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Массовая выгрузка показаний в CSV и Parquet для внешней аналитики.
+ * <p>
+ * Строки читаются серверным курсором {@link SensorDataJdbcRepository#streamExportRows} и сразу пишутся
+ * в gzip-поток ответа (для Parquet — группами по {@link ParquetSensorDataWriter#DEFAULT_ROW_GROUP_SIZE}
+ * строк), поэтому память не зависит от размера периода. Поток ответа не закрывается —
+ * это делает Spring после завершения {@link StreamingResponseBody}.
+ * <p>
+ * Текстовые значения, которые табличный редактор принял бы за формулу, в CSV экранируются
+ * ведущим апострофом.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SensorDataExportServiceImpl implements SensorDataExportService {
+
+    private static final String CSV_HEADER = "timestamp,sensor_id,technic_id,numeric_value,value,status\n";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final String FORMULA_PREFIXES = "=+-@\t\r";
+
+    private final SensorDataJdbcRepository sensorDataJdbcRepository;
+    private final SensorRepository sensorRepository;
+    private final TechnicRepository technicRepository;
+    private final CompanyRepository companyRepository;
+    private final SecurityService securityService;
+
+    @Override
+    @Transactional(readOnly = true)
+    public StreamingResponseBody exportCsv(SensorDataExportScope scope, UUID scopeId, LocalDateTime from, LocalDateTime to) {
+        checkExportRequest(scope, scopeId, from, to);
+
+        return outputStream -> {
+            GZIPOutputStream gzip = new GZIPOutputStream(outputStream, BUFFER_SIZE);
+            Writer writer = new BufferedWriter(new OutputStreamWriter(gzip, StandardCharsets.UTF_8), BUFFER_SIZE);
+            long[] rows = {0};
+            writer.write(CSV_HEADER);
+            try {
+                sensorDataJdbcRepository.streamExportRows(scope, scopeId, from, to, row -> {
+                    try {
+                        writeCsvRow(writer, row);
+                        rows[0]++;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            writer.flush();
+            gzip.finish();
+            log.info("Exported {} rows of sensor data for {} {} ({} - {})", rows[0], scope, scopeId, from, to);
+        };
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public StreamingResponseBody exportParquet(SensorDataExportScope scope, UUID scopeId, LocalDateTime from, LocalDateTime to) {
+        checkExportRequest(scope, scopeId, from, to);
+
+        return outputStream -> {
+            ParquetSensorDataWriter writer = new ParquetSensorDataWriter(
+                    new BufferedOutputStream(outputStream, BUFFER_SIZE), ParquetSensorDataWriter.DEFAULT_ROW_GROUP_SIZE);
+            try {
+                sensorDataJdbcRepository.streamExportRows(scope, scopeId, from, to, row -> {
+                    try {
+                        writer.write(row);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            writer.finish();
+            log.info("Exported {} rows of sensor data to Parquet for {} {} ({} - {})",
+                    writer.getRowCount(), scope, scopeId, from, to);
+        };
+    }
+
+    private void checkExportRequest(SensorDataExportScope scope, UUID scopeId, LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("'from' date must be before 'to' date.");
+        }
+        checkExportAccess(scope, scopeId);
+    }
+
+    private void checkExportAccess(SensorDataExportScope scope, UUID scopeId) {
+        User user = securityService.getCurrentUser();
+        RoleName roleName = user.getRole();
+        if (roleName == RoleName.ROLE_ADMIN) {
+            switch (scope) {
+                case SENSOR -> sensorRepository.findByIdOrThrow(scopeId);
+                case TECHNIC -> technicRepository.findByIdOrThrow(scopeId);
+                case COMPANY -> companyRepository.findByIdOrThrow(scopeId);
+            }
+            return;
+        }
+
+        boolean authorized = switch (scope) {
+            case SENSOR -> {
+                Sensor sensor = sensorRepository.findByIdOrThrow(scopeId);
+                yield roleName == RoleName.ROLE_MANAGER
+                        ? isSameCompany(user, sensor.getCompany())
+                        : roleName == RoleName.ROLE_DRIVER && isOwner(user, sensor.getTechnic());
+            }
+            case TECHNIC -> {
+                Technic technic = technicRepository.findByIdOrThrow(scopeId);
+                yield roleName == RoleName.ROLE_MANAGER
+                        ? isSameCompany(user, technic.getCompany())
+                        : roleName == RoleName.ROLE_DRIVER && isOwner(user, technic);
+            }
+            case COMPANY -> roleName == RoleName.ROLE_MANAGER
+                    && isSameCompany(user, companyRepository.findByIdOrThrow(scopeId));
+        };
+
+        if (!authorized) {
+            throw new AccessDeniedException("User does not have permission to export data for this " +
+                    scope.name().toLowerCase() + ".");
+        }
+    }
+
+    private static boolean isSameCompany(User user, Company company) {
+        return company != null && user.getCompany() != null && company.getId().equals(user.getCompany().getId());
+    }
+
+    private static boolean isOwner(User user, Technic technic) {
+        return technic != null && technic.getOwnerId() != null && technic.getOwnerId().getId().equals(user.getId());
+    }
+
+    private static void writeCsvRow(Writer writer, SensorDataJdbcRepository.ExportRow row) throws IOException {
+        writer.write(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(row.timestamp()));
+        writer.write(',');
+        writeNullable(writer, row.sensorId());
+        writer.write(',');
+        writeNullable(writer, row.technicId());
+        writer.write(',');
+        writeNullable(writer, row.numericValue());
+        writer.write(',');
+        if (row.value() != null) {
+            writer.write(escapeCsv(row.value()));
+        }
+        writer.write(',');
+        writeNullable(writer, row.status());
+        writer.write('\n');
+    }
+
+    private static void writeNullable(Writer writer, Object value) throws IOException {
+        if (value != null) {
+            writer.write(value.toString());
+        }
+    }
+
+    private static String escapeCsv(String value) {
+        // Значение вида "=HYPERLINK(...)" Excel и LibreOffice выполнили бы как формулу (CSV injection)
+        if (!value.isEmpty() && FORMULA_PREFIXES.indexOf(value.charAt(0)) >= 0) {
+            value = "'" + value;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+}
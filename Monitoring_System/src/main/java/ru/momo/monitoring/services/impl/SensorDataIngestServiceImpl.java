@@ -0,0 +1,289 @@
+package ru.momo.monitoring.services.impl;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.stereotype.Service;
+import ru.momo.monitoring.config.SensorIngestProperties;
+import ru.momo.monitoring.exceptions.SensorDataIngestOverloadedException;
+import ru.momo.monitoring.services.SensorDataIngestService;
+import ru.momo.monitoring.services.SensorDataProcessingService;
+import ru.momo.monitoring.store.dto.data_generator.GeneratedSensorDataDto;
+import ru.momo.monitoring.store.dto.data_generator.SensorDataBatchResultDto;
+import ru.momo.monitoring.store.dto.response.SensorDataIngestStatsDto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Приём показаний через ограниченную очередь: запрос генератора только кладёт показание в очередь,
+ * а отдельный поток (write-behind flusher) собирает пакеты по размеру или по таймауту
+ * и записывает их через {@link SensorDataProcessingService#processIncomingBatch}.
+ * Пакет, запись которого упала (временная ошибка БД, дедлок, обрыв соединения), записывается повторно
+ * с экспоненциальной паузой; только после исчерпания попыток его показания считаются потерянными
+ * и выписываются в отдельный dead-letter лог, из которого их можно дозагрузить вручную.
+ * Пакет с постоянной ошибкой делится пополам, чтобы потерянными считались только сами ошибочные показания.
+ */
+@Slf4j
+@Service
+public class SensorDataIngestServiceImpl implements SensorDataIngestService {
+
+    private static final Logger DEAD_LETTER_LOG = LoggerFactory.getLogger("ru.momo.monitoring.ingest.dead-letter");
+
+    private final SensorDataProcessingService sensorDataProcessingService;
+
+    private final SensorIngestProperties properties;
+
+    private final BlockingQueue<GeneratedSensorDataDto> queue;
+
+    private final AtomicLong enqueuedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong persistedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong failedFlushCount = new AtomicLong();
+    private final AtomicLong flushRetryCount = new AtomicLong();
+    private final AtomicLong flushSplitCount = new AtomicLong();
+    private final AtomicLong lastFlushLatencyNanos = new AtomicLong();
+    private final AtomicLong maxFlushLatencyNanos = new AtomicLong();
+    private final AtomicLong totalFlushLatencyNanos = new AtomicLong();
+
+    private volatile boolean running;
+
+    private Thread flusherThread;
+
+    public SensorDataIngestServiceImpl(SensorDataProcessingService sensorDataProcessingService,
+                                       SensorIngestProperties properties) {
+        this.sensorDataProcessingService = sensorDataProcessingService;
+        this.properties = properties;
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        flusherThread = new Thread(this::runFlusher, "sensor-ingest-flusher");
+        flusherThread.setDaemon(true);
+        flusherThread.start();
+        log.info("Sensor ingest flusher started: capacity={}, batchSize={}, intervalMs={}",
+                properties.getQueueCapacity(), properties.getFlushBatchSize(), properties.getFlushIntervalMs());
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (flusherThread != null) {
+            try {
+                flusherThread.join(properties.getShutdownTimeoutMs());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        while (flush() > 0) {
+            // дописываем всё, что осталось в очереди на момент остановки
+        }
+        log.info("Sensor ingest flusher stopped");
+    }
+
+    @Override
+    public void enqueue(GeneratedSensorDataDto incomingData) {
+        boolean offered;
+        try {
+            offered = properties.getOfferTimeoutMs() > 0
+                    ? queue.offer(incomingData, properties.getOfferTimeoutMs(), TimeUnit.MILLISECONDS)
+                    : queue.offer(incomingData);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            offered = false;
+        }
+
+        if (!offered) {
+            droppedCount.incrementAndGet();
+            throw new SensorDataIngestOverloadedException(
+                    "Sensor data ingest queue is full (capacity %d), retry later", properties.getQueueCapacity());
+        }
+        enqueuedCount.incrementAndGet();
+    }
+
+    @Override
+    public SensorDataIngestStatsDto getStats() {
+        long flushes = flushCount.get();
+        return SensorDataIngestStatsDto.builder()
+                .queueDepth(queue.size())
+                .queueCapacity(properties.getQueueCapacity())
+                .enqueued(enqueuedCount.get())
+                .dropped(droppedCount.get())
+                .persisted(persistedCount.get())
+                .rejected(rejectedCount.get())
+                .failed(failedCount.get())
+                .flushes(flushes)
+                .failedFlushes(failedFlushCount.get())
+                .flushRetries(flushRetryCount.get())
+                .flushSplits(flushSplitCount.get())
+                .lastFlushLatencyMs(TimeUnit.NANOSECONDS.toMillis(lastFlushLatencyNanos.get()))
+                .maxFlushLatencyMs(TimeUnit.NANOSECONDS.toMillis(maxFlushLatencyNanos.get()))
+                .avgFlushLatencyMs(flushes == 0 ? 0 : totalFlushLatencyNanos.get() / 1_000_000.0 / flushes)
+                .build();
+    }
+
+    /**
+     * Синхронно записывает один пакет из очереди (не больше {@code flushBatchSize} показаний).
+     *
+     * @return количество показаний, забранных из очереди
+     */
+    public int flush() {
+        List<GeneratedSensorDataDto> buffer = new ArrayList<>(properties.getFlushBatchSize());
+        queue.drainTo(buffer, properties.getFlushBatchSize());
+        if (!buffer.isEmpty()) {
+            writeBatch(buffer);
+        }
+        return buffer.size();
+    }
+
+    private void runFlusher() {
+        List<GeneratedSensorDataDto> buffer = new ArrayList<>(properties.getFlushBatchSize());
+        while (running) {
+            try {
+                fillBuffer(buffer);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            if (!buffer.isEmpty()) {
+                writeBatch(buffer);
+                buffer.clear();
+            }
+        }
+    }
+
+    private void fillBuffer(List<GeneratedSensorDataDto> buffer) throws InterruptedException {
+        int batchSize = properties.getFlushBatchSize();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(properties.getFlushIntervalMs());
+
+        while (buffer.size() < batchSize) {
+            queue.drainTo(buffer, batchSize - buffer.size());
+            if (buffer.size() >= batchSize) {
+                return;
+            }
+
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return;
+            }
+
+            GeneratedSensorDataDto next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            buffer.add(next);
+        }
+    }
+
+    private void writeBatch(List<GeneratedSensorDataDto> buffer) {
+        long startedAt = System.nanoTime();
+        try {
+            writeWithRetry(buffer);
+        } finally {
+            long latency = System.nanoTime() - startedAt;
+            flushCount.incrementAndGet();
+            lastFlushLatencyNanos.set(latency);
+            totalFlushLatencyNanos.addAndGet(latency);
+            maxFlushLatencyNanos.accumulateAndGet(latency, Math::max);
+        }
+    }
+
+    /**
+     * Записывает пакет, повторяя запись с экспоненциальной паузой при временных ошибках, пока не кончатся попытки.
+     * Постоянная ошибка (нарушение ограничения, слишком длинное значение) повторяться не будет: такой пакет
+     * делится пополам, пока ошибка не останется за отдельными показаниями, и в dead-letter уходят только они.
+     */
+    private void writeWithRetry(List<GeneratedSensorDataDto> batch) {
+        int maxAttempts = Math.max(1, properties.getFlushMaxAttempts());
+        long backoffMs = properties.getFlushRetryBackoffMs();
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                SensorDataBatchResultDto result = sensorDataProcessingService.processIncomingBatch(batch);
+                persistedCount.addAndGet(result.getAccepted());
+                rejectedCount.addAndGet(result.getRejected());
+                return;
+            } catch (Exception e) {
+                if (!isTransient(e)) {
+                    if (batch.size() > 1) {
+                        splitAndWrite(batch, e);
+                    } else {
+                        deadLetter(batch, attempt, e);
+                    }
+                    return;
+                }
+                if (attempt >= maxAttempts) {
+                    deadLetter(batch, attempt, e);
+                    return;
+                }
+                log.warn("Failed to flush {} sensor readings (attempt {}/{}), retrying in {} ms: {}",
+                        batch.size(), attempt, maxAttempts, backoffMs, e.getMessage());
+                if (!sleepBeforeRetry(backoffMs)) {
+                    deadLetter(batch, attempt, e);
+                    return;
+                }
+                flushRetryCount.incrementAndGet();
+                backoffMs = Math.min(backoffMs * 2, properties.getFlushRetryMaxBackoffMs());
+            }
+        }
+    }
+
+    private void splitAndWrite(List<GeneratedSensorDataDto> batch, Exception cause) {
+        flushSplitCount.incrementAndGet();
+        log.warn("Failed to flush {} sensor readings with a non-retryable error, splitting the batch: {}",
+                batch.size(), cause.getMessage());
+        int middle = batch.size() / 2;
+        writeWithRetry(new ArrayList<>(batch.subList(0, middle)));
+        writeWithRetry(new ArrayList<>(batch.subList(middle, batch.size())));
+    }
+
+    /**
+     * Временные ошибки (дедлок, таймаут, обрыв или нехватка соединений) имеет смысл повторять.
+     * Постоянные ошибки SQL (нарушение ограничений, неверные данные) повторятся на каждой попытке.
+     */
+    private static boolean isTransient(Exception e) {
+        if (e instanceof DataAccessResourceFailureException) {
+            return true;
+        }
+        return !(e instanceof NonTransientDataAccessException);
+    }
+
+    private boolean sleepBeforeRetry(long backoffMs) {
+        if (backoffMs <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(backoffMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void deadLetter(List<GeneratedSensorDataDto> buffer, int attempts, Exception cause) {
+        failedFlushCount.incrementAndGet();
+        failedCount.addAndGet(buffer.size());
+        log.error("Failed to flush {} sensor readings after {} attempts, moving them to dead-letter log: {}",
+                buffer.size(), attempts, cause.getMessage(), cause);
+        for (GeneratedSensorDataDto reading : buffer) {
+            DEAD_LETTER_LOG.error("sensorId={} technicId={} timestamp={} value={}",
+                    reading.getSensorId(), reading.getTechnicId(), reading.getTimestamp(), reading.getValue());
+        }
+    }
+
+}
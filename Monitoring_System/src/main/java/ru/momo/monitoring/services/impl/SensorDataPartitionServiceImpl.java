@@ -0,0 +1,39 @@
+package ru.momo.monitoring.services.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.momo.monitoring.services.SensorDataPartitionService;
+
+/**
+ * Поддерживает запас помесячных секций sensor_data (функция ensure_sensor_data_partitions из V8),
+ * чтобы новые показания не накапливались в секции по умолчанию.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SensorDataPartitionServiceImpl implements SensorDataPartitionService {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${sensor.data.partitions.months-ahead:3}")
+    private int MONTHS_AHEAD;
+
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${sensor.data.partitions.cron:0 0 3 * * *}")
+    public void ensureFuturePartitions() {
+        try {
+            jdbcTemplate.execute("SELECT ensure_sensor_data_partitions(" + MONTHS_AHEAD + ")");
+            log.info("sensor_data partitions ensured for {} months ahead", MONTHS_AHEAD);
+        } catch (Exception e) {
+            log.error("Failed to ensure sensor_data partitions: {}", e.getMessage(), e);
+        }
+    }
+
+}
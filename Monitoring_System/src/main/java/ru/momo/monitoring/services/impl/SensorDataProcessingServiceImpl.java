@@ -1,89 +1,262 @@
 package ru.momo.monitoring.services.impl;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.momo.monitoring.exceptions.ResourceNotFoundException;
+import ru.momo.monitoring.exceptions.SensorBadRequestException;
 import ru.momo.monitoring.services.SensorDataProcessingService;
-import ru.momo.monitoring.services.SensorService;
+import ru.momo.monitoring.services.SensorDescriptorCache;
 import ru.momo.monitoring.services.WebSocketDataPushService;
 import ru.momo.monitoring.store.dto.data_generator.GeneratedSensorDataDto;
+import ru.momo.monitoring.store.dto.data_generator.SensorDataBatchItemResultDto;
+import ru.momo.monitoring.store.dto.data_generator.SensorDataBatchResultDto;
 import ru.momo.monitoring.store.dto.response.SensorDataRealtimeDto;
-import ru.momo.monitoring.store.entities.Sensor;
-import ru.momo.monitoring.store.entities.SensorData;
 import ru.momo.monitoring.store.entities.enums.SensorStatus;
-import ru.momo.monitoring.store.repositories.SensorDataRepository;
+import ru.momo.monitoring.store.projection.SensorDescriptor;
+import ru.momo.monitoring.store.repositories.SensorDataJdbcRepository;
+import ru.momo.monitoring.store.repositories.SensorDataRollupRepository;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class SensorDataProcessingServiceImpl implements SensorDataProcessingService {
 
-    private final SensorDataRepository sensorDataRepository;
+    /**
+     * Размер колонки sensor_data.value: более длинное значение уронило бы вставку всего пакета.
+     */
+    private static final int MAX_VALUE_LENGTH = 255;
+
+    /**
+     * Та же грамматика числа, что и в parse_sensor_value миграции V9: знак, цифры, дробная часть, экспонента
+     * и пробельные символы по краям. Double.parseDouble сам по себе принимает ещё "NaN", "Infinity" и суффиксы
+     * "f"/"d", которые попали бы в numeric_value и испортили агрегаты.
+     */
+    private static final Pattern NUMERIC_VALUE =
+            Pattern.compile("[ \\t\\r\\n]*([-+]?([0-9]+(\\.[0-9]*)?|\\.[0-9]+))([eE][-+]?[0-9]{1,3})?[ \\t\\r\\n]*");
+
+    private final SensorDataJdbcRepository sensorDataJdbcRepository;
+
+    private final SensorDataRollupRepository sensorDataRollupRepository;
 
-    private final SensorService sensorService;
+    private final SensorDescriptorCache sensorDescriptorCache;
 
     private final WebSocketDataPushService webSocketDataPushService;
 
     @Value("${sensor.generator.service.threshold}")
     private double WARNING_THRESHOLD_PERCENTAGE;
 
+    @Value("${sensor.ingest.max-batch-size:10000}")
+    private int MAX_BATCH_SIZE;
+
     @Override
+    @Transactional
     public void processIncomingData(GeneratedSensorDataDto incomingData) {
-        Sensor currentSensor = sensorService.getSensorEntityById(incomingData.getSensorId());
+        SensorDescriptor sensor = sensorDescriptorCache.get(incomingData.getSensorId())
+                .orElseThrow(ResourceNotFoundException.resourceNotFoundExceptionSupplier(
+                        "Sensor with id %s not found", incomingData.getSensorId()));
 
-        if (!currentSensor.getIsActive()) {
+        if (!sensor.active()) {
             return;
         }
-
-        Double currentValue = parseDouble(incomingData.getValue());
-        if (currentValue == null) {
-            saveAndPushData(currentSensor, incomingData, SensorStatus.UNDEFINED);
-            return;
+        if (incomingData.getValue() != null && incomingData.getValue().length() > MAX_VALUE_LENGTH) {
+            throw new SensorBadRequestException("Sensor value exceeds %d characters", MAX_VALUE_LENGTH);
         }
 
-        SensorStatus status = determineSensorStatus(currentSensor, currentValue);
+        Double numericValue = parseNumericValue(incomingData.getValue());
+        SensorStatus status = determineSensorStatus(sensor, numericValue);
 
-        saveAndPushData(currentSensor, incomingData, status);
+        List<SensorDataJdbcRepository.Row> rows = List.of(toRow(sensor, incomingData, numericValue, status));
+        sensorDataJdbcRepository.batchInsert(rows);
+        sensorDataRollupRepository.upsert(rows);
+        pushAfterCommit(List.of(
+                buildRealtimeDto(sensor, incomingData.getValue(), incomingData.getTimestamp(), status)
+        ));
     }
 
-    private void saveAndPushData(Sensor sensor, GeneratedSensorDataDto incomingData, SensorStatus status) {
-        SensorData newSensorDataEntry = new SensorData();
-        newSensorDataEntry.setSensor(sensor);
+    @Override
+    @Transactional
+    public SensorDataBatchResultDto processIncomingBatch(List<GeneratedSensorDataDto> batch) {
+        if (batch == null || batch.isEmpty()) {
+            return SensorDataBatchResultDto.builder()
+                    .results(List.of())
+                    .build();
+        }
+        if (batch.size() > MAX_BATCH_SIZE) {
+            throw new SensorBadRequestException("Batch size %d exceeds the limit of %d readings", batch.size(), MAX_BATCH_SIZE);
+        }
 
-        if (sensor.getTechnic() != null) {
-            newSensorDataEntry.setTechnic(sensor.getTechnic());
+        Set<UUID> sensorIds = new HashSet<>();
+        for (GeneratedSensorDataDto item : batch) {
+            if (item != null && item.getSensorId() != null) {
+                sensorIds.add(item.getSensorId());
+            }
         }
+        Map<UUID, SensorDescriptor> sensorsById = sensorDescriptorCache.getAll(sensorIds);
+
+        List<SensorDataBatchItemResultDto> results = new ArrayList<>(batch.size());
+        List<SensorDataJdbcRepository.Row> rows = new ArrayList<>(batch.size());
+        List<SensorDataRealtimeDto> realtimeDtos = new ArrayList<>(batch.size());
 
-        newSensorDataEntry.setValue(incomingData.getValue());
-        newSensorDataEntry.setTimestamp(incomingData.getTimestamp());
-        newSensorDataEntry.setStatus(status);
+        for (int i = 0; i < batch.size(); i++) {
+            GeneratedSensorDataDto item = batch.get(i);
+            UUID sensorId = item != null ? item.getSensorId() : null;
+            SensorDescriptor sensor = sensorId != null ? sensorsById.get(sensorId) : null;
 
-        sensorDataRepository.save(newSensorDataEntry);
+            String rejectReason = validateBatchItem(item, sensor);
+            if (rejectReason != null) {
+                results.add(SensorDataBatchItemResultDto.rejected(i, sensorId, rejectReason));
+                continue;
+            }
 
-        SensorDataRealtimeDto realtimeDto = SensorDataRealtimeDto.builder()
-                .sensorId(sensor.getId())
-                .technicId(sensor.getTechnic() != null ? sensor.getTechnic().getId() : null)
-                .sensorSerialNumber(sensor.getSerialNumber())
-                .value(newSensorDataEntry.getValue())
-                .timestamp(newSensorDataEntry.getTimestamp())
-                .status(newSensorDataEntry.getStatus())
-                .sensorType(sensor.getType().getName())
-                .unitOfMeasurement(sensor.getType().getUnit())
+            Double numericValue = parseNumericValue(item.getValue());
+            SensorStatus status = determineSensorStatus(sensor, numericValue);
+
+            rows.add(toRow(sensor, item, numericValue, status));
+            realtimeDtos.add(buildRealtimeDto(sensor, item.getValue(), item.getTimestamp(), status));
+            results.add(SensorDataBatchItemResultDto.accepted(i, sensorId));
+        }
+
+        sensorDataJdbcRepository.batchInsert(rows);
+        sensorDataRollupRepository.upsert(rows);
+
+        pushAfterCommit(realtimeDtos);
+
+        return SensorDataBatchResultDto.builder()
+                .received(batch.size())
+                .accepted(rows.size())
+                .rejected(batch.size() - rows.size())
+                .results(results)
                 .build();
+    }
 
-        webSocketDataPushService.pushSpecificSensorData(sensor.getId(), realtimeDto);
+    /**
+     * Отправляет показания подписчикам только после фиксации транзакции: при откате (и повторной
+     * записи пакета flusher'ом) клиенты не увидят показаний, которых нет в БД, а запись не ждёт рассылку.
+     */
+    private void pushAfterCommit(List<SensorDataRealtimeDto> realtimeDtos) {
+        if (realtimeDtos.isEmpty()) {
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    push(realtimeDtos);
+                }
+            });
+        } else {
+            push(realtimeDtos);
+        }
     }
 
-    private Double parseDouble(String stringValue) {
+    private void push(List<SensorDataRealtimeDto> realtimeDtos) {
+        try {
+            for (SensorDataRealtimeDto realtimeDto : realtimeDtos) {
+                webSocketDataPushService.pushSpecificSensorData(realtimeDto.getSensorId(), realtimeDto);
+            }
+        } catch (Exception e) {
+            // Показания уже записаны: ошибка рассылки не должна выглядеть как ошибка записи
+            log.error("Failed to push {} sensor readings to WebSocket subscribers: {}",
+                    realtimeDtos.size(), e.getMessage(), e);
+        }
+    }
+
+    private String validateBatchItem(GeneratedSensorDataDto item, SensorDescriptor sensor) {
+        if (item == null) {
+            return "Reading is null";
+        }
+        if (item.getSensorId() == null) {
+            return "sensorId is required";
+        }
+        if (item.getTimestamp() == null) {
+            return "timestamp is required";
+        }
+        if (item.getValue() == null) {
+            return "value is required";
+        }
+        if (item.getValue().length() > MAX_VALUE_LENGTH) {
+            return "value exceeds " + MAX_VALUE_LENGTH + " characters";
+        }
+        if (sensor == null) {
+            return "Sensor not found";
+        }
+        if (!sensor.active()) {
+            return "Sensor is not active";
+        }
+        return null;
+    }
+
+    private SensorDataJdbcRepository.Row toRow(SensorDescriptor sensor,
+                                               GeneratedSensorDataDto incomingData,
+                                               Double numericValue,
+                                               SensorStatus status) {
+        return new SensorDataJdbcRepository.Row(
+                sensor.id(),
+                sensor.technicId(),
+                numericValue == null ? incomingData.getValue() : null,
+                numericValue,
+                incomingData.getTimestamp(),
+                status
+        );
+    }
+
+    private SensorDataRealtimeDto buildRealtimeDto(SensorDescriptor sensor, String value, LocalDateTime timestamp, SensorStatus status) {
+        return SensorDataRealtimeDto.builder()
+                .sensorId(sensor.id())
+                .technicId(sensor.technicId())
+                .companyId(sensor.companyId())
+                .sensorSerialNumber(sensor.serialNumber())
+                .value(value)
+                .timestamp(timestamp)
+                .status(status)
+                .sensorType(sensor.typeName())
+                .unitOfMeasurement(sensor.unit())
+                .build();
+    }
+
+    private Double parseNumericValue(String stringValue) {
         if (stringValue == null || stringValue.isBlank()) {
             return null;
         }
 
-        return Double.parseDouble(stringValue.replace(',', '.'));
+        String normalized = stringValue.replace(',', '.');
+        Matcher matcher = NUMERIC_VALUE.matcher(normalized);
+        if (!matcher.matches()) {
+            return null;
+        }
+
+        double value = Double.parseDouble(normalized.strip());
+        // Как и в V9: значения вне диапазона DOUBLE PRECISION (переполнение и ненулевое число, округлённое до 0)
+        // числом не считаются
+        if (Double.isInfinite(value) || (value == 0 && matcher.group(1).matches(".*[1-9].*"))) {
+            return null;
+        }
+        return value;
     }
 
-    private SensorStatus determineSensorStatus(Sensor sensor, double currentValue) {
-        Double minValue = parseDouble(sensor.getMinValue());
-        Double maxValue = parseDouble(sensor.getMaxValue());
+    private SensorStatus determineSensorStatus(SensorDescriptor sensor, Double currentValue) {
+        if (currentValue == null || !sensor.hasThresholds()) {
+            return SensorStatus.UNDEFINED;
+        }
+
+        double minValue = sensor.minValue();
+        double maxValue = sensor.maxValue();
 
         if (currentValue < minValue || currentValue > maxValue) {
             return SensorStatus.CRITICAL;
@@ -103,5 +276,4 @@ public class SensorDataProcessingServiceImpl implements SensorDataProcessingServ
         return SensorStatus.NORMAL;
     }
 
-
 }
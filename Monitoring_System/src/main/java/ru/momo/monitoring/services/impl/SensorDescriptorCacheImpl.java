@@ -0,0 +1,214 @@
+package ru.momo.monitoring.services.impl;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.momo.monitoring.services.SensorDescriptorCache;
+import ru.momo.monitoring.store.projection.SensorDescriptor;
+import ru.momo.monitoring.store.repositories.SensorRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Кэш {@link SensorDescriptor} для приёма показаний. Промахи догружаются одним запросом
+ * на весь набор идентификаторов; в установившемся режиме приём не обращается к БД.
+ * <p>
+ * Записи живут не дольше {@code sensor.descriptor-cache.ttl-seconds}, размер ограничен
+ * {@code sensor.descriptor-cache.max-size}. Неизвестные идентификаторы кэшируются как промах
+ * на {@code sensor.descriptor-cache.negative-ttl-seconds}, чтобы поток показаний от удалённого
+ * сенсора не ходил в БД на каждое показание.
+ * <p>
+ * Инвалидация выполняется сразу и повторно после коммита транзакции и публикуется в канал Redis
+ * {@value #INVALIDATION_CHANNEL}, откуда её применяют остальные экземпляры. Каждая инвалидация
+ * увеличивает поколение кэша: загрузка, начатая до инвалидации, свою запись не оставляет.
+ * Если Redis недоступен, чужие копии устаревают не дольше чем на TTL.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SensorDescriptorCacheImpl implements SensorDescriptorCache, MessageListener {
+
+    public static final String INVALIDATION_CHANNEL = "sensor-descriptor-invalidation";
+
+    private static final String SENSOR_PREFIX = "sensor:";
+    private static final String TYPE_PREFIX = "type:";
+    private static final String ALL = "all";
+
+    private final SensorRepository sensorRepository;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Value("${sensor.descriptor-cache.ttl-seconds:60}")
+    private long TTL_SECONDS;
+
+    @Value("${sensor.descriptor-cache.negative-ttl-seconds:5}")
+    private long NEGATIVE_TTL_SECONDS;
+
+    @Value("${sensor.descriptor-cache.max-size:50000}")
+    private int MAX_SIZE;
+
+    private final Map<UUID, CachedDescriptor> descriptors = new ConcurrentHashMap<>();
+
+    private final AtomicLong generation = new AtomicLong();
+
+    @PostConstruct
+    public void subscribe() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(INVALIDATION_CHANNEL));
+    }
+
+    @Override
+    public Optional<SensorDescriptor> get(UUID sensorId) {
+        if (sensorId == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(getAll(List.of(sensorId)).get(sensorId));
+    }
+
+    @Override
+    public Map<UUID, SensorDescriptor> getAll(Collection<UUID> sensorIds) {
+        long now = System.nanoTime();
+        Map<UUID, SensorDescriptor> result = new HashMap<>(sensorIds.size() * 2);
+        List<UUID> missing = new ArrayList<>();
+
+        for (UUID sensorId : sensorIds) {
+            CachedDescriptor cached = descriptors.get(sensorId);
+            if (cached != null && cached.expiresAtNanos() - now > 0) {
+                if (cached.descriptor() != null) {
+                    result.put(sensorId, cached.descriptor());
+                }
+            } else {
+                missing.add(sensorId);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            load(missing, result, now);
+        }
+
+        return result;
+    }
+
+    @Override
+    public void evict(UUID sensorId) {
+        runNowAndAfterCommit(SENSOR_PREFIX + sensorId);
+    }
+
+    @Override
+    public void evictByType(UUID sensorTypeId) {
+        runNowAndAfterCommit(TYPE_PREFIX + sensorTypeId);
+    }
+
+    @Override
+    public void evictAll() {
+        runNowAndAfterCommit(ALL);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String eviction = new String(message.getBody(), StandardCharsets.UTF_8);
+        try {
+            evictLocally(eviction);
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring malformed sensor descriptor invalidation '{}'", eviction);
+        }
+    }
+
+    private void load(List<UUID> missing, Map<UUID, SensorDescriptor> result, long now) {
+        long loadedGeneration = generation.get();
+        Set<UUID> notFound = new HashSet<>(missing);
+        Map<UUID, CachedDescriptor> loaded = new HashMap<>(missing.size() * 2);
+
+        sensorRepository.findAllWithTypeAndTechnicByIdIn(missing).forEach(sensor -> {
+            SensorDescriptor descriptor = SensorDescriptor.fromEntity(sensor);
+            notFound.remove(descriptor.id());
+            loaded.put(descriptor.id(), new CachedDescriptor(descriptor, now + TimeUnit.SECONDS.toNanos(TTL_SECONDS)));
+            result.put(descriptor.id(), descriptor);
+        });
+        for (UUID sensorId : notFound) {
+            loaded.put(sensorId, new CachedDescriptor(null, now + TimeUnit.SECONDS.toNanos(NEGATIVE_TTL_SECONDS)));
+        }
+
+        ensureCapacity(loaded.size(), now);
+        descriptors.putAll(loaded);
+
+        // Инвалидация сначала меняет поколение, потом удаляет записи: если поколение изменилось,
+        // запись могла быть прочитана из БД до коммита изменений, и её нужно убрать
+        if (generation.get() != loadedGeneration) {
+            loaded.forEach(descriptors::remove);
+        }
+    }
+
+    private void ensureCapacity(int incoming, long now) {
+        if (descriptors.size() + incoming <= MAX_SIZE) {
+            return;
+        }
+        descriptors.values().removeIf(entry -> entry.expiresAtNanos() - now <= 0);
+        if (descriptors.size() + incoming > MAX_SIZE) {
+            descriptors.clear();
+        }
+    }
+
+    private void runNowAndAfterCommit(String eviction) {
+        evictLocally(eviction);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictLocally(eviction);
+                    publish(eviction);
+                }
+            });
+        } else {
+            publish(eviction);
+        }
+    }
+
+    private void evictLocally(String eviction) {
+        generation.incrementAndGet();
+        if (eviction.equals(ALL)) {
+            descriptors.clear();
+        } else if (eviction.startsWith(SENSOR_PREFIX)) {
+            descriptors.remove(UUID.fromString(eviction.substring(SENSOR_PREFIX.length())));
+        } else if (eviction.startsWith(TYPE_PREFIX)) {
+            UUID sensorTypeId = UUID.fromString(eviction.substring(TYPE_PREFIX.length()));
+            descriptors.values().removeIf(entry -> entry.descriptor() != null
+                    && entry.descriptor().typeId().equals(sensorTypeId));
+        } else {
+            throw new IllegalArgumentException("Unknown sensor descriptor invalidation: " + eviction);
+        }
+    }
+
+    private void publish(String eviction) {
+        try {
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL, eviction);
+        } catch (Exception e) {
+            log.warn("Failed to publish sensor descriptor invalidation {}: {}", eviction, e.getMessage());
+        }
+    }
+
+    private record CachedDescriptor(SensorDescriptor descriptor, long expiresAtNanos) {
+    }
+
+}
@@ -1,11 +1,17 @@
 package ru.momo.monitoring.services.impl;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.momo.monitoring.client.SensorGeneratorClient;
 import ru.momo.monitoring.exceptions.AccessDeniedException;
 import ru.momo.monitoring.exceptions.EntityDuplicationException;
@@ -13,6 +19,8 @@ import ru.momo.monitoring.exceptions.ResourceNotFoundException;
 import ru.momo.monitoring.exceptions.SensorBadRequestException;
 import ru.momo.monitoring.services.CompanyService;
 import ru.momo.monitoring.services.SecurityService;
+import ru.momo.monitoring.services.SensorDataHistorySource;
+import ru.momo.monitoring.services.SensorDescriptorCache;
 import ru.momo.monitoring.services.SensorService;
 import ru.momo.monitoring.services.SensorTypeService;
 import ru.momo.monitoring.services.TechnicService;
@@ -23,6 +31,7 @@ import ru.momo.monitoring.store.dto.request.CreateSensorRequest;
 import ru.momo.monitoring.store.dto.request.SensorAssignmentRequest;
 import ru.momo.monitoring.store.dto.request.SensorDataHistoryDto;
 import ru.momo.monitoring.store.dto.request.UpdateSensorRequest;
+import ru.momo.monitoring.store.dto.response.SensorDataHistoryPageDto;
 import ru.momo.monitoring.store.dto.response.SensorDto;
 import ru.momo.monitoring.store.dto.response.SensorsDto;
 import ru.momo.monitoring.store.entities.Company;
@@ -36,14 +45,27 @@ import ru.momo.monitoring.store.entities.enums.DataGranularity;
 import ru.momo.monitoring.store.entities.enums.RoleName;
 import ru.momo.monitoring.store.entities.enums.SensorStatus;
 import ru.momo.monitoring.store.projection.AggregatedSensorDataViewImpl;
+import ru.momo.monitoring.store.projection.SensorDataRollupBucket;
+import ru.momo.monitoring.store.projection.SensorPeriodStats;
+import ru.momo.monitoring.store.repositories.SensorDataJdbcRepository;
 import ru.momo.monitoring.store.repositories.SensorDataRepository;
+import ru.momo.monitoring.store.repositories.SensorDataRollupRepository;
+import ru.momo.monitoring.store.repositories.SensorDataStatsRepository;
 import ru.momo.monitoring.store.repositories.SensorRepository;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -68,6 +90,25 @@ public class SensorServiceImpl implements SensorService {
 
     private final SensorDataRepository sensorDataRepository;
 
+    private final SensorDataRollupRepository sensorDataRollupRepository;
+
+    private final SensorDataJdbcRepository sensorDataJdbcRepository;
+
+    private final SensorDataStatsRepository sensorDataStatsRepository;
+
+    private final SensorDescriptorCache sensorDescriptorCache;
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${sensor.history.default-page-size:1000}")
+    private int DEFAULT_HISTORY_PAGE_SIZE;
+
+    @Value("${sensor.history.max-page-size:10000}")
+    private int MAX_HISTORY_PAGE_SIZE;
+
+    @Value("${sensor.history.downsample.default-points:1500}")
+    private int DEFAULT_DOWNSAMPLE_POINTS;
+
     @Override
     @Transactional
     public SensorDto registerSensor(CreateSensorRequest request) {
@@ -147,6 +188,7 @@ public class SensorServiceImpl implements SensorService {
         sensor.setCompany(technic.getCompany());
         Sensor savedSensor = sensorRepository.saveAndFlush(sensor);
         technicService.save(technic);
+        sensorDescriptorCache.evict(savedSensor.getId());
 
         if (savedSensor.getIsActive()) {
             registerSensorWithGenerator(savedSensor);
@@ -172,6 +214,7 @@ public class SensorServiceImpl implements SensorService {
 
         technicService.save(technic);
         Sensor savedSensor = sensorRepository.saveAndFlush(sensor);
+        sensorDescriptorCache.evict(savedSensor.getId());
 
         if (savedSensor.getIsActive()) {
             registerSensorWithGenerator(savedSensor);
@@ -271,6 +314,7 @@ public class SensorServiceImpl implements SensorService {
         }
 
         Sensor updatedSensor = sensorRepository.saveAndFlush(sensor);
+        sensorDescriptorCache.evict(updatedSensor.getId());
 
         if (previousActiveState != updatedSensor.getIsActive()) {
             if (updatedSensor.getIsActive()) {
@@ -301,6 +345,7 @@ public class SensorServiceImpl implements SensorService {
         sensorGeneratorClient.deregisterSensor(sensorId);
 
         sensorRepository.delete(sensor);
+        sensorDescriptorCache.evict(sensorId);
     }
 
     @Override
@@ -369,68 +414,155 @@ public class SensorServiceImpl implements SensorService {
             DataGranularity granularity,
             AggregationType aggregationType
     ) {
-        Sensor sensor = sensorRepository.findByIdOrThrow(sensorId);
-        User user = securityService.getCurrentUser();
-        RoleName roleName = user.getRole();
-        boolean authorized = false;
+        return getSensorDataHistory(sensorId, from, to, granularity, aggregationType, null);
+    }
 
-        if (roleName.equals(RoleName.ROLE_ADMIN)) {
-            authorized = true;
-        } else if (roleName.equals(RoleName.ROLE_MANAGER)) {
-            if (sensor.getCompany() != null && user.getCompany() != null &&
-                    sensor.getCompany().getId().equals(user.getCompany().getId())) {
-                authorized = true;
-            }
-        } else if (roleName.equals(RoleName.ROLE_DRIVER)) {
-            if (sensor.getTechnic() != null && user.getTechnics() != null && !user.getTechnics().isEmpty()) {
-                UUID technicIdOfSensor = sensor.getTechnic().getId();
-                authorized = user.getTechnics().stream()
-                        .anyMatch(technic -> technic.getId().equals(technicIdOfSensor));
-            }
+    @Override
+    @Transactional(readOnly = true)
+    public List<SensorDataHistoryDto> getSensorDataHistory(
+            UUID sensorId,
+            LocalDateTime from,
+            LocalDateTime to,
+            DataGranularity granularity,
+            AggregationType aggregationType,
+            Integer maxPoints
+    ) {
+        checkSensorHistoryAccess(sensorId, from, to);
+
+        if (aggregationType == AggregationType.DOWNSAMPLE) {
+            return loadDownsampledHistory(sensorId, from, to, maxPoints);
         }
 
-        if (!authorized) {
-            throw new AccessDeniedException("User does not have permission to access sensors for this technic.");
+        DataGranularity granularityToUse = resolveGranularity(sensorId, from, to, granularity, maxPoints);
+        if (granularityToUse == DataGranularity.RAW) {
+            List<SensorData> rawData = sensorDataRepository.findBySensorIdAndTimestampGreaterThanEqualAndTimestampLessThanOrderByTimestampAsc(
+                    sensorId, from, to);
+            return rawData.stream()
+                    .map(this::mapSensorDataToRawHistoryDto)
+                    .collect(Collectors.toList());
         }
 
-        if (from.isAfter(to)) {
-            throw new IllegalArgumentException("'from' date must be before 'to' date.");
+        AggregationType aggTypeToUse = aggregationType != null ? aggregationType : AggregationType.AVG;
+        return loadAggregatedHistory(sensorId, from, to, granularityToUse, aggTypeToUse);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public SensorDataHistoryPageDto getSensorDataHistoryPage(
+            UUID sensorId,
+            LocalDateTime from,
+            LocalDateTime to,
+            DataGranularity granularity,
+            AggregationType aggregationType,
+            String cursor,
+            Integer limit,
+            Integer maxPoints
+    ) {
+        checkSensorHistoryAccess(sensorId, from, to);
+
+        if (aggregationType == AggregationType.DOWNSAMPLE) {
+            List<SensorDataHistoryDto> content = loadDownsampledHistory(sensorId, from, to, maxPoints);
+            return new SensorDataHistoryPageDto(content, DataGranularity.RAW, AggregationType.DOWNSAMPLE, null, false);
         }
 
-        if (granularity == null || granularity == DataGranularity.RAW) {
-            List<SensorData> rawData = sensorDataRepository.findBySensorIdAndTimestampBetweenOrderByTimestampAsc(sensorId, from, to);
-            return rawData.stream()
-                    .map(this::mapSensorDataToRawHistoryDto)
+        int pageSize = resolvePageSize(limit);
+        HistoryCursor historyCursor = cursor != null && !cursor.isBlank() ? HistoryCursor.decode(cursor) : null;
+        DataGranularity granularityToUse = resolveGranularity(sensorId, from, to, granularity, maxPoints);
+
+        if (granularityToUse == DataGranularity.RAW) {
+            List<SensorDataJdbcRepository.HistoryRow> rows = sensorDataJdbcRepository.findRawHistoryPage(
+                    sensorId, from, to,
+                    historyCursor != null ? historyCursor.timestamp() : null,
+                    historyCursor != null ? historyCursor.id() : null,
+                    pageSize + 1
+            );
+
+            boolean hasMore = rows.size() > pageSize;
+            List<SensorDataJdbcRepository.HistoryRow> pageRows = hasMore ? rows.subList(0, pageSize) : rows;
+            String nextCursor = null;
+            if (hasMore) {
+                SensorDataJdbcRepository.HistoryRow last = pageRows.get(pageRows.size() - 1);
+                nextCursor = new HistoryCursor(last.timestamp(), last.id()).encode();
+            }
+
+            List<SensorDataHistoryDto> content = pageRows.stream()
+                    .map(row -> SensorDataHistoryDto.builder()
+                            .timestamp(row.timestamp())
+                            .value(row.value())
+                            .status(row.status())
+                            .build())
                     .collect(Collectors.toList());
+
+            return new SensorDataHistoryPageDto(content, granularityToUse, null, nextCursor, hasMore);
+        }
+
+        AggregationType aggTypeToUse = aggregationType != null ? aggregationType : AggregationType.AVG;
+        ChronoUnit unit = granularityUnit(granularityToUse);
+
+        LocalDateTime pageFrom = from;
+        if (historyCursor != null && historyCursor.timestamp().isAfter(from)) {
+            pageFrom = historyCursor.timestamp();
+        }
+        LocalDateTime pageTo = pageFrom.truncatedTo(unit).plus(pageSize, unit);
+        boolean hasMore = pageTo.isBefore(to);
+
+        List<SensorDataHistoryDto> content;
+        if (hasMore) {
+            content = loadAggregatedHistory(sensorId, pageFrom, pageTo, granularityToUse, aggTypeToUse);
+        } else if (!pageFrom.isBefore(to)) {
+            content = List.of();
         } else {
-            List<Object[]> nativeResults;
-            String granularityStr = granularity.name().toLowerCase();
-            AggregationType aggTypeToUse = aggregationType != null ? aggregationType : AggregationType.AVG;
+            content = loadAggregatedHistory(sensorId, pageFrom, to, granularityToUse, aggTypeToUse);
+        }
 
-            nativeResults = switch (aggTypeToUse) {
-                case AVG ->
-                        sensorDataRepository.findNativeAggregatedAvgByGranularity(sensorId, from, to, granularityStr);
-                case MIN ->
-                        sensorDataRepository.findNativeAggregatedMinByGranularity(sensorId, from, to, granularityStr);
-                case MAX ->
-                        sensorDataRepository.findNativeAggregatedMaxByGranularity(sensorId, from, to, granularityStr);
-                case SUM ->
-                        sensorDataRepository.findNativeAggregatedSumByGranularity(sensorId, from, to, granularityStr);
-                case COUNT ->
-                        sensorDataRepository.findNativeAggregatedCountByGranularity(sensorId, from, to, granularityStr);
-                case LAST ->
-                        sensorDataRepository.findNativeAggregatedLastByGranularity(sensorId, from, to, granularityStr);
-                case FIRST ->
-                        sensorDataRepository.findNativeAggregatedFirstByGranularity(sensorId, from, to, granularityStr);
-                default -> throw new IllegalArgumentException("Unsupported aggregation type: " + aggTypeToUse);
-            };
+        String nextCursor = hasMore ? new HistoryCursor(pageTo, null).encode() : null;
+        return new SensorDataHistoryPageDto(content, granularityToUse, aggTypeToUse, nextCursor, hasMore);
+    }
 
-            List<AggregatedSensorDataViewImpl> aggregatedViews = mapNativeResultsToView(nativeResults, aggTypeToUse);
+    @Override
+    @Transactional(readOnly = true)
+    public StreamingResponseBody streamSensorDataHistory(UUID sensorId, LocalDateTime from, LocalDateTime to) {
+        checkSensorHistoryAccess(sensorId, from, to);
 
-            return aggregatedViews.stream()
-                    .map(this::mapAggregatedViewToHistoryDto)
-                    .collect(Collectors.toList());
+        ObjectWriter writer = objectMapper.writerFor(SensorDataHistoryDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator("\n");
+
+        return outputStream -> {
+            try (SequenceWriter sequenceWriter = writer.writeValues(outputStream)) {
+                sensorDataJdbcRepository.streamRawHistory(sensorId, from, to, dto -> {
+                    try {
+                        sequenceWriter.write(dto);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public SensorDataHistorySource openSensorDataHistory(
+            UUID sensorId,
+            LocalDateTime from,
+            LocalDateTime to,
+            DataGranularity granularity,
+            AggregationType aggregationType
+    ) {
+        checkSensorHistoryAccess(sensorId, from, to);
+
+        if (aggregationType == AggregationType.DOWNSAMPLE) {
+            return consumer -> loadDownsampledHistory(sensorId, from, to, null).forEach(consumer);
+        }
+        if (granularity == null || granularity == DataGranularity.RAW) {
+            return consumer -> sensorDataJdbcRepository.streamRawHistory(sensorId, from, to, consumer);
         }
+
+        AggregationType aggTypeToUse = aggregationType != null ? aggregationType : AggregationType.AVG;
+        return consumer -> loadAggregatedHistory(sensorId, from, to, granularity, aggTypeToUse).forEach(consumer);
     }
 
     @Override
@@ -447,27 +579,20 @@ public class SensorServiceImpl implements SensorService {
             throw new IllegalArgumentException("'from' date must be before 'to' date.");
         }
 
-        Double minValue = sensorDataRepository.findMinValueInPeriod(sensorId, from, to).orElse(null);
-        Double maxValue = sensorDataRepository.findMaxValueInPeriod(sensorId, from, to).orElse(null);
-        Double avgValue = sensorDataRepository.findAvgValueInPeriod(sensorId, from, to).orElse(null);
+        return sensorDataStatsRepository.findStats(sensorId, from, to).toValueStatsDto();
+    }
 
-        Double lastValue = null;
-        Optional<Object[]> lastValueAndStatusOpt = sensorDataRepository.findLastValueAndStatusInPeriod(sensorId, from, to);
-        if (lastValueAndStatusOpt.isPresent()) {
-            Object[] lastData = lastValueAndStatusOpt.get();
-            if (lastData[0] instanceof Object[] array) {
-                if (array[0] instanceof Double value) {
-                    lastValue = value;
-                }
-            }
+    @Override
+    @Transactional(readOnly = true)
+    public Map<UUID, SensorPeriodStats> getSensorStatisticsForPeriod(
+            Collection<UUID> sensorIds,
+            LocalDateTime from,
+            LocalDateTime to
+    ) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("'from' date must be before 'to' date.");
         }
-
-        return SensorValueStatsDto.builder()
-                .minValue(minValue)
-                .maxValue(maxValue)
-                .avgValue(avgValue)
-                .lastValue(lastValue)
-                .build();
+        return sensorDataStatsRepository.findStatsBySensorIds(sensorIds, from, to);
     }
 
     @Override
@@ -500,6 +625,165 @@ public class SensorServiceImpl implements SensorService {
         return sensorRepository.countByTechnicIdAndIsActiveTrue(technicId);
     }
 
+    private List<SensorDataHistoryDto> loadAggregatedHistory(
+            UUID sensorId,
+            LocalDateTime from,
+            LocalDateTime to,
+            DataGranularity granularity,
+            AggregationType aggTypeToUse
+    ) {
+        if (SensorDataRollupRepository.Level.of(granularity).isPresent()) {
+            List<SensorDataRollupBucket> buckets = sensorDataRollupRepository.findBuckets(sensorId, from, to, granularity);
+
+            return buckets.stream()
+                    .map(bucket -> mapRollupBucketToView(bucket, aggTypeToUse))
+                    .map(this::mapAggregatedViewToHistoryDto)
+                    .collect(Collectors.toList());
+        } else {
+            List<Object[]> nativeResults;
+            String granularityStr = granularity.name().toLowerCase();
+            nativeResults = switch (aggTypeToUse) {
+                case AVG ->
+                        sensorDataRepository.findNativeAggregatedAvgByGranularity(sensorId, from, to, granularityStr);
+                case MIN ->
+                        sensorDataRepository.findNativeAggregatedMinByGranularity(sensorId, from, to, granularityStr);
+                case MAX ->
+                        sensorDataRepository.findNativeAggregatedMaxByGranularity(sensorId, from, to, granularityStr);
+                case SUM ->
+                        sensorDataRepository.findNativeAggregatedSumByGranularity(sensorId, from, to, granularityStr);
+                case COUNT ->
+                        sensorDataRepository.findNativeAggregatedCountByGranularity(sensorId, from, to, granularityStr);
+                case LAST ->
+                        sensorDataRepository.findNativeAggregatedLastByGranularity(sensorId, from, to, granularityStr);
+                case FIRST ->
+                        sensorDataRepository.findNativeAggregatedFirstByGranularity(sensorId, from, to, granularityStr);
+                default -> throw new IllegalArgumentException("Unsupported aggregation type: " + aggTypeToUse);
+            };
+
+            List<AggregatedSensorDataViewImpl> aggregatedViews = mapNativeResultsToView(nativeResults, aggTypeToUse);
+
+            return aggregatedViews.stream()
+                    .map(this::mapAggregatedViewToHistoryDto)
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Прореживает сырые показания за период до maxPoints точек (LTTB) за один проход по курсору.
+     */
+    private List<SensorDataHistoryDto> loadDownsampledHistory(
+            UUID sensorId,
+            LocalDateTime from,
+            LocalDateTime to,
+            Integer maxPoints
+    ) {
+        int threshold = maxPoints != null ? maxPoints : DEFAULT_DOWNSAMPLE_POINTS;
+        if (threshold < LttbDownsampler.MIN_THRESHOLD) {
+            throw new SensorBadRequestException("maxPoints for DOWNSAMPLE must be at least %d, got %d",
+                    LttbDownsampler.MIN_THRESHOLD, threshold);
+        }
+
+        long total = sensorDataJdbcRepository.countNumericHistory(sensorId, from, to);
+        List<SensorDataHistoryDto> result = new ArrayList<>((int) Math.min(total, threshold));
+        LttbDownsampler downsampler = new LttbDownsampler(total, threshold, result::add);
+
+        sensorDataJdbcRepository.streamRawHistory(sensorId, from, to, downsampler);
+        downsampler.finish();
+        return result;
+    }
+
+    /**
+     * Подбирает самую мелкую гранулярность (не мельче запрошенной), при которой за период
+     * получится не больше maxPoints точек. Без maxPoints возвращает запрошенную гранулярность.
+     */
+    private DataGranularity resolveGranularity(
+            UUID sensorId,
+            LocalDateTime from,
+            LocalDateTime to,
+            DataGranularity requested,
+            Integer maxPoints
+    ) {
+        DataGranularity base = requested != null ? requested : DataGranularity.RAW;
+        if (maxPoints == null) {
+            return base;
+        }
+        if (maxPoints <= 0) {
+            throw new SensorBadRequestException("maxPoints must be positive, got %d", maxPoints);
+        }
+
+        long rawCount = sensorDataRollupRepository.estimateRowCount(sensorId, from, to);
+        for (DataGranularity candidate : DataGranularity.values()) {
+            if (candidate.ordinal() < base.ordinal()) {
+                continue;
+            }
+            long points = candidate == DataGranularity.RAW
+                    ? rawCount
+                    : Math.min(rawCount, estimateBucketCount(from, to, candidate));
+            if (points <= maxPoints) {
+                return candidate;
+            }
+        }
+
+        throw new SensorBadRequestException(
+                "Period from %s to %s cannot be returned in %d points even with DAY granularity", from, to, maxPoints);
+    }
+
+    private static long estimateBucketCount(LocalDateTime from, LocalDateTime to, DataGranularity granularity) {
+        ChronoUnit unit = granularityUnit(granularity);
+        // Интервалы, пересекающиеся с [from, to): последний из них содержит момент непосредственно перед to
+        return unit.between(from.truncatedTo(unit), to.minusNanos(1).truncatedTo(unit)) + 1;
+    }
+
+    private static ChronoUnit granularityUnit(DataGranularity granularity) {
+        return switch (granularity) {
+            case RAW -> throw new IllegalArgumentException("RAW granularity has no bucket unit");
+            case SECOND -> ChronoUnit.SECONDS;
+            case MINUTE -> ChronoUnit.MINUTES;
+            case HOUR -> ChronoUnit.HOURS;
+            case DAY -> ChronoUnit.DAYS;
+        };
+    }
+
+    private int resolvePageSize(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_HISTORY_PAGE_SIZE;
+        }
+        if (limit <= 0) {
+            throw new SensorBadRequestException("limit must be positive, got %d", limit);
+        }
+        return Math.min(limit, MAX_HISTORY_PAGE_SIZE);
+    }
+
+    private void checkSensorHistoryAccess(UUID sensorId, LocalDateTime from, LocalDateTime to) {
+        Sensor sensor = sensorRepository.findByIdOrThrow(sensorId);
+        User user = securityService.getCurrentUser();
+        RoleName roleName = user.getRole();
+        boolean authorized = false;
+
+        if (roleName.equals(RoleName.ROLE_ADMIN)) {
+            authorized = true;
+        } else if (roleName.equals(RoleName.ROLE_MANAGER)) {
+            if (sensor.getCompany() != null && user.getCompany() != null &&
+                    sensor.getCompany().getId().equals(user.getCompany().getId())) {
+                authorized = true;
+            }
+        } else if (roleName.equals(RoleName.ROLE_DRIVER)) {
+            if (sensor.getTechnic() != null && user.getTechnics() != null && !user.getTechnics().isEmpty()) {
+                UUID technicIdOfSensor = sensor.getTechnic().getId();
+                authorized = user.getTechnics().stream()
+                        .anyMatch(technic -> technic.getId().equals(technicIdOfSensor));
+            }
+        }
+
+        if (!authorized) {
+            throw new AccessDeniedException("User does not have permission to access sensors for this technic.");
+        }
+
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("'from' date must be before 'to' date.");
+        }
+    }
+
     private List<AggregatedSensorDataViewImpl> mapNativeResultsToView(List<Object[]> nativeResults, AggregationType aggType) {
         return nativeResults.stream().map(row -> {
             LocalDateTime timestamp = null;
@@ -538,14 +822,23 @@ public class SensorServiceImpl implements SensorService {
         }).collect(Collectors.toList());
     }
 
+    private AggregatedSensorDataViewImpl mapRollupBucketToView(SensorDataRollupBucket bucket, AggregationType aggType) {
+        return switch (aggType) {
+            case AVG -> new AggregatedSensorDataViewImpl(bucket.bucketStart(), bucket.valueAvg(), null);
+            case MIN -> new AggregatedSensorDataViewImpl(bucket.bucketStart(), bucket.valueMin(), null);
+            case MAX -> new AggregatedSensorDataViewImpl(bucket.bucketStart(), bucket.valueMax(), null);
+            case SUM -> new AggregatedSensorDataViewImpl(bucket.bucketStart(), bucket.valueSumOrNull(), null);
+            case COUNT -> new AggregatedSensorDataViewImpl(bucket.bucketStart(), (double) bucket.rowCount(), null);
+            case FIRST -> new AggregatedSensorDataViewImpl(bucket.bucketStart(), bucket.firstValue(), bucket.firstStatus());
+            case LAST -> new AggregatedSensorDataViewImpl(bucket.bucketStart(), bucket.lastValue(), bucket.lastStatus());
+            case DOWNSAMPLE -> throw new IllegalArgumentException("DOWNSAMPLE is not an interval aggregation");
+        };
+    }
+
     private SensorDataHistoryDto mapSensorDataToRawHistoryDto(SensorData data) {
-        Double numericValue = null;
-        if (data.getValue() != null && !data.getValue().isBlank()) {
-            numericValue = Double.parseDouble(data.getValue().replace(',', '.'));
-        }
         return SensorDataHistoryDto.builder()
                 .timestamp(data.getTimestamp())
-                .value(numericValue)
+                .value(data.getNumericValue())
                 .status(data.getStatus())
                 .build();
     }
@@ -558,6 +851,36 @@ public class SensorServiceImpl implements SensorService {
                 .build();
     }
 
+    /**
+     * Курсор постраничной выдачи истории. Для сырых данных — ключ (timestamp, id) последней записи,
+     * для агрегированных — начало следующего окна (id не задан).
+     */
+    private record HistoryCursor(LocalDateTime timestamp, UUID id) {
+
+        private static final String SEPARATOR = "|";
+
+        String encode() {
+            String raw = id != null ? timestamp + SEPARATOR + id : timestamp.toString();
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static HistoryCursor decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separatorIndex = raw.indexOf(SEPARATOR);
+                if (separatorIndex < 0) {
+                    return new HistoryCursor(LocalDateTime.parse(raw), null);
+                }
+                return new HistoryCursor(
+                        LocalDateTime.parse(raw.substring(0, separatorIndex)),
+                        UUID.fromString(raw.substring(separatorIndex + 1))
+                );
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                throw new SensorBadRequestException("Invalid history cursor: %s", cursor);
+            }
+        }
+    }
+
     public interface AggregatedSensorDataView {
         LocalDateTime getIntervalStart();
 
@@ -6,6 +6,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.momo.monitoring.exceptions.ResourceNotFoundException;
 import ru.momo.monitoring.exceptions.SensorBadRequestException;
+import ru.momo.monitoring.services.SensorDescriptorCache;
 import ru.momo.monitoring.services.SensorService;
 import ru.momo.monitoring.services.SensorTypeService;
 import ru.momo.monitoring.store.dto.request.CreateSensorTypeRequest;
@@ -23,11 +24,14 @@ import java.util.stream.Collectors;
 public class SensorTypeServiceImpl implements SensorTypeService {
 
     private final SensorTypeRepository sensorTypeRepository;
+    private final SensorDescriptorCache sensorDescriptorCache;
     private SensorService sensorService;
 
     @Autowired
-    public SensorTypeServiceImpl(SensorTypeRepository sensorTypeRepository) {
+    public SensorTypeServiceImpl(SensorTypeRepository sensorTypeRepository,
+                                 SensorDescriptorCache sensorDescriptorCache) {
         this.sensorTypeRepository = sensorTypeRepository;
+        this.sensorDescriptorCache = sensorDescriptorCache;
     }
 
     @Autowired
@@ -99,6 +103,7 @@ public class SensorTypeServiceImpl implements SensorTypeService {
         }
 
         SensorType updatedSensorType = sensorTypeRepository.save(existingSensorType);
+        sensorDescriptorCache.evictByType(id);
         return SensorTypeDto.fromEntity(updatedSensorType);
     }
 
@@ -275,6 +275,12 @@ public class TechnicServiceImpl implements TechnicService {
         return technicRepository.findByCompanyId(companyId);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<Technic> findAllTechnicsWithSensorsByDriver(UUID driverId) {
+        return technicRepository.findAllByOwnerIdWithSensorsAndTypes(driverId);
+    }
+
     private <T> void updateFieldIfNotNull(T value, Consumer<T> setter) {
         if (value != null) {
             setter.accept(value);
@@ -8,6 +8,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.momo.monitoring.exceptions.AccessDeniedException;
 import ru.momo.monitoring.exceptions.UserBadRequestException;
+import ru.momo.monitoring.security.UserPrincipalCache;
 import ru.momo.monitoring.services.RedisService;
 import ru.momo.monitoring.services.UserService;
 import ru.momo.monitoring.store.dto.request.UserUpdateRequestDto;
@@ -36,6 +37,7 @@ public class UserServiceImpl implements UserService {
     private final PasswordEncoder passwordEncoder;
     private final UserRepository userRepository;
     private final RedisService redisService;
+    private final UserPrincipalCache userPrincipalCache;
 
     @Override
     @Transactional(readOnly = true)
@@ -79,6 +81,7 @@ public class UserServiceImpl implements UserService {
         }
 
         userRepository.save(user);
+        userPrincipalCache.evict(user.getEmail());
 
         return UserResponseDto.mapFromEntity(user);
     }
@@ -89,6 +92,7 @@ public class UserServiceImpl implements UserService {
         User deletedUser = userRepository.findByIdOrThrow(id);
         deletedUser.setIsActive(false);
         userRepository.save(deletedUser);
+        userPrincipalCache.evict(deletedUser.getEmail());
 
         redisService.invalidateAllUserRefreshTokens(id);
     }
@@ -98,7 +102,9 @@ public class UserServiceImpl implements UserService {
     public User confirmUser(String email) {
         User user = getByEmail(email);
         user.setIsConfirmed(true);
-        return userRepository.save(user);
+        User confirmedUser = userRepository.save(user);
+        userPrincipalCache.evict(user.getEmail());
+        return confirmedUser;
     }
 
     @Override
@@ -131,7 +137,9 @@ public class UserServiceImpl implements UserService {
     @Override
     @Transactional
     public User save(User user) {
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        userPrincipalCache.evict(user.getEmail());
+        return savedUser;
     }
 
     @Override
@@ -236,6 +244,7 @@ public class UserServiceImpl implements UserService {
         }
 
         User updatedUser = userRepository.save(userToUpdate);
+        userPrincipalCache.evict(updatedUser.getEmail());
 
         return UserResponseDto.mapFromEntity(updatedUser);
     }
@@ -258,6 +267,7 @@ public class UserServiceImpl implements UserService {
 
         driverToDeactivate.setIsActive(false);
         userRepository.save(driverToDeactivate);
+        userPrincipalCache.evict(driverToDeactivate.getEmail());
 
         redisService.invalidateAllUserRefreshTokens(driverId);
     }
@@ -1,20 +1,85 @@
 package ru.momo.monitoring.services.impl;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
+import ru.momo.monitoring.config.SchedulingConfig;
+import ru.momo.monitoring.config.WebSocketPushProperties;
 import ru.momo.monitoring.services.WebSocketDataPushService;
+import ru.momo.monitoring.services.WebSocketFanout;
+import ru.momo.monitoring.store.dto.response.CompanyStatusDeltaDto;
 import ru.momo.monitoring.store.dto.response.SensorDataRealtimeDto;
+import ru.momo.monitoring.store.dto.response.SensorStatusChangeDto;
+import ru.momo.monitoring.store.dto.response.TechnicRealtimeFrameDto;
+import ru.momo.monitoring.store.entities.enums.RealtimeCoalesceMode;
+import ru.momo.monitoring.store.entities.enums.SensorStatus;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Отправка показаний в STOMP-топики:
+ * <ul>
+ *     <li>{@code /topic/sensor/{id}/data} — показания одного сенсора;</li>
+ *     <li>{@code /topic/technic/{id}/data} — один пакет {@link TechnicRealtimeFrameDto} на технику за окно
+ *     со всеми сенсорами, приславшими показания;</li>
+ *     <li>{@code /topic/company/{id}/status} — {@link CompanyStatusDeltaDto} только с сенсорами компании,
+ *     статус которых изменился за окно.</li>
+ * </ul>
+ * Принятое показание сначала передается через {@link WebSocketFanout} всем экземплярам (при одном экземпляре —
+ * сразу себе), и уже каждый получатель объединяет полный поток показаний для своих подписчиков. Поэтому
+ * окно, минимум и максимум, а также последний статус сенсора не зависят от того, какой экземпляр принял показание.
+ * <p>
+ * Показания для топиков без локальных подписчиков отбрасываются сразу. Остальные объединяются в пределах окна
+ * {@code websocket.push.coalesce-window-ms} и отправляются раз в окно; режим NONE отправляет показания сенсора сразу,
+ * агрегированные топики всегда отправляются пакетами. Полезная нагрузка сериализуется в JSON один раз
+ * и передается брокеру готовыми байтами.
+ */
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class WebSocketDataPushServiceImpl implements WebSocketDataPushService {
 
     private final SimpMessagingTemplate messagingTemplate;
+    private final WebSocketSubscriptionTracker subscriptionTracker;
+    private final WebSocketPushProperties pushProperties;
+    private final ObjectMapper objectMapper;
+    private final WebSocketFanout webSocketFanout;
+
+    private final Map<UUID, CoalescedReading> pendingBySensor = new ConcurrentHashMap<>();
+
+    /**
+     * Показания по технике; вложенная карта изменяется только внутри {@code compute} по ключу техники
+     * и забирается целиком через {@code remove}, поэтому показания не теряются между записью и отправкой.
+     */
+    private final Map<UUID, Map<UUID, CoalescedReading>> pendingByTechnic = new ConcurrentHashMap<>();
+    private final Map<UUID, Map<UUID, SensorStatusChangeDto>> pendingStatusChangesByCompany = new ConcurrentHashMap<>();
+
+    /**
+     * Последний статус каждого сенсора. Ведется независимо от подписок, чтобы подписчик топика компании
+     * получал изменения относительно фактического, а не устаревшего статуса.
+     */
+    private final Map<UUID, StatusMark> lastStatusBySensor = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void subscribeToFanout() {
+        webSocketFanout.subscribe(this::acceptReading);
+    }
 
     /**
      * Отправляет данные конкретного сенсора всем клиентам, подписанным на топик этого сенсора.
@@ -29,19 +94,215 @@ public class WebSocketDataPushServiceImpl implements WebSocketDataPushService {
             return;
         }
 
-        String destination = String.format("/topic/sensor/%s/data", sensorId);
+        webSocketFanout.publish(sensorId.equals(realtimeDto.getSensorId())
+                ? realtimeDto
+                : realtimeDto.toBuilder().sensorId(sensorId).build());
+    }
 
+    /**
+     * Принимает показание, пришедшее через {@link WebSocketFanout} от любого экземпляра.
+     */
+    public void acceptReading(SensorDataRealtimeDto realtimeDto) {
+        UUID sensorId = realtimeDto.getSensorId();
+        pushToSensorTopic(sensorId, realtimeDto);
+        if (realtimeDto.getTechnicId() != null) {
+            pushToTechnicTopic(realtimeDto.getTechnicId(), sensorId, realtimeDto);
+        }
+        if (realtimeDto.getStatus() != null) {
+            trackStatusChange(sensorId, realtimeDto);
+        }
+    }
+
+    /**
+     * Отправляет накопленное за окно: по одному сообщению на сенсор, на технику и на компанию.
+     */
+    @Scheduled(fixedDelayString = "${websocket.push.coalesce-window-ms:250}", scheduler = SchedulingConfig.WEBSOCKET_PUSH_SCHEDULER)
+    public void flushPending() {
+        boolean withStats = pushProperties.getCoalesceMode() == RealtimeCoalesceMode.MIN_MAX_LAST;
+
+        for (UUID sensorId : pendingBySensor.keySet()) {
+            CoalescedReading reading = pendingBySensor.remove(sensorId);
+            if (reading != null) {
+                send(sensorDestination(sensorId), reading.toDto(withStats));
+            }
+        }
+
+        for (UUID technicId : pendingByTechnic.keySet()) {
+            Map<UUID, CoalescedReading> readings = pendingByTechnic.remove(technicId);
+            if (readings != null && !readings.isEmpty()) {
+                List<SensorDataRealtimeDto> frame = new ArrayList<>(readings.size());
+                readings.values().forEach(reading -> frame.add(reading.toDto(withStats)));
+                send(technicDestination(technicId), new TechnicRealtimeFrameDto(technicId, frame));
+            }
+        }
+
+        for (UUID companyId : pendingStatusChangesByCompany.keySet()) {
+            Map<UUID, SensorStatusChangeDto> changes = pendingStatusChangesByCompany.remove(companyId);
+            if (changes == null) {
+                continue;
+            }
+            List<SensorStatusChangeDto> delta = changes.values().stream()
+                    .filter(change -> change.previousStatus() != change.status())
+                    .toList();
+            if (!delta.isEmpty()) {
+                send(companyStatusDestination(companyId), new CompanyStatusDeltaDto(companyId, delta));
+            }
+        }
+    }
+
+    private void pushToSensorTopic(UUID sensorId, SensorDataRealtimeDto realtimeDto) {
+        String destination = sensorDestination(sensorId);
+        if (!subscriptionTracker.hasSubscribers(destination)) {
+            return;
+        }
+
+        if (pushProperties.getCoalesceMode() == RealtimeCoalesceMode.NONE) {
+            send(destination, realtimeDto);
+            return;
+        }
+
+        pendingBySensor.compute(sensorId, (key, reading) -> reading == null
+                ? new CoalescedReading(realtimeDto)
+                : reading.merge(realtimeDto));
+    }
+
+    private void pushToTechnicTopic(UUID technicId, UUID sensorId, SensorDataRealtimeDto realtimeDto) {
+        if (!subscriptionTracker.hasSubscribers(technicDestination(technicId))) {
+            return;
+        }
+
+        pendingByTechnic.compute(technicId, (key, readings) -> {
+            Map<UUID, CoalescedReading> result = readings != null ? readings : new LinkedHashMap<>();
+            result.compute(sensorId, (id, reading) -> reading == null
+                    ? new CoalescedReading(realtimeDto)
+                    : reading.merge(realtimeDto));
+            return result;
+        });
+    }
+
+    /**
+     * Изменение статуса копится для компании с исходным статусом из начала окна: если за окно сенсор вернулся
+     * к прежнему статусу, изменение не отправляется. Показание старше последнего учтенного (пришло позже
+     * через другой экземпляр) статус не меняет.
+     */
+    private void trackStatusChange(UUID sensorId, SensorDataRealtimeDto realtimeDto) {
+        SensorStatus status = realtimeDto.getStatus();
+        StatusMark current = new StatusMark(status, realtimeDto.getTimestamp());
+        StatusMark last;
+        do {
+            last = lastStatusBySensor.get(sensorId);
+            if (last != null && isBefore(current.timestamp(), last.timestamp())) {
+                return;
+            }
+        } while (last == null
+                ? lastStatusBySensor.putIfAbsent(sensorId, current) != null
+                : !lastStatusBySensor.replace(sensorId, last, current));
+
+        SensorStatus previous = last != null ? last.status() : null;
+        UUID companyId = realtimeDto.getCompanyId();
+        if (previous == status || companyId == null
+                || !subscriptionTracker.hasSubscribers(companyStatusDestination(companyId))) {
+            return;
+        }
+
+        pendingStatusChangesByCompany.compute(companyId, (key, changes) -> {
+            Map<UUID, SensorStatusChangeDto> result = changes != null ? changes : new LinkedHashMap<>();
+            SensorStatusChangeDto existing = result.get(sensorId);
+            result.put(sensorId, new SensorStatusChangeDto(
+                    sensorId,
+                    realtimeDto.getTechnicId(),
+                    existing != null ? existing.previousStatus() : previous,
+                    status,
+                    realtimeDto.getValue(),
+                    realtimeDto.getTimestamp()
+            ));
+            return result;
+        });
+    }
+
+    private void send(String destination, Object payload) {
         try {
-            log.debug("Pushing data to WebSocket destination '{}': {}", destination, realtimeDto);
-            messagingTemplate.convertAndSend(destination, realtimeDto);
-            getTrace(destination);
+            messagingTemplate.send(destination, jsonMessage(objectMapper.writeValueAsBytes(payload)));
+            log.trace("Successfully pushed data to {}", destination);
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize WebSocket payload for '{}': {}", destination, e.getMessage(), e);
         } catch (Exception e) {
             log.error("Error pushing data to WebSocket destination '{}': {}", destination, e.getMessage(), e);
         }
     }
 
-    private static void getTrace(String destination) {
-        log.trace("Successfully pushed data to {}", destination);
+    private static Message<byte[]> jsonMessage(byte[] json) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(json, accessor.getMessageHeaders());
+    }
+
+    private static boolean isBefore(LocalDateTime timestamp, LocalDateTime other) {
+        return timestamp != null && other != null && timestamp.isBefore(other);
+    }
+
+    private static String sensorDestination(UUID sensorId) {
+        return "/topic/sensor/" + sensorId + "/data";
+    }
+
+    private static String technicDestination(UUID technicId) {
+        return "/topic/technic/" + technicId + "/data";
+    }
+
+    private static String companyStatusDestination(UUID companyId) {
+        return "/topic/company/" + companyId + "/status";
+    }
+
+    private static final class CoalescedReading {
+
+        private SensorDataRealtimeDto latest;
+        private double min = Double.NaN;
+        private double max = Double.NaN;
+        private int samples;
+
+        private CoalescedReading(SensorDataRealtimeDto first) {
+            merge(first);
+        }
+
+        private CoalescedReading merge(SensorDataRealtimeDto dto) {
+            if (latest == null || !isBefore(dto.getTimestamp(), latest.getTimestamp())) {
+                latest = dto;
+            }
+            samples++;
+            Double numeric = parseNumeric(dto.getValue());
+            if (numeric != null && Double.isFinite(numeric)) {
+                min = Double.isNaN(min) ? numeric : Math.min(min, numeric);
+                max = Double.isNaN(max) ? numeric : Math.max(max, numeric);
+            }
+            return this;
+        }
+
+        private SensorDataRealtimeDto toDto(boolean withStats) {
+            if (!withStats) {
+                return latest;
+            }
+            return latest.toBuilder()
+                    .minValue(Double.isNaN(min) ? null : min)
+                    .maxValue(Double.isNaN(max) ? null : max)
+                    .samples(samples)
+                    .build();
+        }
+
+        private static Double parseNumeric(String value) {
+            if (value == null) {
+                return null;
+            }
+            try {
+                return Double.parseDouble(value.replace(',', '.'));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+    }
+
+    private record StatusMark(SensorStatus status, LocalDateTime timestamp) {
     }
 
 }
@@ -0,0 +1,106 @@
+package ru.momo.monitoring.services.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Учет STOMP-подписок по точным адресам, чтобы не готовить и не отправлять сообщения в топики без подписчиков.
+ * <p>
+ * Реестр подписок простого брокера ищет совпадения только по готовому сообщению и недоступен при внешнем брокере,
+ * поэтому трекер строит свой индекс по событиям SUBSCRIBE/UNSUBSCRIBE/DISCONNECT. Подписки по шаблону
+ * ({@code *}, {@code ?}, {@code {var}}) не разбираются: пока есть хотя бы одна, все топики считаются имеющими подписчиков.
+ */
+@Slf4j
+@Component
+public class WebSocketSubscriptionTracker {
+
+    private final Map<String, Set<String>> subscriptionsByDestination = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, String>> destinationsBySession = new ConcurrentHashMap<>();
+    private final Set<String> patternSubscriptions = ConcurrentHashMap.newKeySet();
+
+    public boolean hasSubscribers(String destination) {
+        return !patternSubscriptions.isEmpty() || subscriptionsByDestination.containsKey(destination);
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        String sessionId = accessor.getSessionId();
+        String subscriptionId = accessor.getSubscriptionId();
+        String destination = accessor.getDestination();
+        if (sessionId == null || subscriptionId == null || destination == null) {
+            return;
+        }
+
+        destinationsBySession.computeIfAbsent(sessionId, key -> new ConcurrentHashMap<>()).put(subscriptionId, destination);
+        add(destination, subscriptionKey(sessionId, subscriptionId));
+        log.trace("Session {} subscribed to {}", sessionId, destination);
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        String sessionId = accessor.getSessionId();
+        String subscriptionId = accessor.getSubscriptionId();
+        if (sessionId == null || subscriptionId == null) {
+            return;
+        }
+
+        Map<String, String> subscriptions = destinationsBySession.get(sessionId);
+        String destination = subscriptions != null ? subscriptions.remove(subscriptionId) : null;
+        if (destination != null) {
+            remove(destination, subscriptionKey(sessionId, subscriptionId));
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        String sessionId = event.getSessionId();
+        Map<String, String> subscriptions = sessionId != null ? destinationsBySession.remove(sessionId) : null;
+        if (subscriptions != null) {
+            subscriptions.forEach((subscriptionId, destination) ->
+                    remove(destination, subscriptionKey(sessionId, subscriptionId)));
+        }
+    }
+
+    private void add(String destination, String subscriptionKey) {
+        if (isPattern(destination)) {
+            patternSubscriptions.add(destination + "|" + subscriptionKey);
+            return;
+        }
+        subscriptionsByDestination.compute(destination, (key, subscriptions) -> {
+            Set<String> result = subscriptions != null ? subscriptions : ConcurrentHashMap.newKeySet();
+            result.add(subscriptionKey);
+            return result;
+        });
+    }
+
+    private void remove(String destination, String subscriptionKey) {
+        if (isPattern(destination)) {
+            patternSubscriptions.remove(destination + "|" + subscriptionKey);
+            return;
+        }
+        subscriptionsByDestination.computeIfPresent(destination, (key, subscriptions) -> {
+            subscriptions.remove(subscriptionKey);
+            return subscriptions.isEmpty() ? null : subscriptions;
+        });
+    }
+
+    private static boolean isPattern(String destination) {
+        return destination.indexOf('*') >= 0 || destination.indexOf('?') >= 0 || destination.indexOf('{') >= 0;
+    }
+
+    private static String subscriptionKey(String sessionId, String subscriptionId) {
+        return sessionId + ":" + subscriptionId;
+    }
+
+}
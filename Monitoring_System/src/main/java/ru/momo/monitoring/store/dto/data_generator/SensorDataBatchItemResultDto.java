@@ -0,0 +1,29 @@
+package ru.momo.monitoring.store.dto.data_generator;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SensorDataBatchItemResultDto {
+    private int index;
+    private UUID sensorId;
+    private boolean accepted;
+    private String reason;
+
+    public static SensorDataBatchItemResultDto accepted(int index, UUID sensorId) {
+        return new SensorDataBatchItemResultDto(index, sensorId, true, null);
+    }
+
+    public static SensorDataBatchItemResultDto rejected(int index, UUID sensorId, String reason) {
+        return new SensorDataBatchItemResultDto(index, sensorId, false, reason);
+    }
+}
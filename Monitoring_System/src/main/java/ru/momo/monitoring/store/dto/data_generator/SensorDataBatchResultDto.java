@@ -0,0 +1,19 @@
+package ru.momo.monitoring.store.dto.data_generator;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SensorDataBatchResultDto {
+    private int received;
+    private int accepted;
+    private int rejected;
+    private List<SensorDataBatchItemResultDto> results;
+}
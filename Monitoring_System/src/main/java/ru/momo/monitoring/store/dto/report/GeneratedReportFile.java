@@ -0,0 +1,7 @@
+package ru.momo.monitoring.store.dto.report;
+
+/**
+ * Готовый файл отчёта вместе с именем для Content-Disposition.
+ */
+public record GeneratedReportFile(byte[] content, String fileName) {
+}
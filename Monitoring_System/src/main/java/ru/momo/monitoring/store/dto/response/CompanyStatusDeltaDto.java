@@ -0,0 +1,22 @@
+package ru.momo.monitoring.store.dto.response;
+
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+import java.util.UUID;
+
+@Schema(description = "Изменения статусов сенсоров компании за одно окно отправки (топик /topic/company/{id}/status)")
+public record CompanyStatusDeltaDto(
+
+        @Schema(description = "Уникальный идентификатор компании", example = "c3d4e5f6-a7b8-9012-3456-7890abcdef01")
+        UUID companyId,
+
+        @ArraySchema(
+                schema = @Schema(implementation = SensorStatusChangeDto.class),
+                arraySchema = @Schema(description = "Сенсоры, статус которых изменился за окно, по одному изменению на сенсор")
+        )
+        List<SensorStatusChangeDto> changes
+
+) {
+}
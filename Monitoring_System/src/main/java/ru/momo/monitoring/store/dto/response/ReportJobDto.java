@@ -0,0 +1,45 @@
+package ru.momo.monitoring.store.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.momo.monitoring.store.entities.enums.ReportJobStatus;
+import ru.momo.monitoring.store.entities.enums.ReportJobType;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Задание на формирование отчета")
+public class ReportJobDto {
+
+    @Schema(description = "Идентификатор задания", example = "3f1c2b4a-5d6e-7f80-9a1b-2c3d4e5f6a7b")
+    private UUID jobId;
+
+    @Schema(description = "Тип отчета", example = "DRIVER_ACTIVITY")
+    private ReportJobType type;
+
+    @Schema(description = "Состояние задания", example = "RUNNING")
+    private ReportJobStatus status;
+
+    @Schema(description = "Результат взят из кэша отчетов за закрытые периоды", example = "false")
+    private boolean cached;
+
+    @Schema(description = "Время постановки задания")
+    private LocalDateTime createdAt;
+
+    @Schema(description = "Время завершения задания (для DONE и FAILED)")
+    private LocalDateTime finishedAt;
+
+    @Schema(description = "Причина ошибки (для FAILED)")
+    private String error;
+
+    @Schema(description = "Имя файла отчета (для DONE)", example = "AdminSystemReport_2024-05-01_to_2024-05-31.pdf")
+    private String fileName;
+
+}
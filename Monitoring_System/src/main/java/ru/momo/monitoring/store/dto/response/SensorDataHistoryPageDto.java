@@ -0,0 +1,35 @@
+package ru.momo.monitoring.store.dto.response;
+
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Schema;
+import ru.momo.monitoring.store.dto.request.SensorDataHistoryDto;
+import ru.momo.monitoring.store.entities.enums.AggregationType;
+import ru.momo.monitoring.store.entities.enums.DataGranularity;
+
+import java.util.List;
+
+@Schema(description = "Страница истории данных сенсора с курсором для получения следующей страницы")
+public record SensorDataHistoryPageDto(
+
+        @ArraySchema(
+                schema = @Schema(implementation = SensorDataHistoryDto.class),
+                arraySchema = @Schema(description = "Показания (или агрегированные интервалы), отсортированные по времени")
+        )
+        List<SensorDataHistoryDto> content,
+
+        @Schema(description = "Гранулярность, с которой фактически получены данные " +
+                "(может быть крупнее запрошенной, если задан maxPoints)", example = "HOUR")
+        DataGranularity granularity,
+
+        @Schema(description = "Применённый тип агрегации, null для сырых данных", example = "AVG", nullable = true)
+        AggregationType aggregationType,
+
+        @Schema(description = "Курсор следующей страницы, null если данных больше нет", nullable = true,
+                example = "MjAyNC0wNS0wMVQxMDozMDowMA")
+        String nextCursor,
+
+        @Schema(description = "Есть ли следующая страница", example = "true")
+        boolean hasMore
+
+) {
+}
@@ -0,0 +1,58 @@
+package ru.momo.monitoring.store.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Состояние конвейера приёма показаний сенсоров")
+public class SensorDataIngestStatsDto {
+
+    @Schema(description = "Текущее число показаний в очереди", example = "120")
+    private int queueDepth;
+
+    @Schema(description = "Ёмкость очереди", example = "50000")
+    private int queueCapacity;
+
+    @Schema(description = "Всего показаний принято в очередь", example = "1048576")
+    private long enqueued;
+
+    @Schema(description = "Показаний отклонено из-за переполнения очереди (ответ 429)", example = "0")
+    private long dropped;
+
+    @Schema(description = "Показаний записано в БД", example = "1048000")
+    private long persisted;
+
+    @Schema(description = "Показаний отброшено при записи (неизвестный/неактивный сенсор, пустые поля)", example = "456")
+    private long rejected;
+
+    @Schema(description = "Показаний потеряно после исчерпания повторных попыток записи пакета", example = "0")
+    private long failed;
+
+    @Schema(description = "Выполнено пакетных записей", example = "2048")
+    private long flushes;
+
+    @Schema(description = "Пакетных записей завершилось ошибкой после всех повторных попыток", example = "0")
+    private long failedFlushes;
+
+    @Schema(description = "Повторных попыток записи пакета после временной ошибки", example = "3")
+    private long flushRetries;
+
+    @Schema(description = "Пакетов, разделённых пополам из-за постоянной ошибки записи", example = "0")
+    private long flushSplits;
+
+    @Schema(description = "Длительность последней пакетной записи, мс", example = "35")
+    private long lastFlushLatencyMs;
+
+    @Schema(description = "Средняя длительность пакетной записи, мс", example = "28.4")
+    private double avgFlushLatencyMs;
+
+    @Schema(description = "Максимальная длительность пакетной записи, мс", example = "410")
+    private long maxFlushLatencyMs;
+
+}
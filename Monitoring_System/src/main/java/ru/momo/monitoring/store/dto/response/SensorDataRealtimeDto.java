@@ -1,6 +1,7 @@
 package ru.momo.monitoring.store.dto.response;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateTimeDeserializer;
@@ -16,7 +17,7 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 @Schema(description = "DTO для передачи данных сенсора в реальном времени (например, через WebSocket)")
@@ -28,6 +29,9 @@ public class SensorDataRealtimeDto {
     @Schema(description = "Уникальный идентификатор техники, к которой привязан сенсор (может быть null)", example = "b2c3d4e5-f6a7-8901-2345-67890abcdef0")
     private UUID technicId;
 
+    @Schema(description = "Уникальный идентификатор компании, которой принадлежит сенсор (может быть null)", example = "c3d4e5f6-a7b8-9012-3456-7890abcdef01")
+    private UUID companyId;
+
     @Schema(description = "Серийный номер сенсора", example = "SN-12345XYZ")
     private String sensorSerialNumber;
 
@@ -48,4 +52,16 @@ public class SensorDataRealtimeDto {
 
     @Schema(description = "Единицы измерения значения (например, °C, %, ppm)", example = "°C")
     private String unitOfMeasurement;
-}
\ No newline at end of file
+
+    @Schema(description = "Минимальное числовое значение за окно объединения (режим MIN_MAX_LAST)", example = "24.90")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Double minValue;
+
+    @Schema(description = "Максимальное числовое значение за окно объединения (режим MIN_MAX_LAST)", example = "25.77")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Double maxValue;
+
+    @Schema(description = "Число показаний, объединенных в сообщение (режим MIN_MAX_LAST)", example = "4")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer samples;
+}
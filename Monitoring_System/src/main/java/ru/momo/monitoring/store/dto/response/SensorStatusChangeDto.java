@@ -0,0 +1,36 @@
+package ru.momo.monitoring.store.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateTimeSerializer;
+import io.swagger.v3.oas.annotations.media.Schema;
+import ru.momo.monitoring.store.entities.enums.SensorStatus;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Schema(description = "Изменение статуса сенсора")
+public record SensorStatusChangeDto(
+
+        @Schema(description = "Уникальный идентификатор сенсора", example = "a1b2c3d4-e5f6-7890-1234-567890abcdef")
+        UUID sensorId,
+
+        @Schema(description = "Уникальный идентификатор техники (может быть null)", example = "b2c3d4e5-f6a7-8901-2345-67890abcdef0")
+        UUID technicId,
+
+        @Schema(description = "Предыдущий известный статус, null если сенсор ранее не передавал показаний", nullable = true)
+        SensorStatus previousStatus,
+
+        @Schema(description = "Новый статус")
+        SensorStatus status,
+
+        @Schema(description = "Значение, с которым получен новый статус", example = "25.77")
+        String value,
+
+        @Schema(description = "Временная метка показания", example = "2024-05-14T10:30:55.123456")
+        @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSSSSS")
+        @JsonSerialize(using = LocalDateTimeSerializer.class)
+        LocalDateTime timestamp
+
+) {
+}
@@ -0,0 +1,22 @@
+package ru.momo.monitoring.store.dto.response;
+
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+import java.util.UUID;
+
+@Schema(description = "Пакет показаний всех сенсоров техники за одно окно отправки (топик /topic/technic/{id}/data)")
+public record TechnicRealtimeFrameDto(
+
+        @Schema(description = "Уникальный идентификатор техники", example = "b2c3d4e5-f6a7-8901-2345-67890abcdef0")
+        UUID technicId,
+
+        @ArraySchema(
+                schema = @Schema(implementation = SensorDataRealtimeDto.class),
+                arraySchema = @Schema(description = "Последние за окно показания сенсоров техники, по одному на сенсор")
+        )
+        List<SensorDataRealtimeDto> readings
+
+) {
+}
@@ -46,9 +46,12 @@ public class SensorData {
     @JoinColumn(name = "technic_id")
     private Technic technic;
 
-    @Column(name = "value", nullable = false)
+    @Column(name = "value")
     private String value;
 
+    @Column(name = "numeric_value")
+    private Double numericValue;
+
     @Column(name = "timestamp", nullable = false)
     private LocalDateTime timestamp;
 
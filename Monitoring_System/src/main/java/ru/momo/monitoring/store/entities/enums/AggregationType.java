@@ -7,5 +7,6 @@ public enum AggregationType {
     SUM,
     COUNT,
     FIRST,
-    LAST
+    LAST,
+    DOWNSAMPLE
 }
\ No newline at end of file
@@ -0,0 +1,7 @@
+package ru.momo.monitoring.store.entities.enums;
+
+public enum RealtimeCoalesceMode {
+    NONE,
+    LATEST,
+    MIN_MAX_LAST
+}
@@ -0,0 +1,8 @@
+package ru.momo.monitoring.store.entities.enums;
+
+public enum ReportJobStatus {
+    PENDING,
+    RUNNING,
+    DONE,
+    FAILED
+}
@@ -0,0 +1,6 @@
+package ru.momo.monitoring.store.entities.enums;
+
+public enum ReportJobType {
+    DRIVER_ACTIVITY,
+    ADMIN_SYSTEM_SUMMARY
+}
@@ -0,0 +1,7 @@
+package ru.momo.monitoring.store.entities.enums;
+
+public enum SensorDataExportScope {
+    SENSOR,
+    TECHNIC,
+    COMPANY
+}
@@ -0,0 +1,6 @@
+package ru.momo.monitoring.store.entities.enums;
+
+public enum WebSocketFanoutMode {
+    LOCAL,
+    REDIS
+}
@@ -0,0 +1,33 @@
+package ru.momo.monitoring.store.projection;
+
+import ru.momo.monitoring.store.entities.enums.SensorStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Агрегаты показаний одного сенсора за интервал (минуту, час или день).
+ */
+public record SensorDataRollupBucket(
+        LocalDateTime bucketStart,
+        long rowCount,
+        long valueCount,
+        double valueSum,
+        Double valueMin,
+        Double valueMax,
+        Double firstValue,
+        SensorStatus firstStatus,
+        Double lastValue,
+        SensorStatus lastStatus,
+        long warningCount,
+        long criticalCount
+) {
+
+    public Double valueAvg() {
+        return valueCount > 0 ? valueSum / valueCount : null;
+    }
+
+    public Double valueSumOrNull() {
+        return valueCount > 0 ? valueSum : null;
+    }
+
+}
@@ -0,0 +1,54 @@
+package ru.momo.monitoring.store.projection;
+
+import ru.momo.monitoring.store.entities.Sensor;
+
+import java.util.UUID;
+
+/**
+ * Неизменяемый снимок сенсора для горячего пути приёма показаний:
+ * пороги уже разобраны в числа, связанные сущности сведены к идентификаторам.
+ */
+public record SensorDescriptor(
+        UUID id,
+        String serialNumber,
+        Double minValue,
+        Double maxValue,
+        boolean active,
+        UUID technicId,
+        UUID companyId,
+        UUID typeId,
+        String typeName,
+        String unit
+) {
+
+    public static SensorDescriptor fromEntity(Sensor sensor) {
+        return new SensorDescriptor(
+                sensor.getId(),
+                sensor.getSerialNumber(),
+                parseThreshold(sensor.getMinValue()),
+                parseThreshold(sensor.getMaxValue()),
+                Boolean.TRUE.equals(sensor.getIsActive()),
+                sensor.getTechnic() != null ? sensor.getTechnic().getId() : null,
+                sensor.getCompany() != null ? sensor.getCompany().getId() : null,
+                sensor.getType().getId(),
+                sensor.getType().getName(),
+                sensor.getType().getUnit()
+        );
+    }
+
+    public boolean hasThresholds() {
+        return minValue != null && maxValue != null;
+    }
+
+    private static Double parseThreshold(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Double.parseDouble(value.replace(',', '.'));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,45 @@
+package ru.momo.monitoring.store.projection;
+
+import ru.momo.monitoring.store.dto.report.SensorStatusSummaryDto;
+import ru.momo.monitoring.store.dto.report.SensorValueStatsDto;
+import ru.momo.monitoring.store.entities.enums.SensorStatus;
+
+import java.util.UUID;
+
+/**
+ * Статистика показаний одного сенсора за период, посчитанная одним запросом.
+ */
+public record SensorPeriodStats(
+        UUID sensorId,
+        long rowCount,
+        long valueCount,
+        Double minValue,
+        Double maxValue,
+        Double avgValue,
+        Double lastValue,
+        SensorStatus lastStatus,
+        long warningCount,
+        long criticalCount
+) {
+
+    public static SensorPeriodStats empty(UUID sensorId) {
+        return new SensorPeriodStats(sensorId, 0, 0, null, null, null, null, null, 0, 0);
+    }
+
+    public SensorValueStatsDto toValueStatsDto() {
+        return SensorValueStatsDto.builder()
+                .minValue(minValue)
+                .maxValue(maxValue)
+                .avgValue(avgValue)
+                .lastValue(lastValue)
+                .build();
+    }
+
+    public SensorStatusSummaryDto toStatusSummaryDto() {
+        return SensorStatusSummaryDto.builder()
+                .criticalCount(criticalCount)
+                .warningCount(warningCount)
+                .build();
+    }
+
+}
@@ -0,0 +1,138 @@
+package ru.momo.monitoring.store.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Групповые выборки для сводного отчёта администратора.
+ * Каждый метод возвращает данные сразу по всем компаниям или всей технике, чтобы отчёт
+ * собирался фиксированным числом запросов независимо от количества компаний и техники.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ReportDataRepository {
+
+    private static final String SELECT_TECHNICS_SQL =
+            "SELECT t.id, t.company_id, t.brand, t.model, t.serial_number, t.is_active " +
+                    "FROM technics t " +
+                    "WHERE t.company_id IS NOT NULL " +
+                    "ORDER BY t.company_id, t.brand, t.model, t.serial_number";
+
+    private static final String COUNT_SENSORS_BY_COMPANY_SQL =
+            "SELECT s.company_id, COUNT(*) AS total, COUNT(*) FILTER (WHERE s.is_active) AS active " +
+                    "FROM sensors s " +
+                    "WHERE s.company_id IS NOT NULL " +
+                    "GROUP BY s.company_id";
+
+    private static final String COUNT_ACTIVE_SENSORS_BY_TECHNIC_SQL =
+            "SELECT s.technic_id, COUNT(*) AS active " +
+                    "FROM sensors s " +
+                    "WHERE s.technic_id IS NOT NULL AND s.is_active " +
+                    "GROUP BY s.technic_id";
+
+    // Нарушения считаются по [from, to], рабочие часы (часы с данными от активной техники) — по [from, to)
+    private static final String COMPANY_ACTIVITY_SQL =
+            "SELECT s.company_id, " +
+                    "       COUNT(*) FILTER (WHERE sd.status IN ('WARNING', 'CRITICAL')) AS violations, " +
+                    "       COUNT(DISTINCT date_trunc('hour', sd.timestamp)) " +
+                    "           FILTER (WHERE t.is_active AND sd.timestamp < ?) AS operating_hours " +
+                    "FROM sensor_data sd " +
+                    "JOIN sensors s ON s.id = sd.sensor_id " +
+                    "LEFT JOIN technics t ON t.id = s.technic_id " +
+                    "WHERE sd.timestamp >= ? AND sd.timestamp <= ? AND s.company_id IS NOT NULL " +
+                    "GROUP BY s.company_id";
+
+    private static final String COUNT_ALERTS_BY_TECHNIC_SQL =
+            "SELECT sd.technic_id, " +
+                    "       COUNT(*) FILTER (WHERE sd.status = 'WARNING') AS warnings, " +
+                    "       COUNT(*) FILTER (WHERE sd.status = 'CRITICAL') AS criticals " +
+                    "FROM sensor_data sd " +
+                    "WHERE sd.technic_id IS NOT NULL " +
+                    "  AND sd.status IN ('WARNING', 'CRITICAL') " +
+                    "  AND sd.timestamp >= ? AND sd.timestamp <= ? " +
+                    "GROUP BY sd.technic_id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public List<TechnicRow> findAllCompanyTechnics() {
+        return jdbcTemplate.query(SELECT_TECHNICS_SQL, (rs, rowNum) -> new TechnicRow(
+                rs.getObject("id", UUID.class),
+                rs.getObject("company_id", UUID.class),
+                rs.getString("brand"),
+                rs.getString("model"),
+                rs.getString("serial_number"),
+                rs.getBoolean("is_active")
+        ));
+    }
+
+    public Map<UUID, SensorCounts> countSensorsByCompany() {
+        Map<UUID, SensorCounts> result = new HashMap<>();
+        jdbcTemplate.query(COUNT_SENSORS_BY_COMPANY_SQL, rs -> {
+            result.put(rs.getObject("company_id", UUID.class),
+                    new SensorCounts(rs.getInt("total"), rs.getInt("active")));
+        });
+        return result;
+    }
+
+    public Map<UUID, Integer> countActiveSensorsByTechnic() {
+        Map<UUID, Integer> result = new HashMap<>();
+        jdbcTemplate.query(COUNT_ACTIVE_SENSORS_BY_TECHNIC_SQL, rs -> {
+            result.put(rs.getObject("technic_id", UUID.class), rs.getInt("active"));
+        });
+        return result;
+    }
+
+    public Map<UUID, CompanyActivity> findCompanyActivity(LocalDateTime from, LocalDateTime to) {
+        Map<UUID, CompanyActivity> result = new HashMap<>();
+        jdbcTemplate.query(COMPANY_ACTIVITY_SQL, rs -> {
+            result.put(rs.getObject("company_id", UUID.class),
+                    new CompanyActivity(rs.getLong("violations"), rs.getLong("operating_hours")));
+        }, to, from, to);
+        return result;
+    }
+
+    public Map<UUID, AlertCounts> countAlertsByTechnic(LocalDateTime from, LocalDateTime to) {
+        Map<UUID, AlertCounts> result = new HashMap<>();
+        jdbcTemplate.query(COUNT_ALERTS_BY_TECHNIC_SQL, rs -> {
+            result.put(rs.getObject("technic_id", UUID.class),
+                    new AlertCounts(rs.getLong("warnings"), rs.getLong("criticals")));
+        }, from, to);
+        return result;
+    }
+
+    public record TechnicRow(
+            UUID id,
+            UUID companyId,
+            String brand,
+            String model,
+            String serialNumber,
+            boolean active
+    ) {
+    }
+
+    public record SensorCounts(int total, int active) {
+
+        public static final SensorCounts EMPTY = new SensorCounts(0, 0);
+
+    }
+
+    public record CompanyActivity(long violations, long operatingHours) {
+
+        public static final CompanyActivity EMPTY = new CompanyActivity(0, 0);
+
+    }
+
+    public record AlertCounts(long warnings, long criticals) {
+
+        public static final AlertCounts EMPTY = new AlertCounts(0, 0);
+
+    }
+
+}
@@ -0,0 +1,243 @@
+package ru.momo.monitoring.store.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.momo.monitoring.store.dto.request.SensorDataHistoryDto;
+import ru.momo.monitoring.store.entities.enums.SensorDataExportScope;
+import ru.momo.monitoring.store.entities.enums.SensorStatus;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Запись и потоковое чтение показаний сенсоров в sensor_data в обход JPA.
+ * Вставки отправляются JDBC-батчами, драйвер PostgreSQL с reWriteBatchedInserts=true
+ * переписывает их в многострочные INSERT.
+ * <p>
+ * Для числовых показаний заполняется только numeric_value, строка value сохраняется лишь
+ * для значений, которые не удалось разобрать как число.
+ * <p>
+ * Чтение сырой истории идёт через серверный курсор: внутри транзакции драйвер PostgreSQL
+ * получает строки порциями по fetchSize, поэтому память не зависит от размера периода.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SensorDataJdbcRepository {
+
+    private static final int JDBC_BATCH_SIZE = 1000;
+
+    private static final String INSERT_SQL =
+            "INSERT INTO sensor_data (sensor_id, technic_id, value, numeric_value, timestamp, status) " +
+                    "VALUES (?, ?, ?, ?, ?, CAST(? AS sensor_status))";
+
+    private static final int STREAM_FETCH_SIZE = 5000;
+
+    private static final String SELECT_RAW_HISTORY_SQL =
+            "SELECT sd.timestamp, sd.numeric_value, sd.status::text " +
+                    "FROM sensor_data sd " +
+                    "WHERE sd.sensor_id = ? AND sd.timestamp >= ? AND sd.timestamp < ? " +
+                    "ORDER BY sd.timestamp";
+
+    private static final String COUNT_NUMERIC_HISTORY_SQL =
+            "SELECT COUNT(*) FROM sensor_data sd " +
+                    "WHERE sd.sensor_id = ? AND sd.timestamp >= ? AND sd.timestamp < ? AND sd.numeric_value IS NOT NULL";
+
+    private static final String SELECT_RAW_HISTORY_PAGE_SQL =
+            "SELECT sd.id, sd.timestamp, sd.numeric_value, sd.status::text " +
+                    "FROM sensor_data sd " +
+                    "WHERE sd.sensor_id = ? AND sd.timestamp >= ? AND sd.timestamp < ? " +
+                    "  AND (sd.timestamp, sd.id) > (?, ?) " +
+                    "ORDER BY sd.timestamp, sd.id " +
+                    "LIMIT ?";
+
+    private static final String SELECT_EXPORT_COLUMNS =
+            "SELECT sd.timestamp, sd.sensor_id, sd.technic_id, sd.numeric_value, sd.value, sd.status::text " +
+                    "FROM sensor_data sd ";
+
+    private static final String SELECT_SENSOR_EXPORT_SQL = SELECT_EXPORT_COLUMNS +
+            "WHERE sd.sensor_id = ? AND sd.timestamp >= ? AND sd.timestamp < ? " +
+            "ORDER BY sd.timestamp";
+
+    private static final String SELECT_TECHNIC_EXPORT_SQL = SELECT_EXPORT_COLUMNS +
+            "WHERE sd.technic_id = ? AND sd.timestamp >= ? AND sd.timestamp < ?";
+
+    private static final String SELECT_COMPANY_EXPORT_SQL = SELECT_EXPORT_COLUMNS +
+            "JOIN sensors s ON s.id = sd.sensor_id " +
+            "WHERE s.company_id = ? AND sd.timestamp >= ? AND sd.timestamp < ?";
+
+    private static final UUID MIN_UUID = new UUID(0L, 0L);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void batchInsert(List<Row> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows, JDBC_BATCH_SIZE, (ps, row) -> {
+            ps.setObject(1, row.sensorId());
+            ps.setObject(2, row.technicId());
+            ps.setString(3, row.value());
+            if (row.numericValue() != null) {
+                ps.setDouble(4, row.numericValue());
+            } else {
+                ps.setNull(4, Types.DOUBLE);
+            }
+            ps.setObject(5, row.timestamp());
+            if (row.status() != null) {
+                ps.setString(6, row.status().name());
+            } else {
+                ps.setNull(6, Types.VARCHAR);
+            }
+        });
+    }
+
+    /**
+     * Последовательно передаёт сырые показания сенсора за полуинтервал [from, to) в consumer, упорядоченные по времени.
+     * Транзакция нужна, чтобы драйвер PostgreSQL использовал курсор вместо загрузки всего результата.
+     */
+    @Transactional(readOnly = true)
+    public void streamRawHistory(UUID sensorId,
+                                 LocalDateTime from,
+                                 LocalDateTime to,
+                                 Consumer<SensorDataHistoryDto> consumer) {
+        jdbcTemplate.query(
+                connection -> {
+                    PreparedStatement ps = connection.prepareStatement(
+                            SELECT_RAW_HISTORY_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                    ps.setFetchSize(STREAM_FETCH_SIZE);
+                    ps.setObject(1, sensorId);
+                    ps.setObject(2, from);
+                    ps.setObject(3, to);
+                    return ps;
+                },
+                rs -> {
+                    Timestamp timestamp = rs.getTimestamp(1);
+                    double numericValue = rs.getDouble(2);
+                    Double value = rs.wasNull() ? null : numericValue;
+                    String status = rs.getString(3);
+
+                    consumer.accept(SensorDataHistoryDto.builder()
+                            .timestamp(timestamp != null ? timestamp.toLocalDateTime() : null)
+                            .value(value)
+                            .status(status != null ? SensorStatus.valueOf(status) : null)
+                            .build());
+                }
+        );
+    }
+
+    /**
+     * Последовательно передаёт показания за полуинтервал [from, to) для выгрузки: по сенсору (упорядочены по времени),
+     * по технике или по всем сенсорам компании (в порядке чтения партиций, без сортировки).
+     * Полуинтервал позволяет выгружать соседние периоды без повторов на границах.
+     */
+    @Transactional(readOnly = true)
+    public void streamExportRows(SensorDataExportScope scope,
+                                 UUID scopeId,
+                                 LocalDateTime from,
+                                 LocalDateTime to,
+                                 Consumer<ExportRow> consumer) {
+        String sql = switch (scope) {
+            case SENSOR -> SELECT_SENSOR_EXPORT_SQL;
+            case TECHNIC -> SELECT_TECHNIC_EXPORT_SQL;
+            case COMPANY -> SELECT_COMPANY_EXPORT_SQL;
+        };
+
+        jdbcTemplate.query(
+                connection -> {
+                    PreparedStatement ps = connection.prepareStatement(
+                            sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                    ps.setFetchSize(STREAM_FETCH_SIZE);
+                    ps.setObject(1, scopeId);
+                    ps.setObject(2, from);
+                    ps.setObject(3, to);
+                    return ps;
+                },
+                rs -> {
+                    double numericValue = rs.getDouble(4);
+                    Double value = rs.wasNull() ? null : numericValue;
+                    String status = rs.getString(6);
+
+                    consumer.accept(new ExportRow(
+                            rs.getTimestamp(1).toLocalDateTime(),
+                            rs.getObject(2, UUID.class),
+                            rs.getObject(3, UUID.class),
+                            value,
+                            rs.getString(5),
+                            status != null ? SensorStatus.valueOf(status) : null
+                    ));
+                }
+        );
+    }
+
+    public long countNumericHistory(UUID sensorId, LocalDateTime from, LocalDateTime to) {
+        Long count = jdbcTemplate.queryForObject(COUNT_NUMERIC_HISTORY_SQL, Long.class, sensorId, from, to);
+        return count != null ? count : 0L;
+    }
+
+    /**
+     * Страница сырых показаний сенсора за период по ключу (timestamp, id): возвращает до {@code limit}
+     * записей строго после переданной пары. Если afterTimestamp не задан, страница начинается с {@code from}.
+     */
+    public List<HistoryRow> findRawHistoryPage(UUID sensorId,
+                                               LocalDateTime from,
+                                               LocalDateTime to,
+                                               LocalDateTime afterTimestamp,
+                                               UUID afterId,
+                                               int limit) {
+        LocalDateTime keyTimestamp = afterTimestamp != null ? afterTimestamp : from.minus(1, ChronoUnit.MICROS);
+        UUID keyId = afterTimestamp != null && afterId != null ? afterId : MIN_UUID;
+
+        return jdbcTemplate.query(SELECT_RAW_HISTORY_PAGE_SQL,
+                (rs, rowNum) -> {
+                    double numericValue = rs.getDouble(3);
+                    Double value = rs.wasNull() ? null : numericValue;
+                    String status = rs.getString(4);
+                    return new HistoryRow(
+                            rs.getObject(1, UUID.class),
+                            rs.getTimestamp(2).toLocalDateTime(),
+                            value,
+                            status != null ? SensorStatus.valueOf(status) : null
+                    );
+                },
+                sensorId, from, to, keyTimestamp, keyId, limit);
+    }
+
+    public record HistoryRow(
+            UUID id,
+            LocalDateTime timestamp,
+            Double value,
+            SensorStatus status
+    ) {
+    }
+
+    public record ExportRow(
+            LocalDateTime timestamp,
+            UUID sensorId,
+            UUID technicId,
+            Double numericValue,
+            String value,
+            SensorStatus status
+    ) {
+    }
+
+    public record Row(
+            UUID sensorId,
+            UUID technicId,
+            String value,
+            Double numericValue,
+            LocalDateTime timestamp,
+            SensorStatus status
+    ) {
+    }
+
+}
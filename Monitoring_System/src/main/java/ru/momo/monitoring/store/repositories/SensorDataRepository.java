@@ -10,13 +10,12 @@ import ru.momo.monitoring.store.entities.enums.SensorStatus;
 import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface SensorDataRepository extends JpaRepository<SensorData, UUID> {
 
-    List<SensorData> findBySensorIdAndTimestampBetweenOrderByTimestampAsc(
+    List<SensorData> findBySensorIdAndTimestampGreaterThanEqualAndTimestampLessThanOrderByTimestampAsc(
             UUID sensorId,
             LocalDateTime timestampStart,
             LocalDateTime timestampEnd
@@ -25,7 +24,7 @@ public interface SensorDataRepository extends JpaRepository<SensorData, UUID> {
     // --- Агрегация AVG (Native Query) ---
     @Query(value = "SELECT " +
             "    date_trunc(:granularity, sd.timestamp) as interval_start, " +
-            "    AVG(CAST(NULLIF(regexp_replace(REPLACE(sd.value, ',', '.'), '[^0-9.-]+', '', 'g'), '') AS double precision)) as aggregated_value, " +
+            "    AVG(sd.numeric_value) as aggregated_value, " +
             "    NULL as aggregated_status " +
             "FROM sensor_data sd " +
             "WHERE sd.sensor_id = :sensorId AND sd.timestamp >= :fromTime AND sd.timestamp < :toTime " +
@@ -41,7 +40,7 @@ public interface SensorDataRepository extends JpaRepository<SensorData, UUID> {
     // --- Агрегация MIN (Native Query) ---
     @Query(value = "SELECT " +
             "    date_trunc(:granularity, sd.timestamp) as interval_start, " +
-            "    MIN(CAST(NULLIF(regexp_replace(REPLACE(sd.value, ',', '.'), '[^0-9.-]+', '', 'g'), '') AS double precision)) as aggregated_value, " + // <--- ИЗМЕНЕНО
+            "    MIN(sd.numeric_value) as aggregated_value, " +
             "    NULL as aggregated_status " +
             "FROM sensor_data sd " +
             "WHERE sd.sensor_id = :sensorId AND sd.timestamp >= :fromTime AND sd.timestamp < :toTime " +
@@ -57,7 +56,7 @@ public interface SensorDataRepository extends JpaRepository<SensorData, UUID> {
     // --- Агрегация MAX (Native Query) ---
     @Query(value = "SELECT " +
             "    date_trunc(:granularity, sd.timestamp) as interval_start, " +
-            "    MAX(CAST(NULLIF(regexp_replace(REPLACE(sd.value, ',', '.'), '[^0-9.-]+', '', 'g'), '') AS double precision)) as aggregated_value, " + // <--- ИЗМЕНЕНО
+            "    MAX(sd.numeric_value) as aggregated_value, " +
             "    NULL as aggregated_status " +
             "FROM sensor_data sd " +
             "WHERE sd.sensor_id = :sensorId AND sd.timestamp >= :fromTime AND sd.timestamp < :toTime " +
@@ -73,7 +72,7 @@ public interface SensorDataRepository extends JpaRepository<SensorData, UUID> {
     // --- Агрегация SUM (Native Query) ---
     @Query(value = "SELECT " +
             "    date_trunc(:granularity, sd.timestamp) as interval_start, " +
-            "    SUM(CAST(NULLIF(regexp_replace(REPLACE(sd.value, ',', '.'), '[^0-9.-]+', '', 'g'), '') AS double precision)) as aggregated_value, " + // <--- ИЗМЕНЕНО
+            "    SUM(sd.numeric_value) as aggregated_value, " +
             "    NULL as aggregated_status " +
             "FROM sensor_data sd " +
             "WHERE sd.sensor_id = :sensorId AND sd.timestamp >= :fromTime AND sd.timestamp < :toTime " +
@@ -102,11 +101,11 @@ public interface SensorDataRepository extends JpaRepository<SensorData, UUID> {
             @Param("granularity") String granularity
     );
 
-    // --- Агрегация LAST (Native Query) - уже был правильный CAST для value ---
+    // --- Агрегация LAST (Native Query) ---
     @Query(value = "WITH RankedSensorData AS (" +
             "    SELECT " +
             "        date_trunc(:granularity, sd.timestamp) as interval_start, " +
-            "        sd.value as original_value, " +
+            "        sd.numeric_value as original_value, " +
             "        sd.status as original_status, " +
             "        sd.timestamp as original_timestamp, " +
             "        ROW_NUMBER() OVER (PARTITION BY date_trunc(:granularity, sd.timestamp) ORDER BY sd.timestamp DESC) as rn " +
@@ -117,7 +116,7 @@ public interface SensorDataRepository extends JpaRepository<SensorData, UUID> {
             ") " +
             "SELECT " +
             "    rsd.interval_start, " +
-            "    CAST(NULLIF(regexp_replace(REPLACE(rsd.original_value, ',', '.'), '[^0-9.-]+', '', 'g'), '') AS double precision) as agg_value, " + // Этот CAST уже был корректен
+            "    rsd.original_value as agg_value, " +
             "    CAST(rsd.original_status AS text) as agg_status " +
             "FROM RankedSensorData rsd " +
             "WHERE rsd.rn = 1 " +
@@ -129,11 +128,11 @@ public interface SensorDataRepository extends JpaRepository<SensorData, UUID> {
             @Param("granularity") String granularity
     );
 
-    // --- Агрегация FIRST (Native Query) - уже был правильный CAST для value ---
+    // --- Агрегация FIRST (Native Query) ---
     @Query(value = "WITH RankedSensorData AS (" +
             "    SELECT " +
             "        date_trunc(:granularity, sd.timestamp) as interval_start, " +
-            "        sd.value as original_value, " +
+            "        sd.numeric_value as original_value, " +
             "        sd.status as original_status, " +
             "        sd.timestamp as original_timestamp, " +
             "        ROW_NUMBER() OVER (PARTITION BY date_trunc(:granularity, sd.timestamp) ORDER BY sd.timestamp ASC) as rn " +
@@ -144,7 +143,7 @@ public interface SensorDataRepository extends JpaRepository<SensorData, UUID> {
             ") " +
             "SELECT " +
             "    rsd.interval_start, " +
-            "    CAST(NULLIF(regexp_replace(REPLACE(rsd.original_value, ',', '.'), '[^0-9.-]+', '', 'g'), '') AS double precision) as agg_value, " + // Этот CAST уже был корректен
+            "    rsd.original_value as agg_value, " +
             "    CAST(rsd.original_status AS text) as agg_status " +
             "FROM RankedSensorData rsd " +
             "WHERE rsd.rn = 1 " +
@@ -156,60 +155,6 @@ public interface SensorDataRepository extends JpaRepository<SensorData, UUID> {
             @Param("granularity") String granularity
     );
 
-    @Query(value = "SELECT CAST(sd.status AS text) as status_text, COUNT(sd.id) as count " +
-            "FROM sensor_data sd " +
-            "WHERE sd.sensor_id = :sensorId " +
-            "  AND sd.timestamp >= :fromTime " +
-            "  AND sd.timestamp < :toTime " +
-            "  AND sd.status IN ('CRITICAL', 'WARNING') " +
-            "GROUP BY sd.status", nativeQuery = true)
-    List<Object[]> countSensorStatusesInPeriod(
-            @Param("sensorId") UUID sensorId,
-            @Param("fromTime") LocalDateTime fromTime,
-            @Param("toTime") LocalDateTime toTime
-    );
-
-    @Query(value = "SELECT AVG(CAST(NULLIF(regexp_replace(REPLACE(sd.value, ',', '.'), '[^0-9.-]+', '', 'g'), '') AS double precision)) " +
-            "FROM sensor_data sd " +
-            "WHERE sd.sensor_id = :sensorId AND sd.timestamp >= :fromTime AND sd.timestamp < :toTime", nativeQuery = true)
-    Optional<Double> findAvgValueInPeriod(
-            @Param("sensorId") UUID sensorId,
-            @Param("fromTime") LocalDateTime fromTime,
-            @Param("toTime") LocalDateTime toTime
-    );
-
-    @Query(value = "SELECT MIN(CAST(NULLIF(regexp_replace(REPLACE(sd.value, ',', '.'), '[^0-9.-]+', '', 'g'), '') AS double precision)) " +
-            "FROM sensor_data sd " +
-            "WHERE sd.sensor_id = :sensorId AND sd.timestamp >= :fromTime AND sd.timestamp < :toTime", nativeQuery = true)
-    Optional<Double> findMinValueInPeriod(
-            @Param("sensorId") UUID sensorId,
-            @Param("fromTime") LocalDateTime fromTime,
-            @Param("toTime") LocalDateTime toTime
-    );
-
-    @Query(value = "SELECT MAX(CAST(NULLIF(regexp_replace(REPLACE(sd.value, ',', '.'), '[^0-9.-]+', '', 'g'), '') AS double precision)) " +
-            "FROM sensor_data sd " +
-            "WHERE sd.sensor_id = :sensorId AND sd.timestamp >= :fromTime AND sd.timestamp < :toTime", nativeQuery = true)
-    Optional<Double> findMaxValueInPeriod(
-            @Param("sensorId") UUID sensorId,
-            @Param("fromTime") LocalDateTime fromTime,
-            @Param("toTime") LocalDateTime toTime
-    );
-
-    // Для LAST значения и статуса
-    @Query(value = "SELECT " +
-            "    CAST(NULLIF(regexp_replace(REPLACE(sd.value, ',', '.'), '[^0-9.-]+', '', 'g'), '') AS double precision) as last_value, " + // Первый элемент Object[0]
-            "    CAST(sd.status AS text) as last_status " +
-            "FROM sensor_data sd " +
-            "WHERE sd.sensor_id = :sensorId AND sd.timestamp >= :fromTime AND sd.timestamp < :toTime " +
-            "ORDER BY sd.timestamp DESC " +
-            "LIMIT 1", nativeQuery = true)
-    Optional<Object[]> findLastValueAndStatusInPeriod(
-            @Param("sensorId") UUID sensorId,
-            @Param("fromTime") LocalDateTime fromTime,
-            @Param("toTime") LocalDateTime toTime
-    );
-
     long countByStatusInAndTimestampBetween(
             @Param("statuses") Collection<SensorStatus> statuses,
             @Param("fromTime") LocalDateTime fromTime,
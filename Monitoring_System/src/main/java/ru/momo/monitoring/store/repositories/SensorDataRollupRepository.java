@@ -0,0 +1,361 @@
+package ru.momo.monitoring.store.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.momo.monitoring.store.entities.enums.DataGranularity;
+import ru.momo.monitoring.store.entities.enums.SensorStatus;
+import ru.momo.monitoring.store.projection.SensorDataRollupBucket;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Таблицы sensor_data_rollup_minute/hour/day: инкрементальное обновление при приёме показаний
+ * и чтение истории по интервалам.
+ * <p>
+ * Запрошенный период раскладывается на выровненные отрезки: середина берётся из таблицы
+ * запрошенной гранулярности, края — из более мелких таблиц, а остаток меньше минуты — из sensor_data.
+ * Частичные агрегаты объединяются одним запросом, поэтому неполные крайние интервалы
+ * считаются так же, как прямой date_trunc по сырым данным.
+ * <p>
+ * Как и нативные запросы истории по sensor_data, период читается полуинтервалом [from, to).
+ */
+@Repository
+@RequiredArgsConstructor
+public class SensorDataRollupRepository {
+
+    private static final int JDBC_BATCH_SIZE = 1000;
+
+    private static final String UPSERT_SQL_TEMPLATE =
+            "INSERT INTO %1$s AS r (sensor_id, bucket_start, row_count, value_count, value_sum, value_min, value_max, " +
+                    "first_ts, first_value, first_status, last_ts, last_value, last_status, warning_count, critical_count) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, CAST(? AS sensor_status), ?, ?, CAST(? AS sensor_status), ?, ?) " +
+                    "ON CONFLICT (sensor_id, bucket_start) DO UPDATE SET " +
+                    "    row_count = r.row_count + EXCLUDED.row_count, " +
+                    "    value_count = r.value_count + EXCLUDED.value_count, " +
+                    "    value_sum = r.value_sum + EXCLUDED.value_sum, " +
+                    "    value_min = LEAST(r.value_min, EXCLUDED.value_min), " +
+                    "    value_max = GREATEST(r.value_max, EXCLUDED.value_max), " +
+                    "    first_value = CASE WHEN EXCLUDED.first_ts < r.first_ts THEN EXCLUDED.first_value ELSE r.first_value END, " +
+                    "    first_status = CASE WHEN EXCLUDED.first_ts < r.first_ts THEN EXCLUDED.first_status ELSE r.first_status END, " +
+                    "    first_ts = LEAST(r.first_ts, EXCLUDED.first_ts), " +
+                    "    last_value = CASE WHEN EXCLUDED.last_ts >= r.last_ts THEN EXCLUDED.last_value ELSE r.last_value END, " +
+                    "    last_status = CASE WHEN EXCLUDED.last_ts >= r.last_ts THEN EXCLUDED.last_status ELSE r.last_status END, " +
+                    "    last_ts = GREATEST(r.last_ts, EXCLUDED.last_ts), " +
+                    "    warning_count = r.warning_count + EXCLUDED.warning_count, " +
+                    "    critical_count = r.critical_count + EXCLUDED.critical_count";
+
+    private static final String RAW_SEGMENT_SQL_TEMPLATE =
+            "SELECT date_trunc('%1$s', sd.timestamp) AS bucket, " +
+                    "    COUNT(*) AS row_count, COUNT(sd.numeric_value) AS value_count, " +
+                    "    COALESCE(SUM(sd.numeric_value), 0) AS value_sum, " +
+                    "    MIN(sd.numeric_value) AS value_min, MAX(sd.numeric_value) AS value_max, " +
+                    "    MIN(sd.timestamp) AS first_ts, " +
+                    "    (array_agg(sd.numeric_value ORDER BY sd.timestamp))[1] AS first_value, " +
+                    "    (array_agg(CAST(sd.status AS text) ORDER BY sd.timestamp))[1] AS first_status, " +
+                    "    MAX(sd.timestamp) AS last_ts, " +
+                    "    (array_agg(sd.numeric_value ORDER BY sd.timestamp DESC))[1] AS last_value, " +
+                    "    (array_agg(CAST(sd.status AS text) ORDER BY sd.timestamp DESC))[1] AS last_status, " +
+                    "    COUNT(*) FILTER (WHERE sd.status = 'WARNING') AS warning_count, " +
+                    "    COUNT(*) FILTER (WHERE sd.status = 'CRITICAL') AS critical_count " +
+                    "FROM sensor_data sd " +
+                    "WHERE sd.sensor_id = ? AND sd.timestamp >= ? AND sd.timestamp < ? " +
+                    "GROUP BY 1";
+
+    private static final String ROLLUP_SEGMENT_SQL_TEMPLATE =
+            "SELECT date_trunc('%1$s', r.bucket_start) AS bucket, " +
+                    "    SUM(r.row_count) AS row_count, SUM(r.value_count) AS value_count, " +
+                    "    SUM(r.value_sum) AS value_sum, " +
+                    "    MIN(r.value_min) AS value_min, MAX(r.value_max) AS value_max, " +
+                    "    MIN(r.first_ts) AS first_ts, " +
+                    "    (array_agg(r.first_value ORDER BY r.first_ts))[1] AS first_value, " +
+                    "    (array_agg(CAST(r.first_status AS text) ORDER BY r.first_ts))[1] AS first_status, " +
+                    "    MAX(r.last_ts) AS last_ts, " +
+                    "    (array_agg(r.last_value ORDER BY r.last_ts DESC))[1] AS last_value, " +
+                    "    (array_agg(CAST(r.last_status AS text) ORDER BY r.last_ts DESC))[1] AS last_status, " +
+                    "    SUM(r.warning_count) AS warning_count, " +
+                    "    SUM(r.critical_count) AS critical_count " +
+                    "FROM %2$s r " +
+                    "WHERE r.sensor_id = ? AND r.bucket_start >= ? AND r.bucket_start < ? " +
+                    "GROUP BY 1";
+
+    private static final String MERGE_SQL_TEMPLATE =
+            "SELECT p.bucket, " +
+                    "    SUM(p.row_count) AS row_count, SUM(p.value_count) AS value_count, " +
+                    "    SUM(p.value_sum) AS value_sum, " +
+                    "    MIN(p.value_min) AS value_min, MAX(p.value_max) AS value_max, " +
+                    "    (array_agg(p.first_value ORDER BY p.first_ts))[1] AS first_value, " +
+                    "    (array_agg(p.first_status ORDER BY p.first_ts))[1] AS first_status, " +
+                    "    (array_agg(p.last_value ORDER BY p.last_ts DESC))[1] AS last_value, " +
+                    "    (array_agg(p.last_status ORDER BY p.last_ts DESC))[1] AS last_status, " +
+                    "    SUM(p.warning_count) AS warning_count, " +
+                    "    SUM(p.critical_count) AS critical_count " +
+                    "FROM (%s) p " +
+                    "GROUP BY p.bucket " +
+                    "ORDER BY p.bucket";
+
+    private static final String ESTIMATE_ROW_COUNT_SQL =
+            "SELECT COALESCE(SUM(r.row_count), 0) " +
+                    "FROM sensor_data_rollup_hour r " +
+                    "WHERE r.sensor_id = ? AND r.bucket_start >= ? AND r.bucket_start < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Добавляет записанные показания в агрегаты всех уровней. Должен вызываться в той же транзакции,
+     * что и вставка в sensor_data.
+     */
+    public void upsert(List<SensorDataJdbcRepository.Row> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        for (Level level : Level.values()) {
+            List<PartialBucket> buckets = aggregate(rows, level);
+            String sql = String.format(UPSERT_SQL_TEMPLATE, level.table);
+
+            jdbcTemplate.batchUpdate(sql, buckets, JDBC_BATCH_SIZE, (ps, b) -> {
+                ps.setObject(1, b.sensorId);
+                ps.setObject(2, b.bucketStart);
+                ps.setLong(3, b.rowCount);
+                ps.setLong(4, b.valueCount);
+                ps.setDouble(5, b.valueSum);
+                setNullableDouble(ps, 6, b.valueMin);
+                setNullableDouble(ps, 7, b.valueMax);
+                ps.setObject(8, b.firstTs);
+                setNullableDouble(ps, 9, b.firstValue);
+                ps.setString(10, b.firstStatus != null ? b.firstStatus.name() : null);
+                ps.setObject(11, b.lastTs);
+                setNullableDouble(ps, 12, b.lastValue);
+                ps.setString(13, b.lastStatus != null ? b.lastStatus.name() : null);
+                ps.setLong(14, b.warningCount);
+                ps.setLong(15, b.criticalCount);
+            });
+        }
+    }
+
+    /**
+     * Интервалы гранулярности {@code granularity} за период [from, to), посчитанные по агрегатам.
+     * Пустые интервалы не возвращаются.
+     */
+    public List<SensorDataRollupBucket> findBuckets(UUID sensorId,
+                                                    LocalDateTime from,
+                                                    LocalDateTime to,
+                                                    DataGranularity granularity) {
+        Level target = Level.of(granularity)
+                .orElseThrow(() -> new IllegalArgumentException("No rollup for granularity " + granularity));
+
+        List<Segment> segments = new ArrayList<>();
+        planSegments(from, to, target.ordinal(), segments);
+        if (segments.isEmpty()) {
+            return List.of();
+        }
+
+        String unit = target.name().toLowerCase();
+        List<String> parts = new ArrayList<>(segments.size());
+        List<Object> args = new ArrayList<>(segments.size() * 3);
+        for (Segment segment : segments) {
+            parts.add(segment.level == null
+                    ? String.format(RAW_SEGMENT_SQL_TEMPLATE, unit)
+                    : String.format(ROLLUP_SEGMENT_SQL_TEMPLATE, unit, segment.level.table));
+            args.add(sensorId);
+            args.add(segment.from);
+            args.add(segment.to);
+        }
+
+        String sql = String.format(MERGE_SQL_TEMPLATE, String.join(" UNION ALL ", parts));
+
+        return jdbcTemplate.query(sql, (rs, rowNum) -> mapBucket(rs), args.toArray());
+    }
+
+    /**
+     * Оценка сверху числа сырых показаний сенсора за период [from, to): суммируются часовые агрегаты,
+     * пересекающиеся с периодом, поэтому неполные крайние часы учитываются целиком.
+     */
+    public long estimateRowCount(UUID sensorId, LocalDateTime from, LocalDateTime to) {
+        Long count = jdbcTemplate.queryForObject(ESTIMATE_ROW_COUNT_SQL, Long.class,
+                sensorId, Level.HOUR.floor(from), to);
+        return count != null ? count : 0L;
+    }
+
+    /**
+     * Раскладывает [from, to) на отрезки, выровненные по уровням не крупнее {@code maxLevel}.
+     */
+    private void planSegments(LocalDateTime from, LocalDateTime to, int maxLevel, List<Segment> segments) {
+        if (!from.isBefore(to)) {
+            return;
+        }
+        if (maxLevel < 0) {
+            segments.add(new Segment(null, from, to));
+            return;
+        }
+
+        Level level = Level.values()[maxLevel];
+        LocalDateTime alignedFrom = level.ceil(from);
+        LocalDateTime alignedTo = level.floor(to);
+
+        if (!alignedFrom.isBefore(alignedTo)) {
+            planSegments(from, to, maxLevel - 1, segments);
+            return;
+        }
+
+        planSegments(from, alignedFrom, maxLevel - 1, segments);
+        segments.add(new Segment(level, alignedFrom, alignedTo));
+        planSegments(alignedTo, to, maxLevel - 1, segments);
+    }
+
+    private List<PartialBucket> aggregate(List<SensorDataJdbcRepository.Row> rows, Level level) {
+        Map<BucketKey, PartialBucket> buckets = new HashMap<>();
+        for (SensorDataJdbcRepository.Row row : rows) {
+            if (row.sensorId() == null) {
+                continue;
+            }
+            LocalDateTime bucketStart = level.floor(row.timestamp());
+            buckets.computeIfAbsent(new BucketKey(row.sensorId(), bucketStart),
+                    key -> new PartialBucket(key.sensorId(), key.bucketStart())).add(row);
+        }
+
+        // Одинаковый порядок блокировок строк при параллельных upsert
+        List<PartialBucket> sorted = new ArrayList<>(buckets.values());
+        sorted.sort(Comparator.comparing((PartialBucket b) -> b.sensorId).thenComparing(b -> b.bucketStart));
+        return sorted;
+    }
+
+    private SensorDataRollupBucket mapBucket(ResultSet rs) throws SQLException {
+        return new SensorDataRollupBucket(
+                rs.getTimestamp("bucket").toLocalDateTime(),
+                rs.getLong("row_count"),
+                rs.getLong("value_count"),
+                rs.getDouble("value_sum"),
+                getNullableDouble(rs, "value_min"),
+                getNullableDouble(rs, "value_max"),
+                getNullableDouble(rs, "first_value"),
+                parseStatus(rs.getString("first_status")),
+                getNullableDouble(rs, "last_value"),
+                parseStatus(rs.getString("last_status")),
+                rs.getLong("warning_count"),
+                rs.getLong("critical_count")
+        );
+    }
+
+    private static Double getNullableDouble(ResultSet rs, String column) throws SQLException {
+        double value = rs.getDouble(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    private static void setNullableDouble(PreparedStatement ps, int index, Double value) throws SQLException {
+        if (value != null) {
+            ps.setDouble(index, value);
+        } else {
+            ps.setNull(index, Types.DOUBLE);
+        }
+    }
+
+    private static SensorStatus parseStatus(String status) {
+        return status != null ? SensorStatus.valueOf(status) : null;
+    }
+
+    public enum Level {
+        MINUTE("sensor_data_rollup_minute", ChronoUnit.MINUTES),
+        HOUR("sensor_data_rollup_hour", ChronoUnit.HOURS),
+        DAY("sensor_data_rollup_day", ChronoUnit.DAYS);
+
+        private final String table;
+
+        private final ChronoUnit unit;
+
+        Level(String table, ChronoUnit unit) {
+            this.table = table;
+            this.unit = unit;
+        }
+
+        public static Optional<Level> of(DataGranularity granularity) {
+            if (granularity == null) {
+                return Optional.empty();
+            }
+            return switch (granularity) {
+                case MINUTE -> Optional.of(MINUTE);
+                case HOUR -> Optional.of(HOUR);
+                case DAY -> Optional.of(DAY);
+                default -> Optional.empty();
+            };
+        }
+
+        LocalDateTime floor(LocalDateTime time) {
+            return time.truncatedTo(unit);
+        }
+
+        LocalDateTime ceil(LocalDateTime time) {
+            LocalDateTime floor = floor(time);
+            return floor.equals(time) ? floor : floor.plus(1, unit);
+        }
+    }
+
+    private record Segment(Level level, LocalDateTime from, LocalDateTime to) {
+    }
+
+    private record BucketKey(UUID sensorId, LocalDateTime bucketStart) {
+    }
+
+    private static final class PartialBucket {
+        private final UUID sensorId;
+        private final LocalDateTime bucketStart;
+        private long rowCount;
+        private long valueCount;
+        private double valueSum;
+        private Double valueMin;
+        private Double valueMax;
+        private LocalDateTime firstTs;
+        private Double firstValue;
+        private SensorStatus firstStatus;
+        private LocalDateTime lastTs;
+        private Double lastValue;
+        private SensorStatus lastStatus;
+        private long warningCount;
+        private long criticalCount;
+
+        private PartialBucket(UUID sensorId, LocalDateTime bucketStart) {
+            this.sensorId = sensorId;
+            this.bucketStart = bucketStart;
+        }
+
+        private void add(SensorDataJdbcRepository.Row row) {
+            rowCount++;
+            Double value = row.numericValue();
+            if (value != null) {
+                valueCount++;
+                valueSum += value;
+                valueMin = valueMin == null ? value : Math.min(valueMin, value);
+                valueMax = valueMax == null ? value : Math.max(valueMax, value);
+            }
+            if (firstTs == null || row.timestamp().isBefore(firstTs)) {
+                firstTs = row.timestamp();
+                firstValue = value;
+                firstStatus = row.status();
+            }
+            if (lastTs == null || !row.timestamp().isBefore(lastTs)) {
+                lastTs = row.timestamp();
+                lastValue = value;
+                lastStatus = row.status();
+            }
+            if (row.status() == SensorStatus.WARNING) {
+                warningCount++;
+            } else if (row.status() == SensorStatus.CRITICAL) {
+                criticalCount++;
+            }
+        }
+    }
+
+}
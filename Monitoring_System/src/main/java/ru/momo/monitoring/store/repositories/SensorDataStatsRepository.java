@@ -0,0 +1,109 @@
+package ru.momo.monitoring.store.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.momo.monitoring.store.entities.enums.SensorStatus;
+import ru.momo.monitoring.store.projection.SensorPeriodStats;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Статистика показаний сенсоров за период [from, to).
+ * Для каждого сенсора min/max/avg/количество и число WARNING/CRITICAL считаются за один проход по его строкам,
+ * последнее показание берётся отдельной выборкой по индексу (sensor_id, timestamp).
+ * Сенсоры передаются массивом, поэтому статистика по любому их числу получается за одно обращение к БД.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SensorDataStatsRepository {
+
+    private static final String STATS_SQL =
+            "SELECT s.sensor_id, " +
+                    "       agg.row_count, agg.value_count, agg.value_min, agg.value_max, agg.value_avg, " +
+                    "       agg.warning_count, agg.critical_count, " +
+                    "       last_row.numeric_value AS last_value, last_row.status::text AS last_status " +
+                    "FROM unnest(?::uuid[]) AS s(sensor_id) " +
+                    "CROSS JOIN LATERAL ( " +
+                    "    SELECT COUNT(*) AS row_count, " +
+                    "           COUNT(sd.numeric_value) AS value_count, " +
+                    "           MIN(sd.numeric_value) AS value_min, " +
+                    "           MAX(sd.numeric_value) AS value_max, " +
+                    "           AVG(sd.numeric_value) AS value_avg, " +
+                    "           COUNT(*) FILTER (WHERE sd.status = 'WARNING') AS warning_count, " +
+                    "           COUNT(*) FILTER (WHERE sd.status = 'CRITICAL') AS critical_count " +
+                    "    FROM sensor_data sd " +
+                    "    WHERE sd.sensor_id = s.sensor_id AND sd.timestamp >= ? AND sd.timestamp < ? " +
+                    ") agg " +
+                    "LEFT JOIN LATERAL ( " +
+                    "    SELECT sd.numeric_value, sd.status " +
+                    "    FROM sensor_data sd " +
+                    "    WHERE sd.sensor_id = s.sensor_id AND sd.timestamp >= ? AND sd.timestamp < ? " +
+                    "    ORDER BY sd.timestamp DESC " +
+                    "    LIMIT 1 " +
+                    ") last_row ON TRUE";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SensorPeriodStats findStats(UUID sensorId, LocalDateTime from, LocalDateTime to) {
+        return findStatsBySensorIds(List.of(sensorId), from, to).get(sensorId);
+    }
+
+    /**
+     * Статистика по каждому из сенсоров. В результате есть все переданные ID,
+     * для сенсоров без показаний за период — пустая статистика.
+     */
+    public Map<UUID, SensorPeriodStats> findStatsBySensorIds(Collection<UUID> sensorIds,
+                                                             LocalDateTime from,
+                                                             LocalDateTime to) {
+        Map<UUID, SensorPeriodStats> result = new HashMap<>();
+        if (sensorIds.isEmpty()) {
+            return result;
+        }
+
+        Object[] ids = new LinkedHashSet<>(sensorIds).toArray();
+        jdbcTemplate.query(STATS_SQL,
+                ps -> {
+                    ps.setArray(1, ps.getConnection().createArrayOf("uuid", ids));
+                    ps.setObject(2, from);
+                    ps.setObject(3, to);
+                    ps.setObject(4, from);
+                    ps.setObject(5, to);
+                },
+                rs -> {
+                    SensorPeriodStats stats = mapStats(rs);
+                    result.put(stats.sensorId(), stats);
+                });
+        return result;
+    }
+
+    private SensorPeriodStats mapStats(ResultSet rs) throws SQLException {
+        String lastStatus = rs.getString("last_status");
+        return new SensorPeriodStats(
+                rs.getObject("sensor_id", UUID.class),
+                rs.getLong("row_count"),
+                rs.getLong("value_count"),
+                getNullableDouble(rs, "value_min"),
+                getNullableDouble(rs, "value_max"),
+                getNullableDouble(rs, "value_avg"),
+                getNullableDouble(rs, "last_value"),
+                lastStatus != null ? SensorStatus.valueOf(lastStatus) : null,
+                rs.getLong("warning_count"),
+                rs.getLong("critical_count")
+        );
+    }
+
+    private static Double getNullableDouble(ResultSet rs, String column) throws SQLException {
+        double value = rs.getDouble(column);
+        return rs.wasNull() ? null : value;
+    }
+
+}
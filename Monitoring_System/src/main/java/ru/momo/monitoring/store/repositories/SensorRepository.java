@@ -4,9 +4,12 @@ import jakarta.persistence.EntityNotFoundException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.momo.monitoring.exceptions.EntityDuplicationException;
 import ru.momo.monitoring.store.entities.Sensor;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -24,6 +27,9 @@ public interface SensorRepository extends JpaRepository<Sensor, UUID> {
 
     Page<Sensor> findByTechnicIsNull(Pageable pageable);
 
+    @Query("SELECT s FROM Sensor s JOIN FETCH s.type LEFT JOIN FETCH s.technic WHERE s.id IN :ids")
+    List<Sensor> findAllWithTypeAndTechnicByIdIn(@Param("ids") Collection<UUID> ids);
+
     default void throwIfExistsWithSameSerialNumber(String serialNumber) {
         if (existsBySerialNumber(serialNumber)) {
             throw new EntityDuplicationException("Sensor with serial number " + serialNumber + " already exists");
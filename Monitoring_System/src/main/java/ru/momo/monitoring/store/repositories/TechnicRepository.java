@@ -2,6 +2,8 @@ package ru.momo.monitoring.store.repositories;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.momo.monitoring.exceptions.EntityDuplicationException;
 import ru.momo.monitoring.store.entities.Technic;
 
@@ -19,6 +21,10 @@ public interface TechnicRepository extends JpaRepository<Technic, UUID>, JpaSpec
 
     List<Technic> findByCompanyId(UUID companyId);
 
+    boolean existsByIdAndCompanyId(UUID id, UUID companyId);
+
+    boolean existsByIdAndOwnerId_Id(UUID id, UUID ownerId);
+
     default Technic findByIdOrThrow(UUID id) {
         return findById(id)
                 .orElseThrow(
@@ -46,4 +52,11 @@ public interface TechnicRepository extends JpaRepository<Technic, UUID>, JpaSpec
 
     List<Technic> findByCompanyIdAndIsActiveTrue(UUID companyId);
 
+    @Query("SELECT DISTINCT t FROM technics t " +
+            "LEFT JOIN FETCH t.sensors s " +
+            "LEFT JOIN FETCH s.type " +
+            "WHERE t.ownerId.id = :ownerId " +
+            "ORDER BY t.brand, t.model, t.serialNumber")
+    List<Technic> findAllByOwnerIdWithSensorsAndTypes(@Param("ownerId") UUID ownerId);
+
 }
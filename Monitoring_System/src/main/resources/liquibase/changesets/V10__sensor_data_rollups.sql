@@ -0,0 +1,95 @@
+-- Предагрегированные показания сенсоров по минутам, часам и дням.
+-- Поддерживаются инкрементально при приёме данных (SensorDataRollupRepository.upsert).
+
+CREATE TABLE IF NOT EXISTS sensor_data_rollup_minute
+(
+    sensor_id      UUID             NOT NULL REFERENCES sensors (id) ON DELETE CASCADE,
+    bucket_start   TIMESTAMP        NOT NULL,
+    row_count      BIGINT           NOT NULL,
+    value_count    BIGINT           NOT NULL,
+    value_sum      DOUBLE PRECISION NOT NULL DEFAULT 0,
+    value_min      DOUBLE PRECISION,
+    value_max      DOUBLE PRECISION,
+    first_ts       TIMESTAMP        NOT NULL,
+    first_value    DOUBLE PRECISION,
+    first_status   sensor_status,
+    last_ts        TIMESTAMP        NOT NULL,
+    last_value     DOUBLE PRECISION,
+    last_status    sensor_status,
+    warning_count  BIGINT           NOT NULL DEFAULT 0,
+    critical_count BIGINT           NOT NULL DEFAULT 0,
+    PRIMARY KEY (sensor_id, bucket_start)
+);
+
+CREATE TABLE IF NOT EXISTS sensor_data_rollup_hour
+(
+    LIKE sensor_data_rollup_minute INCLUDING DEFAULTS INCLUDING CONSTRAINTS,
+    PRIMARY KEY (sensor_id, bucket_start),
+    FOREIGN KEY (sensor_id) REFERENCES sensors (id) ON DELETE CASCADE
+);
+
+CREATE TABLE IF NOT EXISTS sensor_data_rollup_day
+(
+    LIKE sensor_data_rollup_minute INCLUDING DEFAULTS INCLUDING CONSTRAINTS,
+    PRIMARY KEY (sensor_id, bucket_start),
+    FOREIGN KEY (sensor_id) REFERENCES sensors (id) ON DELETE CASCADE
+);
+
+-- Заполнение по уже накопленным данным
+INSERT INTO sensor_data_rollup_minute
+SELECT sd.sensor_id,
+       date_trunc('minute', sd.timestamp),
+       COUNT(*),
+       COUNT(sd.numeric_value),
+       COALESCE(SUM(sd.numeric_value), 0),
+       MIN(sd.numeric_value),
+       MAX(sd.numeric_value),
+       MIN(sd.timestamp),
+       (array_agg(sd.numeric_value ORDER BY sd.timestamp))[1],
+       (array_agg(sd.status ORDER BY sd.timestamp))[1],
+       MAX(sd.timestamp),
+       (array_agg(sd.numeric_value ORDER BY sd.timestamp DESC))[1],
+       (array_agg(sd.status ORDER BY sd.timestamp DESC))[1],
+       COUNT(*) FILTER (WHERE sd.status = 'WARNING'),
+       COUNT(*) FILTER (WHERE sd.status = 'CRITICAL')
+FROM sensor_data sd
+WHERE sd.sensor_id IS NOT NULL
+GROUP BY sd.sensor_id, date_trunc('minute', sd.timestamp);
+
+INSERT INTO sensor_data_rollup_hour
+SELECT r.sensor_id,
+       date_trunc('hour', r.bucket_start),
+       SUM(r.row_count),
+       SUM(r.value_count),
+       SUM(r.value_sum),
+       MIN(r.value_min),
+       MAX(r.value_max),
+       MIN(r.first_ts),
+       (array_agg(r.first_value ORDER BY r.first_ts))[1],
+       (array_agg(r.first_status ORDER BY r.first_ts))[1],
+       MAX(r.last_ts),
+       (array_agg(r.last_value ORDER BY r.last_ts DESC))[1],
+       (array_agg(r.last_status ORDER BY r.last_ts DESC))[1],
+       SUM(r.warning_count),
+       SUM(r.critical_count)
+FROM sensor_data_rollup_minute r
+GROUP BY r.sensor_id, date_trunc('hour', r.bucket_start);
+
+INSERT INTO sensor_data_rollup_day
+SELECT r.sensor_id,
+       date_trunc('day', r.bucket_start),
+       SUM(r.row_count),
+       SUM(r.value_count),
+       SUM(r.value_sum),
+       MIN(r.value_min),
+       MAX(r.value_max),
+       MIN(r.first_ts),
+       (array_agg(r.first_value ORDER BY r.first_ts))[1],
+       (array_agg(r.first_status ORDER BY r.first_ts))[1],
+       MAX(r.last_ts),
+       (array_agg(r.last_value ORDER BY r.last_ts DESC))[1],
+       (array_agg(r.last_status ORDER BY r.last_ts DESC))[1],
+       SUM(r.warning_count),
+       SUM(r.critical_count)
+FROM sensor_data_rollup_hour r
+GROUP BY r.sensor_id, date_trunc('day', r.bucket_start);
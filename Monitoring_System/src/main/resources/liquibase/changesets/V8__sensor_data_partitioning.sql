@@ -0,0 +1,87 @@
+-- Помесячное секционирование sensor_data по timestamp и индексы под запросы SensorDataRepository
+
+-- Создание секции sensor_data за месяц, в который попадает p_month.
+-- Строки этого месяца, успевшие попасть в секцию по умолчанию, переносятся в новую секцию.
+CREATE OR REPLACE FUNCTION create_sensor_data_partition(p_month DATE) RETURNS VOID AS
+$$
+DECLARE
+    v_from TIMESTAMP := date_trunc('month', p_month);
+    v_to   TIMESTAMP := date_trunc('month', p_month) + INTERVAL '1 month';
+    v_name TEXT      := 'sensor_data_' || to_char(p_month, 'YYYY_MM');
+BEGIN
+    IF to_regclass(v_name) IS NOT NULL THEN
+        RETURN;
+    END IF;
+
+    EXECUTE format('CREATE TABLE %I (LIKE sensor_data INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', v_name);
+
+    IF to_regclass('sensor_data_default') IS NOT NULL THEN
+        EXECUTE format(
+                'WITH moved AS (DELETE FROM sensor_data_default WHERE timestamp >= %L AND timestamp < %L RETURNING *) '
+                    || 'INSERT INTO %I SELECT * FROM moved',
+                v_from, v_to, v_name);
+    END IF;
+
+    EXECUTE format('ALTER TABLE sensor_data ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)', v_name, v_from, v_to);
+END;
+$$ LANGUAGE plpgsql;
+
+-- Создание секций с текущего месяца на p_months_ahead месяцев вперёд
+CREATE OR REPLACE FUNCTION ensure_sensor_data_partitions(p_months_ahead INT) RETURNS VOID AS
+$$
+DECLARE
+    v_month DATE;
+BEGIN
+    FOR i IN 0..p_months_ahead
+        LOOP
+            v_month := (date_trunc('month', now()) + make_interval(months => i))::DATE;
+            PERFORM create_sensor_data_partition(v_month);
+        END LOOP;
+END;
+$$ LANGUAGE plpgsql;
+
+ALTER TABLE sensor_data
+    RENAME TO sensor_data_legacy;
+
+-- Первичный ключ секционированной таблицы обязан включать ключ секционирования
+CREATE TABLE sensor_data
+(
+    id         UUID         NOT NULL DEFAULT gen_random_uuid(),
+    sensor_id  UUID REFERENCES sensors (id) ON DELETE SET NULL,
+    technic_id UUID REFERENCES technics (id) ON DELETE SET NULL,
+    value      VARCHAR(255) NOT NULL,
+    timestamp  TIMESTAMP    NOT NULL,
+    status     sensor_status,
+    PRIMARY KEY (id, timestamp)
+) PARTITION BY RANGE (timestamp);
+
+CREATE TABLE sensor_data_default PARTITION OF sensor_data DEFAULT;
+
+-- Индексы создаются на родительской таблице и наследуются всеми секциями:
+-- история и агрегаты по сенсору, счётчики статусов по технике и по системе в целом
+CREATE INDEX idx_sensor_data_sensor_timestamp ON sensor_data (sensor_id, timestamp);
+CREATE INDEX idx_sensor_data_technic_status_timestamp ON sensor_data (technic_id, status, timestamp);
+CREATE INDEX idx_sensor_data_status_timestamp ON sensor_data (status, timestamp);
+CREATE INDEX idx_sensor_data_timestamp_brin ON sensor_data USING brin (timestamp);
+
+-- Секции под уже накопленные данные и на ближайшие месяцы
+DO
+$$
+    DECLARE
+        v_month DATE;
+    BEGIN
+        FOR v_month IN SELECT DISTINCT date_trunc('month', timestamp)::DATE FROM sensor_data_legacy
+            LOOP
+                PERFORM create_sensor_data_partition(v_month);
+            END LOOP;
+        PERFORM ensure_sensor_data_partitions(3);
+    END
+$$;
+
+INSERT INTO sensor_data (id, sensor_id, technic_id, value, timestamp, status)
+SELECT id, sensor_id, technic_id, value, timestamp, status
+FROM sensor_data_legacy;
+
+DROP TABLE sensor_data_legacy;
+
+ANALYZE sensor_data;
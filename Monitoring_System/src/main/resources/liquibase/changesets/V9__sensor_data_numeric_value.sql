@@ -0,0 +1,47 @@
+-- Числовое значение показания хранится в numeric_value, исходная строка — только для нечисловых показаний
+
+ALTER TABLE sensor_data
+    ADD COLUMN numeric_value DOUBLE PRECISION;
+
+ALTER TABLE sensor_data
+    ALTER COLUMN value DROP NOT NULL;
+
+-- Перенос существующих данных. Числом считается только строка, которую целиком разбирает и приём показаний
+-- (Double.parseDouble после замены ',' на '.'): знак, цифры, дробная часть, экспонента, пробелы по краям.
+-- Остальные строки ("ERR 404", "v2-1") и значения вне диапазона DOUBLE PRECISION остаются в value как есть.
+CREATE OR REPLACE FUNCTION parse_sensor_value(p_value TEXT) RETURNS DOUBLE PRECISION AS
+$$
+DECLARE
+    v_normalized TEXT := btrim(REPLACE(p_value, ',', '.'), E' \t\r\n');
+    v_number     NUMERIC;
+BEGIN
+    IF v_normalized !~ '^[-+]?([0-9]+(\.[0-9]*)?|\.[0-9]+)([eE][-+]?[0-9]{1,3})?$' THEN
+        RETURN NULL;
+    END IF;
+    v_number := CAST(v_normalized AS NUMERIC);
+    -- Проверка через NUMERIC вместо обработки исключения: блок EXCEPTION открывал бы подтранзакцию на каждую строку
+    IF abs(v_number) > 1.7976931348623157e308 OR (v_number <> 0 AND abs(v_number) < 4.9e-324) THEN
+        RETURN NULL;
+    END IF;
+    RETURN CAST(v_number AS DOUBLE PRECISION);
+END;
+$$ LANGUAGE plpgsql IMMUTABLE;
+
+UPDATE sensor_data sd
+SET numeric_value = parsed.numeric_value,
+    value         = NULL
+FROM (SELECT id,
+             timestamp,
+             parse_sensor_value(value) AS numeric_value
+      FROM sensor_data
+      WHERE value IS NOT NULL) parsed
+WHERE sd.id = parsed.id
+  AND sd.timestamp = parsed.timestamp
+  AND parsed.numeric_value IS NOT NULL;
+
+DROP FUNCTION parse_sensor_value(TEXT);
+
+ALTER TABLE sensor_data
+    ADD CONSTRAINT sensor_data_value_present CHECK (numeric_value IS NOT NULL OR value IS NOT NULL);
+
+ANALYZE sensor_data;
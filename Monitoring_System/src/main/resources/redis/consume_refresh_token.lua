@@ -0,0 +1,8 @@
+-- KEYS[1] = refresh_token:<jti>, KEYS[2] = user_refresh_tokens:<userId> (optional)
+-- ARGV[1] = jti
+-- Returns 1 if the token existed, so only one of concurrent refreshes with the same token succeeds.
+local removed = redis.call('DEL', KEYS[1])
+if KEYS[2] then
+    redis.call('SREM', KEYS[2], ARGV[1])
+end
+return removed
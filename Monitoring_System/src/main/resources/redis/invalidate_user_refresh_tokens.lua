@@ -0,0 +1,18 @@
+-- KEYS[1] = user_refresh_tokens:<userId>
+-- ARGV[1] = refresh token key prefix
+-- Standalone/Sentinel Redis only: refresh_token:<jti> keys are built from the set members instead of being
+-- declared in KEYS, so on Redis Cluster they may live in other hash slots and the DEL would fail.
+local ids = redis.call('SMEMBERS', KEYS[1])
+local batch = {}
+for i = 1, #ids do
+    batch[#batch + 1] = ARGV[1] .. ids[i]
+    if #batch == 500 then
+        redis.call('DEL', unpack(batch))
+        batch = {}
+    end
+end
+if #batch > 0 then
+    redis.call('DEL', unpack(batch))
+end
+redis.call('DEL', KEYS[1])
+return #ids
@@ -0,0 +1,6 @@
+-- KEYS[1] = refresh_token:<jti>, KEYS[2] = user_refresh_tokens:<userId>
+-- ARGV[1] = refresh token, ARGV[2] = token TTL (ms), ARGV[3] = user set TTL (ms), ARGV[4] = jti
+redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2])
+redis.call('SADD', KEYS[2], ARGV[4])
+redis.call('PEXPIRE', KEYS[2], ARGV[3])
+return 1
@@ -0,0 +1,50 @@
+package ru.momo.monitoring;
+
+import liquibase.changelog.ChangeLogParameters;
+import liquibase.changelog.ChangeSet;
+import liquibase.changelog.DatabaseChangeLog;
+import liquibase.parser.ChangeLogParserFactory;
+import liquibase.resource.ClassLoaderResourceAccessor;
+import liquibase.resource.ResourceAccessor;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LiquibaseChangelogTest {
+
+    private static final String CHANGELOG = "liquibase/db.changelog.yaml";
+
+    @Test
+    void changelog_ShouldApplyChangesetsInVersionOrderUnderIncludeAllPaths() throws Exception {
+        // Arrange
+        ResourceAccessor resourceAccessor = new ClassLoaderResourceAccessor();
+
+        // Act
+        DatabaseChangeLog changeLog = ChangeLogParserFactory.getInstance()
+                .getParser(CHANGELOG, resourceAccessor)
+                .parse(CHANGELOG, new ChangeLogParameters(), resourceAccessor);
+
+        // Assert
+        Set<String> files = new LinkedHashSet<>();
+        for (ChangeSet changeSet : changeLog.getChangeSets()) {
+            files.add(changeSet.getFilePath());
+        }
+        assertEquals(List.of(
+                "liquibase/changesets/V1__init_tables.sql",
+                "liquibase/changesets/V2__sensor_types.sql",
+                "liquibase/changesets/V3__technics.sql",
+                "liquibase/changesets/V4__sensors.sql",
+                "liquibase/changesets/V5__initial_data.sql",
+                "liquibase/changesets/V6__sensor_types_data.sql",
+                "liquibase/changesets/V7__adding_new_data.sql",
+                "liquibase/changesets/V8__sensor_data_partitioning.sql",
+                "liquibase/changesets/V9__sensor_data_numeric_value.sql",
+                "liquibase/changesets/V10__sensor_data_rollups.sql"
+        ), List.copyOf(files));
+    }
+
+}
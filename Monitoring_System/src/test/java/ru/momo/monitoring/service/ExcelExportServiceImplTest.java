@@ -0,0 +1,62 @@
+package ru.momo.monitoring.service;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import ru.momo.monitoring.services.SensorDataHistorySource;
+import ru.momo.monitoring.services.impl.ExcelExportServiceImpl;
+import ru.momo.monitoring.store.dto.request.SensorDataHistoryDto;
+import ru.momo.monitoring.store.entities.enums.SensorStatus;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ExcelExportServiceImplTest {
+
+    private final ExcelExportServiceImpl excelExportService = new ExcelExportServiceImpl();
+
+    @Test
+    void writeSensorHistoryExcel_WhenMoreRowsThanWindow_ShouldWriteAllRowsInOrder() throws Exception {
+        // Arrange
+        LocalDateTime start = LocalDateTime.of(2024, 5, 1, 0, 0);
+        int records = 1_000;
+        SensorDataHistorySource source = consumer -> {
+            for (int i = 0; i < records; i++) {
+                consumer.accept(SensorDataHistoryDto.builder()
+                        .timestamp(start.plusSeconds(i))
+                        .value(i == 500 ? null : (double) i)
+                        .status(SensorStatus.NORMAL)
+                        .build());
+            }
+        };
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // Act
+        excelExportService.writeSensorHistoryExcel(UUID.randomUUID(), "Температура (S/N: T-1)",
+                "01.05.2024 00:00:00", "02.05.2024 00:00:00", "02.05.2024 10:00:00", source, output);
+
+        // Assert
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(output.toByteArray()))) {
+            Sheet sheet = workbook.getSheetAt(0);
+            Row header = sheet.getRow(6);
+            assertEquals("Время показания", header.getCell(0).getStringCellValue());
+
+            Row first = sheet.getRow(7);
+            assertEquals(start, first.getCell(0).getLocalDateTimeCellValue());
+            assertEquals(0.0, first.getCell(1).getNumericCellValue());
+
+            assertEquals("Н/Д", sheet.getRow(7 + 500).getCell(1).getStringCellValue());
+
+            Row last = sheet.getRow(7 + records - 1);
+            assertEquals(999.0, last.getCell(1).getNumericCellValue());
+            assertEquals("NORMAL", last.getCell(2).getStringCellValue());
+            assertEquals(7 + records - 1, sheet.getLastRowNum());
+        }
+    }
+
+}
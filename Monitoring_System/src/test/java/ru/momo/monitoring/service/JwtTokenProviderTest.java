@@ -0,0 +1,138 @@
+package ru.momo.monitoring.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.Authentication;
+import ru.momo.monitoring.exceptions.AccessDeniedException;
+import ru.momo.monitoring.security.AuthenticatedUser;
+import ru.momo.monitoring.security.JwtProperties;
+import ru.momo.monitoring.security.JwtTokenProvider;
+import ru.momo.monitoring.security.TokenRevocationList;
+import ru.momo.monitoring.security.UserPrincipalCache;
+import ru.momo.monitoring.services.RedisService;
+import ru.momo.monitoring.services.UserService;
+import ru.momo.monitoring.store.entities.Company;
+import ru.momo.monitoring.store.entities.User;
+import ru.momo.monitoring.store.entities.enums.RoleName;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class JwtTokenProviderTest {
+
+    @Mock
+    private UserPrincipalCache userPrincipalCache;
+
+    @Mock
+    private TokenRevocationList tokenRevocationList;
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private RedisService redisService;
+
+    private JwtTokenProvider jwtTokenProvider;
+
+    private final UUID COMPANY_ID = UUID.randomUUID();
+    private final User MANAGER = User.builder()
+            .id(UUID.randomUUID())
+            .email("manager@momo.ru")
+            .role(RoleName.ROLE_MANAGER)
+            .company(Company.builder().id(COMPANY_ID).build())
+            .isActive(true)
+            .isConfirmed(true)
+            .build();
+
+    @BeforeEach
+    void setUp() {
+        JwtProperties jwtProperties = new JwtProperties();
+        jwtProperties.setSecret("test-secret-test-secret-test-secret-0123456789");
+        jwtProperties.setAccess(1);
+        jwtProperties.setRefresh(30);
+        jwtTokenProvider = new JwtTokenProvider(jwtProperties, userPrincipalCache, tokenRevocationList, userService, redisService);
+        jwtTokenProvider.init();
+    }
+
+    @Test
+    void getAuthentication_WhenTokenNotRevoked_ShouldBuildPrincipalFromClaims() {
+        // Arrange
+        String token = jwtTokenProvider.createAccessToken(MANAGER);
+        when(tokenRevocationList.isRevoked(eq(MANAGER.getEmail()), any())).thenReturn(false);
+
+        // Act
+        Authentication authentication = jwtTokenProvider.getAuthentication(token);
+
+        // Assert
+        AuthenticatedUser principal = (AuthenticatedUser) authentication.getPrincipal();
+        assertEquals(MANAGER.getId(), principal.id());
+        assertEquals(COMPANY_ID, principal.companyId());
+        assertEquals(RoleName.ROLE_MANAGER, principal.role());
+        assertTrue(principal.confirmed());
+        assertEquals("ROLE_MANAGER", authentication.getAuthorities().iterator().next().getAuthority());
+        verify(userPrincipalCache, never()).get(anyString());
+    }
+
+    @Test
+    void validateToken_WhenTokenVerifiedBefore_ShouldStillRejectTamperedAndExpiredTokens() {
+        // Arrange
+        String token = jwtTokenProvider.createAccessToken(MANAGER);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+        JwtProperties expiredProperties = new JwtProperties();
+        expiredProperties.setSecret("test-secret-test-secret-test-secret-0123456789");
+        expiredProperties.setAccess(0);
+        JwtTokenProvider expiredProvider = new JwtTokenProvider(
+                expiredProperties, userPrincipalCache, tokenRevocationList, userService, redisService);
+        expiredProvider.init();
+
+        // Act & Assert
+        assertTrue(jwtTokenProvider.validateToken(token));
+        assertTrue(jwtTokenProvider.validateToken(token));
+        assertEquals(MANAGER.getId(), jwtTokenProvider.getUserIdFromToken(token));
+        assertFalse(jwtTokenProvider.validateToken(tampered));
+        assertFalse(expiredProvider.validateToken(expiredProvider.createAccessToken(MANAGER)));
+    }
+
+    @Test
+    void getAuthentication_WhenTokenRevoked_ShouldLoadPrincipalFromCache() {
+        // Arrange
+        String token = jwtTokenProvider.createAccessToken(MANAGER);
+        AuthenticatedUser fresh = new AuthenticatedUser(
+                MANAGER.getId(), MANAGER.getEmail(), RoleName.ROLE_DRIVER, COMPANY_ID, true, true);
+        when(tokenRevocationList.isRevoked(eq(MANAGER.getEmail()), any())).thenReturn(true);
+        when(userPrincipalCache.get(MANAGER.getEmail())).thenReturn(fresh);
+
+        // Act
+        Authentication authentication = jwtTokenProvider.getAuthentication(token);
+
+        // Assert
+        assertSame(fresh, authentication.getPrincipal());
+    }
+
+    @Test
+    void refreshUserTokens_WhenTokenAlreadyConsumed_ShouldThrowAccessDeniedException() {
+        // Arrange
+        String refreshToken = jwtTokenProvider.createRefreshToken(MANAGER.getId(), MANAGER.getEmail());
+        when(redisService.consumeRefreshToken(eq(MANAGER.getId()), anyString())).thenReturn(false);
+
+        // Act & Assert
+        assertThrows(AccessDeniedException.class, () -> jwtTokenProvider.refreshUserTokens(refreshToken));
+        verify(userService, never()).getByIdEntity(any());
+    }
+
+}
@@ -0,0 +1,135 @@
+package ru.momo.monitoring.service;
+
+import org.junit.jupiter.api.Test;
+import ru.momo.monitoring.services.impl.LttbDownsampler;
+import ru.momo.monitoring.store.dto.request.SensorDataHistoryDto;
+import ru.momo.monitoring.store.entities.enums.SensorStatus;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LttbDownsamplerTest {
+
+    private final LocalDateTime START = LocalDateTime.of(2024, 5, 1, 0, 0);
+
+    private SensorDataHistoryDto point(int second, Double value, SensorStatus status) {
+        return SensorDataHistoryDto.builder()
+                .timestamp(START.plusSeconds(second))
+                .value(value)
+                .status(status)
+                .build();
+    }
+
+    private List<SensorDataHistoryDto> downsample(List<SensorDataHistoryDto> points, long total, int threshold) {
+        List<SensorDataHistoryDto> result = new ArrayList<>();
+        LttbDownsampler downsampler = new LttbDownsampler(total, threshold, result::add);
+        points.forEach(downsampler);
+        downsampler.finish();
+        return result;
+    }
+
+    @Test
+    void downsample_WhenFewerPointsThanThreshold_ShouldPassAllPoints() {
+        // Arrange
+        List<SensorDataHistoryDto> points = List.of(
+                point(0, 1.0, SensorStatus.NORMAL),
+                point(1, 2.0, SensorStatus.NORMAL),
+                point(2, 3.0, SensorStatus.NORMAL)
+        );
+
+        // Act
+        List<SensorDataHistoryDto> result = downsample(points, 3, 10);
+
+        // Assert
+        assertEquals(points, result);
+    }
+
+    @Test
+    void downsample_WhenManyPoints_ShouldKeepThresholdPointsWithEndsAndSpike() {
+        // Arrange
+        List<SensorDataHistoryDto> points = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            if (i == 4321) {
+                points.add(point(i, 500.0, SensorStatus.CRITICAL));
+            } else {
+                points.add(point(i, Math.sin(i / 100.0), SensorStatus.NORMAL));
+            }
+        }
+
+        // Act
+        List<SensorDataHistoryDto> result = downsample(points, points.size(), 100);
+
+        // Assert
+        assertEquals(100, result.size());
+        assertEquals(points.get(0), result.get(0));
+        assertEquals(points.get(points.size() - 1), result.get(result.size() - 1));
+        assertTrue(result.stream().anyMatch(p -> p.getStatus() == SensorStatus.CRITICAL && p.getValue() == 500.0));
+        for (int i = 1; i < result.size(); i++) {
+            assertTrue(result.get(i).getTimestamp().isAfter(result.get(i - 1).getTimestamp()));
+        }
+    }
+
+    @Test
+    void downsample_WhenValueIsNull_ShouldSkipPoint() {
+        // Arrange
+        List<SensorDataHistoryDto> points = List.of(
+                point(0, 1.0, SensorStatus.NORMAL),
+                point(1, null, SensorStatus.UNDEFINED),
+                point(2, 3.0, SensorStatus.NORMAL)
+        );
+
+        // Act
+        List<SensorDataHistoryDto> result = downsample(points, 2, 3);
+
+        // Assert
+        assertEquals(List.of(points.get(0), points.get(2)), result);
+    }
+
+    @Test
+    void downsample_WhenActualCountExceedsExpected_ShouldStillEndWithLastPoint() {
+        // Arrange
+        List<SensorDataHistoryDto> points = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            points.add(point(i, (double) (i % 7), SensorStatus.NORMAL));
+        }
+
+        // Act
+        List<SensorDataHistoryDto> result = downsample(points, 300, 20);
+
+        // Assert
+        assertTrue(result.size() <= 20);
+        assertEquals(points.get(0), result.get(0));
+        assertEquals(points.get(499), result.get(result.size() - 1));
+    }
+
+    @Test
+    void downsample_WhenPointsAddedAfterCountBelowThreshold_ShouldNotExceedThreshold() {
+        // Arrange
+        List<SensorDataHistoryDto> points = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            points.add(point(i, i == 25 ? 100.0 : 1.0, SensorStatus.NORMAL));
+        }
+
+        // Act
+        List<SensorDataHistoryDto> result = downsample(points, 8, 10);
+
+        // Assert
+        assertEquals(10, result.size());
+        assertEquals(points.get(0), result.get(0));
+        assertEquals(points.get(49), result.get(result.size() - 1));
+        assertTrue(result.contains(points.get(25)));
+    }
+
+    @Test
+    void constructor_WhenThresholdTooSmall_ShouldThrowIllegalArgumentException() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> new LttbDownsampler(100, 2, p -> {
+        }));
+    }
+
+}
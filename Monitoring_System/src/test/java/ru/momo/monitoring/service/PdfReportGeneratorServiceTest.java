@@ -0,0 +1,168 @@
+package ru.momo.monitoring.service;
+
+import com.itextpdf.io.font.FontProgram;
+import com.itextpdf.io.font.FontProgramFactory;
+import com.itextpdf.io.font.PdfEncodings;
+import com.itextpdf.kernel.font.PdfFontFactory;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import ru.momo.monitoring.services.impl.PdfReportGeneratorService;
+import ru.momo.monitoring.store.dto.report.AdminReportDto;
+import ru.momo.monitoring.store.dto.report.CompanySummaryReportDto;
+import ru.momo.monitoring.store.dto.report.GlobalSystemStatsDto;
+import ru.momo.monitoring.store.dto.report.ReportHeaderForAdminDto;
+import ru.momo.monitoring.store.dto.report.TechnicStatsDto;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PdfReportGeneratorServiceTest {
+
+    private static final String REGULAR_FONT_RESOURCE_PATH = "fonts/DejaVuSans.ttf";
+
+    private final PdfReportGeneratorService pdfReportGeneratorService = new PdfReportGeneratorService();
+
+    private AdminReportDto adminReport(int companies) {
+        return adminReport(companies, 1);
+    }
+
+    private AdminReportDto adminReport(int companies, int technicsPerCompany) {
+        List<CompanySummaryReportDto> summaries = new ArrayList<>();
+        for (int i = 0; i < companies; i++) {
+            List<TechnicStatsDto> technics = new ArrayList<>();
+            for (int j = 0; j < technicsPerCompany; j++) {
+                technics.add(TechnicStatsDto.builder()
+                        .technicBrandModel("КАМАЗ 65115")
+                        .technicSerialNumber("SN-" + i + "-" + j)
+                        .isActive(true)
+                        .build());
+            }
+            summaries.add(CompanySummaryReportDto.builder()
+                    .companyName("ООО Компания " + i)
+                    .companyInn("77000000" + i)
+                    .totalTechnicsInCompany(technicsPerCompany)
+                    .activeTechnicsInCompany(technicsPerCompany)
+                    .technicsStats(technics)
+                    .build());
+        }
+        return AdminReportDto.builder()
+                .header(ReportHeaderForAdminDto.builder()
+                        .reportName("Сводный отчет по системе мониторинга")
+                        .periodFrom(LocalDateTime.of(2024, 5, 1, 0, 0))
+                        .periodTo(LocalDateTime.of(2024, 5, 31, 0, 0))
+                        .reportGeneratedAt(LocalDateTime.of(2024, 6, 1, 9, 0))
+                        .reportGeneratedBy("Администратор")
+                        .build())
+                .globalStats(GlobalSystemStatsDto.builder().totalCompanies(companies).build())
+                .companiesSummary(summaries)
+                .build();
+    }
+
+    @Test
+    void generateAdminSystemReportPdf_WhenCalledRepeatedly_ShouldEmbedCachedFontInEachDocument() {
+        // Act
+        byte[] first = pdfReportGeneratorService.generateAdminSystemReportPdf(adminReport(2));
+        byte[] second = pdfReportGeneratorService.generateAdminSystemReportPdf(adminReport(2));
+
+        // Assert
+        for (byte[] pdf : List.of(first, second)) {
+            String content = new String(pdf, StandardCharsets.ISO_8859_1);
+            assertTrue(content.startsWith("%PDF"));
+            assertTrue(content.contains("DejaVuSans"));
+        }
+    }
+
+    @Test
+    void writeAdminSystemReportPdf_WhenTableSpansManyPages_ShouldWriteCompleteDocumentWithoutClosingStream() throws Exception {
+        // Arrange
+        AtomicBoolean closed = new AtomicBoolean();
+        ByteArrayOutputStream output = new ByteArrayOutputStream() {
+            @Override
+            public void close() {
+                closed.set(true);
+            }
+        };
+
+        // Act
+        pdfReportGeneratorService.writeAdminSystemReportPdf(adminReport(1, 500), output);
+
+        // Assert
+        assertFalse(closed.get());
+        try (PdfDocument pdfDoc = new PdfDocument(new PdfReader(new ByteArrayInputStream(output.toByteArray())))) {
+            assertTrue(pdfDoc.getNumberOfPages() > 5);
+        }
+    }
+
+    /**
+     * Микробенчмарк затрат на шрифты в расчете на один отчет. Запуск:
+     * {@code mvn test -Dtest=PdfReportGeneratorServiceTest -Dpdf.benchmark=true}
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "pdf.benchmark", matches = "true")
+    void benchmarkFontCreationPerReport() throws Exception {
+        FontProgram cachedProgram = FontProgramFactory.createFont(REGULAR_FONT_RESOURCE_PATH, false);
+
+        measure("parse TTF per report", () ->
+                withDocument(pdfDoc -> PdfFontFactory.createFont(
+                        FontProgramFactory.createFont(REGULAR_FONT_RESOURCE_PATH, false),
+                        PdfEncodings.IDENTITY_H, PdfFontFactory.EmbeddingStrategy.PREFER_EMBEDDED)));
+        measure("PdfFontFactory by path", () ->
+                withDocument(pdfDoc -> PdfFontFactory.createFont(
+                        REGULAR_FONT_RESOURCE_PATH, PdfFontFactory.EmbeddingStrategy.PREFER_EMBEDDED)));
+        measure("cached FontProgram", () ->
+                withDocument(pdfDoc -> PdfFontFactory.createFont(
+                        cachedProgram, PdfEncodings.IDENTITY_H, PdfFontFactory.EmbeddingStrategy.PREFER_EMBEDDED)));
+        measure("full admin report (20 companies)", () ->
+                pdfReportGeneratorService.generateAdminSystemReportPdf(adminReport(20)));
+    }
+
+    private void withDocument(FontAction action) throws Exception {
+        try (PdfDocument pdfDoc = new PdfDocument(new PdfWriter(new ByteArrayOutputStream()))) {
+            action.run(pdfDoc);
+            pdfDoc.addNewPage();
+        }
+    }
+
+    private void measure(String name, Action action) throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        int warmup = 20;
+        int iterations = 100;
+
+        for (int i = 0; i < warmup; i++) {
+            action.run();
+        }
+        long cpuBefore = threads.getCurrentThreadCpuTime();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < iterations; i++) {
+            action.run();
+        }
+        long cpuPerOp = (threads.getCurrentThreadCpuTime() - cpuBefore) / iterations;
+        long allocatedPerOp = (threads.getThreadAllocatedBytes(threadId) - allocatedBefore) / iterations;
+
+        System.out.printf("%-34s cpu %8.3f ms/op, allocated %8d KB/op%n", name, cpuPerOp / 1_000_000.0, allocatedPerOp / 1024);
+    }
+
+    @FunctionalInterface
+    private interface Action {
+        void run() throws Exception;
+    }
+
+    @FunctionalInterface
+    private interface FontAction {
+        void run(PdfDocument pdfDoc) throws Exception;
+    }
+
+}
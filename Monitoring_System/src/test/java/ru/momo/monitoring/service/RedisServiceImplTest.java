@@ -1,18 +1,32 @@
 package ru.momo.monitoring.service;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.core.ValueOperations;
 import ru.momo.monitoring.services.impl.RedisServiceImpl;
 
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -63,4 +77,159 @@ class RedisServiceImplTest {
 
         verify(redisTemplate).delete(token);
     }
+
+    @Test
+    void storeRefreshToken_ShouldRunSingleScriptWithTokenAndUserSetKeys() {
+        UUID userId = UUID.randomUUID();
+
+        redisService.storeRefreshToken(userId, "jti-1", "refresh-token", Duration.ofDays(30));
+
+        verify(redisTemplate).execute(
+                RedisServiceImpl.STORE_REFRESH_TOKEN_SCRIPT,
+                List.of("refresh_token:jti-1", "user_refresh_tokens:" + userId),
+                "refresh-token",
+                String.valueOf(Duration.ofDays(30).toMillis()),
+                String.valueOf(Duration.ofDays(30).plusHours(1).toMillis()),
+                "jti-1");
+    }
+
+    @Test
+    void consumeRefreshToken_ShouldReturnWhetherTokenExisted() {
+        UUID userId = UUID.randomUUID();
+        List<String> keys = List.of("refresh_token:jti-1", "user_refresh_tokens:" + userId);
+        when(redisTemplate.execute(RedisServiceImpl.CONSUME_REFRESH_TOKEN_SCRIPT, keys, "jti-1")).thenReturn(1L, 0L);
+
+        assertTrue(redisService.consumeRefreshToken(userId, "jti-1"));
+        assertFalse(redisService.consumeRefreshToken(userId, "jti-1"));
+    }
+
+    /**
+     * Прогон всех трёх Lua-скриптов на реальном Redis (например, из docker-compose). Пропускается,
+     * если Redis на {@code redis.host}:{@code redis.port} (по умолчанию localhost:6379) недоступен.
+     */
+    @Test
+    void refreshTokenScripts_ShouldStoreConsumeAndInvalidateOnRealRedis() {
+        String host = System.getProperty("redis.host", "localhost");
+        int port = Integer.getInteger("redis.port", 6379);
+        assumeTrue(isReachable(host, port), "Redis is not available at " + host + ":" + port);
+
+        LettuceConnectionFactory connectionFactory = new LettuceConnectionFactory(host, port);
+        connectionFactory.afterPropertiesSet();
+        UUID userId = UUID.randomUUID();
+        String firstTokenId = "it-" + UUID.randomUUID();
+        String secondTokenId = "it-" + UUID.randomUUID();
+        String userKey = "user_refresh_tokens:" + userId;
+        try {
+            StringRedisTemplate template = new StringRedisTemplate(connectionFactory);
+            RedisServiceImpl scripted = new RedisServiceImpl(template);
+
+            scripted.storeRefreshToken(userId, firstTokenId, "first-token", Duration.ofMinutes(5));
+            scripted.storeRefreshToken(userId, secondTokenId, "second-token", Duration.ofMinutes(5));
+
+            assertEquals("first-token", template.opsForValue().get("refresh_token:" + firstTokenId));
+            assertEquals(Set.of(firstTokenId, secondTokenId), template.opsForSet().members(userKey));
+            Long tokenTtl = template.getExpire("refresh_token:" + firstTokenId, TimeUnit.SECONDS);
+            Long userSetTtl = template.getExpire(userKey, TimeUnit.SECONDS);
+            assertTrue(tokenTtl != null && tokenTtl > 0 && tokenTtl <= 300);
+            assertTrue(userSetTtl != null && userSetTtl > 300);
+
+            assertTrue(scripted.consumeRefreshToken(userId, firstTokenId));
+            assertFalse(scripted.consumeRefreshToken(userId, firstTokenId));
+            assertFalse(scripted.isRefreshTokenValid(firstTokenId));
+            assertEquals(Set.of(secondTokenId), template.opsForSet().members(userKey));
+
+            scripted.invalidateAllUserRefreshTokens(userId);
+
+            assertFalse(scripted.isRefreshTokenValid(secondTokenId));
+            assertFalse(Boolean.TRUE.equals(template.hasKey(userKey)));
+        } finally {
+            new StringRedisTemplate(connectionFactory).delete(List.of(
+                    "refresh_token:" + firstTokenId, "refresh_token:" + secondTokenId, userKey));
+            connectionFactory.destroy();
+        }
+    }
+
+    private static boolean isReachable(String host, int port) {
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(host, port), 500);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Сравнение последовательных команд и Lua-скриптов на реальном Redis (например, из docker-compose). Запуск:
+     * {@code mvn test -Dtest=RedisServiceImplTest -Dredis.benchmark=true [-Dredis.host=localhost -Dredis.port=6379]}
+     * <p>
+     * Каждый вариант сначала прогревается (JIT, загрузка скриптов в Redis), затем замеряется на своих ключах.
+     * Ключи бенчмарка удаляются по завершении.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "redis.benchmark", matches = "true")
+    void benchmarkRefreshTokenOperations() {
+        LettuceConnectionFactory connectionFactory = new LettuceConnectionFactory(
+                System.getProperty("redis.host", "localhost"), Integer.getInteger("redis.port", 6379));
+        connectionFactory.afterPropertiesSet();
+        try {
+            StringRedisTemplate template = new StringRedisTemplate(connectionFactory);
+            RedisServiceImpl scripted = new RedisServiceImpl(template);
+            Duration validity = Duration.ofDays(30);
+            int iterations = Integer.getInteger("redis.benchmark.iterations", 5_000);
+            int users = 100;
+
+            for (String run : List.of("warmup", "measure")) {
+                boolean report = run.equals("measure");
+                String commands = run + "-commands-";
+                String scripts = run + "-scripts-";
+
+                measure(report, "SET + SADD + EXPIRE", 3, iterations, i -> {
+                    String userKey = "user_refresh_tokens:" + new UUID(0L, i % users);
+                    template.opsForValue().set("refresh_token:" + commands + i, "token", validity);
+                    template.opsForSet().add(userKey, commands + i);
+                    template.expire(userKey, validity.plusHours(1));
+                });
+                measure(report, "store script", 1, iterations, i ->
+                        scripted.storeRefreshToken(new UUID(0L, i % users), scripts + i, "token", validity));
+
+                measure(report, "HASKEY + DEL + SREM", 3, iterations, i -> {
+                    template.hasKey("refresh_token:" + commands + i);
+                    template.delete("refresh_token:" + commands + i);
+                    template.opsForSet().remove("user_refresh_tokens:" + new UUID(0L, i % users), commands + i);
+                });
+                measure(report, "consume script", 1, iterations, i ->
+                        scripted.consumeRefreshToken(new UUID(0L, i % users), scripts + i));
+
+                for (int i = 0; i < iterations; i++) {
+                    scripted.storeRefreshToken(new UUID(0L, i % users), commands + "all-" + i, "token", validity);
+                    scripted.storeRefreshToken(new UUID(1L, i % users), scripts + "all-" + i, "token", validity);
+                }
+                measure(report, "SMEMBERS + DEL", 2, users, i -> {
+                    String userKey = "user_refresh_tokens:" + new UUID(0L, i);
+                    Set<String> tokenIds = template.opsForSet().members(userKey);
+                    List<String> keys = new ArrayList<>();
+                    keys.add(userKey);
+                    if (tokenIds != null) {
+                        tokenIds.forEach(tokenId -> keys.add("refresh_token:" + tokenId));
+                    }
+                    template.delete(keys);
+                });
+                measure(report, "revoke-all script", 1, users, i ->
+                        scripted.invalidateAllUserRefreshTokens(new UUID(1L, i)));
+            }
+        } finally {
+            connectionFactory.destroy();
+        }
+    }
+
+    private void measure(boolean report, String name, int roundTrips, int iterations, IntConsumer operation) {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            operation.accept(i);
+        }
+        long elapsed = System.nanoTime() - start;
+        if (report) {
+            System.out.printf("%-22s %d RTT %8.1f us/op%n", name, roundTrips, elapsed / 1_000.0 / iterations);
+        }
+    }
 }
@@ -0,0 +1,226 @@
+package ru.momo.monitoring.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import ru.momo.monitoring.config.WebSocketFanoutProperties;
+import ru.momo.monitoring.config.WebSocketPushProperties;
+import ru.momo.monitoring.services.impl.RedisWebSocketFanout;
+import ru.momo.monitoring.services.impl.WebSocketDataPushServiceImpl;
+import ru.momo.monitoring.services.impl.WebSocketSubscriptionTracker;
+import ru.momo.monitoring.store.dto.response.SensorDataRealtimeDto;
+import ru.momo.monitoring.store.entities.enums.RealtimeCoalesceMode;
+import ru.momo.monitoring.store.entities.enums.SensorStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Несколько экземпляров моделируются отдельными {@link RedisWebSocketFanout} и {@link WebSocketDataPushServiceImpl}
+ * с общим «каналом»: опубликованные через мок {@link RedisConnection} сообщения доставляются всем экземплярам.
+ */
+@ExtendWith(MockitoExtension.class)
+class RedisWebSocketFanoutTest {
+
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Mock
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Mock
+    private RedisConnection redisConnection;
+
+    @Mock
+    private SimpMessagingTemplate ingestNodeMessagingTemplate;
+
+    @Mock
+    private SimpMessagingTemplate servingNodeMessagingTemplate;
+
+    @Mock
+    private WebSocketSubscriptionTracker ingestNodeTracker;
+
+    @Mock
+    private WebSocketSubscriptionTracker servingNodeTracker;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private final WebSocketFanoutProperties fanoutProperties = new WebSocketFanoutProperties();
+
+    private final WebSocketPushProperties pushProperties = new WebSocketPushProperties();
+
+    private final UUID sensorId = UUID.randomUUID();
+    private final UUID technicId = UUID.randomUUID();
+    private final UUID companyId = UUID.randomUUID();
+    private final String sensorDestination = "/topic/sensor/" + sensorId + "/data";
+    private final String companyDestination = "/topic/company/" + companyId + "/status";
+
+    private final List<byte[]> published = new ArrayList<>();
+
+    private RedisWebSocketFanout fanout() {
+        return new RedisWebSocketFanout(redisTemplate, redisMessageListenerContainer,
+                fanoutProperties, pushProperties, objectMapper);
+    }
+
+    private WebSocketDataPushServiceImpl node(SimpMessagingTemplate messagingTemplate,
+                                              WebSocketSubscriptionTracker tracker,
+                                              RedisWebSocketFanout fanout) {
+        WebSocketDataPushServiceImpl service = new WebSocketDataPushServiceImpl(
+                messagingTemplate, tracker, pushProperties, objectMapper, fanout);
+        service.subscribeToFanout();
+        return service;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void captureRedisPublishes() {
+        when(redisTemplate.execute(any(RedisCallback.class))).thenAnswer(invocation -> {
+            RedisCallback<Long> callback = invocation.getArgument(0);
+            return callback.doInRedis(redisConnection);
+        });
+        when(redisConnection.publish(any(byte[].class), any(byte[].class))).thenAnswer(invocation -> {
+            published.add(invocation.getArgument(1));
+            return 1L;
+        });
+    }
+
+    private void deliverPublished(RedisWebSocketFanout... nodes) {
+        byte[] channel = fanoutProperties.getChannel().getBytes(StandardCharsets.UTF_8);
+        for (byte[] body : published) {
+            for (RedisWebSocketFanout node : nodes) {
+                node.onFanoutMessage(new DefaultMessage(channel, body), null);
+            }
+        }
+        published.clear();
+    }
+
+    private SensorDataRealtimeDto reading(String value, int second, SensorStatus status) {
+        return SensorDataRealtimeDto.builder()
+                .sensorId(sensorId)
+                .technicId(technicId)
+                .companyId(companyId)
+                .value(value)
+                .timestamp(LocalDateTime.of(2024, 5, 14, 10, 30, second))
+                .status(status)
+                .build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private JsonNode lastPayload(SimpMessagingTemplate messagingTemplate, String destination, int times) throws Exception {
+        ArgumentCaptor<Message<?>> messageCaptor = ArgumentCaptor.forClass(Message.class);
+        verify(messagingTemplate, times(times)).send(eq(destination), messageCaptor.capture());
+        return objectMapper.readTree((byte[]) messageCaptor.getValue().getPayload());
+    }
+
+    @Test
+    void flushOutbound_ShouldPublishBufferedReadingsAsOneBatch() throws Exception {
+        // Arrange
+        captureRedisPublishes();
+        RedisWebSocketFanout fanout = fanout();
+        fanout.publish(reading("21.0", 1, SensorStatus.NORMAL));
+        fanout.publish(reading("22.0", 2, SensorStatus.NORMAL));
+
+        // Act
+        fanout.flushOutbound();
+        fanout.flushOutbound();
+
+        // Assert
+        assertEquals(1, published.size());
+        JsonNode batch = objectMapper.readTree(published.get(0));
+        assertEquals(2, batch.size());
+        assertEquals("22.0", batch.get(1).get("value").asText());
+    }
+
+    @Test
+    void readingsIngestedOnDifferentNodes_ShouldBeCoalescedIntoOneFrameOnServingNode() throws Exception {
+        // Arrange
+        pushProperties.setCoalesceMode(RealtimeCoalesceMode.MIN_MAX_LAST);
+        captureRedisPublishes();
+        lenient().when(ingestNodeTracker.hasSubscribers(anyString())).thenReturn(false);
+        when(servingNodeTracker.hasSubscribers(anyString()))
+                .thenAnswer(invocation -> sensorDestination.equals(invocation.getArgument(0)));
+        RedisWebSocketFanout nodeA = fanout();
+        RedisWebSocketFanout nodeB = fanout();
+        RedisWebSocketFanout nodeC = fanout();
+        WebSocketDataPushServiceImpl ingestA = node(ingestNodeMessagingTemplate, ingestNodeTracker, nodeA);
+        WebSocketDataPushServiceImpl ingestB = node(ingestNodeMessagingTemplate, ingestNodeTracker, nodeB);
+        WebSocketDataPushServiceImpl serving = node(servingNodeMessagingTemplate, servingNodeTracker, nodeC);
+
+        ingestA.pushSpecificSensorData(sensorId, reading("25.0", 3, SensorStatus.NORMAL));
+        ingestB.pushSpecificSensorData(sensorId, reading("20.0", 1, SensorStatus.NORMAL));
+        ingestA.pushSpecificSensorData(sensorId, reading("30.0", 2, SensorStatus.NORMAL));
+
+        // Act
+        nodeB.flushOutbound();
+        nodeA.flushOutbound();
+        deliverPublished(nodeA, nodeB, nodeC);
+        serving.flushPending();
+
+        // Assert
+        JsonNode frame = lastPayload(servingNodeMessagingTemplate, sensorDestination, 1);
+        assertEquals("25.0", frame.get("value").asText());
+        assertEquals(20.0, frame.get("minValue").asDouble());
+        assertEquals(30.0, frame.get("maxValue").asDouble());
+        assertEquals(3, frame.get("samples").asInt());
+    }
+
+    @Test
+    void statusChangesIngestedOnDifferentNodes_ShouldProduceOneDeltaPerChange() throws Exception {
+        // Arrange
+        captureRedisPublishes();
+        lenient().when(ingestNodeTracker.hasSubscribers(anyString())).thenReturn(false);
+        when(servingNodeTracker.hasSubscribers(anyString()))
+                .thenAnswer(invocation -> companyDestination.equals(invocation.getArgument(0)));
+        RedisWebSocketFanout nodeA = fanout();
+        RedisWebSocketFanout nodeB = fanout();
+        RedisWebSocketFanout nodeC = fanout();
+        WebSocketDataPushServiceImpl ingestA = node(ingestNodeMessagingTemplate, ingestNodeTracker, nodeA);
+        WebSocketDataPushServiceImpl ingestB = node(ingestNodeMessagingTemplate, ingestNodeTracker, nodeB);
+        WebSocketDataPushServiceImpl serving = node(servingNodeMessagingTemplate, servingNodeTracker, nodeC);
+
+        ingestA.pushSpecificSensorData(sensorId, reading("25.0", 1, SensorStatus.NORMAL));
+        nodeA.flushOutbound();
+        deliverPublished(nodeA, nodeB, nodeC);
+        serving.flushPending();
+
+        ingestB.pushSpecificSensorData(sensorId, reading("99.0", 2, SensorStatus.CRITICAL));
+        ingestA.pushSpecificSensorData(sensorId, reading("99.5", 3, SensorStatus.CRITICAL));
+
+        // Act
+        nodeA.flushOutbound();
+        nodeB.flushOutbound();
+        deliverPublished(nodeA, nodeB, nodeC);
+        serving.flushPending();
+
+        // Assert
+        JsonNode delta = lastPayload(servingNodeMessagingTemplate, companyDestination, 2);
+        JsonNode changes = delta.get("changes");
+        assertEquals(1, changes.size());
+        assertEquals("NORMAL", changes.get(0).get("previousStatus").asText());
+        assertEquals("CRITICAL", changes.get(0).get("status").asText());
+        assertTrue(changes.get(0).get("timestamp").asText().startsWith("2024-05-14T10:30:03"));
+    }
+}
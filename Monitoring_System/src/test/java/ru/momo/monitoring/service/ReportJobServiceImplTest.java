@@ -0,0 +1,215 @@
+package ru.momo.monitoring.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.unit.DataSize;
+import ru.momo.monitoring.config.ReportJobProperties;
+import ru.momo.monitoring.exceptions.AccessDeniedException;
+import ru.momo.monitoring.exceptions.ReportJobRejectedException;
+import ru.momo.monitoring.exceptions.ReportNotReadyException;
+import ru.momo.monitoring.exceptions.ResourceNotFoundException;
+import ru.momo.monitoring.services.ReportService;
+import ru.momo.monitoring.services.SecurityService;
+import ru.momo.monitoring.services.impl.PdfReportGeneratorService;
+import ru.momo.monitoring.services.impl.ReportJobServiceImpl;
+import ru.momo.monitoring.store.dto.report.AdminReportDto;
+import ru.momo.monitoring.store.dto.report.GeneratedReportFile;
+import ru.momo.monitoring.store.dto.response.ReportJobDto;
+import ru.momo.monitoring.store.entities.User;
+import ru.momo.monitoring.store.entities.enums.ReportJobStatus;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReportJobServiceImplTest {
+
+    @Mock
+    private ReportService reportService;
+
+    @Mock
+    private PdfReportGeneratorService pdfReportGeneratorService;
+
+    @Mock
+    private SecurityService securityService;
+
+    private ReportJobServiceImpl reportJobService;
+
+    private final List<Runnable> queuedTasks = new ArrayList<>();
+
+    private final User ADMIN = User.builder().id(UUID.randomUUID()).email("admin@momo.ru").build();
+    private final LocalDateTime FROM = LocalDateTime.of(2024, 5, 1, 0, 0);
+    private final LocalDateTime TO = LocalDateTime.of(2024, 5, 31, 0, 0);
+    private final byte[] PDF = {'%', 'P', 'D', 'F'};
+
+    @BeforeEach
+    void setUp() {
+        reportJobService = new ReportJobServiceImpl(
+                reportService, pdfReportGeneratorService, securityService, new ReportJobProperties(), queuedTasks::add);
+    }
+
+    private void runQueuedTasks() {
+        queuedTasks.forEach(Runnable::run);
+        queuedTasks.clear();
+    }
+
+    @Test
+    void submitAdminSystemReport_ShouldRunOnExecutorAndExposeFile() {
+        // Arrange
+        AdminReportDto reportData = AdminReportDto.builder().build();
+        when(securityService.getCurrentUser()).thenReturn(ADMIN);
+        when(reportService.prepareAdminReportData(FROM, TO, ADMIN)).thenReturn(reportData);
+        when(pdfReportGeneratorService.generateAdminSystemReportPdf(reportData)).thenReturn(PDF);
+
+        // Act
+        ReportJobDto submitted = reportJobService.submitAdminSystemReport(FROM, TO);
+
+        // Assert
+        assertEquals(ReportJobStatus.PENDING, submitted.getStatus());
+        assertThrows(ReportNotReadyException.class, () -> reportJobService.getJobResult(submitted.getJobId()));
+
+        // Act
+        runQueuedTasks();
+
+        // Assert
+        ReportJobDto done = reportJobService.getJob(submitted.getJobId());
+        assertEquals(ReportJobStatus.DONE, done.getStatus());
+        assertFalse(done.isCached());
+        GeneratedReportFile file = reportJobService.getJobResult(submitted.getJobId());
+        assertArrayEquals(PDF, file.content());
+        assertEquals("AdminSystemReport_2024-05-01_to_2024-05-31.pdf", file.fileName());
+    }
+
+    @Test
+    void submitAdminSystemReport_WhenClosedPeriodRequestedAgain_ShouldServeFromCache() {
+        // Arrange
+        AdminReportDto reportData = AdminReportDto.builder().build();
+        when(securityService.getCurrentUser()).thenReturn(ADMIN);
+        when(reportService.prepareAdminReportData(FROM, TO, ADMIN)).thenReturn(reportData);
+        when(pdfReportGeneratorService.generateAdminSystemReportPdf(reportData)).thenReturn(PDF);
+        reportJobService.submitAdminSystemReport(FROM, TO);
+        runQueuedTasks();
+
+        // Act
+        ReportJobDto repeated = reportJobService.submitAdminSystemReport(FROM, TO);
+
+        // Assert
+        assertEquals(ReportJobStatus.DONE, repeated.getStatus());
+        assertTrue(repeated.isCached());
+        assertTrue(queuedTasks.isEmpty());
+        verify(reportService, times(1)).prepareAdminReportData(any(), any(), any());
+    }
+
+    @Test
+    void submitAdminSystemReport_WhenPeriodNotClosed_ShouldNotCache() {
+        // Arrange
+        LocalDateTime openTo = LocalDateTime.now().plusDays(1);
+        AdminReportDto reportData = AdminReportDto.builder().build();
+        when(securityService.getCurrentUser()).thenReturn(ADMIN);
+        when(reportService.prepareAdminReportData(FROM, openTo, ADMIN)).thenReturn(reportData);
+        when(pdfReportGeneratorService.generateAdminSystemReportPdf(reportData)).thenReturn(PDF);
+        reportJobService.submitAdminSystemReport(FROM, openTo);
+        runQueuedTasks();
+
+        // Act
+        ReportJobDto repeated = reportJobService.submitAdminSystemReport(FROM, openTo);
+        runQueuedTasks();
+
+        // Assert
+        assertFalse(repeated.isCached());
+        verify(reportService, times(2)).prepareAdminReportData(FROM, openTo, ADMIN);
+    }
+
+    @Test
+    void getJob_WhenRequestedByAnotherUser_ShouldThrowAccessDeniedException() {
+        // Arrange
+        when(securityService.getCurrentUser()).thenReturn(ADMIN);
+        ReportJobDto submitted = reportJobService.submitAdminSystemReport(FROM, TO);
+        when(securityService.getCurrentUser()).thenReturn(User.builder().id(UUID.randomUUID()).build());
+
+        // Act & Assert
+        assertThrows(AccessDeniedException.class, () -> reportJobService.getJob(submitted.getJobId()));
+    }
+
+    @Test
+    void submitAdminSystemReport_WhenMaxJobsExceeded_ShouldEvictOldestFinishedJob() {
+        // Arrange
+        ReportJobProperties properties = new ReportJobProperties();
+        properties.setResultMaxJobs(2);
+        reportJobService = new ReportJobServiceImpl(
+                reportService, pdfReportGeneratorService, securityService, properties, queuedTasks::add);
+        LocalDateTime openTo = LocalDateTime.now().plusDays(1);
+        AdminReportDto reportData = AdminReportDto.builder().build();
+        when(securityService.getCurrentUser()).thenReturn(ADMIN);
+        when(reportService.prepareAdminReportData(FROM, openTo, ADMIN)).thenReturn(reportData);
+        when(pdfReportGeneratorService.generateAdminSystemReportPdf(reportData)).thenReturn(PDF);
+
+        // Act
+        ReportJobDto first = reportJobService.submitAdminSystemReport(FROM, openTo);
+        runQueuedTasks();
+        ReportJobDto second = reportJobService.submitAdminSystemReport(FROM, openTo);
+        runQueuedTasks();
+        ReportJobDto third = reportJobService.submitAdminSystemReport(FROM, openTo);
+        runQueuedTasks();
+
+        // Assert
+        assertThrows(ResourceNotFoundException.class, () -> reportJobService.getJob(first.getJobId()));
+        assertEquals(ReportJobStatus.DONE, reportJobService.getJob(second.getJobId()).getStatus());
+        assertEquals(ReportJobStatus.DONE, reportJobService.getJob(third.getJobId()).getStatus());
+    }
+
+    @Test
+    void submitAdminSystemReport_WhenMaxSizeExceeded_ShouldEvictOldestFinishedJob() {
+        // Arrange
+        ReportJobProperties properties = new ReportJobProperties();
+        properties.setResultMaxSize(DataSize.ofBytes(PDF.length + 1));
+        reportJobService = new ReportJobServiceImpl(
+                reportService, pdfReportGeneratorService, securityService, properties, queuedTasks::add);
+        LocalDateTime openTo = LocalDateTime.now().plusDays(1);
+        AdminReportDto reportData = AdminReportDto.builder().build();
+        when(securityService.getCurrentUser()).thenReturn(ADMIN);
+        when(reportService.prepareAdminReportData(FROM, openTo, ADMIN)).thenReturn(reportData);
+        when(pdfReportGeneratorService.generateAdminSystemReportPdf(reportData)).thenReturn(PDF);
+
+        // Act
+        ReportJobDto first = reportJobService.submitAdminSystemReport(FROM, openTo);
+        runQueuedTasks();
+        ReportJobDto second = reportJobService.submitAdminSystemReport(FROM, openTo);
+        runQueuedTasks();
+
+        // Assert
+        assertThrows(ResourceNotFoundException.class, () -> reportJobService.getJob(first.getJobId()));
+        assertArrayEquals(PDF, reportJobService.getJobResult(second.getJobId()).content());
+    }
+
+    @Test
+    void submitAdminSystemReport_WhenExecutorRejects_ShouldThrowReportJobRejectedException() {
+        // Arrange
+        reportJobService = new ReportJobServiceImpl(
+                reportService, pdfReportGeneratorService, securityService, new ReportJobProperties(),
+                task -> {
+                    throw new RejectedExecutionException("queue is full");
+                });
+        when(securityService.getCurrentUser()).thenReturn(ADMIN);
+
+        // Act & Assert
+        assertThrows(ReportJobRejectedException.class, () -> reportJobService.submitAdminSystemReport(FROM, TO));
+    }
+
+}
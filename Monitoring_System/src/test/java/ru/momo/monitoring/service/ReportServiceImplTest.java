@@ -0,0 +1,198 @@
+package ru.momo.monitoring.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.support.TransactionOperations;
+import ru.momo.monitoring.services.CompanyService;
+import ru.momo.monitoring.services.SensorDataAggregationService;
+import ru.momo.monitoring.services.SensorService;
+import ru.momo.monitoring.services.TechnicService;
+import ru.momo.monitoring.services.UserService;
+import ru.momo.monitoring.services.impl.ReportQueryRunner;
+import ru.momo.monitoring.services.impl.ReportServiceImpl;
+import ru.momo.monitoring.store.dto.report.AdminReportDto;
+import ru.momo.monitoring.store.dto.report.CompanySummaryReportDto;
+import ru.momo.monitoring.store.dto.report.DriverActivityReportDto;
+import ru.momo.monitoring.store.dto.report.DriverActivityReportRequest;
+import ru.momo.monitoring.store.dto.report.SensorReportDto;
+import ru.momo.monitoring.store.dto.report.TechnicStatsDto;
+import ru.momo.monitoring.store.entities.Company;
+import ru.momo.monitoring.store.entities.Sensor;
+import ru.momo.monitoring.store.entities.SensorType;
+import ru.momo.monitoring.store.entities.Technic;
+import ru.momo.monitoring.store.entities.User;
+import ru.momo.monitoring.store.entities.enums.RoleName;
+import ru.momo.monitoring.store.entities.enums.SensorStatus;
+import ru.momo.monitoring.store.projection.SensorPeriodStats;
+import ru.momo.monitoring.store.repositories.ReportDataRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReportServiceImplTest {
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private SensorService sensorService;
+
+    @Mock
+    private CompanyService companyService;
+
+    @Mock
+    private TechnicService technicService;
+
+    @Mock
+    private SensorDataAggregationService sensorDataAggregationService;
+
+    @Mock
+    private ReportDataRepository reportDataRepository;
+
+    @Spy
+    private ReportQueryRunner reportQueryRunner = new ReportQueryRunner(Runnable::run, TransactionOperations.withoutTransaction());
+
+    @InjectMocks
+    private ReportServiceImpl reportService;
+
+    private final LocalDateTime FROM = LocalDateTime.of(2024, 5, 1, 0, 0);
+    private final LocalDateTime TO = LocalDateTime.of(2024, 5, 31, 0, 0);
+
+    @Test
+    void prepareAdminReportData_ShouldAssembleCompaniesFromGroupedQueries() {
+        // Arrange
+        UUID companyId = UUID.randomUUID();
+        UUID emptyCompanyId = UUID.randomUUID();
+        UUID activeTechnicId = UUID.randomUUID();
+        UUID inactiveTechnicId = UUID.randomUUID();
+
+        Company company = new Company();
+        company.setId(companyId);
+        company.setName("ООО Ромашка");
+        company.setInn("7700000000");
+        Company emptyCompany = new Company();
+        emptyCompany.setId(emptyCompanyId);
+        emptyCompany.setName("ООО Пусто");
+        emptyCompany.setInn("7700000001");
+
+        when(companyService.findAllCompaniesForReport()).thenReturn(List.of(company, emptyCompany));
+        when(reportDataRepository.findAllCompanyTechnics()).thenReturn(List.of(
+                new ReportDataRepository.TechnicRow(activeTechnicId, companyId, "КАМАЗ", "65115", "SN-1", true),
+                new ReportDataRepository.TechnicRow(inactiveTechnicId, companyId, "МАЗ", "5440", "SN-2", false)
+        ));
+        when(reportDataRepository.countSensorsByCompany()).thenReturn(Map.of(
+                companyId, new ReportDataRepository.SensorCounts(5, 3)));
+        when(reportDataRepository.countActiveSensorsByTechnic()).thenReturn(Map.of(activeTechnicId, 3));
+        when(reportDataRepository.findCompanyActivity(FROM, TO)).thenReturn(Map.of(
+                companyId, new ReportDataRepository.CompanyActivity(20, 10)));
+        when(reportDataRepository.countAlertsByTechnic(FROM, TO)).thenReturn(Map.of(
+                activeTechnicId, new ReportDataRepository.AlertCounts(15, 5)));
+
+        // Act
+        AdminReportDto report = reportService.prepareAdminReportData(FROM, TO, User.builder().email("admin@momo.ru").build());
+
+        // Assert
+        assertEquals(2, report.getCompaniesSummary().size());
+
+        CompanySummaryReportDto summary = report.getCompaniesSummary().get(0);
+        assertEquals(2, summary.getTotalTechnicsInCompany());
+        assertEquals(1, summary.getActiveTechnicsInCompany());
+        assertEquals(5, summary.getTotalSensorsInCompany());
+        assertEquals(3, summary.getActiveSensorsInCompany());
+        assertEquals(2.0, summary.getCompanyViolationsPerHour());
+
+        TechnicStatsDto activeTechnicStats = summary.getTechnicsStats().get(0);
+        assertEquals("КАМАЗ 65115", activeTechnicStats.getTechnicBrandModel());
+        assertEquals(3, activeTechnicStats.getNumberOfSensors());
+        assertEquals(5, activeTechnicStats.getCriticalAlerts());
+        assertEquals(15, activeTechnicStats.getWarningAlerts());
+        assertEquals(0, summary.getTechnicsStats().get(1).getNumberOfSensors());
+
+        CompanySummaryReportDto emptySummary = report.getCompaniesSummary().get(1);
+        assertEquals(0, emptySummary.getTotalTechnicsInCompany());
+        assertEquals(0.0, emptySummary.getCompanyViolationsPerHour());
+        assertTrue(emptySummary.getTechnicsStats().isEmpty());
+
+        verify(technicService, never()).findAllTechnicsByCompany(any());
+        verify(sensorDataAggregationService, never()).countCompanyViolations(any(), any(), any());
+    }
+
+    @Test
+    void prepareAdminReportData_WhenGroupedQueryFails_ShouldRethrowOriginalException() {
+        // Arrange
+        when(reportDataRepository.countAlertsByTechnic(FROM, TO))
+                .thenThrow(new DataAccessResourceFailureException("connection lost"));
+
+        // Act & Assert
+        assertThrows(DataAccessResourceFailureException.class, () ->
+                reportService.prepareAdminReportData(FROM, TO, User.builder().email("admin@momo.ru").build()));
+    }
+
+    @Test
+    void generateDriverActivityReportData_ShouldLoadTechnicsOnceAndStatsInBulk() {
+        // Arrange
+        UUID companyId = UUID.randomUUID();
+        UUID driverId = UUID.randomUUID();
+        UUID activeSensorId = UUID.randomUUID();
+        UUID inactiveSensorId = UUID.randomUUID();
+
+        Company company = new Company();
+        company.setId(companyId);
+        User manager = User.builder().email("manager@momo.ru").role(RoleName.ROLE_MANAGER).company(company).build();
+        User driver = User.builder().id(driverId).email("driver@momo.ru").role(RoleName.ROLE_DRIVER).company(company).build();
+
+        SensorType type = new SensorType();
+        type.setName("Температура");
+        type.setUnit("°C");
+        Sensor activeSensor = Sensor.builder().id(activeSensorId).type(type).serialNumber("S-1").isActive(true).build();
+        Sensor inactiveSensor = Sensor.builder().id(inactiveSensorId).type(type).serialNumber("S-2").isActive(false).build();
+        Technic technic = Technic.builder()
+                .id(UUID.randomUUID())
+                .brand("КАМАЗ")
+                .isActive(true)
+                .sensors(List.of(activeSensor, inactiveSensor))
+                .build();
+
+        when(userService.getByEmail("manager@momo.ru")).thenReturn(manager);
+        when(userService.getByIdEntity(driverId)).thenReturn(driver);
+        when(technicService.findAllTechnicsWithSensorsByDriver(driverId)).thenReturn(List.of(technic));
+        when(sensorService.getSensorStatisticsForPeriod(List.of(activeSensorId), FROM, TO)).thenReturn(Map.of(
+                activeSensorId, new SensorPeriodStats(activeSensorId, 10, 10, 1.0, 9.0, 5.0, 7.0, SensorStatus.NORMAL, 2, 1)));
+
+        DriverActivityReportRequest request = new DriverActivityReportRequest();
+        request.setDriverId(driverId);
+        request.setDateFrom(FROM);
+        request.setDateTo(TO);
+
+        // Act
+        DriverActivityReportDto report = reportService.generateDriverActivityReportData(request, () -> "manager@momo.ru");
+
+        // Assert
+        assertEquals(1, report.getDriverSummary().getTotalAssignedTechnics());
+        assertEquals(1, report.getTechnicsDetails().size());
+        List<SensorReportDto> sensors = report.getTechnicsDetails().get(0).getSensorsSummary();
+        assertEquals(1, sensors.size());
+        assertEquals("Температура", sensors.get(0).getSensorType());
+        assertEquals(9.0, sensors.get(0).getValueStats().getMaxValue());
+        assertEquals(1, sensors.get(0).getStatusSummary().getCriticalCount());
+        assertEquals(2, sensors.get(0).getStatusSummary().getWarningCount());
+        verify(sensorService, never()).getSensorValueStatisticsForPeriod(any(), any(), any());
+    }
+
+}
@@ -10,7 +10,10 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 import ru.momo.monitoring.exceptions.ResourceNotFoundException;
 import ru.momo.monitoring.services.UserService;
 import ru.momo.monitoring.services.impl.SecurityServiceImpl;
@@ -18,6 +21,7 @@ import ru.momo.monitoring.store.entities.User;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.anyString;
@@ -55,6 +59,7 @@ class SecurityServiceImplTest {
     @AfterEach
     void tearDown() {
         SecurityContextHolder.clearContext();
+        RequestContextHolder.resetRequestAttributes();
     }
 
     @Test
@@ -94,6 +99,24 @@ class SecurityServiceImplTest {
         verify(userService).getByEmail(testEmail);
     }
 
+    @Test
+    void getCurrentUser_WhenCalledTwiceInSameRequest_ShouldLoadUserOnce() {
+        // Arrange
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+        when(authentication.isAuthenticated()).thenReturn(true);
+        when(authentication.getPrincipal()).thenReturn(testEmail);
+        when(userService.getByEmail(testEmail)).thenReturn(testUser);
+
+        // Act
+        User first = securityService.getCurrentUser();
+        User second = securityService.getCurrentUser();
+
+        // Assert
+        assertSame(first, second);
+        verify(userService).getByEmail(testEmail);
+    }
+
     @Test
     void getCurrentUser_WhenNoAuthentication_ShouldThrowIllegalStateException() {
         // Arrange
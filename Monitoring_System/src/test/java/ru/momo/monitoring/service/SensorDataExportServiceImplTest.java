@@ -0,0 +1,207 @@
+package ru.momo.monitoring.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.momo.monitoring.exceptions.AccessDeniedException;
+import ru.momo.monitoring.services.SecurityService;
+import ru.momo.monitoring.services.impl.SensorDataExportServiceImpl;
+import ru.momo.monitoring.store.entities.Company;
+import ru.momo.monitoring.store.entities.Sensor;
+import ru.momo.monitoring.store.entities.Technic;
+import ru.momo.monitoring.store.entities.User;
+import ru.momo.monitoring.store.entities.enums.RoleName;
+import ru.momo.monitoring.store.entities.enums.SensorDataExportScope;
+import ru.momo.monitoring.store.entities.enums.SensorStatus;
+import ru.momo.monitoring.store.repositories.CompanyRepository;
+import ru.momo.monitoring.store.repositories.SensorDataJdbcRepository;
+import ru.momo.monitoring.store.repositories.SensorRepository;
+import ru.momo.monitoring.store.repositories.TechnicRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SensorDataExportServiceImplTest {
+
+    @Mock
+    private SensorDataJdbcRepository sensorDataJdbcRepository;
+
+    @Mock
+    private SensorRepository sensorRepository;
+
+    @Mock
+    private TechnicRepository technicRepository;
+
+    @Mock
+    private CompanyRepository companyRepository;
+
+    @Mock
+    private SecurityService securityService;
+
+    @InjectMocks
+    private SensorDataExportServiceImpl sensorDataExportService;
+
+    private final LocalDateTime FROM = LocalDateTime.of(2024, 5, 1, 0, 0);
+    private final LocalDateTime TO = LocalDateTime.of(2024, 5, 2, 0, 0);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void exportCsv_WhenDriverOwnsTechnic_ShouldWriteGzippedCsv() throws Exception {
+        // Arrange
+        UUID technicId = UUID.randomUUID();
+        UUID sensorId = UUID.randomUUID();
+        User driver = User.builder().id(UUID.randomUUID()).role(RoleName.ROLE_DRIVER).build();
+        when(securityService.getCurrentUser()).thenReturn(driver);
+        when(technicRepository.findByIdOrThrow(technicId)).thenReturn(Technic.builder().id(technicId).ownerId(driver).build());
+        doAnswer(invocation -> {
+            Consumer<SensorDataJdbcRepository.ExportRow> consumer = invocation.getArgument(4);
+            consumer.accept(new SensorDataJdbcRepository.ExportRow(
+                    FROM, sensorId, technicId, 12.5, null, SensorStatus.NORMAL));
+            consumer.accept(new SensorDataJdbcRepository.ExportRow(
+                    FROM.plusSeconds(1), sensorId, technicId, null, "open, \"left\"", null));
+            return null;
+        }).when(sensorDataJdbcRepository).streamExportRows(eq(SensorDataExportScope.TECHNIC), eq(technicId), eq(FROM), eq(TO), any());
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // Act
+        StreamingResponseBody body = sensorDataExportService.exportCsv(SensorDataExportScope.TECHNIC, technicId, FROM, TO);
+        body.writeTo(output);
+
+        // Assert
+        String csv;
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(output.toByteArray()))) {
+            csv = new String(gzip.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        assertEquals("timestamp,sensor_id,technic_id,numeric_value,value,status\n" +
+                "2024-05-01T00:00:00," + sensorId + "," + technicId + ",12.5,,NORMAL\n" +
+                "2024-05-01T00:00:01," + sensorId + "," + technicId + ",,\"open, \"\"left\"\"\",\n", csv);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void exportCsv_WhenValueLooksLikeFormula_ShouldPrefixApostrophe() throws Exception {
+        // Arrange
+        UUID sensorId = UUID.randomUUID();
+        when(securityService.getCurrentUser()).thenReturn(User.builder().role(RoleName.ROLE_ADMIN).build());
+        doAnswer(invocation -> {
+            Consumer<SensorDataJdbcRepository.ExportRow> consumer = invocation.getArgument(4);
+            consumer.accept(new SensorDataJdbcRepository.ExportRow(FROM, sensorId, null, null, "=HYPERLINK(\"http://x\")", null));
+            consumer.accept(new SensorDataJdbcRepository.ExportRow(FROM, sensorId, null, null, "@SUM(A1)", null));
+            consumer.accept(new SensorDataJdbcRepository.ExportRow(FROM, sensorId, null, -3.0, "-3", null));
+            consumer.accept(new SensorDataJdbcRepository.ExportRow(FROM, sensorId, null, null, "a=b", null));
+            return null;
+        }).when(sensorDataJdbcRepository).streamExportRows(eq(SensorDataExportScope.SENSOR), eq(sensorId), eq(FROM), eq(TO), any());
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // Act
+        sensorDataExportService.exportCsv(SensorDataExportScope.SENSOR, sensorId, FROM, TO).writeTo(output);
+
+        // Assert
+        String csv;
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(output.toByteArray()))) {
+            csv = new String(gzip.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        String prefix = "2024-05-01T00:00:00," + sensorId + ",,";
+        assertEquals("timestamp,sensor_id,technic_id,numeric_value,value,status\n" +
+                prefix + ",\"'=HYPERLINK(\"\"http://x\"\")\",\n" +
+                prefix + ",'@SUM(A1),\n" +
+                prefix + "-3.0,'-3,\n" +
+                prefix + ",a=b,\n", csv);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void exportParquet_ShouldWriteParquetFileWithFooter() throws Exception {
+        // Arrange
+        UUID sensorId = UUID.randomUUID();
+        when(securityService.getCurrentUser()).thenReturn(User.builder().role(RoleName.ROLE_ADMIN).build());
+        when(sensorRepository.findByIdOrThrow(sensorId)).thenReturn(Sensor.builder().id(sensorId).build());
+        doAnswer(invocation -> {
+            Consumer<SensorDataJdbcRepository.ExportRow> consumer = invocation.getArgument(4);
+            consumer.accept(new SensorDataJdbcRepository.ExportRow(
+                    FROM, sensorId, null, 12.5, "12.5", SensorStatus.NORMAL));
+            consumer.accept(new SensorDataJdbcRepository.ExportRow(
+                    FROM.plusSeconds(1), sensorId, null, null, "open", null));
+            return null;
+        }).when(sensorDataJdbcRepository).streamExportRows(eq(SensorDataExportScope.SENSOR), eq(sensorId), eq(FROM), eq(TO), any());
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // Act
+        sensorDataExportService.exportParquet(SensorDataExportScope.SENSOR, sensorId, FROM, TO).writeTo(output);
+
+        // Assert
+        byte[] file = output.toByteArray();
+        assertEquals("PAR1", new String(file, 0, 4, StandardCharsets.US_ASCII));
+        assertEquals("PAR1", new String(file, file.length - 4, 4, StandardCharsets.US_ASCII));
+        int footerLength = ByteBuffer.wrap(file, file.length - 8, 4).order(ByteOrder.LITTLE_ENDIAN).getInt();
+        assertTrue(footerLength > 0 && footerLength < file.length - 12);
+        String footer = new String(file, file.length - 8 - footerLength, footerLength, StandardCharsets.ISO_8859_1);
+        for (String column : List.of("timestamp", "sensor_id", "technic_id", "numeric_value", "value", "status")) {
+            assertTrue(footer.contains(column), column);
+        }
+    }
+
+    @Test
+    void exportParquet_WhenManagerOfAnotherCompany_ShouldThrowAccessDeniedException() {
+        // Arrange
+        UUID companyId = UUID.randomUUID();
+        User manager = User.builder()
+                .role(RoleName.ROLE_MANAGER)
+                .company(Company.builder().id(UUID.randomUUID()).build())
+                .build();
+        when(securityService.getCurrentUser()).thenReturn(manager);
+        when(companyRepository.findByIdOrThrow(companyId)).thenReturn(Company.builder().id(companyId).build());
+
+        // Act & Assert
+        assertThrows(AccessDeniedException.class,
+                () -> sensorDataExportService.exportParquet(SensorDataExportScope.COMPANY, companyId, FROM, TO));
+        verifyNoInteractions(sensorDataJdbcRepository);
+    }
+
+    @Test
+    void exportCsv_WhenManagerOfAnotherCompany_ShouldThrowAccessDeniedException() {
+        // Arrange
+        UUID companyId = UUID.randomUUID();
+        User manager = User.builder()
+                .role(RoleName.ROLE_MANAGER)
+                .company(Company.builder().id(UUID.randomUUID()).build())
+                .build();
+        when(securityService.getCurrentUser()).thenReturn(manager);
+        when(companyRepository.findByIdOrThrow(companyId)).thenReturn(Company.builder().id(companyId).build());
+
+        // Act & Assert
+        assertThrows(AccessDeniedException.class,
+                () -> sensorDataExportService.exportCsv(SensorDataExportScope.COMPANY, companyId, FROM, TO));
+        verifyNoInteractions(sensorDataJdbcRepository);
+    }
+
+    @Test
+    void exportCsv_WhenPeriodIsEmpty_ShouldThrowIllegalArgumentException() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> sensorDataExportService.exportCsv(SensorDataExportScope.SENSOR, UUID.randomUUID(), FROM, FROM));
+        verifyNoInteractions(securityService, sensorDataJdbcRepository);
+    }
+
+}
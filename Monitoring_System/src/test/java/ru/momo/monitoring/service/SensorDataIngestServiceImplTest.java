@@ -0,0 +1,177 @@
+package ru.momo.monitoring.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import ru.momo.monitoring.config.SensorIngestProperties;
+import ru.momo.monitoring.exceptions.SensorDataIngestOverloadedException;
+import ru.momo.monitoring.services.SensorDataProcessingService;
+import ru.momo.monitoring.services.impl.SensorDataIngestServiceImpl;
+import ru.momo.monitoring.store.dto.data_generator.GeneratedSensorDataDto;
+import ru.momo.monitoring.store.dto.data_generator.SensorDataBatchResultDto;
+import ru.momo.monitoring.store.dto.response.SensorDataIngestStatsDto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SensorDataIngestServiceImplTest {
+
+    @Mock
+    private SensorDataProcessingService sensorDataProcessingService;
+
+    private SensorDataIngestServiceImpl sensorDataIngestService;
+
+    @BeforeEach
+    void setUp() {
+        SensorIngestProperties properties = new SensorIngestProperties();
+        properties.setQueueCapacity(3);
+        properties.setFlushBatchSize(2);
+        properties.setFlushMaxAttempts(3);
+        properties.setFlushRetryBackoffMs(0);
+
+        sensorDataIngestService = new SensorDataIngestServiceImpl(sensorDataProcessingService, properties);
+    }
+
+    @Test
+    void enqueue_WhenQueueIsFull_ShouldThrowOverloadedAndCountDrop() {
+        // Arrange
+        sensorDataIngestService.enqueue(reading());
+        sensorDataIngestService.enqueue(reading());
+        sensorDataIngestService.enqueue(reading());
+
+        // Act & Assert
+        assertThrows(SensorDataIngestOverloadedException.class, () -> sensorDataIngestService.enqueue(reading()));
+
+        SensorDataIngestStatsDto stats = sensorDataIngestService.getStats();
+        assertEquals(3, stats.getQueueDepth());
+        assertEquals(3, stats.getEnqueued());
+        assertEquals(1, stats.getDropped());
+    }
+
+    @Test
+    void flush_ShouldWriteQueuedReadingsInBatchesOfConfiguredSize() {
+        // Arrange
+        sensorDataIngestService.enqueue(reading());
+        sensorDataIngestService.enqueue(reading());
+        sensorDataIngestService.enqueue(reading());
+        when(sensorDataProcessingService.processIncomingBatch(anyList()))
+                .thenAnswer(invocation -> {
+                    List<?> batch = invocation.getArgument(0);
+                    return SensorDataBatchResultDto.builder()
+                            .received(batch.size())
+                            .accepted(batch.size())
+                            .build();
+                });
+
+        // Act
+        int first = sensorDataIngestService.flush();
+        int second = sensorDataIngestService.flush();
+        int third = sensorDataIngestService.flush();
+
+        // Assert
+        assertEquals(2, first);
+        assertEquals(1, second);
+        assertEquals(0, third);
+        verify(sensorDataProcessingService, times(2)).processIncomingBatch(anyList());
+
+        SensorDataIngestStatsDto stats = sensorDataIngestService.getStats();
+        assertEquals(0, stats.getQueueDepth());
+        assertEquals(3, stats.getPersisted());
+        assertEquals(2, stats.getFlushes());
+    }
+
+    @Test
+    void flush_WhenBatchWriteFailsOnEveryAttempt_ShouldCountFailedReadings() {
+        // Arrange
+        sensorDataIngestService.enqueue(reading());
+        when(sensorDataProcessingService.processIncomingBatch(anyList()))
+                .thenThrow(new RuntimeException("DB is down"));
+
+        // Act
+        sensorDataIngestService.flush();
+
+        // Assert
+        verify(sensorDataProcessingService, times(3)).processIncomingBatch(anyList());
+
+        SensorDataIngestStatsDto stats = sensorDataIngestService.getStats();
+        assertEquals(1, stats.getFailed());
+        assertEquals(1, stats.getFailedFlushes());
+        assertEquals(2, stats.getFlushRetries());
+        assertEquals(0, stats.getPersisted());
+    }
+
+    @Test
+    void flush_WhenBatchWriteFailsTransiently_ShouldRetryAndPersist() {
+        // Arrange
+        sensorDataIngestService.enqueue(reading());
+        sensorDataIngestService.enqueue(reading());
+        when(sensorDataProcessingService.processIncomingBatch(anyList()))
+                .thenThrow(new RuntimeException("deadlock detected"))
+                .thenReturn(SensorDataBatchResultDto.builder().received(2).accepted(2).build());
+
+        // Act
+        sensorDataIngestService.flush();
+
+        // Assert
+        verify(sensorDataProcessingService, times(2)).processIncomingBatch(anyList());
+
+        SensorDataIngestStatsDto stats = sensorDataIngestService.getStats();
+        assertEquals(2, stats.getPersisted());
+        assertEquals(0, stats.getFailed());
+        assertEquals(0, stats.getFailedFlushes());
+        assertEquals(1, stats.getFlushRetries());
+        assertEquals(1, stats.getFlushes());
+    }
+
+    @Test
+    void flush_WhenOneReadingFailsPermanently_ShouldSplitBatchAndDropOnlyThatReading() {
+        // Arrange
+        GeneratedSensorDataDto bad = reading();
+        sensorDataIngestService.enqueue(reading());
+        sensorDataIngestService.enqueue(bad);
+        when(sensorDataProcessingService.processIncomingBatch(anyList()))
+                .thenAnswer(invocation -> {
+                    List<?> batch = invocation.getArgument(0);
+                    if (batch.contains(bad)) {
+                        throw new DataIntegrityViolationException("value too long for type character varying(255)");
+                    }
+                    return SensorDataBatchResultDto.builder()
+                            .received(batch.size())
+                            .accepted(batch.size())
+                            .build();
+                });
+
+        // Act
+        sensorDataIngestService.flush();
+
+        // Assert
+        verify(sensorDataProcessingService, times(3)).processIncomingBatch(anyList());
+
+        SensorDataIngestStatsDto stats = sensorDataIngestService.getStats();
+        assertEquals(1, stats.getPersisted());
+        assertEquals(1, stats.getFailed());
+        assertEquals(1, stats.getFlushSplits());
+        assertEquals(0, stats.getFlushRetries());
+    }
+
+    private GeneratedSensorDataDto reading() {
+        return GeneratedSensorDataDto.builder()
+                .sensorId(UUID.randomUUID())
+                .value("1.0")
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
+
+}
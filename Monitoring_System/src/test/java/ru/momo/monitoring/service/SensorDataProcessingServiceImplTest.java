@@ -0,0 +1,281 @@
+package ru.momo.monitoring.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.momo.monitoring.exceptions.ResourceNotFoundException;
+import ru.momo.monitoring.exceptions.SensorBadRequestException;
+import ru.momo.monitoring.services.SensorDescriptorCache;
+import ru.momo.monitoring.services.WebSocketDataPushService;
+import ru.momo.monitoring.services.impl.SensorDataProcessingServiceImpl;
+import ru.momo.monitoring.store.dto.data_generator.GeneratedSensorDataDto;
+import ru.momo.monitoring.store.dto.data_generator.SensorDataBatchResultDto;
+import ru.momo.monitoring.store.entities.enums.SensorStatus;
+import ru.momo.monitoring.store.projection.SensorDescriptor;
+import ru.momo.monitoring.store.repositories.SensorDataJdbcRepository;
+import ru.momo.monitoring.store.repositories.SensorDataRollupRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SensorDataProcessingServiceImplTest {
+
+    @Mock
+    private SensorDataJdbcRepository sensorDataJdbcRepository;
+
+    @Mock
+    private SensorDataRollupRepository sensorDataRollupRepository;
+
+    @Mock
+    private SensorDescriptorCache sensorDescriptorCache;
+
+    @Mock
+    private WebSocketDataPushService webSocketDataPushService;
+
+    @InjectMocks
+    private SensorDataProcessingServiceImpl sensorDataProcessingService;
+
+    private SensorDescriptor activeSensor;
+
+    private SensorDescriptor inactiveSensor;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(sensorDataProcessingService, "WARNING_THRESHOLD_PERCENTAGE", 0.1);
+        ReflectionTestUtils.setField(sensorDataProcessingService, "MAX_BATCH_SIZE", 100);
+
+        UUID typeId = UUID.randomUUID();
+        activeSensor = new SensorDescriptor(
+                UUID.randomUUID(), "SN-1", 0.0, 100.0, true, UUID.randomUUID(), UUID.randomUUID(), typeId, "Temperature", "C"
+        );
+        inactiveSensor = new SensorDescriptor(
+                UUID.randomUUID(), "SN-2", 0.0, 100.0, false, null, null, typeId, "Temperature", "C"
+        );
+    }
+
+    @Test
+    void processIncomingBatch_WhenMixedReadings_ShouldInsertAcceptedInSingleBatch() {
+        // Arrange
+        UUID unknownSensorId = UUID.randomUUID();
+        LocalDateTime now = LocalDateTime.now();
+        List<GeneratedSensorDataDto> batch = List.of(
+                reading(activeSensor.id(), "50", now),
+                reading(activeSensor.id(), "95", now),
+                reading(activeSensor.id(), "150", now),
+                reading(activeSensor.id(), "n/a", now),
+                reading(inactiveSensor.id(), "10", now),
+                reading(unknownSensorId, "10", now),
+                reading(activeSensor.id(), "10", null)
+        );
+        when(sensorDescriptorCache.getAll(anyCollection()))
+                .thenReturn(Map.of(activeSensor.id(), activeSensor, inactiveSensor.id(), inactiveSensor));
+
+        // Act
+        SensorDataBatchResultDto result = sensorDataProcessingService.processIncomingBatch(batch);
+
+        // Assert
+        assertEquals(7, result.getReceived());
+        assertEquals(4, result.getAccepted());
+        assertEquals(3, result.getRejected());
+        assertTrue(result.getResults().get(0).isAccepted());
+        assertFalse(result.getResults().get(4).isAccepted());
+        assertFalse(result.getResults().get(5).isAccepted());
+        assertFalse(result.getResults().get(6).isAccepted());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<SensorDataJdbcRepository.Row>> rowsCaptor = ArgumentCaptor.forClass(List.class);
+        verify(sensorDataJdbcRepository).batchInsert(rowsCaptor.capture());
+        List<SensorDataJdbcRepository.Row> rows = rowsCaptor.getValue();
+        assertEquals(4, rows.size());
+        verify(sensorDataRollupRepository).upsert(rows);
+        assertEquals(SensorStatus.NORMAL, rows.get(0).status());
+        assertEquals(SensorStatus.WARNING, rows.get(1).status());
+        assertEquals(SensorStatus.CRITICAL, rows.get(2).status());
+        assertEquals(SensorStatus.UNDEFINED, rows.get(3).status());
+        assertEquals(activeSensor.technicId(), rows.get(0).technicId());
+        assertEquals(50.0, rows.get(0).numericValue());
+        assertNull(rows.get(0).value());
+        assertNull(rows.get(3).numericValue());
+        assertEquals("n/a", rows.get(3).value());
+
+        verify(sensorDescriptorCache, times(1)).getAll(anyCollection());
+        verify(webSocketDataPushService, times(4)).pushSpecificSensorData(eq(activeSensor.id()), any());
+    }
+
+    @Test
+    void processIncomingBatch_WhenValueTooLong_ShouldRejectOnlyThatReading() {
+        // Arrange
+        LocalDateTime now = LocalDateTime.now();
+        when(sensorDescriptorCache.getAll(anyCollection())).thenReturn(Map.of(activeSensor.id(), activeSensor));
+
+        // Act
+        SensorDataBatchResultDto result = sensorDataProcessingService.processIncomingBatch(List.of(
+                reading(activeSensor.id(), "x".repeat(256), now),
+                reading(activeSensor.id(), "10", now)
+        ));
+
+        // Assert
+        assertEquals(1, result.getAccepted());
+        assertEquals(1, result.getRejected());
+        assertFalse(result.getResults().get(0).isAccepted());
+        assertTrue(result.getResults().get(1).isAccepted());
+    }
+
+    @Test
+    void processIncomingBatch_WhenValueIsNotStrictNumber_ShouldStoreItAsText() {
+        // Arrange
+        LocalDateTime now = LocalDateTime.now();
+        List<String> values = List.of("NaN", "Infinity", "-Infinity", "1f", "2d", "0x10", "1e999", "1e-999", " -1,5e2 ", "0.0", ".5");
+        List<GeneratedSensorDataDto> batch = new ArrayList<>();
+        values.forEach(value -> batch.add(reading(activeSensor.id(), value, now)));
+        when(sensorDescriptorCache.getAll(anyCollection())).thenReturn(Map.of(activeSensor.id(), activeSensor));
+
+        // Act
+        sensorDataProcessingService.processIncomingBatch(batch);
+
+        // Assert
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<SensorDataJdbcRepository.Row>> rowsCaptor = ArgumentCaptor.forClass(List.class);
+        verify(sensorDataJdbcRepository).batchInsert(rowsCaptor.capture());
+        List<SensorDataJdbcRepository.Row> rows = rowsCaptor.getValue();
+        for (int i = 0; i < 8; i++) {
+            assertNull(rows.get(i).numericValue(), values.get(i));
+            assertEquals(values.get(i), rows.get(i).value());
+            assertEquals(SensorStatus.UNDEFINED, rows.get(i).status());
+        }
+        assertEquals(-150.0, rows.get(8).numericValue());
+        assertEquals(0.0, rows.get(9).numericValue());
+        assertEquals(0.5, rows.get(10).numericValue());
+    }
+
+    @Test
+    void processIncomingBatch_WhenBatchTooLarge_ShouldThrowSensorBadRequestException() {
+        // Arrange
+        List<GeneratedSensorDataDto> batch = new ArrayList<>(
+                Collections.nCopies(101, reading(activeSensor.id(), "1", LocalDateTime.now()))
+        );
+
+        // Act & Assert
+        assertThrows(SensorBadRequestException.class,
+                () -> sensorDataProcessingService.processIncomingBatch(batch));
+        verify(sensorDataJdbcRepository, never()).batchInsert(any());
+    }
+
+    @Test
+    void processIncomingBatch_WhenEmpty_ShouldReturnEmptyResult() {
+        // Act
+        SensorDataBatchResultDto result = sensorDataProcessingService.processIncomingBatch(List.of());
+
+        // Assert
+        assertEquals(0, result.getReceived());
+        assertTrue(result.getResults().isEmpty());
+        verifyNoInteractions(sensorDescriptorCache, sensorDataJdbcRepository, sensorDataRollupRepository, webSocketDataPushService);
+    }
+
+    @Test
+    void processIncomingData_WhenSensorWithoutThresholds_ShouldStoreUndefined() {
+        // Arrange
+        SensorDescriptor sensor = new SensorDescriptor(
+                UUID.randomUUID(), "SN-3", null, null, true, null, null, UUID.randomUUID(), "Pressure", "bar"
+        );
+        when(sensorDescriptorCache.get(sensor.id())).thenReturn(Optional.of(sensor));
+
+        // Act
+        sensorDataProcessingService.processIncomingData(reading(sensor.id(), "12.5", LocalDateTime.now()));
+
+        // Assert
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<SensorDataJdbcRepository.Row>> rowsCaptor = ArgumentCaptor.forClass(List.class);
+        verify(sensorDataJdbcRepository).batchInsert(rowsCaptor.capture());
+        assertEquals(SensorStatus.UNDEFINED, rowsCaptor.getValue().get(0).status());
+        verify(webSocketDataPushService).pushSpecificSensorData(eq(sensor.id()), any());
+    }
+
+    @Test
+    void processIncomingData_WhenSensorUnknown_ShouldThrowResourceNotFound() {
+        // Arrange
+        UUID sensorId = UUID.randomUUID();
+        when(sensorDescriptorCache.get(sensorId)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(ResourceNotFoundException.class,
+                () -> sensorDataProcessingService.processIncomingData(reading(sensorId, "1", LocalDateTime.now())));
+        verifyNoInteractions(sensorDataJdbcRepository, webSocketDataPushService);
+    }
+
+    @Test
+    void processIncomingBatch_WhenInTransaction_ShouldPushOnlyAfterCommit() {
+        // Arrange
+        when(sensorDescriptorCache.getAll(anyCollection())).thenReturn(Map.of(activeSensor.id(), activeSensor));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // Act
+            sensorDataProcessingService.processIncomingBatch(List.of(
+                    reading(activeSensor.id(), "10", LocalDateTime.now()),
+                    reading(activeSensor.id(), "20", LocalDateTime.now())
+            ));
+
+            // Assert
+            verify(webSocketDataPushService, never()).pushSpecificSensorData(any(), any());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            verify(webSocketDataPushService, times(2)).pushSpecificSensorData(eq(activeSensor.id()), any());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void processIncomingBatch_WhenPushFails_ShouldStillReportAccepted() {
+        // Arrange
+        when(sensorDescriptorCache.getAll(anyCollection())).thenReturn(Map.of(activeSensor.id(), activeSensor));
+        doThrow(new IllegalStateException("broker is down"))
+                .when(webSocketDataPushService).pushSpecificSensorData(any(), any());
+
+        // Act
+        SensorDataBatchResultDto result = sensorDataProcessingService.processIncomingBatch(List.of(
+                reading(activeSensor.id(), "10", LocalDateTime.now())
+        ));
+
+        // Assert
+        assertEquals(1, result.getAccepted());
+        verify(sensorDataJdbcRepository).batchInsert(any());
+    }
+
+    private GeneratedSensorDataDto reading(UUID sensorId, String value, LocalDateTime timestamp) {
+        return GeneratedSensorDataDto.builder()
+                .sensorId(sensorId)
+                .value(value)
+                .timestamp(timestamp)
+                .build();
+    }
+
+}
@@ -0,0 +1,55 @@
+package ru.momo.monitoring.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import ru.momo.monitoring.store.entities.enums.DataGranularity;
+import ru.momo.monitoring.store.repositories.SensorDataRollupRepository;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class SensorDataRollupRepositoryTest {
+
+    private static final UUID SENSOR_ID = UUID.randomUUID();
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private SensorDataRollupRepository sensorDataRollupRepository;
+
+    @Test
+    void findBuckets_ShouldExcludeReadingsExactlyAtTo() {
+        // Arrange
+        LocalDateTime from = LocalDateTime.of(2025, 1, 1, 10, 0);
+        LocalDateTime to = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+        // Act
+        sensorDataRollupRepository.findBuckets(SENSOR_ID, from, to, DataGranularity.HOUR);
+
+        // Assert
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbcTemplate).query(sql.capture(), any(RowMapper.class), args.capture());
+
+        assertTrue(sql.getValue().contains("sensor_data_rollup_hour"));
+        assertFalse(sql.getValue().contains("FROM sensor_data sd"));
+        assertEquals(List.of(SENSOR_ID, from, to), Arrays.asList(args.getValue()));
+    }
+
+}
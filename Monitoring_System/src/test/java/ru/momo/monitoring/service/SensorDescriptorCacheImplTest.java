@@ -0,0 +1,209 @@
+package ru.momo.monitoring.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.momo.monitoring.services.impl.SensorDescriptorCacheImpl;
+import ru.momo.monitoring.store.entities.Sensor;
+import ru.momo.monitoring.store.entities.SensorType;
+import ru.momo.monitoring.store.entities.Technic;
+import ru.momo.monitoring.store.projection.SensorDescriptor;
+import ru.momo.monitoring.store.repositories.SensorRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SensorDescriptorCacheImplTest {
+
+    @Mock
+    private SensorRepository sensorRepository;
+
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Mock
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @InjectMocks
+    private SensorDescriptorCacheImpl sensorDescriptorCache;
+
+    private Sensor sensor;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(sensorDescriptorCache, "TTL_SECONDS", 60L);
+        ReflectionTestUtils.setField(sensorDescriptorCache, "NEGATIVE_TTL_SECONDS", 5L);
+        ReflectionTestUtils.setField(sensorDescriptorCache, "MAX_SIZE", 100);
+
+        SensorType type = new SensorType();
+        type.setId(UUID.randomUUID());
+        type.setName("Temperature");
+        type.setUnit("C");
+
+        sensor = Sensor.builder()
+                .id(UUID.randomUUID())
+                .type(type)
+                .technic(Technic.builder().id(UUID.randomUUID()).build())
+                .serialNumber("SN-1")
+                .minValue("-10,5")
+                .maxValue("")
+                .isActive(true)
+                .build();
+    }
+
+    @Test
+    void get_WhenCalledTwice_ShouldLoadFromRepositoryOnce() {
+        // Arrange
+        when(sensorRepository.findAllWithTypeAndTechnicByIdIn(anyCollection())).thenReturn(List.of(sensor));
+
+        // Act
+        Optional<SensorDescriptor> first = sensorDescriptorCache.get(sensor.getId());
+        Optional<SensorDescriptor> second = sensorDescriptorCache.get(sensor.getId());
+
+        // Assert
+        assertTrue(first.isPresent());
+        assertEquals(first, second);
+        assertEquals(-10.5, first.get().minValue());
+        assertNull(first.get().maxValue());
+        assertEquals(sensor.getTechnic().getId(), first.get().technicId());
+        assertEquals("C", first.get().unit());
+        verify(sensorRepository, times(1)).findAllWithTypeAndTechnicByIdIn(anyCollection());
+    }
+
+    @Test
+    void getAll_ShouldLoadOnlyMissingSensorsInOneQuery() {
+        // Arrange
+        UUID unknownId = UUID.randomUUID();
+        when(sensorRepository.findAllWithTypeAndTechnicByIdIn(anyCollection())).thenReturn(List.of(sensor));
+
+        // Act
+        Map<UUID, SensorDescriptor> result = sensorDescriptorCache.getAll(List.of(sensor.getId(), unknownId));
+
+        // Assert
+        assertEquals(1, result.size());
+        assertTrue(result.containsKey(sensor.getId()));
+        verify(sensorRepository).findAllWithTypeAndTechnicByIdIn(List.of(sensor.getId(), unknownId));
+    }
+
+    @Test
+    void evict_ShouldForceReloadOnNextAccess() {
+        // Arrange
+        when(sensorRepository.findAllWithTypeAndTechnicByIdIn(anyCollection())).thenReturn(List.of(sensor));
+        sensorDescriptorCache.get(sensor.getId());
+
+        // Act
+        sensorDescriptorCache.evict(sensor.getId());
+        sensorDescriptorCache.get(sensor.getId());
+
+        // Assert
+        verify(sensorRepository, times(2)).findAllWithTypeAndTechnicByIdIn(anyCollection());
+    }
+
+    @Test
+    void evictByType_ShouldRemoveSensorsOfThatType() {
+        // Arrange
+        when(sensorRepository.findAllWithTypeAndTechnicByIdIn(anyCollection())).thenReturn(List.of(sensor));
+        sensorDescriptorCache.get(sensor.getId());
+
+        // Act
+        sensorDescriptorCache.evictByType(sensor.getType().getId());
+        sensorDescriptorCache.get(sensor.getId());
+
+        // Assert
+        verify(sensorRepository, times(2)).findAllWithTypeAndTechnicByIdIn(anyCollection());
+    }
+
+    @Test
+    void getAll_WhenSensorUnknown_ShouldCacheMiss() {
+        // Arrange
+        UUID unknownId = UUID.randomUUID();
+        when(sensorRepository.findAllWithTypeAndTechnicByIdIn(anyCollection())).thenReturn(List.of());
+
+        // Act
+        Optional<SensorDescriptor> first = sensorDescriptorCache.get(unknownId);
+        Optional<SensorDescriptor> second = sensorDescriptorCache.get(unknownId);
+
+        // Assert
+        assertTrue(first.isEmpty());
+        assertTrue(second.isEmpty());
+        verify(sensorRepository, times(1)).findAllWithTypeAndTechnicByIdIn(anyCollection());
+    }
+
+    @Test
+    void get_WhenEntryExpired_ShouldReload() {
+        // Arrange
+        ReflectionTestUtils.setField(sensorDescriptorCache, "TTL_SECONDS", 0L);
+        when(sensorRepository.findAllWithTypeAndTechnicByIdIn(anyCollection())).thenReturn(List.of(sensor));
+
+        // Act
+        sensorDescriptorCache.get(sensor.getId());
+        sensorDescriptorCache.get(sensor.getId());
+
+        // Assert
+        verify(sensorRepository, times(2)).findAllWithTypeAndTechnicByIdIn(anyCollection());
+    }
+
+    @Test
+    void get_WhenEvictedWhileLoading_ShouldNotKeepLoadedDescriptor() {
+        // Arrange
+        when(sensorRepository.findAllWithTypeAndTechnicByIdIn(anyCollection())).thenAnswer(invocation -> {
+            // Изменение сенсора фиксируется, пока загрузка читает старое состояние
+            sensorDescriptorCache.evict(sensor.getId());
+            return List.of(sensor);
+        });
+
+        // Act
+        Optional<SensorDescriptor> loaded = sensorDescriptorCache.get(sensor.getId());
+        sensorDescriptorCache.get(sensor.getId());
+
+        // Assert
+        assertTrue(loaded.isPresent());
+        verify(sensorRepository, times(2)).findAllWithTypeAndTechnicByIdIn(anyCollection());
+    }
+
+    @Test
+    void evict_ShouldPublishInvalidation() {
+        // Act
+        sensorDescriptorCache.evict(sensor.getId());
+
+        // Assert
+        verify(redisTemplate).convertAndSend(eq(SensorDescriptorCacheImpl.INVALIDATION_CHANNEL), eq("sensor:" + sensor.getId()));
+    }
+
+    @Test
+    void onMessage_WhenRemoteEviction_ShouldForceReload() {
+        // Arrange
+        when(sensorRepository.findAllWithTypeAndTechnicByIdIn(anyCollection())).thenReturn(List.of(sensor));
+        sensorDescriptorCache.get(sensor.getId());
+
+        // Act
+        sensorDescriptorCache.onMessage(new DefaultMessage(
+                SensorDescriptorCacheImpl.INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                ("type:" + sensor.getType().getId()).getBytes(StandardCharsets.UTF_8)), null);
+        sensorDescriptorCache.get(sensor.getId());
+
+        // Assert
+        verify(sensorRepository, times(2)).findAllWithTypeAndTechnicByIdIn(anyCollection());
+    }
+
+}
@@ -0,0 +1,261 @@
+package ru.momo.monitoring.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.momo.monitoring.exceptions.AccessDeniedException;
+import ru.momo.monitoring.exceptions.SensorBadRequestException;
+import ru.momo.monitoring.services.SecurityService;
+import ru.momo.monitoring.services.SensorDataHistorySource;
+import ru.momo.monitoring.services.impl.SensorServiceImpl;
+import ru.momo.monitoring.store.dto.report.SensorValueStatsDto;
+import ru.momo.monitoring.store.dto.response.SensorDataHistoryPageDto;
+import ru.momo.monitoring.store.entities.Sensor;
+import ru.momo.monitoring.store.entities.User;
+import ru.momo.monitoring.store.entities.enums.AggregationType;
+import ru.momo.monitoring.store.entities.enums.DataGranularity;
+import ru.momo.monitoring.store.entities.enums.RoleName;
+import ru.momo.monitoring.store.entities.enums.SensorStatus;
+import ru.momo.monitoring.store.projection.SensorDataRollupBucket;
+import ru.momo.monitoring.store.projection.SensorPeriodStats;
+import ru.momo.monitoring.store.repositories.SensorDataJdbcRepository;
+import ru.momo.monitoring.store.repositories.SensorDataRepository;
+import ru.momo.monitoring.store.repositories.SensorDataRollupRepository;
+import ru.momo.monitoring.store.repositories.SensorDataStatsRepository;
+import ru.momo.monitoring.store.repositories.SensorRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SensorServiceImplTest {
+
+    @Mock
+    private SensorRepository sensorRepository;
+
+    @Mock
+    private SecurityService securityService;
+
+    @Mock
+    private SensorDataRepository sensorDataRepository;
+
+    @Mock
+    private SensorDataRollupRepository sensorDataRollupRepository;
+
+    @Mock
+    private SensorDataJdbcRepository sensorDataJdbcRepository;
+
+    @Mock
+    private SensorDataStatsRepository sensorDataStatsRepository;
+
+    @InjectMocks
+    private SensorServiceImpl sensorService;
+
+    private final UUID SENSOR_ID = UUID.randomUUID();
+    private final LocalDateTime FROM = LocalDateTime.of(2024, 5, 1, 0, 0);
+    private final LocalDateTime TO = LocalDateTime.of(2024, 5, 31, 0, 0);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(sensorService, "DEFAULT_HISTORY_PAGE_SIZE", 1000);
+        ReflectionTestUtils.setField(sensorService, "MAX_HISTORY_PAGE_SIZE", 10000);
+    }
+
+    private void mockAdminAccess() {
+        when(sensorRepository.findByIdOrThrow(SENSOR_ID)).thenReturn(Sensor.builder().id(SENSOR_ID).build());
+        when(securityService.getCurrentUser()).thenReturn(User.builder().role(RoleName.ROLE_ADMIN).build());
+    }
+
+    @Test
+    void getSensorDataHistoryPage_WhenRawHasMore_ShouldReturnKeysetCursor() {
+        // Arrange
+        mockAdminAccess();
+        UUID firstId = UUID.randomUUID();
+        UUID secondId = UUID.randomUUID();
+        LocalDateTime firstTs = FROM.plusSeconds(1);
+        LocalDateTime secondTs = FROM.plusSeconds(2);
+        when(sensorDataJdbcRepository.findRawHistoryPage(SENSOR_ID, FROM, TO, null, null, 2)).thenReturn(List.of(
+                new SensorDataJdbcRepository.HistoryRow(firstId, firstTs, 1.0, SensorStatus.NORMAL),
+                new SensorDataJdbcRepository.HistoryRow(secondId, secondTs, 2.0, SensorStatus.WARNING)
+        ));
+
+        // Act
+        SensorDataHistoryPageDto page = sensorService.getSensorDataHistoryPage(
+                SENSOR_ID, FROM, TO, null, null, null, 1, null);
+
+        // Assert
+        assertEquals(1, page.content().size());
+        assertEquals(firstTs, page.content().get(0).getTimestamp());
+        assertEquals(DataGranularity.RAW, page.granularity());
+        assertTrue(page.hasMore());
+        assertNotNull(page.nextCursor());
+
+        // Act
+        when(sensorDataJdbcRepository.findRawHistoryPage(SENSOR_ID, FROM, TO, firstTs, firstId, 2)).thenReturn(List.of(
+                new SensorDataJdbcRepository.HistoryRow(secondId, secondTs, 2.0, SensorStatus.WARNING)
+        ));
+        SensorDataHistoryPageDto nextPage = sensorService.getSensorDataHistoryPage(
+                SENSOR_ID, FROM, TO, null, null, page.nextCursor(), 1, null);
+
+        // Assert
+        assertEquals(1, nextPage.content().size());
+        assertEquals(secondTs, nextPage.content().get(0).getTimestamp());
+        assertFalse(nextPage.hasMore());
+        assertNull(nextPage.nextCursor());
+    }
+
+    @Test
+    void getSensorDataHistoryPage_WhenLimitExceedsMax_ShouldClampLimit() {
+        // Arrange
+        mockAdminAccess();
+        ReflectionTestUtils.setField(sensorService, "MAX_HISTORY_PAGE_SIZE", 10);
+        when(sensorDataJdbcRepository.findRawHistoryPage(eq(SENSOR_ID), eq(FROM), eq(TO), isNull(), isNull(), anyInt()))
+                .thenReturn(List.of());
+
+        // Act
+        sensorService.getSensorDataHistoryPage(SENSOR_ID, FROM, TO, null, null, null, 1_000_000, null);
+
+        // Assert
+        verify(sensorDataJdbcRepository).findRawHistoryPage(SENSOR_ID, FROM, TO, null, null, 11);
+    }
+
+    @Test
+    void getSensorDataHistoryPage_WhenCursorInvalid_ShouldThrowSensorBadRequestException() {
+        // Arrange
+        mockAdminAccess();
+
+        // Act & Assert
+        assertThrows(SensorBadRequestException.class, () -> sensorService.getSensorDataHistoryPage(
+                SENSOR_ID, FROM, TO, null, null, "not-a-cursor", 100, null));
+    }
+
+    @Test
+    void getSensorDataHistory_WhenMaxPointsSet_ShouldPickCoarserGranularity() {
+        // Arrange
+        mockAdminAccess();
+        when(sensorDataRollupRepository.estimateRowCount(SENSOR_ID, FROM, TO)).thenReturn(2_592_000L);
+        when(sensorDataRollupRepository.findBuckets(SENSOR_ID, FROM, TO, DataGranularity.HOUR)).thenReturn(List.of(
+                new SensorDataRollupBucket(FROM, 3600, 3600, 3600.0, 0.5, 1.5,
+                        0.5, SensorStatus.NORMAL, 1.5, SensorStatus.NORMAL, 0, 0)
+        ));
+
+        // Act
+        var result = sensorService.getSensorDataHistory(SENSOR_ID, FROM, TO, null, AggregationType.AVG, 1000);
+
+        // Assert
+        assertEquals(1, result.size());
+        assertEquals(1.0, result.get(0).getValue());
+        verify(sensorDataRepository, never()).findBySensorIdAndTimestampGreaterThanEqualAndTimestampLessThanOrderByTimestampAsc(any(), any(), any());
+    }
+
+    @Test
+    void getSensorDataHistory_WhenMaxPointsTooSmall_ShouldThrowSensorBadRequestException() {
+        // Arrange
+        mockAdminAccess();
+        when(sensorDataRollupRepository.estimateRowCount(SENSOR_ID, FROM, TO)).thenReturn(2_592_000L);
+
+        // Act & Assert
+        assertThrows(SensorBadRequestException.class, () -> sensorService.getSensorDataHistory(
+                SENSOR_ID, FROM, TO, DataGranularity.RAW, null, 10));
+    }
+
+    @Test
+    void getSensorDataHistoryPage_WhenAggregated_ShouldPassHalfOpenPageBounds() {
+        // Arrange
+        mockAdminAccess();
+        LocalDateTime to = FROM.plusHours(3);
+
+        // Act
+        SensorDataHistoryPageDto page = sensorService.getSensorDataHistoryPage(
+                SENSOR_ID, FROM, to, DataGranularity.HOUR, AggregationType.AVG, null, 2, null);
+        SensorDataHistoryPageDto lastPage = sensorService.getSensorDataHistoryPage(
+                SENSOR_ID, FROM, to, DataGranularity.HOUR, AggregationType.AVG, page.nextCursor(), 2, null);
+
+        // Assert
+        assertTrue(page.hasMore());
+        verify(sensorDataRollupRepository).findBuckets(SENSOR_ID, FROM, FROM.plusHours(2), DataGranularity.HOUR);
+        assertFalse(lastPage.hasMore());
+        assertNull(lastPage.nextCursor());
+        verify(sensorDataRollupRepository).findBuckets(SENSOR_ID, FROM.plusHours(2), to, DataGranularity.HOUR);
+    }
+
+    @Test
+    void getSensorDataHistoryPage_WhenManagerOfOtherCompany_ShouldThrowAccessDeniedException() {
+        // Arrange
+        when(sensorRepository.findByIdOrThrow(SENSOR_ID)).thenReturn(Sensor.builder().id(SENSOR_ID).build());
+        when(securityService.getCurrentUser()).thenReturn(User.builder().role(RoleName.ROLE_MANAGER).build());
+
+        // Act & Assert
+        assertThrows(AccessDeniedException.class, () -> sensorService.getSensorDataHistoryPage(
+                SENSOR_ID, FROM, TO, null, null, null, 100, null));
+        verify(sensorDataJdbcRepository, never()).findRawHistoryPage(any(), any(), any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void openSensorDataHistory_WhenRaw_ShouldStreamFromCursorOnlyWhenTraversed() {
+        // Arrange
+        mockAdminAccess();
+
+        // Act
+        SensorDataHistorySource source = sensorService.openSensorDataHistory(SENSOR_ID, FROM, TO, null, null);
+
+        // Assert
+        verify(sensorDataJdbcRepository, never()).streamRawHistory(any(), any(), any(), any());
+
+        // Act
+        source.forEach(point -> {
+        });
+
+        // Assert
+        verify(sensorDataJdbcRepository).streamRawHistory(eq(SENSOR_ID), eq(FROM), eq(TO), any());
+        verify(sensorDataRepository, never()).findBySensorIdAndTimestampGreaterThanEqualAndTimestampLessThanOrderByTimestampAsc(any(), any(), any());
+    }
+
+    @Test
+    void openSensorDataHistory_WhenManagerOfOtherCompany_ShouldThrowBeforeReadingData() {
+        // Arrange
+        when(sensorRepository.findByIdOrThrow(SENSOR_ID)).thenReturn(Sensor.builder().id(SENSOR_ID).build());
+        when(securityService.getCurrentUser()).thenReturn(User.builder().role(RoleName.ROLE_MANAGER).build());
+
+        // Act & Assert
+        assertThrows(AccessDeniedException.class, () -> sensorService.openSensorDataHistory(SENSOR_ID, FROM, TO, null, null));
+        verify(sensorDataJdbcRepository, never()).streamRawHistory(any(), any(), any(), any());
+    }
+
+    @Test
+    void getSensorValueStatisticsForPeriod_WhenSensorExists_ShouldUseSingleStatsQuery() {
+        // Arrange
+        when(sensorRepository.existsById(SENSOR_ID)).thenReturn(true);
+        when(sensorDataStatsRepository.findStats(SENSOR_ID, FROM, TO)).thenReturn(new SensorPeriodStats(
+                SENSOR_ID, 10, 9, 1.0, 9.0, 5.0, 7.0, SensorStatus.WARNING, 2, 1));
+
+        // Act
+        SensorValueStatsDto result = sensorService.getSensorValueStatisticsForPeriod(SENSOR_ID, FROM, TO);
+
+        // Assert
+        assertEquals(1.0, result.getMinValue());
+        assertEquals(9.0, result.getMaxValue());
+        assertEquals(5.0, result.getAvgValue());
+        assertEquals(7.0, result.getLastValue());
+    }
+
+}
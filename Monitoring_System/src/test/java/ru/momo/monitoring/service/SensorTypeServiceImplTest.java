@@ -10,6 +10,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import ru.momo.monitoring.exceptions.EntityDuplicationException;
 import ru.momo.monitoring.exceptions.ResourceNotFoundException;
 import ru.momo.monitoring.exceptions.SensorBadRequestException;
+import ru.momo.monitoring.services.SensorDescriptorCache;
 import ru.momo.monitoring.services.SensorService;
 import ru.momo.monitoring.services.impl.SensorTypeServiceImpl;
 import ru.momo.monitoring.store.dto.request.CreateSensorTypeRequest;
@@ -47,6 +48,9 @@ class SensorTypeServiceImplTest {
     @Mock
     private SensorService sensorService;
 
+    @Mock
+    private SensorDescriptorCache sensorDescriptorCache;
+
     @InjectMocks
     private SensorTypeServiceImpl sensorTypeService;
 
@@ -260,6 +264,7 @@ class SensorTypeServiceImplTest {
         assertEquals(Map.of("new_key", "new_value"), result.getMetadata());
 
         verify(sensorTypeRepository).save(existingEntity);
+        verify(sensorDescriptorCache).evictByType(TEST_ID);
         assertEquals("Новое имя", existingEntity.getName());
     }
 
@@ -0,0 +1,110 @@
+package ru.momo.monitoring.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.momo.monitoring.security.AuthenticatedUser;
+import ru.momo.monitoring.security.StompSubscriptionAuthorizer;
+import ru.momo.monitoring.services.SensorDescriptorCache;
+import ru.momo.monitoring.store.entities.enums.RoleName;
+import ru.momo.monitoring.store.projection.SensorDescriptor;
+import ru.momo.monitoring.store.repositories.TechnicRepository;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class StompSubscriptionAuthorizerTest {
+
+    @Mock
+    private TechnicRepository technicRepository;
+
+    @Mock
+    private SensorDescriptorCache sensorDescriptorCache;
+
+    @InjectMocks
+    private StompSubscriptionAuthorizer subscriptionAuthorizer;
+
+    private final UUID companyId = UUID.randomUUID();
+    private final UUID technicId = UUID.randomUUID();
+    private final UUID sensorId = UUID.randomUUID();
+
+    private AuthenticatedUser user(RoleName role, UUID userCompanyId) {
+        return new AuthenticatedUser(UUID.randomUUID(), role.name() + "@example.com", role, userCompanyId, true, true);
+    }
+
+    private SensorDescriptor sensor() {
+        return new SensorDescriptor(sensorId, "SN-1", 0.0, 100.0, true, technicId, companyId,
+                UUID.randomUUID(), "Датчик температуры", "°C");
+    }
+
+    @Test
+    void canSubscribe_WhenAnonymous_ShouldDenyScopedTopics() {
+        // Act & Assert
+        assertFalse(subscriptionAuthorizer.canSubscribe(null, "/topic/company/" + companyId + "/status"));
+        assertFalse(subscriptionAuthorizer.canSubscribe(null, "/topic/technic/" + technicId + "/data"));
+        assertFalse(subscriptionAuthorizer.canSubscribe(null, "/topic/sensor/" + sensorId + "/data"));
+        verifyNoInteractions(technicRepository, sensorDescriptorCache);
+    }
+
+    @Test
+    void canSubscribe_WhenManager_ShouldAllowOnlyOwnCompany() {
+        // Arrange
+        AuthenticatedUser manager = user(RoleName.ROLE_MANAGER, companyId);
+
+        // Act & Assert
+        assertTrue(subscriptionAuthorizer.canSubscribe(manager, "/topic/company/" + companyId + "/status"));
+        assertFalse(subscriptionAuthorizer.canSubscribe(manager, "/topic/company/" + UUID.randomUUID() + "/status"));
+    }
+
+    @Test
+    void canSubscribe_WhenDriver_ShouldDenyCompanyTopicAndAllowOwnTechnicAndItsSensors() {
+        // Arrange
+        AuthenticatedUser driver = user(RoleName.ROLE_DRIVER, companyId);
+        when(technicRepository.existsByIdAndOwnerId_Id(technicId, driver.id())).thenReturn(true);
+        when(sensorDescriptorCache.get(sensorId)).thenReturn(Optional.of(sensor()));
+
+        // Act & Assert
+        assertFalse(subscriptionAuthorizer.canSubscribe(driver, "/topic/company/" + companyId + "/status"));
+        assertTrue(subscriptionAuthorizer.canSubscribe(driver, "/topic/technic/" + technicId + "/data"));
+        assertTrue(subscriptionAuthorizer.canSubscribe(driver, "/topic/sensor/" + sensorId + "/data"));
+    }
+
+    @Test
+    void canSubscribe_WhenManagerOfOtherCompany_ShouldDenyTechnicAndSensor() {
+        // Arrange
+        AuthenticatedUser manager = user(RoleName.ROLE_MANAGER, UUID.randomUUID());
+        when(technicRepository.existsByIdAndCompanyId(technicId, manager.companyId())).thenReturn(false);
+        when(sensorDescriptorCache.get(sensorId)).thenReturn(Optional.of(sensor()));
+
+        // Act & Assert
+        assertFalse(subscriptionAuthorizer.canSubscribe(manager, "/topic/technic/" + technicId + "/data"));
+        assertFalse(subscriptionAuthorizer.canSubscribe(manager, "/topic/sensor/" + sensorId + "/data"));
+    }
+
+    @Test
+    void canSubscribe_WhenPatternDestination_ShouldAllowOnlyAdmin() {
+        // Arrange
+        AuthenticatedUser manager = user(RoleName.ROLE_MANAGER, companyId);
+        AuthenticatedUser admin = user(RoleName.ROLE_ADMIN, null);
+
+        // Act & Assert
+        assertFalse(subscriptionAuthorizer.canSubscribe(manager, "/topic/company/*/status"));
+        assertFalse(subscriptionAuthorizer.canSubscribe(manager, "/topic/**"));
+        assertTrue(subscriptionAuthorizer.canSubscribe(admin, "/topic/**"));
+        assertTrue(subscriptionAuthorizer.canSubscribe(admin, "/topic/company/" + companyId + "/status"));
+    }
+
+    @Test
+    void canSubscribe_WhenScopeIdIsNotUuid_ShouldDeny() {
+        // Act & Assert
+        assertFalse(subscriptionAuthorizer.canSubscribe(user(RoleName.ROLE_ADMIN, null), "/topic/company/not-a-uuid/status"));
+    }
+}
@@ -0,0 +1,83 @@
+package ru.momo.monitoring.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import ru.momo.monitoring.security.JwtProperties;
+import ru.momo.monitoring.security.TokenRevocationList;
+
+import java.util.Date;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TokenRevocationListTest {
+
+    private static final String EMAIL = "driver@example.com";
+
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Mock
+    private ZSetOperations<String, String> zSetOperations;
+
+    private TokenRevocationList tokenRevocationList;
+
+    @BeforeEach
+    void setUp() {
+        JwtProperties jwtProperties = new JwtProperties();
+        jwtProperties.setAccess(1L);
+        tokenRevocationList = new TokenRevocationList(redisTemplate, jwtProperties);
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+    }
+
+    @Test
+    void syncRevocations_WhenInvalidationMessageWasLost_ShouldPickUpRevocationFromRedis() {
+        // Arrange
+        long revokedAt = System.currentTimeMillis();
+        Date issuedBefore = new Date(revokedAt - 1000);
+        when(zSetOperations.rangeByScoreWithScores(eq(TokenRevocationList.REVOKED_USERS_KEY), anyDouble(), anyDouble()))
+                .thenReturn(Set.of())
+                .thenReturn(Set.of(new DefaultTypedTuple<>(EMAIL, (double) revokedAt)));
+        tokenRevocationList.loadRecentRevocations();
+        assertFalse(tokenRevocationList.isRevoked(EMAIL, issuedBefore));
+
+        // Act
+        tokenRevocationList.syncRevocations();
+
+        // Assert
+        assertTrue(tokenRevocationList.isRevoked(EMAIL, issuedBefore));
+    }
+
+    @Test
+    void syncRevocations_WhenPersistFailed_ShouldRetryWriteToRedis() {
+        // Arrange
+        long revokedAt = System.currentTimeMillis();
+        doThrow(new RedisConnectionFailureException("Redis is down"))
+                .doReturn(true)
+                .when(zSetOperations).add(TokenRevocationList.REVOKED_USERS_KEY, EMAIL, revokedAt);
+        tokenRevocationList.revoke(EMAIL, revokedAt);
+
+        // Act
+        tokenRevocationList.syncRevocations();
+        tokenRevocationList.syncRevocations();
+
+        // Assert
+        verify(zSetOperations, times(2)).add(TokenRevocationList.REVOKED_USERS_KEY, EMAIL, (double) revokedAt);
+        assertTrue(tokenRevocationList.isRevoked(EMAIL, new Date(revokedAt - 1000)));
+    }
+}
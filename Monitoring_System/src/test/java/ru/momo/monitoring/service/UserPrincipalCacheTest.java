@@ -0,0 +1,118 @@
+package ru.momo.monitoring.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.momo.monitoring.security.AuthenticatedUser;
+import ru.momo.monitoring.security.TokenRevocationList;
+import ru.momo.monitoring.security.UserPrincipalCache;
+import ru.momo.monitoring.store.entities.User;
+import ru.momo.monitoring.store.entities.enums.RoleName;
+import ru.momo.monitoring.store.repositories.UserRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.endsWith;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UserPrincipalCacheTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Mock
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Mock
+    private TokenRevocationList tokenRevocationList;
+
+    private UserPrincipalCache userPrincipalCache;
+
+    private final String EMAIL = "driver@momo.ru";
+    private final User USER = User.builder()
+            .id(UUID.randomUUID())
+            .email(EMAIL)
+            .role(RoleName.ROLE_DRIVER)
+            .isActive(true)
+            .isConfirmed(true)
+            .build();
+
+    @BeforeEach
+    void setUp() {
+        userPrincipalCache = new UserPrincipalCache(userRepository, redisTemplate, redisMessageListenerContainer, tokenRevocationList);
+        ReflectionTestUtils.setField(userPrincipalCache, "TTL_SECONDS", 60L);
+        ReflectionTestUtils.setField(userPrincipalCache, "MAX_SIZE", 100);
+    }
+
+    @Test
+    void get_WhenCalledRepeatedly_ShouldLoadUserOnce() {
+        // Arrange
+        when(userRepository.findByEmailOrThrow(EMAIL)).thenReturn(USER);
+
+        // Act
+        AuthenticatedUser first = userPrincipalCache.get(EMAIL);
+        AuthenticatedUser second = userPrincipalCache.get(EMAIL);
+
+        // Assert
+        assertEquals(USER.getId(), first.id());
+        assertTrue(first.isEnabled());
+        assertTrue(first.confirmed());
+        assertEquals("ROLE_DRIVER", first.getAuthorities().iterator().next().getAuthority());
+        assertEquals(first, second);
+        verify(userRepository, times(1)).findByEmailOrThrow(EMAIL);
+    }
+
+    @Test
+    void evict_ShouldReloadUserAndNotifyOtherInstances() {
+        // Arrange
+        when(userRepository.findByEmailOrThrow(EMAIL)).thenReturn(USER);
+        userPrincipalCache.get(EMAIL);
+        USER.setIsActive(false);
+
+        // Act
+        userPrincipalCache.evict(EMAIL);
+        AuthenticatedUser reloaded = userPrincipalCache.get(EMAIL);
+
+        // Assert
+        assertFalse(reloaded.isEnabled());
+        verify(userRepository, times(2)).findByEmailOrThrow(EMAIL);
+        verify(tokenRevocationList).revoke(eq(EMAIL), anyLong());
+        verify(redisTemplate).convertAndSend(eq(UserPrincipalCache.INVALIDATION_CHANNEL), endsWith(":" + EMAIL));
+    }
+
+    @Test
+    void onMessage_ShouldEvictUserInvalidatedByAnotherInstance() {
+        // Arrange
+        when(userRepository.findByEmailOrThrow(EMAIL)).thenReturn(USER);
+        userPrincipalCache.get(EMAIL);
+
+        // Act
+        userPrincipalCache.onMessage(new DefaultMessage(
+                UserPrincipalCache.INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                ("1717200000000:" + EMAIL).getBytes(StandardCharsets.UTF_8)), null);
+        userPrincipalCache.get(EMAIL);
+
+        // Assert
+        verify(userRepository, times(2)).findByEmailOrThrow(EMAIL);
+        verify(tokenRevocationList).record(EMAIL, 1717200000000L);
+    }
+
+}
@@ -1,28 +1,43 @@
 package ru.momo.monitoring.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.MimeTypeUtils;
+import ru.momo.monitoring.config.SchedulingConfig;
+import ru.momo.monitoring.config.WebSocketPushProperties;
+import ru.momo.monitoring.services.impl.RedisWebSocketFanout;
+import ru.momo.monitoring.services.impl.LocalWebSocketFanout;
 import ru.momo.monitoring.services.impl.WebSocketDataPushServiceImpl;
+import ru.momo.monitoring.services.impl.WebSocketSubscriptionTracker;
 import ru.momo.monitoring.store.dto.response.SensorDataRealtimeDto;
+import ru.momo.monitoring.store.entities.enums.RealtimeCoalesceMode;
 import ru.momo.monitoring.store.entities.enums.SensorStatus;
 
 import java.time.LocalDateTime;
-import java.util.Optional;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.mockito.Mockito.any;
-import static org.mockito.Mockito.anyString;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
-import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class WebSocketDataPushServiceImplTest {
@@ -30,77 +45,234 @@ class WebSocketDataPushServiceImplTest {
     @Mock
     private SimpMessagingTemplate messagingTemplate;
 
-    @InjectMocks
+    @Mock
+    private WebSocketSubscriptionTracker subscriptionTracker;
+
+    private final WebSocketPushProperties pushProperties = new WebSocketPushProperties();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
     private WebSocketDataPushServiceImpl webSocketDataPushService;
 
-    @Test
-    void pushSpecificSensorData_WhenValidInput_ShouldCallConvertAndSendWithCorrectParameters() {
-        // Arrange
-        UUID sensorId = UUID.randomUUID();
-        SensorDataRealtimeDto dto = SensorDataRealtimeDto.builder()
+    private final UUID sensorId = UUID.randomUUID();
+    private final UUID secondSensorId = UUID.randomUUID();
+    private final UUID technicId = UUID.randomUUID();
+    private final UUID companyId = UUID.randomUUID();
+    private final String destination = "/topic/sensor/" + sensorId + "/data";
+    private final String technicDestination = "/topic/technic/" + technicId + "/data";
+    private final String companyDestination = "/topic/company/" + companyId + "/status";
+
+    @BeforeEach
+    void setUp() {
+        webSocketDataPushService = new WebSocketDataPushServiceImpl(
+                messagingTemplate, subscriptionTracker, pushProperties, objectMapper, new LocalWebSocketFanout());
+        webSocketDataPushService.subscribeToFanout();
+    }
+
+    private SensorDataRealtimeDto reading(String value) {
+        return SensorDataRealtimeDto.builder()
                 .sensorId(sensorId)
-                .value("25.5")
-                .timestamp(LocalDateTime.now())
+                .value(value)
+                .timestamp(LocalDateTime.of(2024, 5, 14, 10, 30))
                 .status(SensorStatus.NORMAL)
                 .build();
-        String expectedDestination = "/topic/sensor/" + sensorId + "/data";
+    }
+
+    private SensorDataRealtimeDto fleetReading(UUID id, String value, SensorStatus status) {
+        return SensorDataRealtimeDto.builder()
+                .sensorId(id)
+                .technicId(technicId)
+                .companyId(companyId)
+                .value(value)
+                .timestamp(LocalDateTime.of(2024, 5, 14, 10, 30))
+                .status(status)
+                .build();
+    }
+
+    private void subscribeOnlyTo(String subscribedDestination) {
+        when(subscriptionTracker.hasSubscribers(anyString()))
+                .thenAnswer(invocation -> subscribedDestination.equals(invocation.getArgument(0)));
+    }
+
+    private JsonNode sentPayload(int times) throws Exception {
+        return sentPayload(destination, times);
+    }
+
+    @SuppressWarnings("unchecked")
+    private JsonNode sentPayload(String destination, int times) throws Exception {
+        ArgumentCaptor<Message<?>> messageCaptor = ArgumentCaptor.forClass(Message.class);
+        verify(messagingTemplate, times(times)).send(eq(destination), messageCaptor.capture());
+        Message<?> message = messageCaptor.getValue();
+        assertEquals(MimeTypeUtils.APPLICATION_JSON, message.getHeaders().get(MessageHeaders.CONTENT_TYPE));
+        return objectMapper.readTree((byte[]) message.getPayload());
+    }
+
+    @Test
+    void pushSpecificSensorData_WhenNoSubscribers_ShouldNotSerializeOrSend() {
+        // Arrange
+        when(subscriptionTracker.hasSubscribers(destination)).thenReturn(false);
 
         // Act
-        webSocketDataPushService.pushSpecificSensorData(sensorId, dto);
+        webSocketDataPushService.pushSpecificSensorData(sensorId, reading("25.5"));
+        webSocketDataPushService.flushPending();
 
         // Assert
-        ArgumentCaptor<String> destinationCaptor = ArgumentCaptor.forClass(String.class);
-        ArgumentCaptor<Object> payloadCaptor = ArgumentCaptor.forClass(Object.class);
+        verifyNoInteractions(messagingTemplate);
+    }
 
-        verify(messagingTemplate).convertAndSend(destinationCaptor.capture(), payloadCaptor.capture());
+    @Test
+    void pushSpecificSensorData_WhenModeIsNone_ShouldSendSerializedPayloadImmediately() throws Exception {
+        // Arrange
+        pushProperties.setCoalesceMode(RealtimeCoalesceMode.NONE);
+        when(subscriptionTracker.hasSubscribers(destination)).thenReturn(true);
+
+        // Act
+        webSocketDataPushService.pushSpecificSensorData(sensorId, reading("25.5"));
 
-        assertEquals(expectedDestination, destinationCaptor.getValue());
-        assertEquals(dto, payloadCaptor.getValue());
+        // Assert
+        JsonNode payload = sentPayload(1);
+        assertEquals(sensorId.toString(), payload.get("sensorId").asText());
+        assertEquals("25.5", payload.get("value").asText());
+        assertFalse(payload.has("samples"));
     }
 
     @Test
-    void pushSpecificSensorData_WhenSensorIdIsNull_ShouldLogWarningAndNotCallConvertAndSend() {
+    void flushPending_WhenModeIsLatest_ShouldSendOnlyLastReadingOfWindow() throws Exception {
         // Arrange
-        SensorDataRealtimeDto dto = SensorDataRealtimeDto.builder().value("22.0").build();
+        when(subscriptionTracker.hasSubscribers(destination)).thenReturn(true);
+        webSocketDataPushService.pushSpecificSensorData(sensorId, reading("25.5"));
+        webSocketDataPushService.pushSpecificSensorData(sensorId, reading("26.0"));
+        verify(messagingTemplate, never()).send(anyString(), any());
 
         // Act
-        webSocketDataPushService.pushSpecificSensorData(null, dto);
+        webSocketDataPushService.flushPending();
+        webSocketDataPushService.flushPending();
 
         // Assert
-        verify(messagingTemplate, never()).convertAndSend(anyString(), Optional.ofNullable(any()));
+        JsonNode payload = sentPayload(1);
+        assertEquals("26.0", payload.get("value").asText());
     }
 
     @Test
-    void pushSpecificSensorData_WhenDtoIsNull_ShouldLogWarningAndNotCallConvertAndSend() {
+    void flushPending_WhenModeIsMinMaxLast_ShouldSendWindowStatistics() throws Exception {
         // Arrange
-        UUID sensorId = UUID.randomUUID();
+        pushProperties.setCoalesceMode(RealtimeCoalesceMode.MIN_MAX_LAST);
+        when(subscriptionTracker.hasSubscribers(destination)).thenReturn(true);
+        webSocketDataPushService.pushSpecificSensorData(sensorId, reading("25.5"));
+        webSocketDataPushService.pushSpecificSensorData(sensorId, reading("21.0"));
+        webSocketDataPushService.pushSpecificSensorData(sensorId, reading("23.0"));
 
+        // Act
+        webSocketDataPushService.flushPending();
+
+        // Assert
+        JsonNode payload = sentPayload(1);
+        assertEquals("23.0", payload.get("value").asText());
+        assertEquals(21.0, payload.get("minValue").asDouble());
+        assertEquals(25.5, payload.get("maxValue").asDouble());
+        assertEquals(3, payload.get("samples").asInt());
+    }
+
+    @Test
+    void pushSpecificSensorData_WhenSensorIdIsNull_ShouldNotSend() {
+        // Act
+        webSocketDataPushService.pushSpecificSensorData(null, reading("22.0"));
+
+        // Assert
+        verifyNoInteractions(messagingTemplate, subscriptionTracker);
+    }
+
+    @Test
+    void pushSpecificSensorData_WhenDtoIsNull_ShouldNotSend() {
         // Act
         webSocketDataPushService.pushSpecificSensorData(sensorId, null);
 
         // Assert
-        verify(messagingTemplate, never()).convertAndSend(anyString(), Optional.ofNullable(any()));
+        verifyNoInteractions(messagingTemplate, subscriptionTracker);
     }
 
     @Test
-    void pushSpecificSensorData_WhenConvertAndSendThrowsException_ShouldLogErrorAndNotPropagateException() {
+    void pushSpecificSensorData_WhenSendThrowsException_ShouldNotPropagateException() {
         // Arrange
-        UUID sensorId = UUID.randomUUID();
-        SensorDataRealtimeDto dto = SensorDataRealtimeDto.builder()
-                .sensorId(sensorId)
-                .value("25.5")
-                .timestamp(LocalDateTime.now())
-                .status(SensorStatus.NORMAL)
-                .build();
-        String expectedDestination = "/topic/sensor/" + sensorId + "/data";
-
+        pushProperties.setCoalesceMode(RealtimeCoalesceMode.NONE);
+        when(subscriptionTracker.hasSubscribers(destination)).thenReturn(true);
         doThrow(new RuntimeException("Simulated messaging error"))
-                .when(messagingTemplate)
-                .convertAndSend(eq(expectedDestination), eq(dto));
+                .when(messagingTemplate).send(eq(destination), any());
 
         // Act & Assert
-        assertDoesNotThrow(() -> webSocketDataPushService.pushSpecificSensorData(sensorId, dto));
+        assertDoesNotThrow(() -> webSocketDataPushService.pushSpecificSensorData(sensorId, reading("25.5")));
+    }
+
+    @Test
+    void flushPending_WhenTechnicTopicSubscribed_ShouldSendOneFrameWithLatestReadingPerSensor() throws Exception {
+        // Arrange
+        subscribeOnlyTo(technicDestination);
+        webSocketDataPushService.pushSpecificSensorData(sensorId, fleetReading(sensorId, "25.5", SensorStatus.NORMAL));
+        webSocketDataPushService.pushSpecificSensorData(secondSensorId, fleetReading(secondSensorId, "80.0", SensorStatus.NORMAL));
+        webSocketDataPushService.pushSpecificSensorData(sensorId, fleetReading(sensorId, "26.0", SensorStatus.NORMAL));
+
+        // Act
+        webSocketDataPushService.flushPending();
+
+        // Assert
+        JsonNode frame = sentPayload(technicDestination, 1);
+        assertEquals(technicId.toString(), frame.get("technicId").asText());
+        JsonNode readings = frame.get("readings");
+        assertEquals(2, readings.size());
+        assertEquals(sensorId.toString(), readings.get(0).get("sensorId").asText());
+        assertEquals("26.0", readings.get(0).get("value").asText());
+        assertEquals("80.0", readings.get(1).get("value").asText());
+        verify(messagingTemplate, never()).send(eq(destination), any());
+    }
+
+    @Test
+    void flushPending_WhenCompanyTopicSubscribed_ShouldSendOnlyStatusChanges() throws Exception {
+        // Arrange
+        subscribeOnlyTo(companyDestination);
+        webSocketDataPushService.pushSpecificSensorData(sensorId, fleetReading(sensorId, "25.5", SensorStatus.NORMAL));
+        webSocketDataPushService.pushSpecificSensorData(secondSensorId, fleetReading(secondSensorId, "80.0", SensorStatus.NORMAL));
+        webSocketDataPushService.flushPending();
+        webSocketDataPushService.pushSpecificSensorData(sensorId, fleetReading(sensorId, "25.6", SensorStatus.NORMAL));
+        webSocketDataPushService.pushSpecificSensorData(secondSensorId, fleetReading(secondSensorId, "99.0", SensorStatus.CRITICAL));
+
+        // Act
+        webSocketDataPushService.flushPending();
+
+        // Assert
+        ArgumentCaptor<Message<?>> messageCaptor = ArgumentCaptor.forClass(Message.class);
+        verify(messagingTemplate, times(2)).send(eq(companyDestination), messageCaptor.capture());
+        JsonNode delta = objectMapper.readTree((byte[]) messageCaptor.getValue().getPayload());
+        assertEquals(companyId.toString(), delta.get("companyId").asText());
+        JsonNode changes = delta.get("changes");
+        assertEquals(1, changes.size());
+        assertEquals(secondSensorId.toString(), changes.get(0).get("sensorId").asText());
+        assertEquals("NORMAL", changes.get(0).get("previousStatus").asText());
+        assertEquals("CRITICAL", changes.get(0).get("status").asText());
+    }
+
+    @Test
+    void flushPending_WhenStatusReturnsToPreviousWithinWindow_ShouldNotSendCompanyDelta() {
+        // Arrange
+        webSocketDataPushService.pushSpecificSensorData(sensorId, fleetReading(sensorId, "25.5", SensorStatus.NORMAL));
+        subscribeOnlyTo(companyDestination);
+        webSocketDataPushService.pushSpecificSensorData(sensorId, fleetReading(sensorId, "99.0", SensorStatus.CRITICAL));
+        webSocketDataPushService.pushSpecificSensorData(sensorId, fleetReading(sensorId, "25.7", SensorStatus.NORMAL));
 
-        verify(messagingTemplate).convertAndSend(eq(expectedDestination), eq(dto));
+        // Act
+        webSocketDataPushService.flushPending();
+
+        // Assert
+        verify(messagingTemplate, never()).send(anyString(), any());
+    }
+
+    @Test
+    void flushes_ShouldRunOnDedicatedPushScheduler() throws NoSuchMethodException {
+        // Act
+        Scheduled push = WebSocketDataPushServiceImpl.class.getMethod("flushPending").getAnnotation(Scheduled.class);
+        Scheduled fanout = RedisWebSocketFanout.class.getMethod("flushOutbound").getAnnotation(Scheduled.class);
+
+        // Assert
+        assertEquals(SchedulingConfig.WEBSOCKET_PUSH_SCHEDULER, push.scheduler());
+        assertEquals(SchedulingConfig.WEBSOCKET_PUSH_SCHEDULER, fanout.scheduler());
     }
-}
\ No newline at end of file
+}